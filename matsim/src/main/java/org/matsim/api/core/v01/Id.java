@@ -39,7 +39,7 @@ import org.matsim.vehicles.Vehicle;
  */
 public abstract class Id<T> implements Comparable<Id<T>> {
 
-	private final static Map<Class<?>, Map<String, Id<?>>> cache = new ConcurrentHashMap<Class<?>, Map<String, Id<?>>>();
+	private final static Map<Class<?>, IdCache<?>> cache = new ConcurrentHashMap<Class<?>, IdCache<?>>();
 	
 	
 	public static <T> Id<T> create(final long key, final Class<T> type) {
@@ -54,22 +54,66 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	}
 	
 	/**
-	 * This method supports a cache where ids are stored and re-used per type.   
+	 * This method supports a cache where ids are stored and re-used per type.
+	 * Every newly created id gets the next free {@link #index()} of its type.
 	 */
 	public static <T> Id<T> create(final String key, final Class<T> type) {
-		Map<String, Id<?>> map = cache.get(type);
-		if (map == null) {
-			map = new ConcurrentHashMap<String, Id<?>>();
-			cache.put(type, map);
-		}
-		Id<?> id = map.get(key);
+		IdCache<T> idCache = getCache(type);
+		Id<T> id = idCache.ids.get(key);
 		if (id == null) {
-			id = new IdImpl<T>(key);
-			map.put(key, id);
+			id = idCache.create(key);
 		}
-		
-		return (Id<T>) id;
+		return id;
+	}
+
+	/**
+	 * @return the already existing id with the given key and type, or <code>null</code> if no such id was created so far.
+	 */
+	public static <T> Id<T> get(final String key, final Class<T> type) {
+		IdCache<T> idCache = getCache(type);
+		return idCache.ids.get(key);
+	}
+
+	/**
+	 * @return the id of the given type with the given index
+	 * 
+	 * @throws IndexOutOfBoundsException if no id of the given type has this index
+	 */
+	public static <T> Id<T> get(final int index, final Class<T> type) {
+		return getCache(type).get(index);
+	}
+
+	/**
+	 * @return the number of ids created so far for the given type. All ids of this type have an
+	 * {@link #index()} smaller than this number, so it can be used to size arrays indexed by id.
+	 */
+	public static <T> int getNumberOfIds(final Class<T> type) {
+		return getCache(type).size();
 	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> IdCache<T> getCache(final Class<T> type) {
+		IdCache<?> idCache = cache.get(type);
+		if (idCache == null) {
+			synchronized (cache) {
+				idCache = cache.get(type);
+				if (idCache == null) {
+					idCache = new IdCache<T>();
+					cache.put(type, idCache);
+				}
+			}
+		}
+		return (IdCache<T>) idCache;
+	}
+
+	/**
+	 * Returns the index of this id. Indices are assigned per type in the order the ids are created,
+	 * starting with 0, and are thus dense: they can be used to store data per id in an array instead
+	 * of a hash map, see {@link IdMap} and {@link IdSet}.
+	 * 
+	 * @return the index of this id within its type
+	 */
+	public abstract int index();
 	
 	/**
 	 * @return <code>0</code> when the two objects being compared are the same objects, other values according to their ids being compared to each other.
@@ -111,9 +155,16 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	private static class IdImpl<T> extends Id<T> {
 
 		private final String id; 
+		private final int index;
 		
-		/*package*/ IdImpl(final String id) {
+		/*package*/ IdImpl(final String id, final int index) {
 			this.id = id;
+			this.index = index;
+		}
+
+		@Override
+		public int index() {
+			return this.index;
 		}
 
 		@Override
@@ -127,6 +178,55 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 		}
 	}
 
+	/**
+	 * Stores all ids of one type, both by their key and by their index.
+	 * Lookups by key do not need any locking, only the creation of new ids is synchronized
+	 * so that every id gets a unique index.
+	 * 
+	 * @param <T>
+	 */
+	private static class IdCache<T> {
+
+		private final Map<String, Id<T>> ids = new ConcurrentHashMap<String, Id<T>>();
+		private volatile Id<T>[] idsByIndex = newArray(1000);
+		private volatile int size = 0;
+
+		/*package*/ synchronized Id<T> create(final String key) {
+			Id<T> id = this.ids.get(key);
+			if (id == null) {
+				int index = this.size;
+				Id<T>[] byIndex = this.idsByIndex;
+				if (index == byIndex.length) {
+					Id<T>[] tmp = newArray(byIndex.length * 2);
+					System.arraycopy(byIndex, 0, tmp, 0, byIndex.length);
+					byIndex = tmp;
+				}
+				id = new IdImpl<T>(key, index);
+				byIndex[index] = id;
+				this.idsByIndex = byIndex;
+				this.size = index + 1;
+				this.ids.put(key, id);
+			}
+			return id;
+		}
+
+		/*package*/ Id<T> get(final int index) {
+			if (index < 0 || index >= this.size) {
+				throw new IndexOutOfBoundsException("No id with index " + index + ", number of ids: " + this.size);
+			}
+			return this.idsByIndex[index];
+		}
+
+		/*package*/ int size() {
+			return this.size;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <T> Id<T>[] newArray(final int length) {
+			return (Id<T>[]) new Id<?>[length];
+		}
+	}
+
 	// helper classes for some common cases:
 	public static Id<Person> createPersonId( final long key ) {
 		return create( key, Person.class ) ;
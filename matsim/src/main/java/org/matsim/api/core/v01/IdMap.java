@@ -0,0 +1,308 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IdMap.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map using {@link Id}s as keys, backed by plain arrays indexed by {@link Id#index()}.
+ * Lookups and updates do not need any hashing and there are no entry objects per mapping,
+ * which makes this map both faster and considerably smaller than a {@link java.util.HashMap}
+ * when most ids of a type are used as keys, e.g. for storing data per link or per person.
+ *
+ * Iteration returns the entries ordered by the index of their ids, i.e. in the order the ids were created.
+ * The map is not synchronized.
+ *
+ * @param <T> the type of the ids used as keys
+ * @param <V> the type of the values
+ */
+public class IdMap<T, V> extends AbstractMap<Id<T>, V> {
+
+	private final Class<T> idClass;
+	private Id<T>[] keys;
+	private Object[] values;
+	private int size = 0;
+	private int modCount = 0;
+
+	public IdMap(final Class<T> idClass) {
+		this(idClass, Math.max(Id.getNumberOfIds(idClass), 16));
+	}
+
+	@SuppressWarnings("unchecked")
+	public IdMap(final Class<T> idClass, final int initialCapacity) {
+		this.idClass = idClass;
+		this.keys = (Id<T>[]) new Id<?>[initialCapacity];
+		this.values = new Object[initialCapacity];
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public boolean containsValue(final Object value) {
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] != null) {
+				Object v = this.values[i];
+				if (value == null ? v == null : value.equals(v)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(final Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : (V) this.values[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V put(final Id<T> key, final V value) {
+		Id<T> id = canonical(key);
+		int index = id.index();
+		ensureCapacity(index + 1);
+		Object oldValue = this.values[index];
+		this.values[index] = value;
+		if (this.keys[index] == null) {
+			this.keys[index] = id;
+			this.size++;
+			this.modCount++;
+			return null;
+		}
+		return (V) oldValue;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V remove(final Object key) {
+		int index = indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+		Object oldValue = this.values[index];
+		this.keys[index] = null;
+		this.values[index] = null;
+		this.size--;
+		this.modCount++;
+		return (V) oldValue;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < this.keys.length; i++) {
+			this.keys[i] = null;
+			this.values[i] = null;
+		}
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Set<Entry<Id<T>, V>> entrySet() {
+		return new EntrySet();
+	}
+
+	/**
+	 * @return the position of the given key in the arrays, or <code>-1</code> if it is not contained in this map.
+	 */
+	private int indexOf(final Object key) {
+		if (!(key instanceof Id)) {
+			return -1;
+		}
+		Id<?> id = (Id<?>) key;
+		int index = id.index();
+		if (index < this.keys.length && this.keys[index] == id) {
+			return index;
+		}
+		/* Ids of different types but with the same key are considered equal (see Id.equals()),
+		 * so look up the corresponding id of our type before giving up. */
+		Id<T> ownId = Id.get(id.toString(), this.idClass);
+		if (ownId == null || ownId == id) {
+			return -1;
+		}
+		index = ownId.index();
+		if (index < this.keys.length && this.keys[index] == ownId) {
+			return index;
+		}
+		return -1;
+	}
+
+	/**
+	 * Makes sure the key used for storing data in this map is an id of this map's type,
+	 * so that its index is the one of this type.
+	 */
+	private Id<T> canonical(final Id<T> key) {
+		int index = key.index();
+		if (index < this.keys.length && this.keys[index] == key) {
+			return key;
+		}
+		return Id.create(key.toString(), this.idClass);
+	}
+
+	private void ensureCapacity(final int minCapacity) {
+		if (minCapacity > this.keys.length) {
+			int newCapacity = Math.max(minCapacity, Math.max(Id.getNumberOfIds(this.idClass), this.keys.length * 3 / 2 + 1));
+			this.keys = Arrays.copyOf(this.keys, newCapacity);
+			this.values = Arrays.copyOf(this.values, newCapacity);
+		}
+	}
+
+	private class EntrySet extends AbstractSet<Entry<Id<T>, V>> {
+
+		@Override
+		public Iterator<Entry<Id<T>, V>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return IdMap.this.size;
+		}
+
+		@Override
+		public void clear() {
+			IdMap.this.clear();
+		}
+	}
+
+	private class EntryIterator implements Iterator<Entry<Id<T>, V>> {
+
+		private int nextIndex = -1;
+		private int currentIndex = -1;
+		private int expectedModCount = IdMap.this.modCount;
+
+		public EntryIterator() {
+			findNext();
+		}
+
+		private void findNext() {
+			this.nextIndex++;
+			Id<T>[] keys = IdMap.this.keys;
+			while (this.nextIndex < keys.length && keys[this.nextIndex] == null) {
+				this.nextIndex++;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.nextIndex < IdMap.this.keys.length;
+		}
+
+		@Override
+		public Entry<Id<T>, V> next() {
+			if (this.expectedModCount != IdMap.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.currentIndex = this.nextIndex;
+			findNext();
+			return new IdMapEntry(this.currentIndex);
+		}
+
+		@Override
+		public void remove() {
+			if (this.currentIndex < 0) {
+				throw new IllegalStateException();
+			}
+			if (this.expectedModCount != IdMap.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			IdMap.this.remove(IdMap.this.keys[this.currentIndex]);
+			this.currentIndex = -1;
+			this.expectedModCount = IdMap.this.modCount;
+		}
+	}
+
+	private class IdMapEntry implements Entry<Id<T>, V> {
+
+		private final int index;
+		private final Id<T> key;
+
+		public IdMapEntry(final int index) {
+			this.index = index;
+			this.key = IdMap.this.keys[index];
+		}
+
+		@Override
+		public Id<T> getKey() {
+			return this.key;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V getValue() {
+			return (V) IdMap.this.values[this.index];
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V setValue(final V value) {
+			Object oldValue = IdMap.this.values[this.index];
+			IdMap.this.values[this.index] = value;
+			return (V) oldValue;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			Object value = getValue();
+			return this.key.equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			Object value = getValue();
+			return this.key.hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + getValue();
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IdSet.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of {@link Id}s, backed by a plain array indexed by {@link Id#index()}.
+ * See {@link IdMap} for the rationale.
+ *
+ * Iteration returns the ids ordered by their index, i.e. in the order they were created.
+ * The set is not synchronized.
+ *
+ * @param <T> the type of the ids
+ */
+public class IdSet<T> extends AbstractSet<Id<T>> {
+
+	private final Class<T> idClass;
+	private Id<T>[] data;
+	private int size = 0;
+	private int modCount = 0;
+
+	public IdSet(final Class<T> idClass) {
+		this(idClass, Math.max(Id.getNumberOfIds(idClass), 16));
+	}
+
+	@SuppressWarnings("unchecked")
+	public IdSet(final Class<T> idClass, final int initialCapacity) {
+		this.idClass = idClass;
+		this.data = (Id<T>[]) new Id<?>[initialCapacity];
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public boolean contains(final Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	@Override
+	public boolean add(final Id<T> id) {
+		Id<T> ownId = id;
+		int index = id.index();
+		if (index >= this.data.length || this.data[index] != id) {
+			/* the id could be of a different type, but with the same key, see Id.equals() */
+			ownId = Id.create(id.toString(), this.idClass);
+			index = ownId.index();
+		}
+		ensureCapacity(index + 1);
+		if (this.data[index] == null) {
+			this.data[index] = ownId;
+			this.size++;
+			this.modCount++;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean remove(final Object o) {
+		int index = indexOf(o);
+		if (index < 0) {
+			return false;
+		}
+		this.data[index] = null;
+		this.size--;
+		this.modCount++;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < this.data.length; i++) {
+			this.data[i] = null;
+		}
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Iterator<Id<T>> iterator() {
+		return new IdIterator();
+	}
+
+	private int indexOf(final Object o) {
+		if (!(o instanceof Id)) {
+			return -1;
+		}
+		Id<?> id = (Id<?>) o;
+		int index = id.index();
+		if (index < this.data.length && this.data[index] == id) {
+			return index;
+		}
+		Id<T> ownId = Id.get(id.toString(), this.idClass);
+		if (ownId == null || ownId == id) {
+			return -1;
+		}
+		index = ownId.index();
+		if (index < this.data.length && this.data[index] == ownId) {
+			return index;
+		}
+		return -1;
+	}
+
+	private void ensureCapacity(final int minCapacity) {
+		if (minCapacity > this.data.length) {
+			int newCapacity = Math.max(minCapacity, Math.max(Id.getNumberOfIds(this.idClass), this.data.length * 3 / 2 + 1));
+			this.data = Arrays.copyOf(this.data, newCapacity);
+		}
+	}
+
+	private class IdIterator implements Iterator<Id<T>> {
+
+		private int nextIndex = -1;
+		private int currentIndex = -1;
+		private int expectedModCount = IdSet.this.modCount;
+
+		public IdIterator() {
+			findNext();
+		}
+
+		private void findNext() {
+			this.nextIndex++;
+			Id<T>[] data = IdSet.this.data;
+			while (this.nextIndex < data.length && data[this.nextIndex] == null) {
+				this.nextIndex++;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.nextIndex < IdSet.this.data.length;
+		}
+
+		@Override
+		public Id<T> next() {
+			if (this.expectedModCount != IdSet.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.currentIndex = this.nextIndex;
+			findNext();
+			return IdSet.this.data[this.currentIndex];
+		}
+
+		@Override
+		public void remove() {
+			if (this.currentIndex < 0) {
+				throw new IllegalStateException();
+			}
+			if (this.expectedModCount != IdSet.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			IdSet.this.data[this.currentIndex] = null;
+			IdSet.this.size--;
+			IdSet.this.modCount++;
+			this.currentIndex = -1;
+			this.expectedModCount = IdSet.this.modCount;
+		}
+	}
+
+}
@@ -36,6 +36,14 @@ public interface EventsManager {
 	public void removeHandler(final EventHandler handler);
 
 	public void resetHandlers(int iteration);
+
+	/**
+	 * Allows producers of frequent events to skip creating events nobody listens to.  May be called from several
+	 * threads at the same time.
+	 *
+	 * @return <code>false</code> only if none of the handlers currently added would get events of the given class.
+	 */
+	public boolean hasHandlers(Class<? extends Event> eventClass);
 	
 	/**
 	 * Called before the first event is sent for processing. Allows to initialize internal
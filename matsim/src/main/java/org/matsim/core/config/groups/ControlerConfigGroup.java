@@ -38,9 +38,9 @@ import org.matsim.core.utils.misc.StringUtils;
 public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final Logger log = Logger.getLogger( ControlerConfigGroup.class );
 
-	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, FastDijkstra, FastAStarLandmarks}
+	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, FastDijkstra, FastAStarLandmarks, FastAStarCH, FastAStarCCH, FastManyToManyDijkstra}
 
-	public enum EventsFileFormat {xml}
+	public enum EventsFileFormat {xml, binary}
 
 	public static final String GROUP_NAME = "controler";
 
@@ -48,11 +48,14 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final String FIRST_ITERATION = "firstIteration";
 	private static final String LAST_ITERATION = "lastIteration";
 	private static final String ROUTINGALGORITHM_TYPE = "routingAlgorithmType";
+	private static final String ROUTING_CACHE_DIRECTORY = "routingCacheDirectory";
 	private static final String RUNID = "runId";
 	private static final String LINKTOLINK_ROUTING_ENABLED = "enableLinkToLinkRouting";
 	/*package*/ static final String EVENTS_FILE_FORMAT = "eventsFileFormat";
 	private static final String SNAPSHOT_FORMAT = "snapshotFormat";
 	private static final String WRITE_EVENTS_INTERVAL = "writeEventsInterval";
+	private static final String EVENTS_INDEX_TIME_BIN_SIZE = "eventsIndexTimeBinSize";
+	private static final String WRITE_EVENTS_ASYNCHRONOUSLY = "writeEventsAsynchronously";
 	private static final String WRITE_PLANS_INTERVAL = "writePlansInterval";
 	private static final String OVERWRITE_FILE = "overwriteFiles";
 	private static final String CREATE_GRAPHS = "createGraphs";
@@ -68,6 +71,7 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private int firstIteration = 0;
 	private int lastIteration = 1000;
 	private RoutingAlgorithmType routingAlgorithmType = RoutingAlgorithmType.Dijkstra;
+	private String routingCacheDirectory = null;
 
 	private boolean linkToLinkRoutingEnabled = false;
 
@@ -76,6 +80,8 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private Set<EventsFileFormat> eventsFileFormats = Collections.unmodifiableSet(EnumSet.of(EventsFileFormat.xml));
 
 	private int writeEventsInterval=10;
+	private double eventsIndexTimeBinSize = 0.;
+	private boolean writeEventsAsynchronously = false;
 	private int writePlansInterval=10;
 	private Set<String> snapshotFormat = Collections.emptySet();
 	private String mobsim = MobsimType.qsim.toString();
@@ -92,12 +98,21 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	public final Map<String, String> getComments() {
 		Map<String,String> map = super.getComments();
 		map.put(ROUTINGALGORITHM_TYPE, "The type of routing (least cost path) algorithm used, may have the values: " + RoutingAlgorithmType.Dijkstra + ", " + 
-				RoutingAlgorithmType.FastDijkstra + ", " + RoutingAlgorithmType.AStarLandmarks + " or "  + RoutingAlgorithmType.FastAStarLandmarks);
+				RoutingAlgorithmType.FastDijkstra + ", " + RoutingAlgorithmType.AStarLandmarks + ", "  + RoutingAlgorithmType.FastAStarLandmarks + ", " +
+				RoutingAlgorithmType.FastAStarCH + " (A* with the estimates of a contraction hierarchy, which is built once at the start), " +
+				RoutingAlgorithmType.FastAStarCCH + " (the same with a customizable contraction hierarchy, which is updated with the travel disutilities of every iteration) or " +
+				RoutingAlgorithmType.FastManyToManyDijkstra + " (" + RoutingAlgorithmType.FastDijkstra + " which routes batched trips from one origin to many destinations with one search)");
+		map.put(ROUTING_CACHE_DIRECTORY, "Default=null; A directory in which routers store the preprocessing data which only depends on the network, " +
+				"so that later runs on the same network can read it instead of computing it again.");
 		map.put(RUNID, "An identifier for the current run which is used as prefix for output files and mentioned in output xml files etc.");
-		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: xml."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
+		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: xml, binary."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
 				"Multiple values can be specified separated by commas (',').");
 		map.put(WRITE_EVENTS_INTERVAL, "iterationNumber % writeEventsInterval == 0 defines in which iterations events are written " +
 				"to a file. `0' disables events writing completely.");
+		map.put(EVENTS_INDEX_TIME_BIN_SIZE, "Default=0; If positive, an index with the position of the events of every time bin of this size " +
+				"is written next to xml events files, so that analyses can read only the events of a time window. `0' disables the index.");
+		map.put(WRITE_EVENTS_ASYNCHRONOUSLY, "Default=false; If enabled, xml events files are encoded, compressed and written by a " +
+				"thread of their own, so that writing them does not slow down the handling of the events.");
 		map.put(WRITE_PLANS_INTERVAL, "iterationNumber % writePlansInterval == 0 defines (hopefully) in which iterations plans are " +
 				"written to a file. `0' disables plans writing completely.  Some plans in early iterations are always written");
 		map.put(LINKTOLINK_ROUTING_ENABLED, "Default=false. If enabled, the router takes travel times needed for turning moves into account."
@@ -165,6 +180,16 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		this.routingAlgorithmType = type;
 	}
 
+	@StringGetter( ROUTING_CACHE_DIRECTORY )
+	public String getRoutingCacheDirectory() {
+		return this.routingCacheDirectory;
+	}
+
+	@StringSetter( ROUTING_CACHE_DIRECTORY )
+	public void setRoutingCacheDirectory(final String routingCacheDirectory) {
+		this.routingCacheDirectory = routingCacheDirectory;
+	}
+
 	@StringGetter( RUNID )
 	public String getRunId() {
 		return this.runId;
@@ -265,6 +290,26 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		this.writeEventsInterval = writeEventsInterval;
 	}
 
+	@StringGetter( EVENTS_INDEX_TIME_BIN_SIZE )
+	public double getEventsIndexTimeBinSize() {
+		return this.eventsIndexTimeBinSize;
+	}
+
+	@StringSetter( EVENTS_INDEX_TIME_BIN_SIZE )
+	public void setEventsIndexTimeBinSize(final double eventsIndexTimeBinSize) {
+		this.eventsIndexTimeBinSize = eventsIndexTimeBinSize;
+	}
+
+	@StringGetter( WRITE_EVENTS_ASYNCHRONOUSLY )
+	public boolean isWriteEventsAsynchronously() {
+		return this.writeEventsAsynchronously;
+	}
+
+	@StringSetter( WRITE_EVENTS_ASYNCHRONOUSLY )
+	public void setWriteEventsAsynchronously(final boolean writeEventsAsynchronously) {
+		this.writeEventsAsynchronously = writeEventsAsynchronously;
+	}
+
 	@StringGetter( MOBSIM )
 	public String getMobsim() {
 		return this.mobsim;
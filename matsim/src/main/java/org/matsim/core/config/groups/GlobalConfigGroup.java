@@ -37,10 +37,12 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 	private static final String RANDOM_SEED = "randomSeed";
 	private static final String NUMBER_OF_THREADS = "numberOfThreads";
 	private static final String COORDINATE_SYSTEM = "coordinateSystem";
+	private static final String NUMBER_OF_COMPRESSION_THREADS = "numberOfCompressionThreads";
 
 	private long randomSeed = 4711L;
 	private int numberOfThreads = 2;
 	private String coordinateSystem = "Atlantis";
+	private int numberOfCompressionThreads = 1;
 	
 	@Override
 	public Map<String, String> getComments() {
@@ -48,6 +50,9 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		map.put(NUMBER_OF_THREADS, "\"global\" number of threads.  "
 				+ "This number is used, e.g., for replanning, but NOT in the mobsim.  "
 				+ "This can typically be set to as many cores as you have available, or possibly even slightly more.") ;
+		map.put(NUMBER_OF_COMPRESSION_THREADS, "Number of threads which compress the gzip-compressed output files.  "
+				+ "With more than one, every file being written uses its own pool of threads; the files remain standard gzip files.  "
+				+ "Default: 1.") ;
 		return map ;
 	}
 
@@ -72,6 +77,15 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		this.numberOfThreads = numberOfThreads;
 	}
 
+	@StringGetter( NUMBER_OF_COMPRESSION_THREADS )
+	public int getNumberOfCompressionThreads() {
+		return this.numberOfCompressionThreads;
+	}
+	@StringSetter( NUMBER_OF_COMPRESSION_THREADS )
+	public void setNumberOfCompressionThreads(final int numberOfCompressionThreads) {
+		this.numberOfCompressionThreads = numberOfCompressionThreads;
+	}
+
 	@StringGetter( COORDINATE_SYSTEM )
 	public String getCoordinateSystem() {
 		return this.coordinateSystem;
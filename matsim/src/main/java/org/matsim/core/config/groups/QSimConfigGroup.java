@@ -254,6 +254,42 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		map.put(USE_PERSON_ID_FOR_MISSING_VEHICLE_ID, "If a route does not reference a vehicle, agents will use the vehicle with the same id as their own.");
 		map.put(USING_THREADPOOL, "if the qsim should use as many runners as there are threads (Christoph's dissertation version)"
 				+ " or more of them, together with a thread pool (seems to be faster in some situations, but is not tested).") ;
+		{
+			StringBuilder stb = new StringBuilder() ;
+			for ( NetworkPartitioning np : NetworkPartitioning.values() ) {
+				stb.append(" ").append( np.toString() ) ;
+			}
+			map.put(NETWORK_PARTITIONING, "Defines how the nodes (and their outgoing links) are distributed among the runners of the qsim "
+					+ "if more than one thread is used. roundRobin ignores the location of the nodes, spaceFillingCurve and bisection "
+					+ "assign spatially compact parts of the network of similar load to each runner. Default: roundRobin; options:" + stb ) ;
+		}
+		map.put(USING_MEASURED_LOAD_FOR_PARTITIONING, "If true, the number of simulation steps of every node and its outgoing links is recorded "
+				+ "during the mobsim and used as the load of the nodes when partitioning the network in the next iteration. "
+				+ "If false, the load of a node is estimated from its number of outgoing links. Has no effect with roundRobin partitioning.") ;
+		map.put(USING_WORK_STEALING, "If true, the active nodes and links are not assigned to fixed runners, but processed in chunks by a "
+				+ "work-stealing thread pool with numberOfThreads threads, so that threads which are done take over work of the others. "
+				+ "Overrides usingThreadpool and networkPartitioning. Default: false.") ;
+		map.put(USING_DETERMINISTIC_PARALLEL_SIMULATION, "If true, the results of the qsim do not depend on numberOfThreads: nodes and links are "
+				+ "moved in a canonical order by the work-stealing runner, every node uses its own random number generator, and events "
+				+ "as well as agent state changes from the parallel parts are passed on in the canonical order of the nodes and links. "
+				+ "Implies usingWorkStealing. Default: false.") ;
+		map.put(USING_IDLE_LINK_SKIPPING, "If true, links on which nothing can happen before the first vehicle may leave them are not simulated "
+				+ "until then, but put aside in a timing wheel (unless something is added to them). Only has an effect together with "
+				+ FAST_CAPACITY_UPDATE + ", FIFO link dynamics, queue traffic dynamics and without lanes. Default: false.") ;
+		map.put(USING_TIME_STEP_SKIPPING, "If true, the qsim asks its engines when they next have something to do and directly advances "
+				+ "the clock to that time if nothing happens in between, e.g. at night. Time steps are only skipped if all engines and all "
+				+ "sim step listeners support this (see HasNextActionTime); otherwise every time step is simulated. Default: false.") ;
+		map.put(USING_PARALLEL_ACTIVITY_ENDS, "If true, the activities ending in the same time step are ended by numberOfThreads threads. "
+				+ "The resulting events and departures are passed on in the same order as without this option, so the results do not change. "
+				+ "Requires that ending an activity is thread-safe for all agents (as it is for the default agents). Default: false.") ;
+		map.put(USING_PARALLEL_TELEPORTATION_ARRIVALS, "If true, the teleported agents arriving in the same time step are handled by "
+				+ "numberOfThreads threads, in the same way as with " + USING_PARALLEL_ACTIVITY_ENDS + ". Default: false.") ;
+		map.put(USING_ARRAY_VEHICLE_QUEUE, "If true, the vehicles on a link are kept in a ring buffer of arrays which also holds their earliest "
+				+ "link exit times and sizes, instead of a linked list. Only has an effect with FIFO link dynamics. Default: false.") ;
+		map.put(USING_REUSABLE_LINK_EVENTS, "If true, every node reuses one link enter and one link leave event object for all "
+				+ "vehicles it moves. Event handlers which implement NonRetainingEventHandler get these objects, all other handlers "
+				+ "and the parallel events managers get a copy. Custom events managers must copy events which implement "
+				+ "ReusableEvent before they keep them. Default: false.") ;
 		map.put(FAST_CAPACITY_UPDATE, "If false, the qsim accumulates fractional flows up to one flow unit in every time step.  If true, "
 				+ "flows are updated only if an agent wants to enter the link or an agent is added to buffer. "
 				+ "Default is true.") ;
@@ -503,6 +539,119 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		this.usingThreadpool = val ;
 	}
 
+	// ---
+	private static final String NETWORK_PARTITIONING = "networkPartitioning" ;
+	public static enum NetworkPartitioning { roundRobin, spaceFillingCurve, bisection } ;
+	private NetworkPartitioning networkPartitioning = NetworkPartitioning.roundRobin ;
+	@StringGetter(NETWORK_PARTITIONING)
+	public NetworkPartitioning getNetworkPartitioning() {
+		return this.networkPartitioning ;
+	}
+	@StringSetter(NETWORK_PARTITIONING)
+	public void setNetworkPartitioning( NetworkPartitioning val ) {
+		this.networkPartitioning = val ;
+	}
+	// ---
+	private static final String USING_MEASURED_LOAD_FOR_PARTITIONING = "usingMeasuredLoadForPartitioning" ;
+	private boolean usingMeasuredLoadForPartitioning = false ;
+	@StringGetter(USING_MEASURED_LOAD_FOR_PARTITIONING)
+	public boolean isUsingMeasuredLoadForPartitioning() {
+		return this.usingMeasuredLoadForPartitioning ;
+	}
+	@StringSetter(USING_MEASURED_LOAD_FOR_PARTITIONING)
+	public void setUsingMeasuredLoadForPartitioning( boolean val ) {
+		this.usingMeasuredLoadForPartitioning = val ;
+	}
+	// ---
+	private static final String USING_WORK_STEALING = "usingWorkStealing" ;
+	private boolean usingWorkStealing = false ;
+	@StringGetter(USING_WORK_STEALING)
+	public boolean isUsingWorkStealing() {
+		return this.usingWorkStealing ;
+	}
+	@StringSetter(USING_WORK_STEALING)
+	public void setUsingWorkStealing( boolean val ) {
+		this.usingWorkStealing = val ;
+	}
+	// ---
+	private static final String USING_DETERMINISTIC_PARALLEL_SIMULATION = "usingDeterministicParallelSimulation" ;
+	private boolean usingDeterministicParallelSimulation = false ;
+	@StringGetter(USING_DETERMINISTIC_PARALLEL_SIMULATION)
+	public boolean isUsingDeterministicParallelSimulation() {
+		return this.usingDeterministicParallelSimulation ;
+	}
+	@StringSetter(USING_DETERMINISTIC_PARALLEL_SIMULATION)
+	public void setUsingDeterministicParallelSimulation( boolean val ) {
+		this.usingDeterministicParallelSimulation = val ;
+	}
+	// ---
+	private static final String USING_IDLE_LINK_SKIPPING = "usingIdleLinkSkipping" ;
+	private boolean usingIdleLinkSkipping = false ;
+	@StringGetter(USING_IDLE_LINK_SKIPPING)
+	public boolean isUsingIdleLinkSkipping() {
+		return this.usingIdleLinkSkipping ;
+	}
+	@StringSetter(USING_IDLE_LINK_SKIPPING)
+	public void setUsingIdleLinkSkipping( boolean val ) {
+		this.usingIdleLinkSkipping = val ;
+	}
+	// ---
+	private static final String USING_TIME_STEP_SKIPPING = "usingTimeStepSkipping" ;
+	private boolean usingTimeStepSkipping = false ;
+	@StringGetter(USING_TIME_STEP_SKIPPING)
+	public boolean isUsingTimeStepSkipping() {
+		return this.usingTimeStepSkipping ;
+	}
+	@StringSetter(USING_TIME_STEP_SKIPPING)
+	public void setUsingTimeStepSkipping( boolean val ) {
+		this.usingTimeStepSkipping = val ;
+	}
+	// ---
+	private static final String USING_PARALLEL_ACTIVITY_ENDS = "usingParallelActivityEnds" ;
+	private boolean usingParallelActivityEnds = false ;
+	@StringGetter(USING_PARALLEL_ACTIVITY_ENDS)
+	public boolean isUsingParallelActivityEnds() {
+		return this.usingParallelActivityEnds ;
+	}
+	@StringSetter(USING_PARALLEL_ACTIVITY_ENDS)
+	public void setUsingParallelActivityEnds( boolean val ) {
+		this.usingParallelActivityEnds = val ;
+	}
+	// ---
+	private static final String USING_PARALLEL_TELEPORTATION_ARRIVALS = "usingParallelTeleportationArrivals" ;
+	private boolean usingParallelTeleportationArrivals = false ;
+	@StringGetter(USING_PARALLEL_TELEPORTATION_ARRIVALS)
+	public boolean isUsingParallelTeleportationArrivals() {
+		return this.usingParallelTeleportationArrivals ;
+	}
+	@StringSetter(USING_PARALLEL_TELEPORTATION_ARRIVALS)
+	public void setUsingParallelTeleportationArrivals( boolean val ) {
+		this.usingParallelTeleportationArrivals = val ;
+	}
+	// ---
+	private static final String USING_ARRAY_VEHICLE_QUEUE = "usingArrayVehicleQueue" ;
+	private boolean usingArrayVehicleQueue = false ;
+	@StringGetter(USING_ARRAY_VEHICLE_QUEUE)
+	public boolean isUsingArrayVehicleQueue() {
+		return this.usingArrayVehicleQueue ;
+	}
+	@StringSetter(USING_ARRAY_VEHICLE_QUEUE)
+	public void setUsingArrayVehicleQueue( boolean val ) {
+		this.usingArrayVehicleQueue = val ;
+	}
+	// ---
+	private static final String USING_REUSABLE_LINK_EVENTS = "usingReusableLinkEvents" ;
+	private boolean usingReusableLinkEvents = false ;
+	@StringGetter(USING_REUSABLE_LINK_EVENTS)
+	public boolean isUsingReusableLinkEvents() {
+		return this.usingReusableLinkEvents ;
+	}
+	@StringSetter(USING_REUSABLE_LINK_EVENTS)
+	public void setUsingReusableLinkEvents( boolean val ) {
+		this.usingReusableLinkEvents = val ;
+	}
+	// ---
+
 	private static final String USE_LANES="useLanes" ;
 	private boolean useLanes = false ;
 
@@ -25,6 +25,7 @@ import org.matsim.core.config.Config;
 import org.matsim.core.controler.OutputDirectoryHierarchy.OverwriteFileSetting;
 import org.matsim.core.controler.listener.ControlerListener;
 import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.utils.io.IOUtils;
 
 public abstract class AbstractController {
 
@@ -84,6 +85,7 @@ public abstract class AbstractController {
         MatsimRuntimeModifications.MyRunnable runnable = new MatsimRuntimeModifications.MyRunnable() {
             @Override
             public void run() throws MatsimRuntimeModifications.UnexpectedShutdownException {
+                IOUtils.setNumberOfCompressionThreads(config.global().getNumberOfCompressionThreads());
                 loadCoreListeners();
                 controlerListenerManagerImpl.fireControlerStartupEvent();
                 ControlerUtils.checkConfigConsistencyAndWriteToLog(config, "config dump before iterations start");
@@ -93,7 +95,12 @@ public abstract class AbstractController {
 
             @Override
             public void shutdown(boolean unexpected) {
-                controlerListenerManagerImpl.fireControlerShutdownEvent(unexpected);
+                try {
+                    controlerListenerManagerImpl.fireControlerShutdownEvent(unexpected);
+                } finally {
+                    // the setting is static, so it must not outlive this run
+                    IOUtils.setNumberOfCompressionThreads(1);
+                }
             }
         };
         MatsimRuntimeModifications.run(runnable);
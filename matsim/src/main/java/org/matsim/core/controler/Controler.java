@@ -73,6 +73,7 @@ public final class Controler implements ControlerI, MatsimServices {
 
 	public static final String DIRECTORY_ITERS = "ITERS";
 	public static final String FILENAME_EVENTS_XML = "events.xml.gz";
+	public static final String FILENAME_EVENTS_BIN = "events.bin";
 	public static final String FILENAME_LINKSTATS = "linkstats.txt.gz";
 	public static final String FILENAME_TRAVELDISTANCESTATS = "traveldistancestats";
 	public static final String FILENAME_POPULATION = "output_plans.xml.gz";
@@ -296,6 +297,11 @@ public final class Controler implements ControlerI, MatsimServices {
 					throw new UnsupportedOperationException();
 				}
 
+				@Override
+				public boolean hasHandlers(Class<? extends Event> eventClass) {
+					return Controler.this.injector.getInstance(EventsManager.class).hasHandlers(eventClass);
+				}
+
 				@Override
 				public void resetHandlers(int iteration) {
 					throw new UnsupportedOperationException();
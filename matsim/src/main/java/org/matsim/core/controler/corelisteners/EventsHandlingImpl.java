@@ -39,6 +39,7 @@ import org.matsim.core.controler.listener.BeforeMobsimListener;
 import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.core.controler.listener.ShutdownListener;
 import org.matsim.core.events.algorithms.EventWriter;
+import org.matsim.core.events.algorithms.EventWriterBinary;
 import org.matsim.core.events.algorithms.EventWriterXML;
 
 import com.google.inject.Inject;
@@ -54,6 +55,10 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 	private List<EventWriter> eventWriters = new LinkedList<>();
 
 	private int writeEventsInterval;
+
+	private double eventsIndexTimeBinSize;
+
+	private boolean writeEventsAsynchronously;
     
 	private Set<EventsFileFormat> eventsFileFormats ;
 	
@@ -68,6 +73,8 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 			final OutputDirectoryHierarchy controlerIO) {
 		this.eventsManager = eventsManager;
 		this.writeEventsInterval = config.getWriteEventsInterval();
+		this.eventsIndexTimeBinSize = config.getEventsIndexTimeBinSize();
+		this.writeEventsAsynchronously = config.isWriteEventsAsynchronously();
 		this.eventsFileFormats = config.getEventsFileFormats();
 		this.controlerIO = controlerIO;
 		this.writeMoreUntilIteration = config.getWriteEventsUntilIteration() ;
@@ -83,8 +90,16 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 			for (EventsFileFormat format : eventsFileFormats) {
 				switch (format) {
 				case xml:
-					this.eventWriters.add(new EventWriterXML(controlerIO.getIterationFilename(event.getIteration(), 
-							Controler.FILENAME_EVENTS_XML)));
+					String filename = controlerIO.getIterationFilename(event.getIteration(), Controler.FILENAME_EVENTS_XML);
+					if (this.eventsIndexTimeBinSize > 0) {
+						this.eventWriters.add(new EventWriterXML(filename, this.eventsIndexTimeBinSize, this.writeEventsAsynchronously));
+					} else {
+						this.eventWriters.add(new EventWriterXML(filename, this.writeEventsAsynchronously));
+					}
+					break;
+				case binary:
+					this.eventWriters.add(new EventWriterBinary(controlerIO.getIterationFilename(event.getIteration(), 
+							Controler.FILENAME_EVENTS_BIN)));
 					break;
 				default:
 					log.warn("Unknown events file format specified: " + format.toString() + ".");
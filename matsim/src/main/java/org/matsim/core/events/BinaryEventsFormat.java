@@ -0,0 +1,182 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BinaryEventsFormat.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Constants and helpers for the binary events format, written by
+ * {@link org.matsim.core.events.algorithms.EventWriterBinary} and read by {@link EventsReaderBinary}.
+ * <p></p>
+ * A file consists of:<ul>
+ * <li> the header: {@link #MAGIC} and {@link #VERSION} (int).
+ * <li> a sequence of chunks, each starting with {@link #CHUNK_TAG}.  A chunk contains up to {@link #EVENTS_PER_CHUNK}
+ * events: the number of events (int), the minimum and maximum time of its events (double), the number of strings
+ * in the dictionary before the chunk and the number of strings added by it (int), the uncompressed and compressed
+ * lengths of its two blocks (int), the deflated block of the strings added to the dictionary, and the deflated block of
+ * the events.
+ * <li> {@link #END_TAG}.
+ * </ul>
+ * There is no index of the chunks: every chunk adds to the dictionary, so a reader has to go through all chunks before
+ * the ones it needs anyway.
+ * All strings (ids, activity types, modes, attribute names and values of other events) are replaced by their position
+ * in the dictionary, +1, as variable length numbers; 0 stands for <code>null</code>.  Every event starts with its type
+ * code (one of the <code>TYPE_...</code> constants) and its time.  If the time is a whole number of seconds after the
+ * time of the preceding event in the chunk (or after 0 for the first event of a chunk), it is written as twice the
+ * difference, else as 1 followed by the time as double.  For the known types of events, their fields follow in the
+ * order of their constructors; other events are written with {@link #TYPE_GENERIC}, followed by their type, the number of
+ * their attributes and the names and values of these.
+ */
+public final class BinaryEventsFormat {
+
+	public static final byte[] MAGIC = "MATSIMEVENTSBIN".getBytes(Charset.forName("US-ASCII"));
+	public static final int VERSION = 1;
+
+	public static final byte CHUNK_TAG = 1;
+	public static final byte END_TAG = 2;
+
+	public static final int EVENTS_PER_CHUNK = 16384;
+
+	public static final int TYPE_GENERIC = 0;
+	public static final int TYPE_LINK_LEAVE = 1;
+	public static final int TYPE_LINK_ENTER = 2;
+	public static final int TYPE_VEHICLE_ENTERS_TRAFFIC = 3;
+	public static final int TYPE_VEHICLE_LEAVES_TRAFFIC = 4;
+	public static final int TYPE_ACTIVITY_END = 5;
+	public static final int TYPE_ACTIVITY_START = 6;
+	public static final int TYPE_PERSON_ARRIVAL = 7;
+	public static final int TYPE_PERSON_DEPARTURE = 8;
+	public static final int TYPE_PERSON_STUCK = 9;
+	public static final int TYPE_VEHICLE_ABORTS = 10;
+	public static final int TYPE_PERSON_MONEY = 11;
+	public static final int TYPE_PERSON_ENTERS_VEHICLE = 12;
+	public static final int TYPE_PERSON_LEAVES_VEHICLE = 13;
+	public static final int TYPE_TELEPORTATION_ARRIVAL = 14;
+	public static final int TYPE_VEHICLE_ARRIVES_AT_FACILITY = 15;
+	public static final int TYPE_VEHICLE_DEPARTS_AT_FACILITY = 16;
+	public static final int TYPE_TRANSIT_DRIVER_STARTS = 17;
+	public static final int TYPE_BOARDING_DENIED = 18;
+	public static final int TYPE_AGENT_WAITING_FOR_PT = 19;
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private BinaryEventsFormat() {
+		// contains only constants and helpers
+	}
+
+	/**
+	 * A growable byte array to write the blocks of a chunk to.
+	 */
+	public static final class BlockWriter {
+
+		private byte[] data = new byte[1 << 16];
+		private int length = 0;
+
+		public void writeVarLong(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				this.data[this.length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.data[this.length++] = (byte) value;
+		}
+
+		public void writeDouble(double value) {
+			ensureCapacity(8);
+			long bits = Double.doubleToRawLongBits(value);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				this.data[this.length++] = (byte) (bits >>> shift);
+			}
+		}
+
+		public void writeString(String value) {
+			byte[] bytes = value.getBytes(UTF8);
+			writeVarLong(bytes.length);
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, this.data, this.length, bytes.length);
+			this.length += bytes.length;
+		}
+
+		public byte[] getData() {
+			return this.data;
+		}
+
+		public int getLength() {
+			return this.length;
+		}
+
+		public void clear() {
+			this.length = 0;
+		}
+
+		private void ensureCapacity(int additionalBytes) {
+			if (this.length + additionalBytes > this.data.length) {
+				this.data = Arrays.copyOf(this.data, Math.max(this.data.length * 2, this.length + additionalBytes));
+			}
+		}
+	}
+
+	/**
+	 * Reads back what was written with a {@link BlockWriter}.
+	 */
+	static final class BlockReader {
+
+		private final byte[] data;
+		private int position = 0;
+
+		BlockReader(byte[] data) {
+			this.data = data;
+		}
+
+		long readVarLong() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.data[this.position++];
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		int readVarInt() {
+			return (int) readVarLong();
+		}
+
+		double readDouble() {
+			long bits = 0;
+			for (int i = 0; i < 8; i++) {
+				bits = (bits << 8) | (this.data[this.position++] & 0xFF);
+			}
+			return Double.longBitsToDouble(bits);
+		}
+
+		String readString() {
+			int length = readVarInt();
+			String value = new String(this.data, this.position, length, UTF8);
+			this.position += length;
+			return value;
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsFileIndex.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * The index written next to an xml events file by {@link org.matsim.core.events.algorithms.EventWriterXML}, in a file
+ * with the additional ending ".idx".  For every time bin that contains events, it stores the position in the events
+ * file at which the events of this time bin start, and, at the end, the position at which the events end.  In
+ * compressed events files, every time bin is written as a gzip member of its own, so that it can be decompressed
+ * starting from its position.  This allows {@link MatsimEventsReader#readFile(String, double, double)} to only read
+ * the events of a time window.
+ * <p></p>
+ * The index assumes that the events are sorted by time, as they are when they come from the mobsim.
+ */
+public final class EventsFileIndex {
+
+	private static final String END = "end";
+
+	private final List<Double> binStartTimes = new ArrayList<>();
+	private final List<Long> binOffsets = new ArrayList<>();
+	private long endOffset = -1;
+
+	public static String getIndexFilename(final String eventsFilename) {
+		return eventsFilename + ".idx";
+	}
+
+	public void addTimeBin(final double startTime, final long offset) {
+		this.binStartTimes.add(startTime);
+		this.binOffsets.add(offset);
+	}
+
+	public void setEndOffset(final long endOffset) {
+		this.endOffset = endOffset;
+	}
+
+	public long getEndOffset() {
+		return this.endOffset;
+	}
+
+	/**
+	 * @return the positions at which the time bins start, in ascending order.
+	 */
+	public List<Long> getTimeBinOffsets() {
+		return Collections.unmodifiableList(this.binOffsets);
+	}
+
+	/**
+	 * @return the position from which on all events at or after <code>time</code> are found.
+	 */
+	public long getStartOffset(final double time) {
+		long offset = this.binOffsets.isEmpty() ? this.endOffset : this.binOffsets.get(0);
+		for (int i = 0; i < this.binStartTimes.size() && this.binStartTimes.get(i) <= time; i++) {
+			offset = this.binOffsets.get(i);
+		}
+		return offset;
+	}
+
+	/**
+	 * @return the position up to which all events before <code>time</code> are found.
+	 */
+	public long getEndOffset(final double time) {
+		for (int i = 0; i < this.binStartTimes.size(); i++) {
+			if (this.binStartTimes.get(i) >= time) {
+				return this.binOffsets.get(i);
+			}
+		}
+		return this.endOffset;
+	}
+
+	public void write(final String filename) {
+		try (BufferedWriter writer = IOUtils.getBufferedWriter(filename)) {
+			for (int i = 0; i < this.binStartTimes.size(); i++) {
+				writer.write(this.binStartTimes.get(i) + "\t" + this.binOffsets.get(i) + "\n");
+			}
+			writer.write(END + "\t" + this.endOffset + "\n");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public static EventsFileIndex read(final String filename) {
+		EventsFileIndex index = new EventsFileIndex();
+		try (BufferedReader reader = IOUtils.getBufferedReader(filename)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split("\t");
+				if (parts[0].equals(END)) {
+					index.setEndOffset(Long.parseLong(parts[1]));
+				} else {
+					index.addTimeBin(Double.parseDouble(parts[0]), Long.parseLong(parts[1]));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (index.endOffset < 0) {
+			throw new RuntimeException("The events file index " + filename + " is incomplete.");
+		}
+		return index;
+	}
+
+}
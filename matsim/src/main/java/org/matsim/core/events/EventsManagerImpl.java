@@ -20,16 +20,23 @@
 
 package org.matsim.core.events;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.ActivityEndEvent;
 import org.matsim.api.core.v01.events.ActivityStartEvent;
 import org.matsim.api.core.v01.events.Event;
@@ -64,6 +71,8 @@ import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityE
 import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
 import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.events.handler.NonRetainingEventHandler;
+import org.matsim.core.events.handler.PartitionableEventHandler;
 
 /**
  * EventHandling
@@ -73,9 +82,13 @@ import org.matsim.core.events.handler.EventHandler;
  * <li>add method public void handleEvent(MyEvent event) to it</li>
  * <li>ready to go, just implement the interface somewhere and add a
  * HandlerObject with a call to <code>Events.addHandler(HandlerObject)</code></li>
- * <li>(optional) add an appropriate line in callHandlerFast() for speeding
+ * <li>(optional) add an appropriate line in createHandlerCaller() for speeding
  * up execution!</li>
  * </ol>
+ * An instance of this class must only be fed by one thread at a time.  Calls to handlers which are also
+ * added to other events managers are synchronized on the handler, calls to all other handlers are not.
+ * {@link ReusableEvent}s are passed as they are only to {@link NonRetainingEventHandler}s, all other handlers
+ * get a copy.
  *
  * @author dstrippgen
  * @author mrieser
@@ -88,10 +101,10 @@ public class EventsManagerImpl implements EventsManager {
 
 		protected Class<?> eventklass;
 		protected ArrayList<EventHandler> handlerList = new ArrayList<EventHandler>(5);
-		protected Method method;
-		protected HandlerData(final Class<?> eventklass, final Method method) {
+		protected HandlerCaller caller;
+		protected HandlerData(final Class<?> eventklass, final HandlerCaller caller) {
 			this.eventklass = eventklass;
-			this.method = method;
+			this.caller = caller;
 		}
 		protected void removeHandler(final EventHandler handler) {
 			this.handlerList.remove(handler);
@@ -99,21 +112,77 @@ public class EventsManagerImpl implements EventsManager {
 	}
 
 	static private class HandlerInfo {
-		protected final Class<?> eventClass;
 		protected final EventHandler eventHandler;
-		protected final Method method;
+		protected final HandlerCaller caller;
+		protected final boolean synchronizing;
+		protected final PartitionFilter partitionFilter;
+		protected final boolean retaining;
 
-		protected HandlerInfo(final Class<?> eventClass, final EventHandler eventHandler, final Method method) {
-			this.eventClass = eventClass;
+		protected HandlerInfo(final EventHandler eventHandler, final HandlerCaller caller, final boolean synchronizing,
+				final PartitionFilter partitionFilter) {
 			this.eventHandler = eventHandler;
-			this.method = method;
+			this.caller = caller;
+			this.synchronizing = synchronizing;
+			this.partitionFilter = partitionFilter;
+			this.retaining = !(eventHandler instanceof NonRetainingEventHandler);
+		}
+	}
+
+	/**
+	 * Decides which events a partition of a {@link PartitionableEventHandler} gets.
+	 */
+	static private class PartitionFilter {
+		private final PartitionableEventHandler<?> partitionedHandler;
+		private final int partition;
+		private final int numberOfPartitions;
+
+		PartitionFilter(final PartitionableEventHandler<?> partitionedHandler, final int partition, final int numberOfPartitions) {
+			this.partitionedHandler = partitionedHandler;
+			this.partition = partition;
+			this.numberOfPartitions = numberOfPartitions;
+		}
+
+		boolean accepts(final Event event) {
+			Object key = this.partitionedHandler.getPartitionKey(event);
+			if (key == null) {
+				return true;
+			}
+			// ids are numbered consecutively, which distributes them more evenly than their hash codes
+			int hash = key instanceof Id ? ((Id<?>) key).index() : key.hashCode();
+			return (hash & Integer.MAX_VALUE) % this.numberOfPartitions == this.partition;
 		}
 	}
 
+	/**
+	 * Calls the handleEvent() method of a handler for one type of events.  A caller is created once per type of
+	 * events when the first handler for it is added, so that no reflection is needed while processing events.
+	 */
+	static abstract class HandlerCaller {
+		abstract void callHandler(EventHandler handler, Event event);
+	}
+
+	/**
+	 * Counts for every handler to how many events managers it is added.  Handlers which are added to more than
+	 * one events manager could be called from several threads at the same time.
+	 */
+	private static final Map<EventHandler, Integer> numberOfManagersPerHandler = new WeakHashMap<EventHandler, Integer>();
+
+	/**
+	 * Incremented whenever a handler gets or stops being shared by several events managers, so that all
+	 * events managers know that they need to decide again which handlers must be synchronized.
+	 */
+	private static volatile int sharedHandlersModCount = 0;
+
 	private final List<HandlerData> handlerData = new ArrayList<HandlerData>();
 
+	private final Set<EventHandler> handlers = Collections.newSetFromMap(new IdentityHashMap<EventHandler, Boolean>());
+
+	private final Map<EventHandler, PartitionFilter> partitionFilters = new IdentityHashMap<EventHandler, PartitionFilter>();
+
 	private final Map<Class<?>, HandlerInfo[]> cacheHandlers = new ConcurrentHashMap<Class<?>, HandlerInfo[]>(15);
 
+	private int sharedHandlersModCountOfCache = sharedHandlersModCount;
+
 	private long counter = 0;
 	private long nextCounterMsg = 1;
 
@@ -152,19 +221,63 @@ public class EventsManagerImpl implements EventsManager {
 			}
 			test = test.getSuperclass();
 		}
+		if (this.handlers.add(handler)) {
+			changeNumberOfManagers(handler, 1);
+		}
 		this.cacheHandlers.clear();
 		log.info("");
 	}
 
+	/**
+	 * Adds one of the partitions of a {@link PartitionableEventHandler}, which only gets the events whose partition key
+	 * belongs to it and the events without partition key.
+	 */
+	/*package*/ void addPartition(final EventHandler partition, final PartitionableEventHandler<?> partitionedHandler,
+			final int partitionIndex, final int numberOfPartitions) {
+		this.partitionFilters.put(partition, new PartitionFilter(partitionedHandler, partitionIndex, numberOfPartitions));
+		addHandler(partition);
+	}
+
 	@Override
 	public void removeHandler(final EventHandler handler) {
 		log.info("removing Event-Handler: " + handler.getClass().getName());
 		for (HandlerData handlerList : this.handlerData) {
 			handlerList.removeHandler(handler);
 		}
+		this.partitionFilters.remove(handler);
+		if (this.handlers.remove(handler)) {
+			changeNumberOfManagers(handler, -1);
+		}
 		this.cacheHandlers.clear();
 	}
 
+	@Override
+	public boolean hasHandlers(final Class<? extends Event> eventClass) {
+		return getHandlersForClass(eventClass).length > 0;
+	}
+
+	private static void changeNumberOfManagers(final EventHandler handler, final int change) {
+		synchronized (numberOfManagersPerHandler) {
+			Integer oldNumber = numberOfManagersPerHandler.get(handler);
+			int number = (oldNumber == null ? 0 : oldNumber) + change;
+			if (number > 0) {
+				numberOfManagersPerHandler.put(handler, number);
+			} else {
+				numberOfManagersPerHandler.remove(handler);
+			}
+			if ((number > 1) != (oldNumber != null && oldNumber > 1)) {
+				sharedHandlersModCount++;
+			}
+		}
+	}
+
+	private static boolean isSharedHandler(final EventHandler handler) {
+		synchronized (numberOfManagersPerHandler) {
+			Integer number = numberOfManagersPerHandler.get(handler);
+			return number != null && number > 1;
+		}
+	}
+
 	@Override
 	public void resetHandlers(final int iteration) {
 		log.info("resetting Event-Handlers");
@@ -207,7 +320,7 @@ public class EventsManagerImpl implements EventsManager {
 					log.info("    > " + eventClass.getName());
 					HandlerData dat = findHandler(eventClass);
 					if (dat == null) {
-						dat = new HandlerData(eventClass, method);
+						dat = new HandlerData(eventClass, createHandlerCaller(eventClass, method));
 						this.handlerData.add(dat);
 					}
 					dat.handlerList.add(handler);
@@ -217,20 +330,29 @@ public class EventsManagerImpl implements EventsManager {
 	}
 
 	private void computeEvent(final Event event) {
+		if (this.sharedHandlersModCountOfCache != sharedHandlersModCount) {
+			this.sharedHandlersModCountOfCache = sharedHandlersModCount;
+			this.cacheHandlers.clear();
+		}
+		// reused events are copied once for all handlers which might keep them
+		Event retainableEvent = event instanceof ReusableEvent ? null : event;
 		for (HandlerInfo info : getHandlersForClass(event.getClass())) {
-			synchronized(info.eventHandler) {
-				if (callHandlerFast(info.eventClass, event, info.eventHandler)) {
-					continue;
+			if (info.partitionFilter != null && !info.partitionFilter.accepts(event)) {
+				continue;
+			}
+			Event handlerEvent = event;
+			if (info.retaining) {
+				if (retainableEvent == null) {
+					retainableEvent = ((ReusableEvent) event).copy();
 				}
-				try {
-					info.method.invoke(info.eventHandler, event);
-				} catch (IllegalArgumentException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
-				} catch (IllegalAccessException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
-				} catch (InvocationTargetException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
+				handlerEvent = retainableEvent;
+			}
+			if (info.synchronizing) {
+				synchronized(info.eventHandler) {
+					info.caller.callHandler(info.eventHandler, handlerEvent);
 				}
+			} else {
+				info.caller.callHandler(info.eventHandler, handlerEvent);
 			}
 		}
 	}
@@ -248,7 +370,7 @@ public class EventsManagerImpl implements EventsManager {
 			HandlerData dat = findHandler(klass);
 			if (dat != null) {
 				for(EventHandler handler: dat.handlerList) {
-					info.add(new HandlerInfo(klass, handler, dat.method));
+					info.add(new HandlerInfo(handler, dat.caller, isSharedHandler(handler), this.partitionFilters.get(handler)));
 				}
 			}
 			klass = klass.getSuperclass();
@@ -258,7 +380,7 @@ public class EventsManagerImpl implements EventsManager {
 			HandlerData dat = findHandler(intfc);
 			if (dat != null) {
 				for(EventHandler handler: dat.handlerList) {
-					info.add(new HandlerInfo(intfc, handler, dat.method));
+					info.add(new HandlerInfo(handler, dat.caller, isSharedHandler(handler), this.partitionFilters.get(handler)));
 				}
 			}
 		}
@@ -284,58 +406,154 @@ public class EventsManagerImpl implements EventsManager {
 		return intfs;
 	}
 
-	// this method is purely for performance reasons and need not be implemented
-	private boolean callHandlerFast(final Class<?> klass, final Event ev, final EventHandler handler) {
+	/**
+	 * For the most frequent types of events, the handlers are called directly.  The other ones are called through a
+	 * method handle, which, different from Method.invoke(), does not need to check the arguments and access rights in
+	 * every call.
+	 */
+	private static HandlerCaller createHandlerCaller(final Class<?> klass, final Method method) {
 		if (klass == LinkLeaveEvent.class) {
-			((LinkLeaveEventHandler)handler).handleEvent((LinkLeaveEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((LinkLeaveEventHandler)handler).handleEvent((LinkLeaveEvent)ev);
+				}
+			};
 		} else if (klass == LinkEnterEvent.class) {
-			((LinkEnterEventHandler)handler).handleEvent((LinkEnterEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((LinkEnterEventHandler)handler).handleEvent((LinkEnterEvent)ev);
+				}
+			};
 		} else if (klass == VehicleEntersTrafficEvent.class) {
-			((VehicleEntersTrafficEventHandler)handler).handleEvent((VehicleEntersTrafficEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((VehicleEntersTrafficEventHandler)handler).handleEvent((VehicleEntersTrafficEvent)ev);
+				}
+			};
 		} else if (klass == PersonArrivalEvent.class) {
-			((PersonArrivalEventHandler)handler).handleEvent((PersonArrivalEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((PersonArrivalEventHandler)handler).handleEvent((PersonArrivalEvent)ev);
+				}
+			};
 		} else if (klass == PersonDepartureEvent.class) {
-			((PersonDepartureEventHandler)handler).handleEvent((PersonDepartureEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((PersonDepartureEventHandler)handler).handleEvent((PersonDepartureEvent)ev);
+				}
+			};
 		} else if (klass == ActivityEndEvent.class) {
-			((ActivityEndEventHandler)handler).handleEvent((ActivityEndEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((ActivityEndEventHandler)handler).handleEvent((ActivityEndEvent)ev);
+				}
+			};
 		} else if (klass == ActivityStartEvent.class) {
-			((ActivityStartEventHandler)handler).handleEvent((ActivityStartEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((ActivityStartEventHandler)handler).handleEvent((ActivityStartEvent)ev);
+				}
+			};
 		} else if (klass == TransitDriverStartsEvent.class) {
-			((TransitDriverStartsEventHandler) handler).handleEvent((TransitDriverStartsEvent) ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((TransitDriverStartsEventHandler)handler).handleEvent((TransitDriverStartsEvent)ev);
+				}
+			};
 		} else if (klass == PersonStuckEvent.class) {
-			((PersonStuckEventHandler)handler).handleEvent((PersonStuckEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((PersonStuckEventHandler)handler).handleEvent((PersonStuckEvent)ev);
+				}
+			};
 		} else if (klass == PersonMoneyEvent.class) {
-			((PersonMoneyEventHandler)handler).handleEvent((PersonMoneyEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((PersonMoneyEventHandler)handler).handleEvent((PersonMoneyEvent)ev);
+				}
+			};
 		} else if (klass == AgentWaitingForPtEvent.class) {
-			((AgentWaitingForPtEventHandler)handler).handleEvent((AgentWaitingForPtEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((AgentWaitingForPtEventHandler)handler).handleEvent((AgentWaitingForPtEvent)ev);
+				}
+			};
 		} else if (klass == PersonEntersVehicleEvent.class) {
-			((PersonEntersVehicleEventHandler)handler).handleEvent((PersonEntersVehicleEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((PersonEntersVehicleEventHandler)handler).handleEvent((PersonEntersVehicleEvent)ev);
+				}
+			};
 		} else if (klass == PersonLeavesVehicleEvent.class) {
-			((PersonLeavesVehicleEventHandler)handler).handleEvent((PersonLeavesVehicleEvent)ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((PersonLeavesVehicleEventHandler)handler).handleEvent((PersonLeavesVehicleEvent)ev);
+				}
+			};
 		} else if (klass == VehicleDepartsAtFacilityEvent.class) {
-			((VehicleDepartsAtFacilityEventHandler) handler).handleEvent((VehicleDepartsAtFacilityEvent) ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((VehicleDepartsAtFacilityEventHandler)handler).handleEvent((VehicleDepartsAtFacilityEvent)ev);
+				}
+			};
 		} else if (klass == VehicleArrivesAtFacilityEvent.class) {
-			((VehicleArrivesAtFacilityEventHandler) handler).handleEvent((VehicleArrivesAtFacilityEvent) ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((VehicleArrivesAtFacilityEventHandler)handler).handleEvent((VehicleArrivesAtFacilityEvent)ev);
+				}
+			};
 		} else if (klass == Event.class) {
-			((BasicEventHandler)handler).handleEvent(ev);
-			return true;
+			return new HandlerCaller() {
+				@Override
+				void callHandler(final EventHandler handler, final Event ev) {
+					((BasicEventHandler)handler).handleEvent(ev);
+				}
+			};
+		}
+		return new MethodHandleCaller(klass, method);
+	}
+
+	private static final class MethodHandleCaller extends HandlerCaller {
+
+		private final Class<?> eventClass;
+		private final MethodHandle methodHandle;
+
+		MethodHandleCaller(final Class<?> eventClass, final Method method) {
+			this.eventClass = eventClass;
+			try {
+				// the handler interface need not be public, which Method.invoke() would not accept either
+				method.setAccessible(true);
+				this.methodHandle = MethodHandles.lookup().unreflect(method)
+						.asType(MethodType.methodType(void.class, EventHandler.class, Event.class));
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException("problem accessing EventHandler method " + method + " for event-class " + eventClass.getCanonicalName(), e);
+			}
+		}
+
+		@Override
+		void callHandler(final EventHandler handler, final Event event) {
+			try {
+				this.methodHandle.invokeExact(handler, event);
+			} catch (Throwable e) {
+				// report problems in the same way as with Method.invoke()
+				throw new RuntimeException("problem invoking EventHandler " + handler.getClass().getCanonicalName() + " for event-class " + this.eventClass.getCanonicalName(), new InvocationTargetException(e));
+			}
 		}
-		return false;
 	}
 
 	public void printEventHandlers() {
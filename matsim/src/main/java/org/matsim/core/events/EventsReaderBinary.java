@@ -0,0 +1,349 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsReaderBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
+import org.matsim.api.core.v01.events.VehicleAbortsEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
+import org.matsim.core.api.experimental.events.BoardingDeniedEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
+import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.events.BinaryEventsFormat.BlockReader;
+import org.matsim.core.events.EventsReaderXMLv1.CustomEventMapper;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.vehicles.Vehicle;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Reads events files in the binary format written by {@link org.matsim.core.events.algorithms.EventWriterBinary}
+ * and passes the events on to an events manager.  The events of the known types are created directly; the ids
+ * are created only once per string in the file's dictionary.  All other events are created in the same way as
+ * by {@link EventsReaderXMLv1}, including custom event mappers.
+ */
+public final class EventsReaderBinary implements MatsimReader {
+
+	private final EventsManager events;
+	private final EventsReaderXMLv1 genericEventsReader;
+
+	private final List<String> strings = new ArrayList<>();
+	private final IdCache<Person> personIds = new IdCache<>(Person.class);
+	private final IdCache<Link> linkIds = new IdCache<>(Link.class);
+	private final IdCache<Vehicle> vehicleIds = new IdCache<>(Vehicle.class);
+	private final IdCache<ActivityFacility> facilityIds = new IdCache<>(ActivityFacility.class);
+	private final IdCache<TransitStopFacility> stopIds = new IdCache<>(TransitStopFacility.class);
+
+	// created for every stream, as its native memory is released at the end of the stream
+	private Inflater inflater = null;
+
+	public EventsReaderBinary(final EventsManager events) {
+		this.events = events;
+		this.genericEventsReader = new EventsReaderXMLv1(events);
+	}
+
+	public void addCustomEventMapper(String eventType, CustomEventMapper<?> cem) {
+		this.genericEventsReader.addCustomEventMapper(eventType, cem);
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		readStream(IOUtils.getInputStream(filename));
+	}
+
+	/**
+	 * Reads only the chunks containing events with <code>fromTime &lt;= time &lt; toTime</code>.  The events of the other
+	 * chunks are skipped without decompressing them, and reading stops at the first chunk starting at or after
+	 * <code>toTime</code>.  All events of the chunks read are passed on, so the events manager may still see some events
+	 * outside of the time window.
+	 */
+	public void readFile(final String filename, final double fromTime, final double toTime) {
+		readStream(IOUtils.getInputStream(filename), fromTime, toTime);
+	}
+
+	public void readStream(final InputStream stream) {
+		readStream(stream, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+	}
+
+	public void readStream(final InputStream stream, final double fromTime, final double toTime) {
+		// the dictionary belongs to the stream
+		this.strings.clear();
+		this.personIds.clear();
+		this.linkIds.clear();
+		this.vehicleIds.clear();
+		this.facilityIds.clear();
+		this.stopIds.clear();
+		this.inflater = new Inflater();
+		try (DataInputStream in = new DataInputStream(stream)) {
+			readHeader(in);
+			while (true) {
+				byte tag = in.readByte();
+				if (tag == BinaryEventsFormat.CHUNK_TAG) {
+					if (!readChunk(in, fromTime, toTime)) {
+						break;
+					}
+				} else if (tag == BinaryEventsFormat.END_TAG) {
+					break;
+				} else {
+					throw new RuntimeException("Unexpected tag " + tag + " in binary events file.");
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.inflater.end();
+			this.inflater = null;
+		}
+	}
+
+	static void readHeader(final DataInputStream in) throws IOException {
+		byte[] magic = new byte[BinaryEventsFormat.MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, BinaryEventsFormat.MAGIC)) {
+			throw new RuntimeException("This is not a binary events file.");
+		}
+		int version = in.readInt();
+		if (version != BinaryEventsFormat.VERSION) {
+			throw new RuntimeException("Version " + version + " of the binary events format is not supported.");
+		}
+	}
+
+	/**
+	 * Reads the chunk after its tag and passes its events on to the events manager if some of them are within the time
+	 * window.  The chunks before it must have been read already, as they define the strings of the dictionary used by
+	 * this chunk.
+	 *
+	 * @return false if the chunk starts at or after the end of the time window, so that no further chunks need to be read.
+	 */
+	private boolean readChunk(final DataInputStream in, final double fromTime, final double toTime) throws IOException {
+		int numberOfEvents = in.readInt();
+		double minTime = in.readDouble();
+		double maxTime = in.readDouble();
+		if (minTime >= toTime) {
+			return false;
+		}
+		int numberOfStringsBefore = in.readInt();
+		int numberOfNewStrings = in.readInt();
+		if (numberOfStringsBefore != this.strings.size()) {
+			throw new RuntimeException("The dictionary contains " + this.strings.size() + " strings, but the chunk expects " + numberOfStringsBefore + ".");
+		}
+		int stringsLength = in.readInt();
+		int stringsCompressedLength = in.readInt();
+		int eventsLength = in.readInt();
+		int eventsCompressedLength = in.readInt();
+		BlockReader stringsBlock = new BlockReader(readBlock(in, stringsLength, stringsCompressedLength));
+		for (int i = 0; i < numberOfNewStrings; i++) {
+			this.strings.add(stringsBlock.readString());
+		}
+		if (maxTime < fromTime) {
+			skipFully(in, eventsCompressedLength);
+			return true;
+		}
+		BlockReader eventsBlock = new BlockReader(readBlock(in, eventsLength, eventsCompressedLength));
+		double time = 0.;
+		for (int i = 0; i < numberOfEvents; i++) {
+			int type = eventsBlock.readVarInt();
+			long timeDifference = eventsBlock.readVarLong();
+			if (timeDifference == 1) {
+				time = eventsBlock.readDouble();
+			} else {
+				time += timeDifference >>> 1;
+			}
+			if (type == BinaryEventsFormat.TYPE_GENERIC) {
+				// the xml reader creates the event and passes it on to the events manager
+				this.genericEventsReader.startEvent(createGenericAttributes(time, eventsBlock));
+			} else {
+				this.events.processEvent(createEvent(type, time, eventsBlock));
+			}
+		}
+		return true;
+	}
+
+	private static void skipFully(final DataInputStream in, final int length) throws IOException {
+		int skipped = 0;
+		while (skipped < length) {
+			int n = in.skipBytes(length - skipped);
+			if (n <= 0) {
+				throw new IOException("Unexpected end of binary events file.");
+			}
+			skipped += n;
+		}
+	}
+
+	private byte[] readBlock(final DataInputStream in, final int length, final int compressedLength) throws IOException {
+		byte[] compressed = new byte[compressedLength];
+		in.readFully(compressed);
+		byte[] data = new byte[length];
+		this.inflater.reset();
+		this.inflater.setInput(compressed);
+		try {
+			int inflated = 0;
+			while (inflated < length) {
+				int n = this.inflater.inflate(data, inflated, length - inflated);
+				if (n == 0 && (this.inflater.finished() || this.inflater.needsInput())) {
+					throw new RuntimeException("Unexpected end of a block in binary events file.");
+				}
+				inflated += n;
+			}
+		} catch (DataFormatException e) {
+			throw new RuntimeException("Corrupt block in binary events file.", e);
+		}
+		return data;
+	}
+
+	private Event createEvent(final int type, final double time, final BlockReader in) {
+		switch (type) {
+		case BinaryEventsFormat.TYPE_LINK_LEAVE:
+			return new LinkLeaveEvent(time, this.vehicleIds.get(in.readVarInt()), this.linkIds.get(in.readVarInt()));
+		case BinaryEventsFormat.TYPE_LINK_ENTER:
+			return new LinkEnterEvent(time, this.vehicleIds.get(in.readVarInt()), this.linkIds.get(in.readVarInt()));
+		case BinaryEventsFormat.TYPE_VEHICLE_ENTERS_TRAFFIC:
+			return new VehicleEntersTrafficEvent(time, this.personIds.get(in.readVarInt()), this.linkIds.get(in.readVarInt()),
+					this.vehicleIds.get(in.readVarInt()), getString(in.readVarInt()), in.readDouble());
+		case BinaryEventsFormat.TYPE_VEHICLE_LEAVES_TRAFFIC:
+			return new VehicleLeavesTrafficEvent(time, this.personIds.get(in.readVarInt()), this.linkIds.get(in.readVarInt()),
+					this.vehicleIds.get(in.readVarInt()), getString(in.readVarInt()), in.readDouble());
+		case BinaryEventsFormat.TYPE_PERSON_DEPARTURE:
+			return new PersonDepartureEvent(time, this.personIds.get(in.readVarInt()), this.linkIds.get(in.readVarInt()), getString(in.readVarInt()));
+		case BinaryEventsFormat.TYPE_PERSON_ARRIVAL:
+			return new PersonArrivalEvent(time, this.personIds.get(in.readVarInt()), this.linkIds.get(in.readVarInt()), getString(in.readVarInt()));
+		case BinaryEventsFormat.TYPE_ACTIVITY_END:
+			return new ActivityEndEvent(time, this.personIds.get(in.readVarInt()), this.linkIds.get(in.readVarInt()),
+					this.facilityIds.get(in.readVarInt()), getString(in.readVarInt()));
+		case BinaryEventsFormat.TYPE_ACTIVITY_START:
+			return new ActivityStartEvent(time, this.personIds.get(in.readVarInt()), this.linkIds.get(in.readVarInt()),
+					this.facilityIds.get(in.readVarInt()), getString(in.readVarInt()));
+		case BinaryEventsFormat.TYPE_PERSON_ENTERS_VEHICLE:
+			return new PersonEntersVehicleEvent(time, this.personIds.get(in.readVarInt()), this.vehicleIds.get(in.readVarInt()));
+		case BinaryEventsFormat.TYPE_PERSON_LEAVES_VEHICLE:
+			return new PersonLeavesVehicleEvent(time, this.personIds.get(in.readVarInt()), this.vehicleIds.get(in.readVarInt()));
+		case BinaryEventsFormat.TYPE_TELEPORTATION_ARRIVAL:
+			return new TeleportationArrivalEvent(time, this.personIds.get(in.readVarInt()), in.readDouble());
+		case BinaryEventsFormat.TYPE_VEHICLE_ARRIVES_AT_FACILITY:
+			return new VehicleArrivesAtFacilityEvent(time, this.vehicleIds.get(in.readVarInt()), this.stopIds.get(in.readVarInt()), in.readDouble());
+		case BinaryEventsFormat.TYPE_VEHICLE_DEPARTS_AT_FACILITY:
+			return new VehicleDepartsAtFacilityEvent(time, this.vehicleIds.get(in.readVarInt()), this.stopIds.get(in.readVarInt()), in.readDouble());
+		case BinaryEventsFormat.TYPE_AGENT_WAITING_FOR_PT:
+			return new AgentWaitingForPtEvent(time, this.personIds.get(in.readVarInt()), this.stopIds.get(in.readVarInt()), this.stopIds.get(in.readVarInt()));
+		case BinaryEventsFormat.TYPE_TRANSIT_DRIVER_STARTS:
+			return new TransitDriverStartsEvent(time, this.personIds.get(in.readVarInt()), this.vehicleIds.get(in.readVarInt()),
+					createId(in.readVarInt(), TransitLine.class), createId(in.readVarInt(), TransitRoute.class), createId(in.readVarInt(), Departure.class));
+		case BinaryEventsFormat.TYPE_PERSON_STUCK:
+			return new PersonStuckEvent(time, this.personIds.get(in.readVarInt()), this.linkIds.get(in.readVarInt()), getString(in.readVarInt()));
+		case BinaryEventsFormat.TYPE_VEHICLE_ABORTS:
+			return new VehicleAbortsEvent(time, this.vehicleIds.get(in.readVarInt()), this.linkIds.get(in.readVarInt()));
+		case BinaryEventsFormat.TYPE_PERSON_MONEY:
+			return new PersonMoneyEvent(time, this.personIds.get(in.readVarInt()), in.readDouble());
+		case BinaryEventsFormat.TYPE_BOARDING_DENIED:
+			return new BoardingDeniedEvent(time, this.personIds.get(in.readVarInt()), this.vehicleIds.get(in.readVarInt()));
+		default:
+			throw new RuntimeException("Unknown event type " + type + " in binary events file.");
+		}
+	}
+
+	private AttributesImpl createGenericAttributes(final double time, final BlockReader in) {
+		AttributesImpl atts = new AttributesImpl();
+		addAttribute(atts, Event.ATTRIBUTE_TIME, Double.toString(time));
+		addAttribute(atts, Event.ATTRIBUTE_TYPE, getString(in.readVarInt()));
+		int numberOfAttributes = in.readVarInt();
+		for (int i = 0; i < numberOfAttributes; i++) {
+			addAttribute(atts, getString(in.readVarInt()), getString(in.readVarInt()));
+		}
+		return atts;
+	}
+
+	private static void addAttribute(final AttributesImpl atts, final String name, final String value) {
+		atts.addAttribute("", name, name, "CDATA", value);
+	}
+
+	private String getString(final int ref) {
+		return ref == 0 ? null : this.strings.get(ref - 1);
+	}
+
+	private <T> Id<T> createId(final int ref, final Class<T> idClass) {
+		return ref == 0 ? null : Id.create(this.strings.get(ref - 1), idClass);
+	}
+
+	/**
+	 * Keeps the ids of one type created for the strings of the dictionary.
+	 */
+	private final class IdCache<T> {
+
+		private final Class<T> idClass;
+		private final List<Id<T>> ids = new ArrayList<>();
+
+		IdCache(final Class<T> idClass) {
+			this.idClass = idClass;
+		}
+
+		Id<T> get(final int ref) {
+			if (ref == 0) {
+				return null;
+			}
+			while (this.ids.size() < ref) {
+				this.ids.add(null);
+			}
+			Id<T> id = this.ids.get(ref - 1);
+			if (id == null) {
+				id = Id.create(EventsReaderBinary.this.strings.get(ref - 1), this.idClass);
+				this.ids.set(ref - 1, id);
+			}
+			return id;
+		}
+
+		void clear() {
+			this.ids.clear();
+		}
+	}
+
+}
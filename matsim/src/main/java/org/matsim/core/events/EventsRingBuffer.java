@@ -0,0 +1,171 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsRingBuffer.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.matsim.api.core.v01.events.Event;
+
+/**
+ * A pre-allocated ring buffer which hands events from any number of producing threads to a fixed number of consumers,
+ * every one of which sees every event, in the order of their sequence numbers.
+ * <p></p>
+ * Producers claim a sequence number with a single atomic increment, put the event into its slot and mark the slot as
+ * published.  Consumers read all published events in batches and only then advance their own sequence, which the
+ * producers check before they overwrite a slot.  Nobody takes a lock; threads waiting for free slots or new events
+ * first spin, then yield and finally park for short periods.
+ */
+/*package*/ final class EventsRingBuffer {
+
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 200;
+	private static final long PARK_NANOS = 10000;
+
+	// keep the sequences of the consumers on different cache lines
+	private static final int SEQUENCE_STRIDE = 8;
+
+	private final Event[] entries;
+	private final int mask;
+	private final int indexShift;
+	/** the round (sequence / capacity) in which a slot was published last */
+	private final AtomicIntegerArray publishedRounds;
+
+	private final AtomicLong nextSequence = new AtomicLong(0);
+	private final AtomicLongArray consumerSequences;
+	private final int numberOfConsumers;
+	private volatile long cachedMinConsumerSequence = 0;
+
+	private volatile boolean halted = false;
+
+	EventsRingBuffer(final int minCapacity, final int numberOfConsumers) {
+		int capacity = Integer.highestOneBit(Math.max(2, minCapacity - 1)) << 1;
+		this.entries = new Event[capacity];
+		this.mask = capacity - 1;
+		this.indexShift = Integer.numberOfTrailingZeros(capacity);
+		this.publishedRounds = new AtomicIntegerArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			this.publishedRounds.set(i, -1);
+		}
+		this.numberOfConsumers = numberOfConsumers;
+		this.consumerSequences = new AtomicLongArray(numberOfConsumers * SEQUENCE_STRIDE);
+	}
+
+	int getCapacity() {
+		return this.entries.length;
+	}
+
+	/**
+	 * Adds the event after all events published so far, waiting for a free slot if necessary.  Events published after
+	 * {@link #halt()} are dropped.
+	 */
+	void publish(final Event event) {
+		long sequence = this.nextSequence.getAndIncrement();
+		long wrapPoint = sequence - this.entries.length;
+		if (wrapPoint >= this.cachedMinConsumerSequence) {
+			long minConsumerSequence;
+			int tries = 0;
+			while (wrapPoint >= (minConsumerSequence = getMinConsumerSequence())) {
+				if (this.halted) {
+					return;
+				}
+				tries = backOff(tries);
+			}
+			this.cachedMinConsumerSequence = minConsumerSequence;
+		}
+		int index = (int) sequence & this.mask;
+		this.entries[index] = event;
+		this.publishedRounds.lazySet(index, (int) (sequence >>> this.indexShift));
+	}
+
+	/**
+	 * Waits until the event with the given sequence number is published.
+	 *
+	 * @return the highest sequence number up to which all events are published, but not more than
+	 * <code>sequence + maxBatchSize - 1</code>, or -1 if the ring buffer was halted.
+	 */
+	long waitFor(final long sequence, final int maxBatchSize) {
+		int tries = 0;
+		while (!isPublished(sequence)) {
+			if (this.halted) {
+				return -1;
+			}
+			tries = backOff(tries);
+		}
+		long available = sequence;
+		long limit = sequence + maxBatchSize - 1;
+		while (available < limit && isPublished(available + 1)) {
+			available++;
+		}
+		return available;
+	}
+
+	Event get(final long sequence) {
+		return this.entries[(int) sequence & this.mask];
+	}
+
+	/**
+	 * Tells the producers that the consumer has read all events before the given sequence number.
+	 */
+	void setConsumerSequence(final int consumer, final long nextSequenceToRead) {
+		this.consumerSequences.lazySet(consumer * SEQUENCE_STRIDE, nextSequenceToRead);
+	}
+
+	/**
+	 * @return the number of events that were claimed by producers, but not yet read by all consumers.
+	 */
+	long getNumberOfPendingEvents() {
+		return this.nextSequence.get() - getMinConsumerSequence();
+	}
+
+	/**
+	 * Releases all threads waiting in {@link #publish(Event)} or {@link #waitFor(long, int)}.
+	 */
+	void halt() {
+		this.halted = true;
+	}
+
+	private boolean isPublished(final long sequence) {
+		return this.publishedRounds.get((int) sequence & this.mask) == (int) (sequence >>> this.indexShift);
+	}
+
+	private long getMinConsumerSequence() {
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < this.numberOfConsumers; i++) {
+			min = Math.min(min, this.consumerSequences.get(i * SEQUENCE_STRIDE));
+		}
+		return min;
+	}
+
+	private static int backOff(final int tries) {
+		if (tries < SPIN_TRIES) {
+			return tries + 1;
+		} else if (tries < YIELD_TRIES) {
+			Thread.yield();
+			return tries + 1;
+		}
+		LockSupport.parkNanos(PARK_NANOS);
+		return tries;
+	}
+
+}
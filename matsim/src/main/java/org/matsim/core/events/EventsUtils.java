@@ -1,5 +1,6 @@
 package org.matsim.core.events;
 
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
@@ -21,6 +22,13 @@ public class EventsUtils {
      * The (Parallel)EventsMangerImpl cannot, therefore it has to be wrapped into a
      * SynchronizedEventsManagerImpl.
      */
+    /**
+     * @return the event itself, or a copy if it is a {@link ReusableEvent}, which must not be kept.
+     */
+    public static Event toRetainableEvent(Event event) {
+    	return event instanceof ReusableEvent ? ((ReusableEvent) event).copy() : event;
+    }
+
     public static EventsManager getParallelFeedableInstance(EventsManager events) {
     	if (events instanceof SimStepParallelEventsManagerImpl) {
     		return events;
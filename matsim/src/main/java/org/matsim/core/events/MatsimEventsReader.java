@@ -20,14 +20,26 @@
 
 package org.matsim.core.events;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Stack;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.UncheckedIOException;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 
@@ -41,6 +53,7 @@ public class MatsimEventsReader implements MatsimReader {
 
 	private final static Logger log = Logger.getLogger(MatsimEventsReader.class);
 	private final EventsManager events;
+	private int numberOfThreads = 1;
 
 	/**
 	 * Creates a new reader for MATSim events files.
@@ -51,6 +64,14 @@ public class MatsimEventsReader implements MatsimReader {
 		this.events = events;
 	}
 
+	/**
+	 * Lets xml events files be parsed by the given number of threads.  The events are still handed to the events
+	 * manager in one thread and in their original order.
+	 */
+	public void setNumberOfThreads(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
 	/**
 	 * Parses the specified events file.
 	 *
@@ -60,7 +81,13 @@ public class MatsimEventsReader implements MatsimReader {
 	public void readFile(final String filename) {
 		String lcFilename = filename.toLowerCase(Locale.ROOT);
 		if (lcFilename.endsWith(".xml") || lcFilename.endsWith(".xml.gz")) {
-			new XmlEventsReader(this.events).readFile(filename);
+			if (this.numberOfThreads > 1) {
+				readXmlFileInParallel(this.events, filename, lcFilename);
+			} else {
+				new XmlEventsReader(this.events).readFile(filename);
+			}
+		} else if (lcFilename.endsWith(".bin") || lcFilename.endsWith(".bin.gz")) {
+			new EventsReaderBinary(this.events).readFile(filename);
 		} else if (lcFilename.endsWith(".txt") || lcFilename.endsWith(".txt.gz")) {
 			throw new RuntimeException("text events are no longer supported. Please use MATSim 0.6.1 or earlier to read text events.");
 		} else {
@@ -68,6 +95,95 @@ public class MatsimEventsReader implements MatsimReader {
 		}
 	}
 
+	/**
+	 * Parses only the events of the specified file with <code>fromTime &lt;= time &lt; toTime</code>.  Binary events files
+	 * are read chunk by chunk, skipping the chunks outside of the time window.  For xml events files, the index written
+	 * next to them (see {@link EventsFileIndex}) is used if it exists, otherwise the whole file has to be read.
+	 */
+	public void readFile(final String filename, final double fromTime, final double toTime) {
+		EventsManager timeWindow = createTimeWindowFilter(fromTime, toTime);
+		String lcFilename = filename.toLowerCase(Locale.ROOT);
+		if (lcFilename.endsWith(".xml") || lcFilename.endsWith(".xml.gz")) {
+			String indexFilename = EventsFileIndex.getIndexFilename(filename);
+			if (new File(indexFilename).exists()) {
+				EventsFileIndex index = EventsFileIndex.read(indexFilename);
+				if (this.numberOfThreads > 1) {
+					new ParallelEventsReaderXML(timeWindow, this.numberOfThreads).readTimeBins(filename, lcFilename.endsWith(".gz"),
+							index, index.getStartOffset(fromTime), index.getEndOffset(toTime));
+				} else {
+					new XmlEventsReader(timeWindow).parse(openTimeWindow(filename, lcFilename.endsWith(".gz"),
+							index.getStartOffset(fromTime), index.getEndOffset(toTime)));
+				}
+			} else if (this.numberOfThreads > 1) {
+				log.warn("No index found for events file " + filename + ", reading the whole file.");
+				readXmlFileInParallel(timeWindow, filename, lcFilename);
+			} else {
+				log.warn("No index found for events file " + filename + ", reading the whole file.");
+				new XmlEventsReader(timeWindow).readFile(filename);
+			}
+		} else if (lcFilename.endsWith(".bin") || lcFilename.endsWith(".bin.gz")) {
+			new EventsReaderBinary(timeWindow).readFile(filename, fromTime, toTime);
+		} else {
+			readFile(filename);
+		}
+	}
+
+	private void readXmlFileInParallel(final EventsManager eventsManager, final String filename, final String lcFilename) {
+		ParallelEventsReaderXML reader = new ParallelEventsReaderXML(eventsManager, this.numberOfThreads);
+		String indexFilename = EventsFileIndex.getIndexFilename(filename);
+		if (new File(indexFilename).exists()) {
+			EventsFileIndex index = EventsFileIndex.read(indexFilename);
+			reader.readTimeBins(filename, lcFilename.endsWith(".gz"), index,
+					index.getStartOffset(Double.NEGATIVE_INFINITY), index.getEndOffset());
+		} else {
+			reader.readFile(filename);
+		}
+	}
+
+	private EventsManager createTimeWindowFilter(final double fromTime, final double toTime) {
+		EventsManager timeWindow = EventsUtils.createEventsManager();
+		timeWindow.addHandler(new BasicEventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				if (event.getTime() >= fromTime && event.getTime() < toTime) {
+					MatsimEventsReader.this.events.processEvent(event);
+				}
+			}
+			@Override
+			public void reset(int iteration) {
+			}
+		});
+		return timeWindow;
+	}
+
+	/**
+	 * @return the part of the xml events file between the two positions, as a complete events file.
+	 */
+	/*package*/ static InputStream openTimeWindow(final String filename, final boolean compressed, final long startOffset, final long endOffset) {
+		try {
+			InputStream file = new FileInputStream(filename);
+			long skipped = 0;
+			while (skipped < startOffset) {
+				long n = file.skip(startOffset - skipped);
+				if (n <= 0) {
+					file.close();
+					throw new IOException("Could not skip to position " + startOffset + " in " + filename);
+				}
+				skipped += n;
+			}
+			InputStream events = new BoundedInputStream(file, endOffset - startOffset);
+			if (compressed) {
+				events = new GZIPInputStream(events, 1 << 16);
+			}
+			return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+					new ByteArrayInputStream(EventWriterXML.HEADER.getBytes("UTF-8")),
+					events,
+					new ByteArrayInputStream(EventWriterXML.FOOTER.getBytes("UTF-8")))));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	public void readStream(final InputStream stream) {
 		new XmlEventsReader(this.events).parse(stream);
 	}
@@ -111,4 +227,49 @@ public class MatsimEventsReader implements MatsimReader {
 			}
 		}
 	}
+
+	private static final class BoundedInputStream extends InputStream {
+		private final InputStream delegate;
+		private long remaining;
+
+		BoundedInputStream(final InputStream delegate, final long length) {
+			this.delegate = delegate;
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (this.remaining <= 0) {
+				return -1;
+			}
+			int b = this.delegate.read();
+			if (b >= 0) {
+				this.remaining--;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (this.remaining <= 0) {
+				return -1;
+			}
+			int n = this.delegate.read(b, off, (int) Math.min(len, this.remaining));
+			if (n > 0) {
+				this.remaining -= n;
+			}
+			return n;
+		}
+
+		@Override
+		public int available() throws IOException {
+			// GZIPInputStream only looks for further gzip members if there are bytes available
+			return (int) Math.min(this.remaining, this.delegate.available());
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.delegate.close();
+		}
+	}
 }
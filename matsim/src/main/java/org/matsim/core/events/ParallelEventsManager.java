@@ -122,7 +122,7 @@ public class ParallelEventsManager implements EventsManager {
 	
 	@Override
 	public void processEvent(final Event event) {
-		if (this.parallelMode) this.distributor.processEvent(event);
+		if (this.parallelMode) this.distributor.processEvent(EventsUtils.toRetainableEvent(event));
 		else this.singleThreadEventsHandler.processEvent(event);
 	}
 
@@ -154,6 +154,12 @@ public class ParallelEventsManager implements EventsManager {
 		}
 	}
 	
+	@Override
+	public boolean hasHandlers(Class<? extends Event> eventClass) {
+		// all handlers are also known by the single thread events manager
+		return this.singleThreadEventsHandler.hasHandlers(eventClass);
+	}
+
 	@Override
 	public void resetHandlers(int iteration) {
 		this.singleThreadEventsHandler.resetHandlers(iteration);
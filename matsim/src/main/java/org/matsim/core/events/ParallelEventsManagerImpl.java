@@ -55,6 +55,10 @@ import javax.inject.Inject;
  * (not really needed, but can make performance slightly faster in larger
  * simulations).
  *
+ * {@link org.matsim.core.events.handler.PartitionableEventHandler}s are split
+ * into one partition per thread between initProcessing and finishProcessing,
+ * and are processed by the first thread otherwise.
+ *
  * @see <a href="http://www.matsim.org/node/238">http://www.matsim.org/node/238</a>
  * @author rashid_waraich
  *
@@ -64,6 +68,7 @@ public class ParallelEventsManagerImpl implements EventsManager {
 	private boolean parallelMode = true;
 	private int numberOfThreads;
 	private EventsManagerImpl[] events = null;
+	private PartitionedEventHandlers partitionedHandlers = null;
 	private ProcessEventThread[] eventsProcessThread = null;
 	private Thread[] threads = null;
 	private int numberOfAddedEventsHandler = 0;
@@ -112,8 +117,9 @@ public class ParallelEventsManagerImpl implements EventsManager {
 	@Override
 	public void processEvent(final Event event) {
 		if (parallelMode) {
+			Event retainableEvent = EventsUtils.toRetainableEvent(event);
 			for (int i = 0; i < eventsProcessThread.length; i++) {
-				eventsProcessThread[i].processEvent(event);
+				eventsProcessThread[i].processEvent(retainableEvent);
 			}
 		} else {
 			for (int i = 0; i < eventsProcessThread.length; i++) {
@@ -125,12 +131,27 @@ public class ParallelEventsManagerImpl implements EventsManager {
 	@Override
 	public void addHandler(final EventHandler handler) {
 		synchronized (this) {
+			if (partitionedHandlers.addHandler(handler)) {
+				log.info("adding partitionable Event-Handler " + handler.getClass().getName());
+				events[0].addHandler(handler);
+				return;
+			}
 			log.info("adding Event-Handler " + handler.getClass().getName() + " to thread " + numberOfAddedEventsHandler);
 			events[numberOfAddedEventsHandler].addHandler(handler);
 			numberOfAddedEventsHandler = (numberOfAddedEventsHandler + 1) % numberOfThreads;
 		}
 	}
 
+	@Override
+	public boolean hasHandlers(final Class<? extends Event> eventClass) {
+		for (int i = 0; i < events.length; i++) {
+			if (events[i].hasHandlers(eventClass)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void resetHandlers(final int iteration) {
 		synchronized (this) {
@@ -143,6 +164,7 @@ public class ParallelEventsManagerImpl implements EventsManager {
 	@Override
 	public void removeHandler(final EventHandler handler) {
 		synchronized (this) {
+			partitionedHandlers.removeHandler(handler);
 			for (int i = 0; i < events.length; i++) {
 				events[i].removeHandler(handler);
 			}
@@ -167,6 +189,7 @@ public class ParallelEventsManagerImpl implements EventsManager {
 		for (int i = 0; i < numberOfThreads; i++) {
 			events[i] = (EventsManagerImpl) EventsUtils.createEventsManager();
 		}
+		this.partitionedHandlers = new PartitionedEventHandlers(this.events);
 	}
 
 	// When one simulation iteration is finish, it must call this method,
@@ -188,6 +211,15 @@ public class ParallelEventsManagerImpl implements EventsManager {
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
+
+		synchronized (this) {
+			if (partitionedHandlers.isPartitioned()) {
+				partitionedHandlers.mergePartitions();
+				for (EventHandler handler : partitionedHandlers.getHandlers()) {
+					events[0].addHandler(handler);
+				}
+			}
+		}
 		
 		// list which threads had which handlers to debug performance issues
 		printEventHandlers();
@@ -210,6 +242,13 @@ public class ParallelEventsManagerImpl implements EventsManager {
 	// prepare for next iteration
 	@Override
 	public void initProcessing() {
+		synchronized (this) {
+			for (EventHandler handler : partitionedHandlers.getHandlers()) {
+				events[0].removeHandler(handler);
+			}
+			partitionedHandlers.createPartitions();
+		}
+
 		// reset this class, so that it can be reused for the next iteration
 		for (int i = 0; i < numberOfThreads; i++) {
 			this.eventsProcessThread[i] = new ProcessEventThread(events[i], preInputBufferMaxLength);
@@ -0,0 +1,224 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelEventsReaderXML.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.xml.sax.InputSource;
+
+/**
+ * Reads xml events files with several threads.  The file is split into chunks which are parsed in parallel, and the
+ * events of every chunk are handed to the events manager in the calling thread, chunk after chunk, so that the
+ * handlers see the events in the same order as when reading the file with one thread.
+ * <p></p>
+ * If an {@link EventsFileIndex} exists next to the file, every time bin of the index is a chunk of its own, which the
+ * threads read directly from the file.  Compressed files are then also decompressed in parallel, as every time bin is
+ * a gzip member of its own.  Otherwise, the file is read line by line in the calling thread and split after every
+ * {@link #DEFAULT_EVENTS_PER_CHUNK} lines with events, always after a line ending with an empty element tag.
+ */
+/*package*/ final class ParallelEventsReaderXML {
+
+	private final static Logger log = Logger.getLogger(ParallelEventsReaderXML.class);
+
+	/*package*/ static final int DEFAULT_EVENTS_PER_CHUNK = 10000;
+
+	private static final String EVENT_TAG = "<" + EventsReaderXMLv1.EVENT + " ";
+	private static final String START_TAG = "<events>\n";
+	private static final String END_TAG = "</events>\n";
+
+	private final EventsManager events;
+	private final int numberOfThreads;
+	private final int eventsPerChunk;
+
+	ParallelEventsReaderXML(final EventsManager events, final int numberOfThreads) {
+		this(events, numberOfThreads, DEFAULT_EVENTS_PER_CHUNK);
+	}
+
+	/*package*/ ParallelEventsReaderXML(final EventsManager events, final int numberOfThreads, final int eventsPerChunk) {
+		this.events = events;
+		this.numberOfThreads = numberOfThreads;
+		this.eventsPerChunk = eventsPerChunk;
+	}
+
+	void readFile(final String filename) {
+		log.info("starting to parse events from file " + filename + " with " + this.numberOfThreads + " threads ...");
+		OrderedChunks chunks = new OrderedChunks();
+		try (BufferedReader reader = IOUtils.getBufferedReader(filename)) {
+			StringBuilder chunk = new StringBuilder();
+			int eventsInChunk = 0;
+			boolean firstChunk = true;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				chunk.append(line).append('\n');
+				if (line.contains(EVENT_TAG)) {
+					eventsInChunk++;
+				}
+				if (eventsInChunk >= this.eventsPerChunk && line.trim().endsWith("/>")) {
+					// the end tag of the root element is still to come
+					chunk.append(END_TAG);
+					chunks.add(chunk.toString());
+					chunk.setLength(0);
+					chunk.append(START_TAG);
+					eventsInChunk = 0;
+					firstChunk = false;
+				}
+			}
+			if (eventsInChunk > 0 || firstChunk) {
+				chunks.add(chunk.toString());
+			}
+			chunks.finish();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			chunks.shutdown();
+		}
+	}
+
+	/**
+	 * Reads the time bins of the index between the two positions in the file.
+	 */
+	void readTimeBins(final String filename, final boolean compressed, final EventsFileIndex index,
+			final long startOffset, final long endOffset) {
+		log.info("starting to parse events from file " + filename + " with " + this.numberOfThreads + " threads, one time bin per thread ...");
+		List<Long> offsets = new ArrayList<>();
+		for (Long offset : index.getTimeBinOffsets()) {
+			if (offset >= startOffset && offset < endOffset) {
+				offsets.add(offset);
+			}
+		}
+		offsets.add(endOffset);
+		OrderedChunks chunks = new OrderedChunks();
+		try {
+			for (int i = 0; i < offsets.size() - 1; i++) {
+				chunks.add(filename, compressed, offsets.get(i), offsets.get(i + 1));
+			}
+			chunks.finish();
+		} finally {
+			chunks.shutdown();
+		}
+	}
+
+	private static List<Event> parse(final InputSource input) {
+		final List<Event> chunkEvents = new ArrayList<>();
+		EventsManager collector = EventsUtils.createEventsManager();
+		collector.addHandler(new BasicEventHandler() {
+			@Override
+			public void handleEvent(final Event event) {
+				chunkEvents.add(event);
+			}
+
+			@Override
+			public void reset(final int iteration) {
+			}
+		});
+		new EventsReaderXMLv1(collector).parse(input);
+		return chunkEvents;
+	}
+
+	/**
+	 * Parses the chunks in the threads of a pool, and passes the events of the oldest chunk to the events manager as
+	 * soon as more chunks are waiting than there are threads.
+	 */
+	private final class OrderedChunks {
+		private final ExecutorService pool;
+		private final Deque<Future<List<Event>>> pending = new ArrayDeque<>();
+
+		OrderedChunks() {
+			this.pool = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+				private int count = 0;
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "EventsReader" + count++);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+		void add(final String chunk) {
+			add(new Callable<List<Event>>() {
+				@Override
+				public List<Event> call() {
+					return parse(new InputSource(new StringReader(chunk)));
+				}
+			});
+		}
+
+		void add(final String filename, final boolean compressed, final long startOffset, final long endOffset) {
+			add(new Callable<List<Event>>() {
+				@Override
+				public List<Event> call() {
+					return parse(new InputSource(MatsimEventsReader.openTimeWindow(filename, compressed, startOffset, endOffset)));
+				}
+			});
+		}
+
+		private void add(final Callable<List<Event>> task) {
+			this.pending.add(this.pool.submit(task));
+			if (this.pending.size() > numberOfThreads) {
+				processOldest();
+			}
+		}
+
+		void finish() {
+			while (!this.pending.isEmpty()) {
+				processOldest();
+			}
+		}
+
+		void shutdown() {
+			this.pool.shutdownNow();
+		}
+
+		private void processOldest() {
+			List<Event> chunkEvents;
+			try {
+				chunkEvents = this.pending.poll().get();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+			for (Event event : chunkEvents) {
+				events.processEvent(event);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PartitionedEventHandlers.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.events.handler.PartitionableEventHandler;
+
+/**
+ * Keeps track of the {@link PartitionableEventHandler}s added to a parallel events manager, and spreads their
+ * partitions over the events managers of its threads while the mobsim runs.  Outside of this time, the handlers
+ * themselves are registered where the parallel events manager processes events in serial mode.
+ */
+/*package*/ final class PartitionedEventHandlers {
+
+	private final static Logger log = Logger.getLogger(PartitionedEventHandlers.class);
+
+	private final EventsManagerImpl[] eventsManagers;
+	private final List<PartitionableEventHandler<EventHandler>> handlers = new ArrayList<>();
+	private final List<Registration> registrations = new ArrayList<>();
+
+	PartitionedEventHandlers(final EventsManagerImpl[] eventsManagers) {
+		this.eventsManagers = eventsManagers;
+	}
+
+	/**
+	 * @return <code>true</code> if the handler will be processed in partitions, i.e. it must not be added to one of the
+	 * events managers of the threads.
+	 */
+	@SuppressWarnings("unchecked")
+	boolean addHandler(final EventHandler handler) {
+		if (this.eventsManagers.length < 2 || !(handler instanceof PartitionableEventHandler) || !this.registrations.isEmpty()) {
+			return false;
+		}
+		this.handlers.add((PartitionableEventHandler<EventHandler>) handler);
+		return true;
+	}
+
+	void removeHandler(final EventHandler handler) {
+		this.handlers.remove(handler);
+		for (int i = 0; i < this.registrations.size(); i++) {
+			if (this.registrations.get(i).handler == handler) {
+				this.registrations.remove(i).unregister();
+				return;
+			}
+		}
+	}
+
+	boolean isPartitioned() {
+		return !this.registrations.isEmpty();
+	}
+
+	List<? extends EventHandler> getHandlers() {
+		return this.handlers;
+	}
+
+	/**
+	 * Creates new partitions of all handlers and adds them to the events managers of the threads, unless this has
+	 * already been done.
+	 */
+	void createPartitions() {
+		if (isPartitioned()) {
+			return;
+		}
+		int n = this.eventsManagers.length;
+		for (int i = 0; i < this.handlers.size(); i++) {
+			PartitionableEventHandler<EventHandler> handler = this.handlers.get(i);
+			EventHandler[] partitions = new EventHandler[n];
+			for (int p = 0; p < n && partitions != null; p++) {
+				partitions[p] = handler.createPartition();
+				if (partitions[p] == null) {
+					partitions = null;
+				}
+			}
+			Registration registration = new Registration(handler, partitions, i % n);
+			if (partitions == null) {
+				log.info("event handler " + handler.getClass().getName() + " cannot be partitioned, it is processed by thread " + registration.thread);
+				this.eventsManagers[registration.thread].addHandler(handler);
+			} else {
+				for (int p = 0; p < n; p++) {
+					this.eventsManagers[p].addPartition(partitions[p], handler, p, n);
+				}
+			}
+			this.registrations.add(registration);
+		}
+	}
+
+	/**
+	 * Removes the partitions from the events managers of the threads and merges them into their handlers.  Must only be
+	 * called after the threads processed their last event.
+	 */
+	void mergePartitions() {
+		for (Registration registration : this.registrations) {
+			registration.unregister();
+			if (registration.partitions != null) {
+				for (EventHandler partition : registration.partitions) {
+					registration.handler.mergePartition(partition);
+				}
+			}
+		}
+		this.registrations.clear();
+	}
+
+	private final class Registration {
+		final PartitionableEventHandler<EventHandler> handler;
+		/** <code>null</code> if the handler could not be partitioned and is registered itself */
+		final EventHandler[] partitions;
+		final int thread;
+
+		Registration(final PartitionableEventHandler<EventHandler> handler, final EventHandler[] partitions, final int thread) {
+			this.handler = handler;
+			this.partitions = partitions;
+			this.thread = thread;
+		}
+
+		void unregister() {
+			if (this.partitions == null) {
+				eventsManagers[this.thread].removeHandler(this.handler);
+			} else {
+				for (int p = 0; p < this.partitions.length; p++) {
+					eventsManagers[p].removeHandler(this.partitions[p]);
+				}
+			}
+		}
+	}
+
+}
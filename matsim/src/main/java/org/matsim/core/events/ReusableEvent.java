@@ -0,0 +1,40 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ReusableEvent.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import org.matsim.api.core.v01.events.Event;
+
+/**
+ * An event object which is changed and processed again for the next event after its processing returned, so that
+ * frequent events do not create garbage.  Events managers only pass such events as they are to handlers which
+ * implement {@link org.matsim.core.events.handler.NonRetainingEventHandler}; handlers which could keep references
+ * to the event, and events managers which hand events to other threads, use a copy instead.
+ *
+ * @see EventsUtils#toRetainableEvent(Event)
+ */
+public interface ReusableEvent {
+
+	/**
+	 * @return an immutable event of the original event type with the current contents of this event.
+	 */
+	public Event copy();
+
+}
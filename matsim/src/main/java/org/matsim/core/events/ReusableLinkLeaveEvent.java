@@ -0,0 +1,88 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ReusableLinkLeaveEvent.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * A {@link LinkLeaveEvent} which is reused for the next link leave event once it is processed.
+ *
+ * @see ReusableEvent
+ */
+public final class ReusableLinkLeaveEvent extends LinkLeaveEvent implements ReusableEvent {
+
+	private double time;
+	private Id<Vehicle> vehicleId;
+	private Id<Link> linkId;
+
+	public ReusableLinkLeaveEvent(final double time, final Id<Vehicle> vehicleId, final Id<Link> linkId) {
+		super(time, vehicleId, linkId);
+		update(time, vehicleId, linkId);
+	}
+
+	/**
+	 * @return this event, changed to the given contents.
+	 */
+	public ReusableLinkLeaveEvent update(final double time, final Id<Vehicle> vehicleId, final Id<Link> linkId) {
+		this.time = time;
+		this.vehicleId = vehicleId;
+		this.linkId = linkId;
+		return this;
+	}
+
+	@Override
+	public double getTime() {
+		return this.time;
+	}
+
+	@Override
+	public Id<Vehicle> getVehicleId() {
+		return this.vehicleId;
+	}
+
+	@Override
+	public Id<Link> getLinkId() {
+		return this.linkId;
+	}
+
+	@Override
+	public Map<String, String> getAttributes() {
+		Map<String, String> attr = new LinkedHashMap<>();
+		attr.put(ATTRIBUTE_TIME, Double.toString(this.time));
+		attr.put(ATTRIBUTE_TYPE, getEventType());
+		attr.put(ATTRIBUTE_VEHICLE, this.vehicleId.toString());
+		attr.put(ATTRIBUTE_LINK, this.linkId.toString());
+		return attr;
+	}
+
+	@Override
+	public Event copy() {
+		return new LinkLeaveEvent(this.time, this.vehicleId, this.linkId);
+	}
+
+}
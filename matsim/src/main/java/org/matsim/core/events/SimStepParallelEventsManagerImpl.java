@@ -29,14 +29,10 @@ import org.matsim.core.gbl.Gbl;
 
 import javax.inject.Inject;
 import java.lang.Thread.UncaughtExceptionHandler;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CyclicBarrier;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -44,25 +40,37 @@ import java.util.concurrent.atomic.AtomicReference;
  * When a Time Step of the QSim ends, all Events that have been created
  * in that Time Step are processed before the simulation can go on.
  * This is necessary e.g. when using Within-day Replanning.
+ * <p></p>
+ * The events are handed to the threads through an {@link EventsRingBuffer}, which
+ * every thread reads completely. Events created by event handlers while the events
+ * of a time step are processed are collected separately and processed after the
+ * other events of that time step.
+ * <p></p>
+ * {@link org.matsim.core.events.handler.PartitionableEventHandler}s are not added to
+ * one thread, but split into one partition per thread while the mobsim runs.
  * 
  * @author cdobler
  */
 class SimStepParallelEventsManagerImpl implements EventsManager {
 
 	private final static Logger log = Logger.getLogger(SimStepParallelEventsManagerImpl.class);
+
+	private final static int RING_BUFFER_SIZE = 1 << 16;
+	private final static int MAX_BATCH_SIZE = 256;
 	
 	private final int numOfThreads;
 	private CyclicBarrier simStepEndBarrier;
 	private CyclicBarrier iterationEndBarrier;
-    private ProcessEventsRunnable[] runnables;
+	private EventsRingBuffer ringBuffer;
+	private final Queue<Event> eventsFromHandlers = new ConcurrentLinkedQueue<>();
 	private EventsManagerImpl[] eventsManagers;
 	private EventsManagerImpl delegate;
+	private PartitionedEventHandlers partitionedHandlers;
 	private ProcessedEventsChecker processedEventsChecker;
 	
-	private boolean parallelMode = false;
+	private volatile boolean parallelMode = false;
 	private int handlerCount = 0;
 	
-	private AtomicLong counter;
 	private AtomicReference<Throwable> hadException = new AtomicReference<>();
 
 	@Inject
@@ -80,8 +88,6 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 	}
 	
 	private void init() {
-		this.counter = new AtomicLong(0);
-		
 		this.simStepEndBarrier = new CyclicBarrier(this.numOfThreads + 1);
 		this.iterationEndBarrier = new CyclicBarrier(this.numOfThreads + 1);
 		
@@ -89,14 +95,21 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 
 		this.eventsManagers = new EventsManagerImpl[this.numOfThreads];
 		for (int i = 0; i < numOfThreads; i++) this.eventsManagers[i] = new EventsManagerImpl();
+		this.partitionedHandlers = new PartitionedEventHandlers(this.eventsManagers);
 	}
 
 	@Override
 	public void processEvent(final Event event) {
-		this.counter.incrementAndGet();
-		
 		if (parallelMode) {
-			runnables[0].processEvent(event);
+			Event retainableEvent = EventsUtils.toRetainableEvent(event);
+			Thread thread = Thread.currentThread();
+			if (thread instanceof ProcessEventsThread && ((ProcessEventsThread) thread).owner == this) {
+				/*
+				 * Created by an event handler. The events processing threads never
+				 * wait for the ring buffer, so that they cannot block each other.
+				 */
+				eventsFromHandlers.add(retainableEvent);
+			} else ringBuffer.publish(retainableEvent);
 		} else delegate.processEvent(event);
 	}
 
@@ -104,6 +117,7 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 	public void addHandler(final EventHandler handler) {
 		delegate.addHandler(handler);
 		
+		if (partitionedHandlers.addHandler(handler)) return;
 		eventsManagers[handlerCount % numOfThreads].addHandler(handler);
 		handlerCount++;
 	}
@@ -111,39 +125,36 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 	@Override
 	public void removeHandler(final EventHandler handler) {
 		delegate.removeHandler(handler);
+		partitionedHandlers.removeHandler(handler);
 		
 		for (EventsManager eventsManager : eventsManagers) eventsManager.removeHandler(handler);
 	}
 	
+	@Override
+	public boolean hasHandlers(Class<? extends Event> eventClass) {
+		// the delegate knows all handlers
+		return delegate.hasHandlers(eventClass);
+	}
+
 	@Override
 	public void resetHandlers(int iteration) {
 		delegate.resetHandlers(iteration);
-		counter.set(0);
 	}
 
 	@Override
 	public void initProcessing() {
 		delegate.initProcessing();
 		for (EventsManager eventsManager : this.eventsManagers) eventsManager.initProcessing();
+		partitionedHandlers.createPartitions();
 
-		Queue<Event>[] eventsQueuesArray = new Queue[this.numOfThreads];
-		List<Queue<Event>> eventsQueues = new ArrayList<Queue<Event>>();
-		for (int i = 0; i < numOfThreads; i++) {
-			Queue<Event> eventsQueue = new LinkedBlockingQueue<>();
-			eventsQueues.add(eventsQueue);
-			eventsQueuesArray[i] = eventsQueue;
-		}
-				
-		/*
-		 * Add a null entry to the list which will be set as nextEventsQueue in the last ProcessEventsThread. 
-		 */
-		eventsQueues.add(null);
+		ringBuffer = new EventsRingBuffer(RING_BUFFER_SIZE, numOfThreads);
+		eventsFromHandlers.clear();
 		
 		/*
 		 * Create a ProcessedEventsChecker that checks whether all Events of
 		 * a time step have been processed.
 		 */
-		processedEventsChecker = new ProcessedEventsChecker(this, eventsQueuesArray);
+		processedEventsChecker = new ProcessedEventsChecker(ringBuffer, eventsFromHandlers);
 		
 		/*
 		 *  Create a Barrier that the threads use to synchronize.
@@ -151,15 +162,13 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
         CyclicBarrier waitForEmptyQueuesBarrier = new CyclicBarrier(this.numOfThreads, processedEventsChecker);
 		
 		hadException = new AtomicReference<>();
-        ExceptionHandler uncaughtExceptionHandler = new ExceptionHandler(hadException, waitForEmptyQueuesBarrier,
+        ExceptionHandler uncaughtExceptionHandler = new ExceptionHandler(hadException, ringBuffer, waitForEmptyQueuesBarrier,
                 simStepEndBarrier, iterationEndBarrier);
 		
-		runnables = new ProcessEventsRunnable[numOfThreads];
 		for (int i = 0; i < numOfThreads; i++) {
 			ProcessEventsRunnable processEventsRunnable = new ProcessEventsRunnable(eventsManagers[i], processedEventsChecker,
-                    waitForEmptyQueuesBarrier, simStepEndBarrier, iterationEndBarrier, eventsQueues.get(i), eventsQueues.get(i + 1));
-			runnables[i] = processEventsRunnable;
-			Thread thread = new Thread(processEventsRunnable);
+                    waitForEmptyQueuesBarrier, simStepEndBarrier, iterationEndBarrier, ringBuffer, i);
+			Thread thread = new ProcessEventsThread(processEventsRunnable, this);
 			thread.setDaemon(true);
 			thread.setUncaughtExceptionHandler(uncaughtExceptionHandler);
 			thread.setName(ProcessEventsRunnable.class.toString() + i);
@@ -198,15 +207,27 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 			}
         }
 		
-		delegate.finishProcessing();
-		for (EventsManager eventsManager : this.eventsManagers) eventsManager.finishProcessing();
-		
 		/*
 		 * After the simulation Events are processed in
 		 * the Main Thread.
 		 */
 		this.parallelMode = false;
 
+		/*
+		 * Events created by event handlers after the last time step.
+		 * They need the partitioned handlers in their merged state.
+		 */
+		if (throwable == null) {
+			partitionedHandlers.mergePartitions();
+			Event event;
+			while ((event = eventsFromHandlers.poll()) != null) {
+				delegate.processEvent(event);
+			}
+		}
+
+		delegate.finishProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.finishProcessing();
+
 		if (throwable != null) {
 			throw new RuntimeException("Exception while processing events. Cannot guarantee that all events have been fully processed.", throwable);
 		}
@@ -233,6 +254,19 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 			throw new RuntimeException(e);
 		}
     }
+
+	/**
+	 * Lets {@link SimStepParallelEventsManagerImpl#processEvent(Event)} recognize events created by event handlers.
+	 */
+	private static class ProcessEventsThread extends Thread {
+
+		private final SimStepParallelEventsManagerImpl owner;
+
+		ProcessEventsThread(Runnable runnable, SimStepParallelEventsManagerImpl owner) {
+			super(runnable);
+			this.owner = owner;
+		}
+	}
 	
 	private static class ProcessEventsRunnable implements Runnable {
 		
@@ -241,20 +275,20 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 		private final CyclicBarrier waitForEmptyQueuesBarrier;
 		private final CyclicBarrier simStepEndBarrier;
 		private final CyclicBarrier iterationEndBarrier;
-		private final Queue<Event> eventsQueue;
-		private final Queue<Event> nextEventsQueue;
+		private final EventsRingBuffer ringBuffer;
+		private final int consumerIndex;
 		private double lastEventTime = 0.0;
 
 		public ProcessEventsRunnable(EventsManager eventsManager, ProcessedEventsChecker processedEventsChecker, 
 				CyclicBarrier waitForEmptyQueuesBarrier,CyclicBarrier simStepEndBarrier,
-				CyclicBarrier iterationEndBarrier, Queue<Event> eventsQueue, Queue<Event> nextEventsQueue) {
+				CyclicBarrier iterationEndBarrier, EventsRingBuffer ringBuffer, int consumerIndex) {
 			this.eventsManager = eventsManager;
 			this.processedEventsChecker = processedEventsChecker;
 			this.waitForEmptyQueuesBarrier = waitForEmptyQueuesBarrier;
 			this.simStepEndBarrier = simStepEndBarrier;
 			this.iterationEndBarrier = iterationEndBarrier;
-			this.eventsQueue = eventsQueue;
-			this.nextEventsQueue = nextEventsQueue;
+			this.ringBuffer = ringBuffer;
+			this.consumerIndex = consumerIndex;
 		}
 
 		@Override
@@ -263,94 +297,81 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 				/*
 				 * If the Simulation has ended we may still have some
 				 * Events left to process. So we continue until the
-				 * eventsQueue is empty.
+				 * ring buffer is empty.
 				 * 
-				 * The loop is ended by a break command when a LastEventOfIteration
+				 * The loop is ended by a return command when a LastEventOfIteration
 				 * event is found.
 				 */
 				lastEventTime = 0.0;
+				long sequence = 0;
 				while (true) {
-					Event event = ((LinkedBlockingQueue<Event>) eventsQueue).take();
-					
-					/*
-					 * Check whether the events are ordered chronologically.
-					 */
-					if (event.getTime() < this.lastEventTime) {
-						throw new RuntimeException("Events in the queue are not ordered chronologically. " +
-								"This should never happen. Is the SimTimeStepParallelEventsManager registered " +
-								"as a MobsimAfterSimStepListener?");
-					} else this.lastEventTime = event.getTime();
-					
-					if (event instanceof LastEventOfSimStep) {
-						/*
-						 * Send the event to the next events processing thread, if this is not the last thread.
-						 */
-						if (nextEventsQueue != null) {
-							nextEventsQueue.add(event);
-						}
+					long available = ringBuffer.waitFor(sequence, MAX_BATCH_SIZE);
+					if (available < 0) {
+						// another thread crashed
+						return;
+					}
+					for (; sequence <= available; sequence++) {
+						Event event = ringBuffer.get(sequence);
 						
 						/*
-						 * At the moment, this thread's queue is empty. However, one of the other threads
-						 * could create additional events for this time step. Therefore we have to wait
-						 * until all threads reach this barrier. Afterwards we can check whether still
-						 * all queues are empty. If this is true, the threads reach the sim step end barrier.
+						 * Check whether the events are ordered chronologically.
 						 */
-						waitForEmptyQueuesBarrier.await();
-						if (!processedEventsChecker.allEventsProcessed()) continue;
+						if (event.getTime() < this.lastEventTime) {
+							throw new RuntimeException("Events in the queue are not ordered chronologically. " +
+									"This should never happen. Is the SimTimeStepParallelEventsManager registered " +
+									"as a MobsimAfterSimStepListener?");
+						} else this.lastEventTime = event.getTime();
 						
-						/*
-						 * All event queues are empty, therefore finish current time step by
-						 * reaching the sim step end barrier.
-						 */
-						simStepEndBarrier.await();
-						continue;
-					} 
-					else {
-						/*
-						 * Handing the event over to the next events processing thread.
-						 * 
-						 * This could be added to the next EventHandlers queue here or in 
-						 * the processEvent(...) method. Doing it here might be a bit faster
-						 * since it is not done in the main thread.
-						 */
-						if (nextEventsQueue != null) {
-							nextEventsQueue.add(event);
+						if (event instanceof LastEventOfSimStep) {
+							ringBuffer.setConsumerSequence(consumerIndex, sequence + 1);
+							
+							/*
+							 * At the moment, this thread has read all events. However, one of the other threads
+							 * could create additional events for this time step. Therefore we have to wait
+							 * until all threads reach this barrier. Afterwards we can check whether still
+							 * events are left. If not, the threads reach the sim step end barrier.
+							 */
+							waitForEmptyQueuesBarrier.await();
+							if (!processedEventsChecker.allEventsProcessed()) continue;
+							
+							/*
+							 * All events are processed, therefore finish current time step by
+							 * reaching the sim step end barrier.
+							 */
+							simStepEndBarrier.await();
+							continue;
 						}
 						
 						/*
-						 * If it is the last Event of the iteration, break the while loop
-						 * and end the parallel events processing.
-						 * TODO: Check whether still some events could be left in the queues...
+						 * If it is the last Event of the iteration, end the parallel events processing.
 						 */
 						if (event instanceof LastEventOfIteration) {
-							break;
+							ringBuffer.setConsumerSequence(consumerIndex, sequence + 1);
+							iterationEndBarrier.await();
+							Gbl.printCurrentThreadCpuTime();
+							return;
 						}
+						eventsManager.processEvent(event);
 					}
-					eventsManager.processEvent(event);
+					ringBuffer.setConsumerSequence(consumerIndex, sequence);
 				}
-				iterationEndBarrier.await();
 			} catch (InterruptedException | BrokenBarrierException e) {
 				throw new RuntimeException(e);
 			}
-            Gbl.printCurrentThreadCpuTime();
-		}
-
-		public void processEvent(Event event) {
-			this.eventsQueue.add(event);
 		}
 		
 	}	// ProcessEventsRunnable
 	
 	private static class ProcessedEventsChecker implements Runnable {
 
-		private final EventsManager evenentsManger;
-		private final Queue<Event>[] eventQueues;
+		private final EventsRingBuffer ringBuffer;
+		private final Queue<Event> eventsFromHandlers;
 		private boolean allEventsProcessed;
 		private double time;
 		
-		public ProcessedEventsChecker(EventsManager evenentsManger, Queue<Event>[] eventQueues) {
-			this.evenentsManger = evenentsManger;
-			this.eventQueues = eventQueues;
+		public ProcessedEventsChecker(EventsRingBuffer ringBuffer, Queue<Event> eventsFromHandlers) {
+			this.ringBuffer = ringBuffer;
+			this.eventsFromHandlers = eventsFromHandlers;
 			
 			this.allEventsProcessed = true;
 		}
@@ -365,32 +386,35 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 		
 		@Override
 		public void run() {
-			for (Queue<Event> eventsQueue : eventQueues) {
-				/*
-				 * Some EventHandlers might have created additional Events [1] which 
-				 * could be located in the list AFTER the LastEventOfSimStep, meaning 
-				 * that they would be processed while the simulation is already processing
-				 * the next time step. Therefore we check whether the eventsQueues are really
-				 * empty.
-				 * If at least one of the queues is not empty, this time steps
-				 * events processing has to go on. This is triggered by setting
-				 * allEventsProcessed to false. Additionally a last event of sim
-				 * step event is created. When all events processing threads
-				 * process that event, it is again checked whether there are
-				 * more events left.
-				 * 
-				 * [1] ... Such a behavior is NOT part of MATSim's default EventHandlers but it
-				 * still might occur.
-				 */
-				if (eventsQueue.size() > 0) {
-					allEventsProcessed = false;
-					evenentsManger.processEvent(new LastEventOfSimStep(time));
-					return;
-				}
+			/*
+			 * Some EventHandlers might have created additional Events [1]. These are
+			 * processed now, before the simulation goes on with the next time step.
+			 * Therefore they are moved to the ring buffer, followed by another last
+			 * event of sim step. When all events processing threads process that event,
+			 * it is again checked whether there are more events left. The same holds
+			 * for events that were added to the ring buffer by other threads after the
+			 * last event of sim step.
+			 * As all events processing threads wait at the barrier that runs this
+			 * checker, the ring buffer contains no unread events before the last event
+			 * of sim step, so there is room for the events created by the handlers.
+			 * 
+			 * [1] ... Such a behavior is NOT part of MATSim's default EventHandlers but it
+			 * still might occur.
+			 */
+			long pendingEvents = ringBuffer.getNumberOfPendingEvents();
+			if (eventsFromHandlers.isEmpty() && pendingEvents == 0) {
+				allEventsProcessed = true;
+				return;
 			}
 			
-			// otherwise
-			allEventsProcessed = true;
+			allEventsProcessed = false;
+			long room = ringBuffer.getCapacity() - pendingEvents - 1;
+			Event event;
+			while (room > 0 && (event = eventsFromHandlers.poll()) != null) {
+				ringBuffer.publish(event);
+				room--;
+			}
+			ringBuffer.publish(new LastEventOfSimStep(time));
 		}
 		
 	}	// ProcessedEventsChecker
@@ -401,13 +425,15 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 	private static class ExceptionHandler implements UncaughtExceptionHandler {
 
 		private final AtomicReference<Throwable> hadException;
+		private final EventsRingBuffer ringBuffer;
 		private final CyclicBarrier simStepEndBarrier;
 		private final CyclicBarrier iterationEndBarrier;
 		private final CyclicBarrier waitForEmptyQueuesBarrier;
 
-		public ExceptionHandler(final AtomicReference<Throwable> hadException, CyclicBarrier waitForEmptyQueuesBarrier,
-				CyclicBarrier simStepEndBarrier, CyclicBarrier iterationEndBarrier) {
+		public ExceptionHandler(final AtomicReference<Throwable> hadException, EventsRingBuffer ringBuffer,
+				CyclicBarrier waitForEmptyQueuesBarrier, CyclicBarrier simStepEndBarrier, CyclicBarrier iterationEndBarrier) {
 			this.hadException = hadException;
+			this.ringBuffer = ringBuffer;
 			this.waitForEmptyQueuesBarrier = waitForEmptyQueuesBarrier;
 			this.simStepEndBarrier = simStepEndBarrier;
 			this.iterationEndBarrier = iterationEndBarrier;
@@ -419,9 +445,11 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 			log.error("Thread " + t.getName() + " died with exception while handling events.", e);
 
 			/*
-			 * By reseting the barriers, they will throw a BrokenBarrierException
-			 * which again will stop the events processing threads.
+			 * By halting the ring buffer and reseting the barriers, all other
+			 * events processing threads are stopped, and producers do not wait
+			 * for them anymore.
 			 */
+			this.ringBuffer.halt();
 			this.simStepEndBarrier.reset();
 			this.iterationEndBarrier.reset();
 			this.waitForEmptyQueuesBarrier.reset();
@@ -68,6 +68,7 @@ import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityE
 import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
 import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.events.handler.NonRetainingEventHandler;
 
 /**
  * Implementation of an EventsManager that serves exactly one EventHandler.
@@ -86,6 +87,12 @@ public class SingleHandlerEventsManager implements EventsManager {
 	 */
 	private final Map<Class<?>, HandlerInfo> methodToHandle = new HashMap<Class<?>, HandlerInfo>();
 
+	/*
+	 * The event classes of the handleEvent methods. Unlike methodToHandle, this set is not changed after the
+	 * constructor and can thus be read by other threads in hasHandlers.
+	 */
+	private final Set<Class<?>> handledEventClasses = new HashSet<Class<?>>();
+
 	private final EventHandler eventHandler;
 	
 	private final boolean isLeaveLinkHandler;
@@ -211,7 +218,11 @@ public class SingleHandlerEventsManager implements EventsManager {
 			this.nextCounterMsg *= 2;
 			log.info(" event # " + this.counter);
 		}
-		computeEvent(event);
+		if (this.eventHandler instanceof NonRetainingEventHandler) {
+			computeEvent(event);
+		} else {
+			computeEvent(EventsUtils.toRetainableEvent(event));
+		}
 	}
 
 	@Override
@@ -226,6 +237,16 @@ public class SingleHandlerEventsManager implements EventsManager {
 				+ "has to be provided upon creation. Aborting!");
 	}
 
+	@Override
+	public boolean hasHandlers(final Class<? extends Event> eventClass) {
+		if (!this.isActive) return false;
+		if (this.isBasicEventHandler) return true;
+		for (Class<?> handledEventClass : this.handledEventClasses) {
+			if (handledEventClass.isAssignableFrom(eventClass)) return true;
+		}
+		return false;
+	}
+
 	@Override
 	public void resetHandlers(final int iteration) {
 		log.info("resetting Event-Handler");
@@ -314,6 +335,7 @@ public class SingleHandlerEventsManager implements EventsManager {
 				if (params.length == 1) {
 					Class<?> eventClass = params[0];
 					log.info("    > " + eventClass.getName());
+					this.handledEventClasses.add(eventClass);
 					if (!this.methodToHandle.containsKey(eventClass)) {
 						HandlerInfo info = new HandlerInfo(method);
 						this.methodToHandle.put(eventClass, info);
@@ -60,6 +60,11 @@ class SynchronizedEventsManagerImpl implements EventsManager {
 		this.delegate.removeHandler(handler);
 	}
 
+	@Override
+	public boolean hasHandlers(Class<? extends Event> eventClass) {
+		return this.delegate.hasHandlers(eventClass);
+	}
+
 	@Override
 	public void resetHandlers(int iteration) {
 		delegate.resetHandlers(iteration);
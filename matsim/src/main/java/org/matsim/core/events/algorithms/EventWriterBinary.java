@@ -0,0 +1,349 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
+import org.matsim.api.core.v01.events.VehicleAbortsEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
+import org.matsim.core.api.experimental.events.BoardingDeniedEvent;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
+import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
+import org.matsim.core.events.BinaryEventsFormat;
+import org.matsim.core.events.BinaryEventsFormat.BlockWriter;
+import org.matsim.core.events.ReusableLinkEnterEvent;
+import org.matsim.core.events.ReusableLinkLeaveEvent;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.events.handler.NonRetainingEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Writes events in the binary format described in {@link BinaryEventsFormat}, which is much smaller and much faster
+ * to read than xml.  The events can be read back with {@link org.matsim.core.events.MatsimEventsReader} if the file
+ * name ends with ".bin" (or ".bin.gz").
+ */
+public class EventWriterBinary implements EventWriter, BasicEventHandler, NonRetainingEventHandler {
+
+	private final DataOutputStream out;
+
+	private final Map<String, Integer> dictionary = new HashMap<>();
+	private final BlockWriter newStrings = new BlockWriter();
+	private int numberOfStringsBeforeChunk = 0;
+
+	private final BlockWriter eventsBlock = new BlockWriter();
+	private int numberOfEventsInChunk = 0;
+	private double minTimeOfChunk = Double.POSITIVE_INFINITY;
+	private double maxTimeOfChunk = Double.NEGATIVE_INFINITY;
+	private double lastTime = 0.;
+
+	private final Deflater deflater = new Deflater();
+	private byte[] compressed = new byte[1 << 16];
+
+	public EventWriterBinary(final String outfilename) {
+		this.out = new DataOutputStream(IOUtils.getOutputStream(outfilename));
+		try {
+			this.out.write(BinaryEventsFormat.MAGIC);
+			this.out.writeInt(BinaryEventsFormat.VERSION);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void closeFile() {
+		try {
+			writeChunk();
+			this.out.writeByte(BinaryEventsFormat.END_TAG);
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.deflater.end();
+		}
+	}
+
+	@Override
+	public void reset(final int iter) {
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		double time = event.getTime();
+		this.minTimeOfChunk = Math.min(this.minTimeOfChunk, time);
+		this.maxTimeOfChunk = Math.max(this.maxTimeOfChunk, time);
+
+		writeEvent(event);
+		this.numberOfEventsInChunk++;
+		if (this.numberOfEventsInChunk == BinaryEventsFormat.EVENTS_PER_CHUNK) {
+			try {
+				writeChunk();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void writeEvent(final Event event) {
+		BlockWriter block = this.eventsBlock;
+		Class<?> klass = event.getClass();
+		// most frequent types first
+		if (klass == LinkLeaveEvent.class || klass == ReusableLinkLeaveEvent.class) {
+			LinkLeaveEvent e = (LinkLeaveEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_LINK_LEAVE, e.getTime());
+			writeId(e.getVehicleId());
+			writeId(e.getLinkId());
+		} else if (klass == LinkEnterEvent.class || klass == ReusableLinkEnterEvent.class) {
+			LinkEnterEvent e = (LinkEnterEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_LINK_ENTER, e.getTime());
+			writeId(e.getVehicleId());
+			writeId(e.getLinkId());
+		} else if (klass == VehicleEntersTrafficEvent.class) {
+			VehicleEntersTrafficEvent e = (VehicleEntersTrafficEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_VEHICLE_ENTERS_TRAFFIC, e.getTime());
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeId(e.getVehicleId());
+			writeString(e.getNetworkMode());
+			block.writeDouble(e.getRelativePositionOnLink());
+		} else if (klass == VehicleLeavesTrafficEvent.class) {
+			VehicleLeavesTrafficEvent e = (VehicleLeavesTrafficEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_VEHICLE_LEAVES_TRAFFIC, e.getTime());
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeId(e.getVehicleId());
+			writeString(e.getNetworkMode());
+			block.writeDouble(e.getRelativePositionOnLink());
+		} else if (klass == PersonDepartureEvent.class) {
+			PersonDepartureEvent e = (PersonDepartureEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_PERSON_DEPARTURE, e.getTime());
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeString(e.getLegMode());
+		} else if (klass == PersonArrivalEvent.class) {
+			PersonArrivalEvent e = (PersonArrivalEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_PERSON_ARRIVAL, e.getTime());
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeString(e.getLegMode());
+		} else if (klass == ActivityEndEvent.class) {
+			ActivityEndEvent e = (ActivityEndEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_ACTIVITY_END, e.getTime());
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeId(e.getFacilityId());
+			writeString(e.getActType());
+		} else if (klass == ActivityStartEvent.class) {
+			ActivityStartEvent e = (ActivityStartEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_ACTIVITY_START, e.getTime());
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeId(e.getFacilityId());
+			writeString(e.getActType());
+		} else if (klass == PersonEntersVehicleEvent.class) {
+			PersonEntersVehicleEvent e = (PersonEntersVehicleEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_PERSON_ENTERS_VEHICLE, e.getTime());
+			writeId(e.getPersonId());
+			writeId(e.getVehicleId());
+		} else if (klass == PersonLeavesVehicleEvent.class) {
+			PersonLeavesVehicleEvent e = (PersonLeavesVehicleEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_PERSON_LEAVES_VEHICLE, e.getTime());
+			writeId(e.getPersonId());
+			writeId(e.getVehicleId());
+		} else if (klass == TeleportationArrivalEvent.class) {
+			TeleportationArrivalEvent e = (TeleportationArrivalEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_TELEPORTATION_ARRIVAL, e.getTime());
+			writeId(e.getPersonId());
+			block.writeDouble(e.getDistance());
+		} else if (klass == VehicleArrivesAtFacilityEvent.class) {
+			VehicleArrivesAtFacilityEvent e = (VehicleArrivesAtFacilityEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_VEHICLE_ARRIVES_AT_FACILITY, e.getTime());
+			writeId(e.getVehicleId());
+			writeId(e.getFacilityId());
+			// the delay has no other accessor, and is part of the event as long as it can be passed to its constructor
+			@SuppressWarnings("deprecation")
+			double delay = e.getDelay();
+			block.writeDouble(delay);
+		} else if (klass == VehicleDepartsAtFacilityEvent.class) {
+			VehicleDepartsAtFacilityEvent e = (VehicleDepartsAtFacilityEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_VEHICLE_DEPARTS_AT_FACILITY, e.getTime());
+			writeId(e.getVehicleId());
+			writeId(e.getFacilityId());
+			// see above
+			@SuppressWarnings("deprecation")
+			double delay = e.getDelay();
+			block.writeDouble(delay);
+		} else if (klass == AgentWaitingForPtEvent.class) {
+			AgentWaitingForPtEvent e = (AgentWaitingForPtEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_AGENT_WAITING_FOR_PT, e.getTime());
+			writeId(e.getPersonId());
+			writeId(e.getWaitingAtStopId());
+			writeId(e.getDestinationStopId());
+		} else if (klass == TransitDriverStartsEvent.class) {
+			TransitDriverStartsEvent e = (TransitDriverStartsEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_TRANSIT_DRIVER_STARTS, e.getTime());
+			writeId(e.getDriverId());
+			writeId(e.getVehicleId());
+			writeId(e.getTransitLineId());
+			writeId(e.getTransitRouteId());
+			writeId(e.getDepartureId());
+		} else if (klass == PersonStuckEvent.class) {
+			PersonStuckEvent e = (PersonStuckEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_PERSON_STUCK, e.getTime());
+			writeId(e.getPersonId());
+			writeId(e.getLinkId());
+			writeString(e.getLegMode());
+		} else if (klass == VehicleAbortsEvent.class) {
+			VehicleAbortsEvent e = (VehicleAbortsEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_VEHICLE_ABORTS, e.getTime());
+			writeId(e.getVehicleId());
+			writeId(e.getLinkId());
+		} else if (klass == PersonMoneyEvent.class) {
+			PersonMoneyEvent e = (PersonMoneyEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_PERSON_MONEY, e.getTime());
+			writeId(e.getPersonId());
+			block.writeDouble(e.getAmount());
+		} else if (klass == BoardingDeniedEvent.class) {
+			BoardingDeniedEvent e = (BoardingDeniedEvent) event;
+			writeTypeAndTime(BinaryEventsFormat.TYPE_BOARDING_DENIED, e.getTime());
+			writeId(e.getPersonId());
+			writeId(e.getVehicleId());
+		} else {
+			// also sub-classes of the above events end up here, so that no attributes get lost
+			writeTypeAndTime(BinaryEventsFormat.TYPE_GENERIC, event.getTime());
+			Map<String, String> attributes = event.getAttributes();
+			writeString(event.getEventType());
+			int numberOfAttributes = 0;
+			for (String key : attributes.keySet()) {
+				if (!isTimeOrType(key)) {
+					numberOfAttributes++;
+				}
+			}
+			block.writeVarLong(numberOfAttributes);
+			for (Map.Entry<String, String> entry : attributes.entrySet()) {
+				if (!isTimeOrType(entry.getKey())) {
+					writeString(entry.getKey());
+					writeString(entry.getValue());
+				}
+			}
+		}
+	}
+
+	private static boolean isTimeOrType(final String key) {
+		return key.equals(Event.ATTRIBUTE_TIME) || key.equals(Event.ATTRIBUTE_TYPE);
+	}
+
+	private void writeTypeAndTime(final int type, final double time) {
+		this.eventsBlock.writeVarLong(type);
+		double difference = time - this.lastTime;
+		if (difference >= 0 && difference < (1L << 53) && difference == Math.rint(difference)) {
+			this.eventsBlock.writeVarLong((long) difference << 1);
+		} else {
+			this.eventsBlock.writeVarLong(1);
+			this.eventsBlock.writeDouble(time);
+		}
+		this.lastTime = time;
+	}
+
+	private void writeId(final Id<?> id) {
+		writeString(id == null ? null : id.toString());
+	}
+
+	private void writeString(final String value) {
+		if (value == null) {
+			this.eventsBlock.writeVarLong(0);
+			return;
+		}
+		Integer index = this.dictionary.get(value);
+		if (index == null) {
+			index = this.dictionary.size();
+			this.dictionary.put(value, index);
+			this.newStrings.writeString(value);
+		}
+		this.eventsBlock.writeVarLong(index + 1);
+	}
+
+	private void writeChunk() throws IOException {
+		if (this.numberOfEventsInChunk == 0) {
+			return;
+		}
+		int numberOfNewStrings = this.dictionary.size() - this.numberOfStringsBeforeChunk;
+		byte[] stringsData = compress(this.newStrings);
+		byte[] eventsData = compress(this.eventsBlock);
+
+		this.out.writeByte(BinaryEventsFormat.CHUNK_TAG);
+		this.out.writeInt(this.numberOfEventsInChunk);
+		this.out.writeDouble(this.minTimeOfChunk);
+		this.out.writeDouble(this.maxTimeOfChunk);
+		this.out.writeInt(this.numberOfStringsBeforeChunk);
+		this.out.writeInt(numberOfNewStrings);
+		this.out.writeInt(this.newStrings.getLength());
+		this.out.writeInt(stringsData.length);
+		this.out.writeInt(this.eventsBlock.getLength());
+		this.out.writeInt(eventsData.length);
+		this.out.write(stringsData);
+		this.out.write(eventsData);
+
+		this.numberOfStringsBeforeChunk = this.dictionary.size();
+		this.newStrings.clear();
+		this.eventsBlock.clear();
+		this.numberOfEventsInChunk = 0;
+		this.minTimeOfChunk = Double.POSITIVE_INFINITY;
+		this.maxTimeOfChunk = Double.NEGATIVE_INFINITY;
+		this.lastTime = 0.;
+	}
+
+	private byte[] compress(final BlockWriter block) {
+		this.deflater.reset();
+		this.deflater.setInput(block.getData(), 0, block.getLength());
+		this.deflater.finish();
+		int length = 0;
+		while (!this.deflater.finished()) {
+			if (length == this.compressed.length) {
+				this.compressed = Arrays.copyOf(this.compressed, this.compressed.length * 2);
+			}
+			length += this.deflater.deflate(this.compressed, length, this.compressed.length - length);
+		}
+		return Arrays.copyOf(this.compressed, length);
+	}
+
+}
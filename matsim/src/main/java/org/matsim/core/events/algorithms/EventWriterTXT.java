@@ -46,12 +46,13 @@ import org.matsim.api.core.v01.events.handler.PersonStuckEventHandler;
 import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.events.handler.NonRetainingEventHandler;
 import org.matsim.core.utils.io.IOUtils;
 import org.matsim.vehicles.Vehicle;
 
 public class EventWriterTXT implements EventWriter, ActivityEndEventHandler, ActivityStartEventHandler, PersonArrivalEventHandler, 
 		PersonDepartureEventHandler, PersonStuckEventHandler, PersonMoneyEventHandler, 
-		VehicleEntersTrafficEventHandler, LinkEnterEventHandler, LinkLeaveEventHandler {
+		VehicleEntersTrafficEventHandler, LinkEnterEventHandler, LinkLeaveEventHandler, NonRetainingEventHandler {
 	
 	/* Implement all the different event handlers by its own. Future event types will no longer be
 	 * suitable to be written to a TXT-format file, but will have additional attributes that need to be
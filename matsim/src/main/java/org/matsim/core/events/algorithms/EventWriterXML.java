@@ -20,24 +20,101 @@
 
 package org.matsim.core.events.algorithms;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Locale;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.core.events.EventsFileIndex;
+import org.matsim.core.events.ReusableLinkEnterEvent;
+import org.matsim.core.events.ReusableLinkLeaveEvent;
 import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.events.handler.NonRetainingEventHandler;
+import org.matsim.core.utils.io.AsynchronousWriter;
 import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.io.UncheckedIOException;
 
-public class EventWriterXML implements EventWriter, BasicEventHandler {
-	private final BufferedWriter out;
+public class EventWriterXML implements EventWriter, BasicEventHandler, NonRetainingEventHandler {
+
+	public static final String HEADER = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<events version=\"1.0\">\n";
+	public static final String FOOTER = "</events>";
+
+	private Writer out;
+	private final boolean asynchronous;
+
+	// only used when writing an index:
+	private String indexFilename = null;
+	private EventsFileIndex index = null;
+	private double indexTimeBinSize;
+	private double nextIndexTime = Double.NEGATIVE_INFINITY;
+	private CountingOutputStream fileStream = null;
+	private boolean compressed;
 
 	public EventWriterXML(final String outfilename) {
-		this.out = IOUtils.getBufferedWriter(outfilename);
+		this(outfilename, false);
+	}
+
+	/**
+	 * @param asynchronous if <code>true</code>, the events are encoded, compressed and written to the file in a thread
+	 * of its own, see {@link AsynchronousWriter}.  Only formatting the events is left to the thread handling them.
+	 */
+	public EventWriterXML(final String outfilename, final boolean asynchronous) {
+		this.asynchronous = asynchronous;
+		this.out = wrap(IOUtils.getBufferedWriter(outfilename));
 		try {
-			this.out.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<events version=\"1.0\">\n");
+			this.out.write(HEADER);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the events and an {@link EventsFileIndex} with the given time bin size next to them, so that the events
+	 * of a time window can be read without reading the whole file.  If the file is compressed, every time bin is
+	 * written as a gzip member of its own; the file can still be read by every gzip decoder.
+	 */
+	public EventWriterXML(final String outfilename, final double indexTimeBinSize) {
+		this(outfilename, indexTimeBinSize, false);
+	}
+
+	/**
+	 * Writes an index as {@link #EventWriterXML(String, double)}, and the events asynchronously as
+	 * {@link #EventWriterXML(String, boolean)}.  At the end of every time bin of the index, the handling thread waits
+	 * until the events of the time bin are written.
+	 */
+	public EventWriterXML(final String outfilename, final double indexTimeBinSize, final boolean asynchronous) {
+		this.asynchronous = asynchronous;
+		if (indexTimeBinSize <= 0) {
+			throw new IllegalArgumentException("The time bin size of the index must be positive, but is " + indexTimeBinSize);
+		}
+		this.indexFilename = EventsFileIndex.getIndexFilename(outfilename);
+		this.index = new EventsFileIndex();
+		this.indexTimeBinSize = indexTimeBinSize;
+		this.compressed = outfilename.toLowerCase(Locale.ROOT).endsWith(".gz");
+		try {
+			this.fileStream = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(outfilename)));
+			this.out = createSectionWriter();
+			this.out.write(HEADER);
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
@@ -49,6 +126,7 @@ public class EventWriterXML implements EventWriter, BasicEventHandler {
 	 * @param stream
 	 */
 	public EventWriterXML(final PrintStream stream ) {
+		this.asynchronous = false;
 		this.out = new BufferedWriter(new OutputStreamWriter(stream));
 		try {
 			this.out.write("<events>\n");
@@ -60,12 +138,21 @@ public class EventWriterXML implements EventWriter, BasicEventHandler {
 	@Override
 	public void closeFile() {
 		try {
-			this.out.write("</events>");
+			if (this.index != null) {
+				this.out.close();
+				this.index.setEndOffset(this.fileStream.getCount());
+				this.out = createSectionWriter();
+			}
+			this.out.write(FOOTER);
 			// I added a "\n" to make it look nicer on the console.  Can't say if this may have unintended side
 			// effects anywhere else.  kai, oct'12
 			// fails signalsystems test (and presumably other tests in contrib/playground) since they compare
 			// checksums of event files.  Removed that change again.  kai, oct'12
 			this.out.close();
+			if (this.index != null) {
+				this.fileStream.close();
+				this.index.write(this.indexFilename);
+			}
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
@@ -82,14 +169,16 @@ public class EventWriterXML implements EventWriter, BasicEventHandler {
 
 	@Override
 	public void handleEvent(final Event event) {
+		if (event.getTime() >= this.nextIndexTime && this.index != null) {
+			startIndexTimeBin(event.getTime());
+		}
 		try {
 			this.out.append("\t<event ");
-			Map<String, String> attr = event.getAttributes();
-			for (Map.Entry<String, String> entry : attr.entrySet()) {
-				this.out.append(entry.getKey());
-				this.out.append("=\"");
-				this.out.append(encodeAttributeValue(entry.getValue()));
-				this.out.append("\" ");
+			if (!writeAttributesDirectly(event)) {
+				Map<String, String> attr = event.getAttributes();
+				for (Map.Entry<String, String> entry : attr.entrySet()) {
+					appendAttribute(entry.getKey(), entry.getValue());
+				}
 			}
 			this.out.append(" />\n");
 		} catch (IOException e) {
@@ -97,6 +186,176 @@ public class EventWriterXML implements EventWriter, BasicEventHandler {
 		}
 	}
 
+	/**
+	 * Writes the attributes of the most frequent event types without creating the attribute map first.  The order of
+	 * the attributes must be the same as in the getAttributes() method of the event, which is why subclasses of the
+	 * events are left to the general case.
+	 *
+	 * @return <code>false</code> if the attributes of this event must be taken from {@link Event#getAttributes()}.
+	 */
+	private boolean writeAttributesDirectly(final Event event) throws IOException {
+		Class<?> eventClass = event.getClass();
+		if (eventClass == LinkEnterEvent.class || eventClass == ReusableLinkEnterEvent.class) {
+			LinkEnterEvent e = (LinkEnterEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(LinkEnterEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+			appendAttribute(LinkEnterEvent.ATTRIBUTE_LINK, e.getLinkId());
+		} else if (eventClass == LinkLeaveEvent.class || eventClass == ReusableLinkLeaveEvent.class) {
+			LinkLeaveEvent e = (LinkLeaveEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(LinkLeaveEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+			appendAttribute(LinkLeaveEvent.ATTRIBUTE_LINK, e.getLinkId());
+		} else if (eventClass == VehicleEntersTrafficEvent.class) {
+			VehicleEntersTrafficEvent e = (VehicleEntersTrafficEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(VehicleEntersTrafficEvent.ATTRIBUTE_DRIVER, e.getPersonId());
+			appendAttribute(VehicleEntersTrafficEvent.ATTRIBUTE_LINK, e.getLinkId());
+			if (e.getVehicleId() != null) {
+				appendAttribute(VehicleEntersTrafficEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+			}
+			if (e.getNetworkMode() != null) {
+				appendAttribute(VehicleEntersTrafficEvent.ATTRIBUTE_NETWORKMODE, e.getNetworkMode());
+			}
+			appendAttribute(VehicleEntersTrafficEvent.ATTRIBUTE_POSITION, Double.toString(e.getRelativePositionOnLink()));
+		} else if (eventClass == VehicleLeavesTrafficEvent.class) {
+			VehicleLeavesTrafficEvent e = (VehicleLeavesTrafficEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(VehicleLeavesTrafficEvent.ATTRIBUTE_DRIVER, e.getPersonId());
+			appendAttribute(VehicleLeavesTrafficEvent.ATTRIBUTE_LINK, e.getLinkId());
+			if (e.getVehicleId() != null) {
+				appendAttribute(VehicleLeavesTrafficEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+			}
+			if (e.getNetworkMode() != null) {
+				appendAttribute(VehicleLeavesTrafficEvent.ATTRIBUTE_NETWORKMODE, e.getNetworkMode());
+			}
+			appendAttribute(VehicleLeavesTrafficEvent.ATTRIBUTE_POSITION, Double.toString(e.getRelativePositionOnLink()));
+		} else if (eventClass == PersonEntersVehicleEvent.class) {
+			PersonEntersVehicleEvent e = (PersonEntersVehicleEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(PersonEntersVehicleEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			appendAttribute(PersonEntersVehicleEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+		} else if (eventClass == PersonLeavesVehicleEvent.class) {
+			PersonLeavesVehicleEvent e = (PersonLeavesVehicleEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(PersonLeavesVehicleEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			appendAttribute(PersonLeavesVehicleEvent.ATTRIBUTE_VEHICLE, e.getVehicleId());
+		} else if (eventClass == ActivityEndEvent.class) {
+			ActivityEndEvent e = (ActivityEndEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(ActivityEndEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			if (e.getLinkId() != null) {
+				appendAttribute(ActivityEndEvent.ATTRIBUTE_LINK, e.getLinkId());
+			}
+			if (e.getFacilityId() != null) {
+				appendAttribute(ActivityEndEvent.ATTRIBUTE_FACILITY, e.getFacilityId());
+			}
+			appendAttribute(ActivityEndEvent.ATTRIBUTE_ACTTYPE, e.getActType());
+		} else if (eventClass == ActivityStartEvent.class) {
+			ActivityStartEvent e = (ActivityStartEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(ActivityStartEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			if (e.getLinkId() != null) {
+				appendAttribute(ActivityStartEvent.ATTRIBUTE_LINK, e.getLinkId());
+			}
+			if (e.getFacilityId() != null) {
+				appendAttribute(ActivityStartEvent.ATTRIBUTE_FACILITY, e.getFacilityId());
+			}
+			appendAttribute(ActivityStartEvent.ATTRIBUTE_ACTTYPE, e.getActType());
+		} else if (eventClass == PersonDepartureEvent.class) {
+			PersonDepartureEvent e = (PersonDepartureEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(PersonDepartureEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			appendAttribute(PersonDepartureEvent.ATTRIBUTE_LINK, e.getLinkId());
+			if (e.getLegMode() != null) {
+				appendAttribute(PersonDepartureEvent.ATTRIBUTE_LEGMODE, e.getLegMode());
+			}
+		} else if (eventClass == PersonArrivalEvent.class) {
+			PersonArrivalEvent e = (PersonArrivalEvent) event;
+			appendTimeAndType(e);
+			appendAttribute(PersonArrivalEvent.ATTRIBUTE_PERSON, e.getPersonId());
+			appendAttribute(PersonArrivalEvent.ATTRIBUTE_LINK, e.getLinkId());
+			if (e.getLegMode() != null) {
+				appendAttribute(PersonArrivalEvent.ATTRIBUTE_LEGMODE, e.getLegMode());
+			}
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	private void appendTimeAndType(final Event event) throws IOException {
+		appendAttribute(Event.ATTRIBUTE_TIME, Double.toString(event.getTime()));
+		appendAttribute(Event.ATTRIBUTE_TYPE, event.getEventType());
+	}
+
+	private void appendAttribute(final String key, final Object value) throws IOException {
+		this.out.append(key);
+		this.out.append("=\"");
+		this.out.append(encodeAttributeValue(value == null ? null : value.toString()));
+		this.out.append("\" ");
+	}
+
+	private void startIndexTimeBin(final double time) {
+		try {
+			this.out.close();
+			double startTime = Math.floor(time / this.indexTimeBinSize) * this.indexTimeBinSize;
+			this.index.addTimeBin(startTime, this.fileStream.getCount());
+			this.nextIndexTime = startTime + this.indexTimeBinSize;
+			this.out = createSectionWriter();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return a writer for the next part of the file, which, when compressing, is written as a gzip member of its own.
+	 * Closing the writer does not close the file.
+	 */
+	private Writer createSectionWriter() throws IOException {
+		OutputStream stream = new FilterOutputStream(this.fileStream) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				this.out.write(b, off, len);
+			}
+			@Override
+			public void close() throws IOException {
+				flush();
+			}
+		};
+		if (this.compressed) {
+			stream = new GZIPOutputStream(stream, 1 << 16);
+		}
+		return wrap(new BufferedWriter(new OutputStreamWriter(stream, Charset.forName("UTF8"))));
+	}
+
+	private Writer wrap(final BufferedWriter writer) {
+		return this.asynchronous ? new AsynchronousWriter(writer, "EventWriterXML") : writer;
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+		private long count = 0;
+
+		CountingOutputStream(final OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+
+		long getCount() {
+			return this.count;
+		}
+	}
+
 	// the following method was taken from MatsimXmlWriter in order to correctly encode attributes, but
 	// to forego the overhead of using the full MatsimXmlWriter.
 	/**
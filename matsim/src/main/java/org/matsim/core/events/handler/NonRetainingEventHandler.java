@@ -0,0 +1,30 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NonRetainingEventHandler.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.handler;
+
+/**
+ * Marks an event handler which does not keep references to the events it gets after its handleEvent() method
+ * returned.  Such handlers may get event objects which are reused for further events afterwards, see
+ * {@link org.matsim.core.events.ReusableEvent}.  All other handlers get a copy of such events.
+ */
+public interface NonRetainingEventHandler extends EventHandler {
+
+}
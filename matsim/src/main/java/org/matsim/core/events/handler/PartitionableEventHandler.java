@@ -0,0 +1,59 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PartitionableEventHandler.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.handler;
+
+import org.matsim.api.core.v01.events.Event;
+
+/**
+ * An event handler whose work can be split among several threads by the parallel events managers.  Instead of handing
+ * all events to this handler in one thread, they create one partition of the handler per thread, and every partition
+ * only gets the events whose partition key belongs to it, plus all events without partition key.  After all events of
+ * an iteration are processed, the partitions are merged back into this handler, which then gets all events again.
+ * <p></p>
+ * Events with the same key always go to the same partition, in their original order.  A handler is thus partitionable
+ * if it keeps separate state per key (e.g. per link or per person) and the events without key can be processed by
+ * every partition on its own.
+ *
+ * @param <T> the type of the partitions
+ */
+public interface PartitionableEventHandler<T extends EventHandler> extends EventHandler {
+
+	/**
+	 * @return a new partition of this handler, or <code>null</code> if the handler cannot be partitioned in its current
+	 * configuration, in which case it gets all events in one thread as any other handler.
+	 */
+	public T createPartition();
+
+	/**
+	 * Is called from several threads at the same time and must thus not change the state of the handler.
+	 *
+	 * @return the key which decides to which partition the event goes, or <code>null</code> if every partition needs
+	 * the event.
+	 */
+	public Object getPartitionKey(Event event);
+
+	/**
+	 * Takes over the state of the partition, after it got its last event.  The partitions are merged one after the
+	 * other, always in the same order.
+	 */
+	public void mergePartition(T partition);
+
+}
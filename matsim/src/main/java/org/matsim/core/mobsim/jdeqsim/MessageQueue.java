@@ -80,6 +80,21 @@ public class MessageQueue {
 		return m;
 	}
 
+	/**
+	 * 
+	 * get the arrival time of the first message in the queue without removing it
+	 * 
+	 * @return the arrival time, or Double.POSITIVE_INFINITY if there is no message left
+	 */
+	public double getNextMessageArrivalTime() {
+		Message m;
+		// discard dead messages at the head of the queue, as in getNextMessage()
+		while ((m = queue1.peek()) != null && !m.isAlive()) {
+			queue1.poll();
+		}
+		return m == null ? Double.POSITIVE_INFINITY : m.getMessageArrivalTime();
+	}
+
 	public boolean isEmpty() {
 		return queue1.size() == 0;
 	}
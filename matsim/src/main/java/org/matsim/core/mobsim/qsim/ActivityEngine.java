@@ -19,25 +19,24 @@
 
 package org.matsim.core.mobsim.qsim;
 
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.Queue;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.List;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.core.mobsim.qsim.interfaces.ActivityHandler;
 import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextActionTime;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.utils.misc.Time;
 
 import javax.inject.Inject;
 
-public class ActivityEngine implements MobsimEngine, ActivityHandler {
+public class ActivityEngine implements MobsimEngine, ActivityHandler, HasNextActionTime {
 
 	private EventsManager eventsManager;
 	private AgentCounter agentCounter;
@@ -52,86 +51,80 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 		this.agentCounter = agentCounter;
 	}
 
-	/**
-	 * Agents cannot be added directly to the activityEndsList since that would
-	 * not be thread-safe when within-day replanning is used. There, an agent's
-	 * activity end time can be modified. As a result, the agent is located at
-	 * the wrong position in the activityEndsList until it is updated by using
-	 * rescheduleActivityEnd(...). However, if another agent is added to the list
-	 * in the mean time, it might be inserted at the wrong position.
-	 * cdobler, apr'12
-	 */
-	private static class AgentEntry {
-		public AgentEntry(MobsimAgent agent, double activityEndTime) {
-			this.agent = agent;
-			this.activityEndTime = activityEndTime;
-		}
-		final MobsimAgent agent;
-		final double activityEndTime;
-	}
-
 	private InternalInterface internalInterface;
 	
 	/**
-	 * This list needs to be a "blocking" queue since this is needed for
+	 * This calendar needs to be thread-safe since this is needed for
 	 * thread-safety in the parallel qsim. cdobler, oct'10
 	 */
-	private final Queue<AgentEntry> activityEndsList = new PriorityBlockingQueue<>(500, new Comparator<AgentEntry>() {
-
-		@Override
-		public int compare(AgentEntry arg0, AgentEntry arg1) {
-			int cmp = Double.compare(arg0.activityEndTime, arg1.activityEndTime);
-			if (cmp == 0) {
-				// Both depart at the same time -> let the one with the larger id be first (=smaller)
-				//
-				// yy We are not sure what the above comment line is supposed to say.  Presumably, it is supposed
-				// to say that the agent with the larger ID should be "smaller" one in the comparison.
-				// In practice, it seems
-				// that something like "emob_9" is before "emob_8", and something like "emob_10" before "emob_1".
-				// It is unclear why this convention is supposed to be helpful.
-				// kai & dominik, jul'12
-				//
-				return arg1.agent.getId().compareTo(arg0.agent.getId());
-			}
-			return cmp;
-		}
+	private final AgentCalendar activityEndsList = new AgentCalendar();
 
-	});
+	/* ends the activities in parallel, see QSimConfigGroup.isUsingParallelActivityEnds() */
+	private AgentBatchExecutor parallelExecutor = null;
 	
 	// See handleActivity for the reason for this.
 	private boolean beforeFirstSimStep = true;
 
 	@Override
 	public void onPrepareSim() {
-		// Nothing to do here
+		QSimConfigGroup qsimConfig = this.internalInterface.getMobsim().getScenario().getConfig().qsim();
+		if (qsimConfig.isUsingParallelActivityEnds() && qsimConfig.getNumberOfThreads() > 1) {
+			this.parallelExecutor = new AgentBatchExecutor(qsimConfig.getNumberOfThreads(), "ActivityEngine_PooledThread_");
+		}
 	}
 
 	@Override
 	public void doSimStep(double time) {
 		beforeFirstSimStep = false;
-		while (activityEndsList.peek() != null) {
-			if (activityEndsList.peek().activityEndTime <= time) {
-				MobsimAgent agent = activityEndsList.poll().agent;
-				unregisterAgentAtActivityLocation(agent);
-				agent.endActivityAndComputeNextState(time);
-				internalInterface.arrangeNextAgentState(agent);
+		List<AgentCalendar.Entry> dueEntries = activityEndsList.pollDueEntries(time);
+		while (!dueEntries.isEmpty()) {
+			if (this.parallelExecutor != null && dueEntries.size() > AgentBatchExecutor.MIN_CHUNK_SIZE) {
+				endActivitiesInParallel(dueEntries, time);
 			} else {
-				return;
+				for (AgentCalendar.Entry entry : dueEntries) {
+					MobsimAgent agent = entry.agent;
+					unregisterAgentAtActivityLocation(agent);
+					agent.endActivityAndComputeNextState(time);
+					internalInterface.arrangeNextAgentState(agent);
+				}
 			}
+			// activity ends may have been rescheduled to now in the meantime
+			dueEntries = activityEndsList.pollDueEntries(time);
+		}
+	}
+
+	private void endActivitiesInParallel(List<AgentCalendar.Entry> dueEntries, final double time) {
+		// the data structures of the netsim engine are not thread-safe
+		for (AgentCalendar.Entry entry : dueEntries) {
+			unregisterAgentAtActivityLocation(entry.agent);
 		}
+		this.parallelExecutor.handleAgents(dueEntries, new AgentBatchExecutor.AgentHandler() {
+			@Override
+			public void handleAgent(MobsimAgent agent) {
+				agent.endActivityAndComputeNextState(time);
+			}
+		}, this.internalInterface);
+	}
+
+	@Override
+	public double getNextActionTime(double now) {
+		return activityEndsList.getEarliestTime();
 	}
 
 	@Override
 	public void afterSim() {
 		double now = this.internalInterface.getMobsim().getSimTimer().getTimeOfDay();
-		for (AgentEntry entry : activityEndsList) {
-			if (entry.activityEndTime!=Double.POSITIVE_INFINITY && entry.activityEndTime!=Time.UNDEFINED_TIME) {
+		for (AgentCalendar.Entry entry : activityEndsList.pollAllEntries()) {
+			if (entry.time!=Double.POSITIVE_INFINITY && entry.time!=Time.UNDEFINED_TIME) {
 				// since we are at an activity, it is not plausible to assume that the agents know mode or destination
 				// link id.  Thus generating the event with ``null'' in the corresponding entries.  kai, mar'12
 				eventsManager.processEvent(new PersonStuckEvent(now, entry.agent.getId(), null, null));
 			}
 		}
-		activityEndsList.clear();
+		if (this.parallelExecutor != null) {
+			this.parallelExecutor.shutdown();
+			this.parallelExecutor = null;
+		}
 	}
 
 	@Override
@@ -163,7 +156,7 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 			internalInterface.arrangeNextAgentState(agent) ;
 		} else {
 			// The agent commences an activity on this link.
-			activityEndsList.add(new AgentEntry(agent, agent.getActivityEndTime()));
+			activityEndsList.add(new AgentCalendar.Entry(agent, agent.getActivityEndTime()));
 			internalInterface.registerAdditionalAgentOnLink(agent);
 		}
 		// Why beforeFirstSimStep matters:
@@ -189,7 +182,7 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 	 */
 	void rescheduleActivityEnd(final MobsimAgent agent) {
 		double newActivityEndTime = agent.getActivityEndTime();
-		AgentEntry oldEntry = removeAgentFromQueue(agent);
+		AgentCalendar.Entry oldEntry = removeAgentFromQueue(agent);
 
 		// The intention in the following is that an agent that is no longer alive has an activity end time of infinity.  The number of
 		// alive agents is only modified when an activity end time is changed between a finite time and infinite.  kai, jun'11
@@ -198,7 +191,7 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 				// agent was de-activated and still should be de-activated - nothing to do here
 			} else {
 				// re-activate the agent
-				activityEndsList.add(new AgentEntry(agent, newActivityEndTime));
+				activityEndsList.add(new AgentCalendar.Entry(agent, newActivityEndTime));
 				internalInterface.registerAdditionalAgentOnLink(agent);
 				((org.matsim.core.mobsim.qsim.AgentCounter) internalInterface.getMobsim().getAgentCounter()).incLiving();
 			}
@@ -213,20 +206,12 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 			/*
 			 *  The activity is just rescheduled during the day, so we keep the agent active. cdobler, oct'11
 			 */
-			activityEndsList.add(new AgentEntry(agent, newActivityEndTime));
+			activityEndsList.add(new AgentCalendar.Entry(agent, newActivityEndTime));
 		}
 	}
 
-	private AgentEntry removeAgentFromQueue(MobsimAgent agent) {
-		Iterator<AgentEntry> iterator = activityEndsList.iterator();
-		while (iterator.hasNext()) {
-			AgentEntry entry = iterator.next();
-			if (entry.agent == agent) {
-				iterator.remove();
-				return entry;
-			}
-		}
-		return null;
+	private AgentCalendar.Entry removeAgentFromQueue(MobsimAgent agent) {
+		return activityEndsList.remove(agent);
 	}
 
 	private void unregisterAgentAtActivityLocation(final MobsimAgent agent) {
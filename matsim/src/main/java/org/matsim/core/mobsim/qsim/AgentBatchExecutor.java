@@ -0,0 +1,112 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentBatchExecutor.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.mobsim.qsim.qnetsimengine.NetsimActionBuffer;
+
+/**
+ * Lets a thread pool compute the next states of a batch of agents, e.g. of all agents whose activities end in the same time step.
+ * The resulting events and agent state changes are collected per chunk of agents in a {@link NetsimActionBuffer} and passed on
+ * afterwards by the calling thread in the order of the batch, i.e. in the same order as without parallelization.
+ * <br>
+ * Events of the agents only end up in the buffers if they are passed to the events manager of the QSim, which then
+ * needs to be an {@link org.matsim.core.mobsim.qsim.qnetsimengine.ActionBufferingEventsManager}.  Engines have to pass
+ * their own events to the buffer of the current thread.
+ */
+final class AgentBatchExecutor {
+
+	/* smaller batches are not worth being handled in parallel */
+	static final int MIN_CHUNK_SIZE = 64;
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	interface AgentHandler {
+		/**
+		 * Computes the next state of the agent.  Called concurrently for different agents.
+		 */
+		void handleAgent(MobsimAgent agent);
+	}
+
+	private final ExecutorService pool;
+	private final int numberOfThreads;
+
+	AgentBatchExecutor(int numberOfThreads, final String threadNamePrefix) {
+		this.numberOfThreads = numberOfThreads;
+		this.pool = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+			private int count = 0;
+			@Override
+			public Thread newThread(Runnable r) {
+				return new Thread(r, threadNamePrefix + count++);
+			}
+		});
+	}
+
+	/**
+	 * Lets the handler handle the agents of all entries in parallel, and arranges their next states afterwards.
+	 */
+	void handleAgents(List<AgentCalendar.Entry> entries, final AgentHandler handler, InternalInterface internalInterface) {
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, entries.size() / (this.numberOfThreads * CHUNKS_PER_THREAD));
+		List<Callable<NetsimActionBuffer>> tasks = new ArrayList<>();
+		for (int from = 0; from < entries.size(); from += chunkSize) {
+			final List<AgentCalendar.Entry> chunk = entries.subList(from, Math.min(from + chunkSize, entries.size()));
+			tasks.add(new Callable<NetsimActionBuffer>() {
+				@Override
+				public NetsimActionBuffer call() {
+					NetsimActionBuffer buffer = new NetsimActionBuffer();
+					NetsimActionBuffer.setCurrent(buffer);
+					try {
+						for (AgentCalendar.Entry entry : chunk) {
+							handler.handleAgent(entry.agent);
+							buffer.addAgentToArrange(entry.agent);
+						}
+					} finally {
+						NetsimActionBuffer.setCurrent(null);
+					}
+					return buffer;
+				}
+			});
+		}
+
+		try {
+			for (Future<NetsimActionBuffer> future : this.pool.invokeAll(tasks)) {
+				future.get().flush(internalInterface);
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	void shutdown() {
+		this.pool.shutdown();
+	}
+
+}
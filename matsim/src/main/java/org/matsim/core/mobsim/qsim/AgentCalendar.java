@@ -0,0 +1,251 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentCalendar.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.core.mobsim.framework.MobsimAgent;
+
+/**
+ * Agents ordered by the time at which they need to be handled again, e.g. the agents performing an activity in the 
+ * {@link ActivityEngine} by the end times of their activities, or the teleported agents in the {@link TeleportationEngine}
+ * by their arrival times.  Agents with the same time are ordered by their ids.
+ * <br>
+ * This is a calendar queue with one bucket per second: every entry is put into the bucket of the second of its time 
+ * (rounded up), so neither adding an entry nor taking out the entries that are due in a time step depends on the number 
+ * of agents in the calendar; only the due entries are sorted.  The buckets are reused cyclically; entries more than 
+ * NUMBER_OF_BUCKETS seconds ahead stay in their bucket until their round has come.
+ * <br>
+ * The methods are synchronized since agents may be added from the threads of the parallel qsim.
+ */
+final class AgentCalendar {
+
+	/**
+	 * An agent together with the time at which it is due, e.g. the end time of its activity.  The time is stored with 
+	 * the agent since the agent's own time may change while it is in the calendar, e.g. with within-day replanning.
+	 */
+	static final class Entry {
+		final MobsimAgent agent;
+		final double time;
+
+		Entry(MobsimAgent agent, double time) {
+			this.agent = agent;
+			this.time = time;
+		}
+	}
+
+	private static final int NUMBER_OF_BUCKETS = 1 << 17; // about 36 hours, must be a power of two
+	private static final int BUCKET_MASK = NUMBER_OF_BUCKETS - 1;
+
+	private static final Comparator<Entry> COMPARATOR = new Comparator<Entry>() {
+
+		@Override
+		public int compare(Entry arg0, Entry arg1) {
+			int cmp = Double.compare(arg0.time, arg1.time);
+			if (cmp == 0) {
+				// Both depart at the same time -> let the one with the larger id be first (=smaller)
+				//
+				// yy We are not sure what the above comment line is supposed to say.  Presumably, it is supposed
+				// to say that the agent with the larger ID should be "smaller" one in the comparison.
+				// In practice, it seems
+				// that something like "emob_9" is before "emob_8", and something like "emob_10" before "emob_1".
+				// It is unclear why this convention is supposed to be helpful.
+				// kai & dominik, jul'12
+				//
+				return arg1.agent.getId().compareTo(arg0.agent.getId());
+			}
+			return cmp;
+		}
+
+	};
+
+	@SuppressWarnings("unchecked")
+	private final List<Entry>[] buckets = (List<Entry>[]) new List<?>[NUMBER_OF_BUCKETS];
+
+	/* entries that were added after their second had been processed already */
+	private final List<Entry> overdueEntries = new ArrayList<>();
+
+	/* so that removing an agent only needs to look into the bucket of its entry */
+	private final Map<MobsimAgent, Entry> entriesByAgent = new IdentityHashMap<>();
+
+	private int size = 0;
+
+	/* all buckets up to this second have been emptied of their due entries */
+	private long lastProcessedSecond = Long.MIN_VALUE;
+
+	synchronized void add(Entry entry) {
+		this.size++;
+		this.entriesByAgent.put(entry.agent, entry);
+		long second = getSecond(entry.time);
+		if (this.lastProcessedSecond != Long.MIN_VALUE && second <= this.lastProcessedSecond) {
+			// already due, e.g. a teleportation without travel time, or after within-day replanning
+			this.overdueEntries.add(entry);
+			return;
+		}
+		int index = (int) (second & BUCKET_MASK);
+		List<Entry> bucket = this.buckets[index];
+		if (bucket == null) {
+			bucket = new ArrayList<>();
+			this.buckets[index] = bucket;
+		}
+		bucket.add(entry);
+	}
+
+	/**
+	 * @return the entry of the given agent, or <code>null</code> if the agent is not contained.
+	 */
+	synchronized Entry remove(MobsimAgent agent) {
+		Entry entry = this.entriesByAgent.remove(agent);
+		if (entry == null) {
+			return null;
+		}
+		this.size--;
+		long second = getSecond(entry.time);
+		if (this.lastProcessedSecond != Long.MIN_VALUE && second <= this.lastProcessedSecond) {
+			// the entries of the buckets are never due in seconds which have been processed already
+			this.overdueEntries.remove(entry);
+		} else {
+			this.buckets[(int) (second & BUCKET_MASK)].remove(entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Removes all entries whose time is not later than the given time and returns them in the order in which they are
+	 * to be handled.  Must be called in every time step, but may skip time steps.
+	 */
+	synchronized List<Entry> pollDueEntries(double now) {
+		List<Entry> dueEntries = new ArrayList<>();
+		if (this.size == 0) {
+			this.lastProcessedSecond = Math.max(this.lastProcessedSecond, (long) Math.floor(now));
+			return dueEntries;
+		}
+		dueEntries.addAll(this.overdueEntries);
+		this.overdueEntries.clear();
+		long second = (long) Math.floor(now);
+		if (this.lastProcessedSecond == Long.MIN_VALUE || second - this.lastProcessedSecond >= NUMBER_OF_BUCKETS) {
+			// first time step or a large jump in time: check all buckets once
+			for (List<Entry> bucket : this.buckets) {
+				pollDueEntries(bucket, now, dueEntries);
+			}
+		} else {
+			for (long s = this.lastProcessedSecond + 1; s <= second; s++) {
+				pollDueEntries(this.buckets[(int) (s & BUCKET_MASK)], now, dueEntries);
+			}
+			if (now > second) {
+				// time steps shorter than a second: some entries of the next second may be due already
+				pollDueEntries(this.buckets[(int) ((second + 1) & BUCKET_MASK)], now, dueEntries);
+			}
+		}
+		this.lastProcessedSecond = second;
+		this.size -= dueEntries.size();
+		for (Entry entry : dueEntries) {
+			if (this.entriesByAgent.get(entry.agent) == entry) {
+				this.entriesByAgent.remove(entry.agent);
+			}
+		}
+		Collections.sort(dueEntries, COMPARATOR);
+		return dueEntries;
+	}
+
+	private static void pollDueEntries(List<Entry> bucket, double now, List<Entry> dueEntries) {
+		if (bucket == null || bucket.isEmpty()) {
+			return;
+		}
+		int kept = 0;
+		for (int i = 0; i < bucket.size(); i++) {
+			Entry entry = bucket.get(i);
+			if (entry.time <= now) {
+				dueEntries.add(entry);
+			} else {
+				// ends in a later round
+				bucket.set(kept++, entry);
+			}
+		}
+		bucket.subList(kept, bucket.size()).clear();
+	}
+
+	/**
+	 * @return the earliest time of all entries, or <code>Double.POSITIVE_INFINITY</code> if there are no entries.
+	 */
+	synchronized double getEarliestTime() {
+		if (this.size == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		if (!this.overdueEntries.isEmpty()) {
+			return getEarliestTime(this.overdueEntries, Long.MAX_VALUE);
+		}
+		if (this.lastProcessedSecond != Long.MIN_VALUE) {
+			for (long s = this.lastProcessedSecond + 1; s <= this.lastProcessedSecond + NUMBER_OF_BUCKETS; s++) {
+				double earliest = getEarliestTime(this.buckets[(int) (s & BUCKET_MASK)], s);
+				if (earliest != Double.POSITIVE_INFINITY) {
+					return earliest;
+				}
+			}
+		}
+		// only entries of later rounds
+		double earliest = Double.POSITIVE_INFINITY;
+		for (List<Entry> bucket : this.buckets) {
+			earliest = Math.min(earliest, getEarliestTime(bucket, Long.MAX_VALUE));
+		}
+		return earliest;
+	}
+
+	private static double getEarliestTime(List<Entry> bucket, long maxSecond) {
+		double earliest = Double.POSITIVE_INFINITY;
+		if (bucket != null) {
+			for (Entry entry : bucket) {
+				if (getSecond(entry.time) <= maxSecond) {
+					earliest = Math.min(earliest, entry.time);
+				}
+			}
+		}
+		return earliest;
+	}
+
+	/**
+	 * Removes all entries and returns them in the order in which they would be handled.
+	 */
+	synchronized List<Entry> pollAllEntries() {
+		List<Entry> entries = new ArrayList<>(this.overdueEntries);
+		this.overdueEntries.clear();
+		for (List<Entry> bucket : this.buckets) {
+			if (bucket != null) {
+				entries.addAll(bucket);
+				bucket.clear();
+			}
+		}
+		this.size = 0;
+		this.entriesByAgent.clear();
+		Collections.sort(entries, COMPARATOR);
+		return entries;
+	}
+
+	private static long getSecond(double time) {
+		return (long) Math.ceil(time);
+	}
+
+}
@@ -28,6 +28,7 @@ import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
 import org.matsim.core.mobsim.framework.events.MobsimBeforeSimStepEvent;
 import org.matsim.core.mobsim.framework.events.MobsimInitializedEvent;
 import org.matsim.core.mobsim.framework.listeners.*;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextActionTime;
 import org.matsim.core.utils.misc.ClassUtils;
 
 import javax.swing.event.EventListenerList;
@@ -107,4 +108,26 @@ class MobsimListenerManager implements MatsimManager {
         }
 	}
 
+	/**
+	 * @return the earliest time at which one of the before or after sim step listeners needs to be notified again,
+	 * or <code>now</code> if there is a sim step listener that does not implement {@link HasNextActionTime}.
+	 */
+	public double getNextActionTimeOfSimStepListeners(double now) {
+		double nextActionTime = Double.POSITIVE_INFINITY;
+		for (Object listener : this.listenerList.getListeners(MobsimBeforeSimStepListener.class)) {
+			nextActionTime = Math.min(nextActionTime, getNextActionTime(listener, now));
+		}
+		for (Object listener : this.listenerList.getListeners(MobsimAfterSimStepListener.class)) {
+			nextActionTime = Math.min(nextActionTime, getNextActionTime(listener, now));
+		}
+		return nextActionTime;
+	}
+
+	private static double getNextActionTime(Object listener, double now) {
+		if (listener instanceof HasNextActionTime) {
+			return ((HasNextActionTime) listener).getNextActionTime(now);
+		}
+		return now;
+	}
+
 }
@@ -52,11 +52,13 @@ import org.matsim.core.mobsim.framework.listeners.MobsimListener;
 import org.matsim.core.mobsim.qsim.interfaces.ActivityHandler;
 import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
 import org.matsim.core.mobsim.qsim.interfaces.DepartureHandler;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextActionTime;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
 import org.matsim.core.mobsim.qsim.interfaces.Netsim;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNetwork;
 import org.matsim.core.mobsim.qsim.pt.TransitQSimEngine;
+import org.matsim.core.mobsim.qsim.qnetsimengine.ActionBufferingEventsManager;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QNetsimEngine;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QVehicle;
 import org.matsim.core.utils.misc.Time;
@@ -198,11 +200,16 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 	@Inject
 	public QSim(final Scenario sc, EventsManager events) {
 		this.scenario = sc;
+		EventsManager qsimEvents = events;
 		if (sc.getConfig().qsim().getNumberOfThreads() > 1) {
-			this.events = EventsUtils.getParallelFeedableInstance(events);
-		} else {
-			this.events = events;
+			qsimEvents = EventsUtils.getParallelFeedableInstance(qsimEvents);
+		}
+		if (sc.getConfig().qsim().isUsingDeterministicParallelSimulation() || sc.getConfig().qsim().isUsingParallelActivityEnds()
+				|| sc.getConfig().qsim().isUsingParallelTeleportationArrivals()) {
+			// events from agents moved by the parallel netsim engine, or ending their activities or legs in parallel, are passed on in a canonical order
+			qsimEvents = new ActionBufferingEventsManager(qsimEvents);
 		}
+		this.events = qsimEvents;
 		this.listenerManager = new MobsimListenerManager(this);
 		this.agentCounter = new org.matsim.core.mobsim.qsim.AgentCounter();
 		this.simTimer = new MobsimTimer(sc.getConfig().qsim().getTimeStepSize());
@@ -384,7 +391,11 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 		}
 
 		if (doContinue) {
-			this.simTimer.incrementTime();
+			if (qsimConfigGroup.isUsingTimeStepSkipping()) {
+				this.simTimer.setTime(this.getNextSimStepTime(now));
+			} else {
+				this.simTimer.incrementTime();
+			}
 		}
 		
 		if (analyzeRunTimes) this.qSimInternalTime += System.nanoTime() - this.startTime;
@@ -492,10 +503,37 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 	// utility methods (presumably no state change)
 	// ############################################################################################################################
 
+	/**
+	 * @return the time of the next sim step.  This is later than the next time step only if all engines and sim step listeners
+	 * report that they have nothing to do before, see {@link HasNextActionTime}.
+	 */
+	private double getNextSimStepTime(final double now) {
+		final double stepSize = this.simTimer.getSimTimestepSize();
+		final double nextTimeStep = now + stepSize;
+		double nextActionTime = this.listenerManager.getNextActionTimeOfSimStepListeners(now);
+		for (MobsimEngine mobsimEngine : this.mobsimEngines) {
+			if (nextActionTime <= nextTimeStep) {
+				return nextTimeStep;
+			}
+			if (!(mobsimEngine instanceof HasNextActionTime)) {
+				// e.g. the WithinDayEngine, which may replan at any time
+				return nextTimeStep;
+			}
+			nextActionTime = Math.min(nextActionTime, ((HasNextActionTime) mobsimEngine).getNextActionTime(now));
+		}
+		// the simulation has to end at the stop time at the latest:
+		nextActionTime = Math.min(nextActionTime, this.stopTime);
+		if (nextActionTime <= nextTimeStep || nextActionTime >= Double.MAX_VALUE) {
+			return nextTimeStep;
+		}
+		// stay on the grid of time steps:
+		return now + Math.ceil((nextActionTime - now) / stepSize) * stepSize;
+	}
+
 	private void printSimLog(final double time) {
 		if (time >= this.infoTime) {
 			//		if(true){
-			this.infoTime += INFO_PERIOD;
+			this.infoTime = (Math.floor(time / INFO_PERIOD) + 1) * INFO_PERIOD; // time steps may have been skipped
 			Date endtime = new Date();
 			long diffreal = (endtime.getTime() - this.realWorldStarttime
 					.getTime()) / 1000;
@@ -4,16 +4,19 @@ import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.core.mobsim.qsim.interfaces.DepartureHandler;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextActionTime;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
+import org.matsim.core.mobsim.qsim.qnetsimengine.NetsimActionBuffer;
 import org.matsim.core.network.NetworkUtils;
-import org.matsim.core.utils.collections.Tuple;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.facilities.Facility;
 import org.matsim.vis.snapshotwriters.AgentSnapshotInfo;
@@ -28,21 +31,10 @@ import java.util.*;
  * NetsimEngine (often all != "car") or have two activities on the same link
  */
 public final class TeleportationEngine implements DepartureHandler, MobsimEngine,
-VisData {
+VisData, HasNextActionTime {
 	private static final Logger log = Logger.getLogger( TeleportationEngine.class ) ;
 	
-	private final Queue<Tuple<Double, MobsimAgent>> teleportationList = new PriorityQueue<>(
-			30, new Comparator<Tuple<Double, MobsimAgent>>() {
-
-		@Override
-		public int compare(Tuple<Double, MobsimAgent> o1, Tuple<Double, MobsimAgent> o2) {
-			int ret = o1.getFirst().compareTo(o2.getFirst()); // first compare time information
-			if (ret == 0) {
-				ret = o2.getSecond().getId().compareTo(o1.getSecond().getId()); // if they're equal, compare the Ids: the one with the larger Id should be first
-			}
-			return ret;
-		}
-	});
+	private final AgentCalendar teleportationList = new AgentCalendar();
 	private final LinkedHashMap<Id<Person>, TeleportationVisData> teleportationData = new LinkedHashMap<>();
 	private InternalInterface internalInterface;
 	private Scenario scenario;
@@ -50,6 +42,9 @@ VisData {
 	
 	private final boolean withTravelTimeCheck ;
 
+	/* handles the arrivals in parallel, see QSimConfigGroup.isUsingParallelTeleportationArrivals() */
+	private AgentBatchExecutor parallelExecutor = null;
+
 	@Inject
 	public TeleportationEngine(Scenario scenario, EventsManager eventsManager) {
 		this.scenario = scenario;
@@ -75,7 +70,7 @@ VisData {
 		}
     	
 		double arrivalTime = now + travelTime ;
-		this.teleportationList.add(new Tuple<>(arrivalTime, agent));
+		this.teleportationList.add(new AgentCalendar.Entry(agent, arrivalTime));
 		
 		// === below here is only visualization, no dynamics ===
 		Id<Person> agentId = agent.getId();
@@ -104,39 +99,75 @@ VisData {
 		handleTeleportationArrivals();
 	}
 
+	@Override
+	public double getNextActionTime(double now) {
+		return teleportationList.getEarliestTime();
+	}
+
 	private void handleTeleportationArrivals() {
-		double now = internalInterface.getMobsim().getSimTimer().getTimeOfDay();
-		while (teleportationList.peek() != null) {
-			Tuple<Double, MobsimAgent> entry = teleportationList.peek();
-			if (entry.getFirst() <= now) {
-				teleportationList.poll();
-				MobsimAgent personAgent = entry.getSecond();
-				personAgent.notifyArrivalOnLinkByNonNetworkMode(personAgent
-						.getDestinationLinkId());
-				double distance = personAgent.getExpectedTravelDistance();
-				this.eventsManager.processEvent(new TeleportationArrivalEvent(this.internalInterface.getMobsim().getSimTimer().getTimeOfDay(), personAgent.getId(), distance));
-				personAgent.endLegAndComputeNextState(now);
-				this.teleportationData.remove(personAgent.getId());
-				internalInterface.arrangeNextAgentState(personAgent);
+		final double now = internalInterface.getMobsim().getSimTimer().getTimeOfDay();
+		List<AgentCalendar.Entry> arrivals = teleportationList.pollDueEntries(now);
+		while (!arrivals.isEmpty()) {
+			if (this.parallelExecutor != null && arrivals.size() > AgentBatchExecutor.MIN_CHUNK_SIZE) {
+				for (AgentCalendar.Entry entry : arrivals) {
+					this.teleportationData.remove(entry.agent.getId());
+				}
+				this.parallelExecutor.handleAgents(arrivals, new AgentBatchExecutor.AgentHandler() {
+					@Override
+					public void handleAgent(MobsimAgent agent) {
+						letAgentArrive(agent, now);
+					}
+				}, this.internalInterface);
 			} else {
-				break;
+				for (AgentCalendar.Entry entry : arrivals) {
+					MobsimAgent personAgent = entry.agent;
+					letAgentArrive(personAgent, now);
+					this.teleportationData.remove(personAgent.getId());
+					internalInterface.arrangeNextAgentState(personAgent);
+				}
 			}
+			// agents may have departed for teleportations without travel time in the meantime
+			arrivals = teleportationList.pollDueEntries(now);
+		}
+	}
+
+	private void letAgentArrive(MobsimAgent personAgent, double now) {
+		personAgent.notifyArrivalOnLinkByNonNetworkMode(personAgent
+				.getDestinationLinkId());
+		double distance = personAgent.getExpectedTravelDistance();
+		processEvent(new TeleportationArrivalEvent(now, personAgent.getId(), distance));
+		personAgent.endLegAndComputeNextState(now);
+	}
+
+	private void processEvent(Event event) {
+		NetsimActionBuffer buffer = NetsimActionBuffer.getCurrent();
+		if (buffer == null) {
+			this.eventsManager.processEvent(event);
+		} else {
+			// arrivals handled in parallel: passed on later in the order of the arrivals
+			buffer.addEvent(event, this.eventsManager);
 		}
 	}
 
 	@Override
 	public void onPrepareSim() {
-
+		QSimConfigGroup qsimConfig = this.scenario.getConfig().qsim();
+		if (qsimConfig.isUsingParallelTeleportationArrivals() && qsimConfig.getNumberOfThreads() > 1) {
+			this.parallelExecutor = new AgentBatchExecutor(qsimConfig.getNumberOfThreads(), "TeleportationEngine_PooledThread_");
+		}
 	}
 
 	@Override
 	public void afterSim() {
 		double now = internalInterface.getMobsim().getSimTimer().getTimeOfDay();
-		for (Tuple<Double, MobsimAgent> entry : teleportationList) {
-			MobsimAgent agent = entry.getSecond();
+		for (AgentCalendar.Entry entry : teleportationList.pollAllEntries()) {
+			MobsimAgent agent = entry.agent;
 			eventsManager.processEvent(new PersonStuckEvent(now, agent.getId(), agent.getDestinationLinkId(), agent.getMode()));
 		}
-		teleportationList.clear();
+		if (this.parallelExecutor != null) {
+			this.parallelExecutor.shutdown();
+			this.parallelExecutor = null;
+		}
 	}
 
 	@Override
@@ -0,0 +1,41 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * HasNextActionTime.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.interfaces;
+
+import org.matsim.core.config.groups.QSimConfigGroup;
+
+/**
+ * Optional interface for {@link MobsimEngine}s as well as for before and after sim step listeners of the QSim.  If everything that is
+ * stepped by the QSim implements it, the QSim can advance its clock directly to the next time at which something happens
+ * (see {@link QSimConfigGroup#isUsingTimeStepSkipping()}).
+ */
+public interface HasNextActionTime {
+
+	/**
+	 * @param now the time of the sim step that was just simulated
+	 * @return the earliest time at which this needs to be stepped again, provided that nothing is handed over to it in between
+	 * (e.g. an agent departing or starting an activity, which can only happen within a sim step of one of the engines).
+	 * <code>Double.POSITIVE_INFINITY</code> if there is nothing to do; values not after the next time step mean that the
+	 * next time step must not be skipped.
+	 */
+	double getNextActionTime(double now);
+
+}
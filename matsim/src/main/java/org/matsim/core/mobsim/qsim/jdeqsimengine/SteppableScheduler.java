@@ -41,6 +41,14 @@ public class SteppableScheduler extends Scheduler implements Steppable {
         finished = true; // queue has run dry.
     }
 
+    public double getNextMessageArrivalTime() {
+        double nextMessageArrivalTime = queue.getNextMessageArrivalTime();
+        if (lookahead != null) {
+            nextMessageArrivalTime = Math.min(nextMessageArrivalTime, lookahead.getMessageArrivalTime());
+        }
+        return nextMessageArrivalTime;
+    }
+
     public boolean isFinished() {
         return finished;
     }
@@ -163,7 +163,9 @@ class PassengerAccessEgressImpl implements PassengerAccessEgress {
 				this.internalInterface.unregisterAdditionalAgentOnLink(agentId, linkId) ;
 //			}
 			MobsimDriverAgent agent = (MobsimDriverAgent) passenger;
-			eventsManager.processEvent(new PersonEntersVehicleEvent(time, agent.getId(), vehicle.getVehicle().getId()));
+			if (eventsManager.hasHandlers(PersonEntersVehicleEvent.class)) {
+				eventsManager.processEvent(new PersonEntersVehicleEvent(time, agent.getId(), vehicle.getVehicle().getId()));
+			}
 		}
 		return handled;
 	}
@@ -172,7 +174,9 @@ class PassengerAccessEgressImpl implements PassengerAccessEgress {
 	public boolean handlePassengerLeaving(PTPassengerAgent passenger, MobsimVehicle vehicle, Id<Link> toLinkId, double time) {
 		boolean handled = vehicle.removePassenger(passenger);
 		if(handled){
-			eventsManager.processEvent(new PersonLeavesVehicleEvent(time, passenger.getId(), vehicle.getVehicle().getId()));
+			if (eventsManager.hasHandlers(PersonLeavesVehicleEvent.class)) {
+				eventsManager.processEvent(new PersonLeavesVehicleEvent(time, passenger.getId(), vehicle.getVehicle().getId()));
+			}
 			
 			// from here on works only if PassengerAgent can be cast into MobsimAgent ... but this is how it was before.
 			// kai, sep'12
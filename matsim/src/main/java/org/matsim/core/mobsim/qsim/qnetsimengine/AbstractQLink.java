@@ -99,6 +99,11 @@ abstract class AbstractQLink extends QLinkI {
 
 	private boolean active = false;
 
+	/*
+	 * The link stays active while it is sleeping, see LinkTimingWheel.
+	 */
+	private double sleepingUntil = Double.NaN;
+
 	private TransitQLink transitQLink;
 	
 	private final QNode toQNode ;
@@ -129,6 +134,10 @@ abstract class AbstractQLink extends QLinkI {
 		if (!this.active) {
 			netElementActivationRegistry.registerLinkAsActive(this);
 			this.active = true;
+		} else if (!Double.isNaN(this.sleepingUntil)) {
+			// something was added to a sleeping link, so it has to be simulated again
+			this.sleepingUntil = Double.NaN;
+			netElementActivationRegistry.registerLinkAsActive(this);
 		}
 		// This is a bit involved since we do not want to ask the registry in every time step if the link is already active.
 	}
@@ -149,8 +158,10 @@ abstract class AbstractQLink extends QLinkI {
 	
 	/* package */ final void letVehicleArrive(QVehicle qveh) {
 		double now = context.getSimTimer().getTimeOfDay();;
-		context.getEventsManager().processEvent(new VehicleLeavesTrafficEvent(now , qveh.getDriver().getId(), 
-				this.link.getId(), qveh.getId(), qveh.getDriver().getMode(), 1.0 ) ) ;
+		if (context.getEventsManager().hasHandlers(VehicleLeavesTrafficEvent.class)) {
+			context.getEventsManager().processEvent(new VehicleLeavesTrafficEvent(now , qveh.getDriver().getId(), 
+					this.link.getId(), qveh.getId(), qveh.getDriver().getMode(), 1.0 ) ) ;
+		}
 		
 		this.netsimEngine.letVehicleArrive(qveh);
 	}
@@ -333,7 +344,9 @@ abstract class AbstractQLink extends QLinkI {
 		if (driver == null) throw new RuntimeException("Vehicle cannot depart without a driver!");
 
 		EventsManager eventsManager = context.getEventsManager();
-		eventsManager.processEvent(new PersonEntersVehicleEvent(now, driver.getId(), vehicle.getId()));
+		if (eventsManager.hasHandlers(PersonEntersVehicleEvent.class)) {
+			eventsManager.processEvent(new PersonEntersVehicleEvent(now, driver.getId(), vehicle.getId()));
+		}
 		this.addDepartingVehicle(vehicle);
 	}
 
@@ -363,7 +376,9 @@ abstract class AbstractQLink extends QLinkI {
 
 			((PassengerAgent) passenger).setVehicle(vehicle);
 			EventsManager eventsManager = context.getEventsManager();
-			eventsManager.processEvent(new PersonEntersVehicleEvent(now, passenger.getId(), vehicle.getId()));
+			if (eventsManager.hasHandlers(PersonEntersVehicleEvent.class)) {
+				eventsManager.processEvent(new PersonEntersVehicleEvent(now, passenger.getId(), vehicle.getId()));
+			}
 			// TODO: allow setting passenger's currentLinkId to null
 
 			return true;
@@ -454,6 +469,16 @@ abstract class AbstractQLink extends QLinkI {
 		this.active = active;
 	}
 
+	@Override
+	double getSleepingUntil() {
+		return this.sleepingUntil;
+	}
+
+	@Override
+	void setSleepingUntil(double time) {
+		this.sleepingUntil = time;
+	}
+
 	Queue<QVehicle> getWaitingList() {
 		return waitingList;
 	}
@@ -0,0 +1,88 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ActionBufferingEventsManager.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * Delegates to another EventsManager, except that events are added to the {@link NetsimActionBuffer}
+ * of the current thread, if there is one.  Used for all events that may be caused while the network is moved
+ * in parallel, i.e. by the netsim engine itself, but also by the agents.
+ * 
+ * @see org.matsim.core.config.groups.QSimConfigGroup#isUsingDeterministicParallelSimulation()
+ */
+public final class ActionBufferingEventsManager implements EventsManager {
+
+	private final EventsManager delegate;
+
+	public ActionBufferingEventsManager(EventsManager delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void processEvent(Event event) {
+		NetsimActionBuffer buffer = NetsimActionBuffer.getCurrent();
+		if (buffer == null) {
+			this.delegate.processEvent(event);
+		} else {
+			buffer.addEvent(EventsUtils.toRetainableEvent(event), this.delegate);
+		}
+	}
+
+	@Override
+	public void addHandler(EventHandler handler) {
+		this.delegate.addHandler(handler);
+	}
+
+	@Override
+	public void removeHandler(EventHandler handler) {
+		this.delegate.removeHandler(handler);
+	}
+
+	@Override
+	public boolean hasHandlers(Class<? extends Event> eventClass) {
+		return this.delegate.hasHandlers(eventClass);
+	}
+
+	@Override
+	public void resetHandlers(int iteration) {
+		this.delegate.resetHandlers(iteration);
+	}
+
+	@Override
+	public void initProcessing() {
+		this.delegate.initProcessing();
+	}
+
+	@Override
+	public void afterSimStep(double time) {
+		this.delegate.afterSimStep(time);
+	}
+
+	@Override
+	public void finishProcessing() {
+		this.delegate.finishProcessing();
+	}
+
+}
@@ -0,0 +1,100 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BisectionNetworkPartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Partitions the network by recursive coordinate bisection: the nodes are split along the longer side of their 
+ * bounding box such that both halves get a load proportional to the number of partitions they will be split into,
+ * and the halves are split again until there is one part per partition.  This results in compact, (nearly) equally 
+ * loaded partitions with short boundaries, and thus few links leading from one runner's nodes to another runner's nodes.
+ */
+final class BisectionNetworkPartitioner implements NetworkPartitioner {
+
+	@Override
+	public int[] partition(List<Node> nodes, double[] loads, int numberOfPartitions) {
+		int size = nodes.size();
+		double[] xs = new double[size];
+		double[] ys = new double[size];
+		Integer[] order = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			xs[i] = SpaceFillingCurveNetworkPartitioner.getCoord(nodes.get(i)).getX();
+			ys[i] = SpaceFillingCurveNetworkPartitioner.getCoord(nodes.get(i)).getY();
+			order[i] = i;
+		}
+		int[] partitions = new int[size];
+		bisect(order, 0, size, xs, ys, loads, 0, numberOfPartitions, partitions);
+		return partitions;
+	}
+
+	private void bisect(Integer[] order, int from, int to, final double[] xs, final double[] ys, double[] loads,
+			int firstPartition, int numberOfPartitions, int[] partitions) {
+		if (numberOfPartitions == 1 || to - from <= 1) {
+			for (int i = from; i < to; i++) {
+				partitions[order[i]] = firstPartition;
+			}
+			return;
+		}
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			minX = Math.min(minX, xs[order[i]]);
+			minY = Math.min(minY, ys[order[i]]);
+			maxX = Math.max(maxX, xs[order[i]]);
+			maxY = Math.max(maxY, ys[order[i]]);
+		}
+		final double[] coords = (maxX - minX >= maxY - minY) ? xs : ys;
+		Arrays.sort(order, from, to, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(coords[o1], coords[o2]);
+			}
+		});
+
+		int lowerPartitions = numberOfPartitions / 2;
+		double total = 0;
+		for (int i = from; i < to; i++) {
+			total += loads[order[i]];
+		}
+		double target = total * lowerPartitions / numberOfPartitions;
+		double cumulative = 0;
+		int split = from;
+		while (split < to - 1 && cumulative + loads[order[split]] / 2 <= target) {
+			cumulative += loads[order[split]];
+			split++;
+		}
+		if (split == from) {
+			split++; // make sure both halves get at least one node
+		}
+
+		bisect(order, from, split, xs, ys, loads, firstPartition, lowerPartitions, partitions);
+		bisect(order, split, to, xs, ys, loads, firstPartition + lowerPartitions, numberOfPartitions - lowerPartitions, partitions);
+	}
+
+}
@@ -0,0 +1,127 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LinkTimingWheel.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the links that do not need to be simulated until some time in the future ("sleeping" links), see
+ * {@link QLinkI#getEarliestTimeOfNextSimStep()}.  Instead of polling these links in every time step, they are put
+ * into the slot of the second they need to be simulated again, and are given back to their registry when that 
+ * second has come.
+ * <br>
+ * A link that is activated before (e.g. by a departing vehicle) is woken up by {@link AbstractQLink#activateLink()}; 
+ * its entry here is then stale and skipped.  Times further ahead than the number of slots stay in their slot until
+ * they are due.
+ * <br>
+ * Not thread-safe; every registry has its own wheel.
+ * 
+ * @see org.matsim.core.config.groups.QSimConfigGroup#isUsingIdleLinkSkipping()
+ */
+final class LinkTimingWheel {
+
+	private static final int NUMBER_OF_SLOTS = 1024; // must be a power of two
+	private static final int SLOT_MASK = NUMBER_OF_SLOTS - 1;
+
+	private final List<List<QLinkI>> slots = new ArrayList<>(NUMBER_OF_SLOTS);
+
+	private long lastReleasedSecond = Long.MIN_VALUE;
+
+	LinkTimingWheel() {
+		for (int i = 0; i < NUMBER_OF_SLOTS; i++) {
+			this.slots.add(new ArrayList<QLinkI>());
+		}
+	}
+
+	/**
+	 * Removes the link from the simulated links until the given time.  The link stays registered as active, 
+	 * i.e. it is not re-registered by {@link AbstractQLink#activateLink()} unless it is woken up early.
+	 */
+	void putToSleep(QLinkI link, double wakeUpTime) {
+		link.setSleepingUntil(wakeUpTime);
+		this.slots.get(getSlot(wakeUpTime)).add(link);
+	}
+
+	/**
+	 * Registers all links as active whose wake up time is not later than the given time. Must be called in every 
+	 * time step before the links are moved, but may skip time steps.
+	 */
+	void wakeUpDueLinks(double now, NetElementActivationRegistry registry) {
+		long second = (long) Math.floor(now);
+		if (this.lastReleasedSecond == Long.MIN_VALUE || second - this.lastReleasedSecond >= NUMBER_OF_SLOTS) {
+			// first call or a large jump in time: check all slots once
+			for (int slot = 0; slot < NUMBER_OF_SLOTS; slot++) {
+				wakeUpDueLinks(slot, second, registry);
+			}
+		} else {
+			for (long s = this.lastReleasedSecond + 1; s <= second; s++) {
+				wakeUpDueLinks((int) (s & SLOT_MASK), second, registry);
+			}
+		}
+		this.lastReleasedSecond = second;
+	}
+
+	/**
+	 * @return the time step in which the first of the sleeping links is woken up, or <code>Double.POSITIVE_INFINITY</code>
+	 * if there are no sleeping links.
+	 */
+	double getNextWakeUpTime() {
+		double earliest = Double.POSITIVE_INFINITY;
+		for (List<QLinkI> links : this.slots) {
+			for (QLinkI link : links) {
+				double sleepingUntil = link.getSleepingUntil();
+				if (sleepingUntil < earliest) { // false for NaN, i.e. for stale entries of links that were woken up early
+					earliest = sleepingUntil;
+				}
+			}
+		}
+		return Math.floor(earliest);
+	}
+
+	private void wakeUpDueLinks(int slot, long second, NetElementActivationRegistry registry) {
+		List<QLinkI> links = this.slots.get(slot);
+		if (links.isEmpty()) {
+			return;
+		}
+		int kept = 0;
+		for (int i = 0; i < links.size(); i++) {
+			QLinkI link = links.get(i);
+			double sleepingUntil = link.getSleepingUntil();
+			if (Double.isNaN(sleepingUntil) || getSlot(sleepingUntil) != slot) {
+				// woken up early, or put to sleep again with another time: stale entry
+				continue;
+			}
+			if ((long) Math.floor(sleepingUntil) <= second) {
+				link.setSleepingUntil(Double.NaN);
+				registry.registerLinkAsActive(link);
+			} else {
+				links.set(kept++, link);
+			}
+		}
+		links.subList(kept, links.size()).clear();
+	}
+
+	private static int getSlot(double time) {
+		return (int) (((long) Math.floor(time)) & SLOT_MASK);
+	}
+
+}
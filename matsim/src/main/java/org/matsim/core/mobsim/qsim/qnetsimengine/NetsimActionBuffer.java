@@ -0,0 +1,92 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NetsimActionBuffer.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.mobsim.qsim.InternalInterface;
+
+/**
+ * Collects the events and agent state changes that are caused while a chunk of nodes or links is moved
+ * by a thread of the {@link QNetsimEngineWorkStealingRunner}, so that they can be passed on later in the 
+ * canonical order of the nodes and links, independently of the number of threads.  Also used by the
+ * {@link org.matsim.core.mobsim.qsim.ActivityEngine} when it ends activities in parallel.
+ * <br>
+ * The buffer of the current thread is looked up by {@link ActionBufferingEventsManager} and by 
+ * {@link QNetsimEngine}; if there is none, events and agent state changes are passed on immediately.
+ * 
+ * @see org.matsim.core.config.groups.QSimConfigGroup#isUsingDeterministicParallelSimulation()
+ * @see org.matsim.core.config.groups.QSimConfigGroup#isUsingParallelActivityEnds()
+ */
+public final class NetsimActionBuffer {
+
+	private static final ThreadLocal<NetsimActionBuffer> current = new ThreadLocal<>();
+
+	/* events, or agents whose next state has to be arranged */
+	private final List<Object> actions = new ArrayList<>();
+	/* the events manager of every event, null for agents */
+	private final List<EventsManager> eventsManagers = new ArrayList<>();
+
+	public static NetsimActionBuffer getCurrent() {
+		return current.get();
+	}
+
+	public static void setCurrent(NetsimActionBuffer buffer) {
+		if (buffer == null) {
+			current.remove();
+		} else {
+			current.set(buffer);
+		}
+	}
+
+	public void addEvent(Event event, EventsManager eventsManager) {
+		this.actions.add(event);
+		this.eventsManagers.add(eventsManager);
+	}
+
+	public void addAgentToArrange(MobsimAgent agent) {
+		this.actions.add(agent);
+		this.eventsManagers.add(null);
+	}
+
+	/**
+	 * Passes on all collected actions in the order they were added.  Must be called from a thread without
+	 * current buffer.
+	 */
+	public void flush(InternalInterface internalInterface) {
+		for (int i = 0; i < this.actions.size(); i++) {
+			Object action = this.actions.get(i);
+			EventsManager eventsManager = this.eventsManagers.get(i);
+			if (eventsManager != null) {
+				eventsManager.processEvent((Event) action);
+			} else {
+				internalInterface.arrangeNextAgentState((MobsimAgent) action);
+			}
+		}
+		this.actions.clear();
+		this.eventsManagers.clear();
+	}
+
+}
@@ -0,0 +1,44 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NetworkPartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Distributes the nodes of the {@link QNetwork} among the {@link QNetsimEngineRunner}s.  The outgoing links of a node
+ * are always handled by the same runner as the node itself, see {@link QNetsimEngine}.
+ * 
+ * @see org.matsim.core.config.groups.QSimConfigGroup.NetworkPartitioning
+ */
+interface NetworkPartitioner {
+
+	/**
+	 * @param nodes the nodes to distribute
+	 * @param loads the (estimated or measured) load of every node, in the same order as <code>nodes</code>
+	 * @param numberOfPartitions the number of runners
+	 * @return the partition (between <code>0</code> and <code>numberOfPartitions - 1</code>) of every node, 
+	 * in the same order as <code>nodes</code>
+	 */
+	int[] partition(List<Node> nodes, double[] loads, int numberOfPartitions);
+
+}
@@ -139,6 +139,22 @@ abstract class QLinkI implements NetsimLink, TimeVariantLink {
 
 	abstract boolean isNotOfferingVehicle();
 
+	/**
+	 * @return the earliest time at which {@link #doSimStep()} can change anything on this link if nothing is added to it,
+	 * or Double.NEGATIVE_INFINITY if the link needs to be simulated in every time step.
+	 * See {@link org.matsim.core.config.groups.QSimConfigGroup#isUsingIdleLinkSkipping()}.
+	 */
+	double getEarliestTimeOfNextSimStep() {
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Bookkeeping of the {@link LinkTimingWheel}: the time until which the link is not simulated, or NaN if it is not sleeping.
+	 */
+	abstract double getSleepingUntil();
+
+	abstract void setSleepingUntil(double time);
+
 	abstract QLaneI getAcceptingQLane() ;
 
 }
@@ -140,8 +140,10 @@ public final class QLinkImpl extends AbstractQLink implements SignalizeableItem
             QVehicle veh = this.getWaitingList().poll();
 			
 			double now = context.getSimTimer().getTimeOfDay() ;
-			context.getEventsManager().processEvent(
-					new VehicleEntersTrafficEvent(now, veh.getDriver().getId(), this.getLink().getId(), veh.getId(), veh.getDriver().getMode(), 1.0));
+			if (context.getEventsManager().hasHandlers(VehicleEntersTrafficEvent.class)) {
+				context.getEventsManager().processEvent(
+						new VehicleEntersTrafficEvent(now, veh.getDriver().getId(), this.getLink().getId(), veh.getId(), veh.getDriver().getMode(), 1.0));
+			}
 
 			if ( this.getTransitQLink().addTransitToStopQueue(now, veh, this.getLink().getId()) ) {
 				continue ;
@@ -158,6 +160,14 @@ public final class QLinkImpl extends AbstractQLink implements SignalizeableItem
 		}
 	}
 
+	@Override
+	double getEarliestTimeOfNextSimStep() {
+		if (!this.getWaitingList().isEmpty() || !this.getTransitQLink().getTransitVehicleStopQueue().isEmpty()) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return qlane.getEarliestTimeOfNextSimStep();
+	}
+
 	@Override boolean isNotOfferingVehicle() {
 		return qlane.isNotOfferingVehicle();
 	}
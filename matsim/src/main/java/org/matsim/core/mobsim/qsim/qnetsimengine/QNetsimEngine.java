@@ -42,11 +42,13 @@ import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.QSimConfigGroup.LinkDynamics;
+import org.matsim.core.config.groups.QSimConfigGroup.NetworkPartitioning;
 import org.matsim.core.config.groups.QSimConfigGroup.SnapshotStyle;
 import org.matsim.core.config.groups.QSimConfigGroup.StarttimeInterpretation;
 import org.matsim.core.config.groups.QSimConfigGroup.VehicleBehavior;
@@ -57,6 +59,7 @@ import org.matsim.core.mobsim.framework.MobsimTimer;
 import org.matsim.core.mobsim.qsim.InternalInterface;
 import org.matsim.core.mobsim.qsim.QSim;
 import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextActionTime;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNetwork;
@@ -71,7 +74,7 @@ import org.matsim.vis.snapshotwriters.SnapshotLinkWidthCalculator;
  * @author dgrether
  * @author dstrippgen
  */
-public class QNetsimEngine implements MobsimEngine {
+public class QNetsimEngine implements MobsimEngine, HasNextActionTime {
 	public interface NetsimInternalInterface {
 
 		QNetwork getNetsimNetwork();
@@ -129,6 +132,18 @@ public class QNetsimEngine implements MobsimEngine {
 	private ExecutorService pool;
 
 	private final boolean usingThreadpool;
+
+	private final boolean usingWorkStealing;
+
+	private final boolean usingDeterministicParallelSimulation;
+
+	private QNetsimEngineWorkStealingRunner workStealingRunner = null;
+
+	private final NetworkPartitioner networkPartitioner;
+
+	private QNetworkLoadStatistics loadStatistics = null;
+
+	private int[] loadCounters = null;
 	
 	// for detailed run time analysis - used in combination with QSim.analyzeRunTimes
 	public static int numObservedTimeSteps = 24*3600;
@@ -150,6 +165,9 @@ public class QNetsimEngine implements MobsimEngine {
 		final Config config = sim.getScenario().getConfig();
 		final QSimConfigGroup qsimConfigGroup = config.qsim();
 		this.usingThreadpool = qsimConfigGroup.isUsingThreadpool();
+		this.usingDeterministicParallelSimulation = qsimConfigGroup.isUsingDeterministicParallelSimulation();
+		// the deterministic mode relies on the canonical order of the active nodes and links of the work-stealing runner
+		this.usingWorkStealing = qsimConfigGroup.isUsingWorkStealing() || this.usingDeterministicParallelSimulation;
 
 
 		// configuring the car departure hander (including the vehicle behavior)
@@ -189,6 +207,29 @@ public class QNetsimEngine implements MobsimEngine {
 		network.initialize(this, sim.getAgentCounter(), sim.getSimTimer() );
 
 		this.numOfThreads = sim.getScenario().getConfig().qsim().getNumberOfThreads();
+
+		switch (qSimConfigGroup.getNetworkPartitioning()) {
+		case roundRobin:
+			this.networkPartitioner = new RoundRobinNetworkPartitioner();
+			break;
+		case spaceFillingCurve:
+			this.networkPartitioner = new SpaceFillingCurveNetworkPartitioner();
+			break;
+		case bisection:
+			this.networkPartitioner = new BisectionNetworkPartitioner();
+			break;
+		default:
+			throw new RuntimeException("Unknown network partitioning option.");
+		}
+		if (qSimConfigGroup.isUsingMeasuredLoadForPartitioning() && qSimConfigGroup.getNetworkPartitioning() != NetworkPartitioning.roundRobin
+				&& !this.usingWorkStealing) {
+			Scenario scenario = sim.getScenario();
+			this.loadStatistics = (QNetworkLoadStatistics) scenario.getScenarioElement(QNetworkLoadStatistics.ELEMENT_NAME);
+			if (this.loadStatistics == null) {
+				this.loadStatistics = new QNetworkLoadStatistics();
+				scenario.addScenarioElement(QNetworkLoadStatistics.ELEMENT_NAME, this.loadStatistics);
+			}
+		}
 	}
 
 	private static int wrnCnt = 0;
@@ -252,7 +293,9 @@ public class QNetsimEngine implements MobsimEngine {
 			engine.afterSim();
 		}
 
-		if (this.usingThreadpool) {
+		if (this.usingWorkStealing) {
+			this.workStealingRunner.afterSim();
+		} else if (this.usingThreadpool) {
 			this.pool.shutdown();
 		} else {
 			/*
@@ -271,6 +314,10 @@ public class QNetsimEngine implements MobsimEngine {
 		for (QLinkI link : network.getNetsimLinks().values()) {
 			link.clearVehicles();
 		}
+
+		if (this.loadStatistics != null) {
+			this.loadStatistics.setMeasuredLoads(this.loadCounters);
+		}
 	}
 
 	/**
@@ -284,6 +331,18 @@ public class QNetsimEngine implements MobsimEngine {
 		this.printSimLog(time);
 	}
 
+	@Override
+	public double getNextActionTime(double now) {
+		if (this.usingWorkStealing) {
+			return this.workStealingRunner.getNextActionTime(now);
+		}
+		double nextActionTime = Double.POSITIVE_INFINITY;
+		for (QNetsimEngineRunner engine : this.engines) {
+			nextActionTime = Math.min(nextActionTime, engine.getNextActionTime(now));
+		}
+		return nextActionTime;
+	}
+
 	/*
 	 * The Threads are waiting at the startBarrier.
 	 * We trigger them by reaching this Barrier. Now the
@@ -314,11 +373,20 @@ public class QNetsimEngine implements MobsimEngine {
 		// myTime += 0.5 ;
 
 		// (b) Do deliberate domain decomposition rather than round robin (fewer runners to wait for at (*) and (**)).
+		// (now available, see QSimConfigGroup.NetworkPartitioning)
 
 		// (c) One thread that is much faster than all others is much more efficient than one thread that is much slower than all others. 
 		// So make sure that no thread sticks out in terms of slowness.  Difficult to achieve, though.  A decade back, we used a "typical" run
 		// as input for the domain decomposition under (b).
 
+		// (d) Do not assign nodes and links to runners at all, but let idle threads steal work from the others.
+		// (now available, see QSimConfigGroup.isUsingWorkStealing())
+
+		if (this.usingWorkStealing) {
+			this.workStealingRunner.doSimStep(time);
+			return;
+		}
+
 		// set current Time
 		for (QNetsimEngineRunner engine : this.engines) {
 			engine.setTime(time);
@@ -352,7 +420,7 @@ public class QNetsimEngine implements MobsimEngine {
 
 	/*package*/ void printSimLog(double time) {
 		if (time >= this.infoTime) {
-			this.infoTime += INFO_PERIOD;
+			this.infoTime = (Math.floor(time / INFO_PERIOD) + 1) * INFO_PERIOD; // time steps may have been skipped
 			int nofActiveLinks = this.getNumberOfSimulatedLinks();
 			int nofActiveNodes = this.getNumberOfSimulatedNodes();
 			log.info("SIMULATION (QNetsimEngine) AT " + Time.writeTime(time)
@@ -368,6 +436,9 @@ public class QNetsimEngine implements MobsimEngine {
 		for (QNetsimEngineRunner engine : this.engines) {
 			numLinks = numLinks + engine.getNumberOfSimulatedLinks();
 		}
+		if (this.workStealingRunner != null) {
+			numLinks = numLinks + this.workStealingRunner.getNumberOfSimulatedLinks();
+		}
 
 		return numLinks;
 	}
@@ -379,6 +450,9 @@ public class QNetsimEngine implements MobsimEngine {
 		for (QNetsimEngineRunner engine : this.engines) {
 			numNodes = numNodes + engine.getNumberOfSimulatedNodes();
 		}
+		if (this.workStealingRunner != null) {
+			numNodes = numNodes + this.workStealingRunner.getNumberOfSimulatedNodes();
+		}
 
 		return numNodes;
 	}
@@ -419,17 +493,35 @@ public class QNetsimEngine implements MobsimEngine {
 	private void letVehicleArrive(QVehicle veh) {
 		double now = this.qsim.getSimTimer().getTimeOfDay();
 		MobsimDriverAgent driver = veh.getDriver();
-		this.qsim.getEventsManager().processEvent(new PersonLeavesVehicleEvent(now, driver.getId(), veh.getId()));
+		if (this.qsim.getEventsManager().hasHandlers(PersonLeavesVehicleEvent.class)) {
+			PersonLeavesVehicleEvent event = new PersonLeavesVehicleEvent(now, driver.getId(), veh.getId());
+			NetsimActionBuffer buffer = NetsimActionBuffer.getCurrent();
+			if (buffer == null) {
+				this.qsim.getEventsManager().processEvent(event);
+			} else {
+				buffer.addEvent(event, this.qsim.getEventsManager());
+			}
+		}
 		// reset vehicles driver
 		veh.setDriver(null);
 		driver.endLegAndComputeNextState(now);
-		this.internalInterface.arrangeNextAgentState(driver);
+		this.arrangeNextAgentState(driver);
 	}
 
 	private void initQSimEngineThreads() {
 
 		this.engines = new ArrayList<>();
 
+		if (this.usingWorkStealing) {
+			this.workStealingRunner = new QNetsimEngineWorkStealingRunner(this.numOfThreads, 
+					this.usingDeterministicParallelSimulation ? this.internalInterface : null);
+			if (this.qsim.getScenario().getConfig().qsim().isUsingIdleLinkSkipping()) {
+				this.workStealingRunner.setLinkTimingWheel(new LinkTimingWheel());
+			}
+			assignWorkStealingRunner();
+			return;
+		}
+
 		this.startBarrier = new Phaser(this.numOfThreads + 1);
 		Phaser separationBarrier = new Phaser(this.numOfThreads);
 		this.endBarrier = new Phaser(this.numOfThreads + 1);
@@ -438,12 +530,17 @@ public class QNetsimEngine implements MobsimEngine {
 		if (this.usingThreadpool) {
 			// The number of runners should be larger than the number of threads, yes,
 			// but see MATSIM-404 - Simulation result still depends on the number of runners.
+			// (Use QSimConfigGroup.usingDeterministicParallelSimulation if this matters.)
 //			numOfRunners *= 10 ;
 			this.pool = Executors.newFixedThreadPool(
 					this.numOfThreads,
 					new NamedThreadFactory());
 		}
 
+		if (this.loadStatistics != null) {
+			this.loadCounters = this.loadStatistics.createCounters();
+		}
+
 		// setup threads
 		for (int i = 0; i < numOfRunners; i++) {
 			QNetsimEngineRunner engine ;
@@ -456,6 +553,10 @@ public class QNetsimEngine implements MobsimEngine {
 				thread.setDaemon(true);	// make the Thread Daemons so they will terminate automatically
 				thread.start();
 			}
+			engine.setLoadCounters(this.loadCounters);
+			if (this.qsim.getScenario().getConfig().qsim().isUsingIdleLinkSkipping()) {
+				engine.setLinkTimingWheel(new LinkTimingWheel());
+			}
 			this.engines.add(engine);
 		}
 
@@ -477,11 +578,21 @@ public class QNetsimEngine implements MobsimEngine {
 		// only for statistics
 		int nodes[] = new int[numOfRunners];
 		int links[] = new int[numOfRunners];
+		double loads[] = new double[numOfRunners];
 
-		int roundRobin = 0;
-		for (QNode node : network.getNetsimNodes().values()) {
-			int i = roundRobin % this.numOfRunners;
+		List<QNode> qNodes = new ArrayList<>(network.getNetsimNodes().values());
+		List<Node> nodesToPartition = new ArrayList<>(qNodes.size());
+		for (QNode node : qNodes) {
+			nodesToPartition.add(node.getNode());
+		}
+		double[] nodeLoads = getNodeLoads(nodesToPartition);
+		int[] partitions = this.networkPartitioner.partition(nodesToPartition, nodeLoads, this.numOfRunners);
+
+		for (int n = 0; n < qNodes.size(); n++) {
+			QNode node = qNodes.get(n);
+			int i = partitions[n];
 			node.setNetElementActivationRegistry(this.engines.get(i));
+			loads[i] += nodeLoads[n];
 			nodes[i]++;
 
 			// set activator for out links
@@ -504,20 +615,59 @@ public class QNetsimEngine implements MobsimEngine {
 				links[i]++;
 
 			}
-
-			roundRobin++;
 		}
 
 		// print some statistics
 		for (int i = 0; i < this.engines.size(); i++) {
-			log.info("Assigned " + nodes[i] + " nodes and " + links[i] + " links to QSimEngineRunner #" + i);
+			log.info("Assigned " + nodes[i] + " nodes and " + links[i] + " links with a load of " + loads[i] + " to QSimEngineRunner #" + i);
 		}
 
 		this.linksToActivateInitially.clear();
 	}
 
+	/*
+	 * With work stealing, there is only one registry for all nodes and links.  Which thread
+	 * processes an element is decided anew in every time step.
+	 */
+	private void assignWorkStealingRunner() {
+		for (QNode node : network.getNetsimNodes().values()) {
+			node.setNetElementActivationRegistry(this.workStealingRunner);
+			for (Link outLink : node.getNode().getOutLinks().values()) {
+				AbstractQLink qLink = (AbstractQLink) network.getNetsimLink(outLink.getId());
+				qLink.setNetElementActivationRegistry(this.workStealingRunner);
+				if (linksToActivateInitially.remove(qLink) 
+						|| qsim.getScenario().getConfig().qsim().getSimStarttimeInterpretation()==StarttimeInterpretation.onlyUseStarttime) {
+					this.workStealingRunner.registerLinkAsActive(qLink);
+				}
+			}
+		}
+		log.info("Using work stealing with " + this.numOfThreads + " threads for moving the nodes and links.");
+		this.linksToActivateInitially.clear();
+	}
+
+	/*
+	 * The load of a node is the number of simulation steps of the node and its outgoing links during the
+	 * previous mobsim, if available.  Otherwise, it is estimated from the number of outgoing links.
+	 */
+	private double[] getNodeLoads(List<Node> nodes) {
+		double[] nodeLoads = new double[nodes.size()];
+		boolean useMeasuredLoads = this.loadStatistics != null && this.loadStatistics.hasMeasuredLoads();
+		if (useMeasuredLoads) {
+			log.info("Using the measured load of the previous mobsim for partitioning the network.");
+		}
+		for (int n = 0; n < nodeLoads.length; n++) {
+			Node node = nodes.get(n);
+			if (useMeasuredLoads) {
+				nodeLoads[n] = 1 + this.loadStatistics.getMeasuredLoad(node.getId());
+			} else {
+				nodeLoads[n] = 1 + node.getOutLinks().size();
+			}
+		}
+		return nodeLoads;
+	}
+
 	public void printEngineRunTimes() {
-		if (!QSim.analyzeRunTimes) return;
+		if (!QSim.analyzeRunTimes || this.usingWorkStealing) return;
 		
 		if (printRunTimesPerTimeStep) log.info("detailed QNetsimEngineRunner run times per time step:");
 		{
@@ -566,6 +716,12 @@ public class QNetsimEngine implements MobsimEngine {
 	}
 
 	private final void arrangeNextAgentState(MobsimAgent pp) {
-		internalInterface.arrangeNextAgentState(pp);
+		NetsimActionBuffer buffer = NetsimActionBuffer.getCurrent();
+		if (buffer == null) {
+			internalInterface.arrangeNextAgentState(pp);
+		} else {
+			// deterministic parallel simulation: passed on later in the canonical order of the nodes and links
+			buffer.addAgentToArrange(pp);
+		}
 	}
 }
\ No newline at end of file
@@ -23,9 +23,8 @@ package org.matsim.core.mobsim.qsim.qnetsimengine;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.mobsim.qsim.QSim;
 
-import java.util.*;
+import java.util.Arrays;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Phaser;
 
 /**
@@ -36,6 +35,8 @@ import java.util.concurrent.Phaser;
  */
 class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnable, Callable<Boolean> {
 
+	private static final int INITIAL_CAPACITY = 256;
+
 	private double time = 0.0;
 
 	private volatile boolean simulationRunning = true;
@@ -44,6 +45,16 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 	private final Phaser separationBarrier;
 	private final Phaser endBarrier;
 
+	/*
+	 * The active nodes and links are kept in plain arrays, which are compacted while
+	 * they are iterated, so that nothing is allocated in a time step (apart from growing 
+	 * the arrays now and then).  Elements keep their order, new elements are appended. 
+	 * The elements themselves know if they are active, so there is no need for a
+	 * separate set to avoid duplicates.
+	 */
+	private QNode[] activeNodes = new QNode[INITIAL_CAPACITY];
+	private int numActiveNodes = 0;
+
 	/*
 	 * This needs to be thread-safe since QNodes could be activated concurrently
 	 * from multiple threads. In previous implementations, this data structure was
@@ -51,8 +62,12 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 	 * Now, the implementation of the QNode was adapted in a way that this is not
 	 * possible anymore.
 	 * cdobler, sep'14
+	 * The activated nodes are collected here, guarded by the lock, and appended to the 
+	 * active nodes before the nodes are moved.
 	 */
-	private final Queue<QNode> nodesQueue = new ConcurrentLinkedQueue<>();
+	private final Object activatedNodesLock = new Object();
+	private QNode[] activatedNodes = new QNode[INITIAL_CAPACITY];
+	private int numActivatedNodes = 0;
 
 	/*
 	 * Needs not to be thread-safe since links are only activated from nodes which
@@ -60,7 +75,8 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 	 * no concurrent add operation can occur.
 	 * cdobler, sep'14
 	 */
-	private final List<QLinkI> linksList = new LinkedList<>();
+	private QLinkI[] activeLinks = new QLinkI[INITIAL_CAPACITY];
+	private int numActiveLinks = 0;
 
 	/*
 	 * Ensure that nodes and links are only activate during times where we expect it.
@@ -76,6 +92,19 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 
 	private boolean movingNodes;
 
+	/*
+	 * Counts the simulation steps per node (including the steps of its outgoing links), indexed by
+	 * the index of the node ids. Shared by all runners, but each runner only writes to the entries
+	 * of its own nodes. null if the load is not measured.
+	 */
+	private int[] loadCounters = null;
+
+	/*
+	 * Links that do not need to be simulated for a while, see QSimConfigGroup.isUsingIdleLinkSkipping().
+	 * null if not used.
+	 */
+	private LinkTimingWheel linkTimingWheel = null;
+
 	/*package*/ long[] runTimes;
 	private long startTime = 0;
 	{	
@@ -167,30 +196,63 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 	private void moveNodes() {
 		boolean remainsActive;
 		this.lockNodes = true;
+		appendActivatedNodes();
+		QNode[] nodes = this.activeNodes;
+		int n = this.numActiveNodes;
+		int stillActive = 0;
 		QNode node;
-		Iterator<QNode> simNodes = this.nodesQueue.iterator();
-		while (simNodes.hasNext()) {
-			node = simNodes.next();
+		for (int i = 0; i < n; i++) {
+			node = nodes[i];
+			if (this.loadCounters != null) this.loadCounters[node.getNode().getId().index()]++;
 			remainsActive = node.doSimStep(time);
-			if (!remainsActive) simNodes.remove();
+			if (remainsActive) nodes[stillActive++] = node;
 		}
+		Arrays.fill(nodes, stillActive, n, null);
+		this.numActiveNodes = stillActive;
 		this.lockNodes = false;
 	}
 	private void moveLinks() {
 		boolean remainsActive;
+		if (this.linkTimingWheel != null) this.linkTimingWheel.wakeUpDueLinks(time, this);
 		lockLinks = true;
+		QLinkI[] links = this.activeLinks;
+		int n = this.numActiveLinks;
+		int stillActive = 0;
 		QLinkI link;
-		ListIterator<QLinkI> simLinks = this.linksList.listIterator();
-		while (simLinks.hasNext()) {
-			link = simLinks.next();
+		for (int i = 0; i < n; i++) {
+			link = links[i];
+			if (this.loadCounters != null) this.loadCounters[link.getLink().getFromNode().getId().index()]++;
 
 			remainsActive = link.doSimStep();
 
-			if (!remainsActive) simLinks.remove();
+			if (remainsActive && this.linkTimingWheel != null) {
+				double wakeUpTime = link.getEarliestTimeOfNextSimStep();
+				if (wakeUpTime > time + 1.) {
+					this.linkTimingWheel.putToSleep(link, wakeUpTime);
+					continue;
+				}
+			}
+			if (remainsActive) links[stillActive++] = link;
 		}
+		Arrays.fill(links, stillActive, n, null);
+		this.numActiveLinks = stillActive;
 		lockLinks = false;
 	}
 
+	private void appendActivatedNodes() {
+		synchronized (this.activatedNodesLock) {
+			if (this.numActivatedNodes == 0) return;
+			int required = this.numActiveNodes + this.numActivatedNodes;
+			if (required > this.activeNodes.length) {
+				this.activeNodes = Arrays.copyOf(this.activeNodes, Math.max(required, 2 * this.activeNodes.length));
+			}
+			System.arraycopy(this.activatedNodes, 0, this.activeNodes, this.numActiveNodes, this.numActivatedNodes);
+			Arrays.fill(this.activatedNodes, 0, this.numActivatedNodes, null);
+			this.numActiveNodes = required;
+			this.numActivatedNodes = 0;
+		}
+	}
+
 	/*
 	 * This method is only called while links are NOT "moved", i.e. their
 	 * doStimStep(...) methods are called. To ensure that, we  use a boolean lock.
@@ -198,13 +260,16 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 	 */
 	@Override
 	protected void registerLinkAsActive(QLinkI link) {
-		if (!lockLinks) linksList.add(link);
-		else throw new RuntimeException("Tried to activate a QLink at a time where this was not allowed. Aborting!");
+		if (lockLinks) throw new RuntimeException("Tried to activate a QLink at a time where this was not allowed. Aborting!");
+		if (this.numActiveLinks == this.activeLinks.length) {
+			this.activeLinks = Arrays.copyOf(this.activeLinks, 2 * this.activeLinks.length);
+		}
+		this.activeLinks[this.numActiveLinks++] = link;
 	}
 
 	@Override
 	public int getNumberOfSimulatedLinks() {
-		return this.linksList.size();
+		return this.numActiveLinks;
 	}
 
 	/*
@@ -214,19 +279,39 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 	 */
 	@Override
 	protected void registerNodeAsActive(QNode node) {
-		if (!this.lockNodes) this.nodesQueue.add(node);
-		else throw new RuntimeException("Tried to activate a QNode at a time where this was not allowed. Aborting!");
+		if (this.lockNodes) throw new RuntimeException("Tried to activate a QNode at a time where this was not allowed. Aborting!");
+		synchronized (this.activatedNodesLock) {
+			if (this.numActivatedNodes == this.activatedNodes.length) {
+				this.activatedNodes = Arrays.copyOf(this.activatedNodes, 2 * this.activatedNodes.length);
+			}
+			this.activatedNodes[this.numActivatedNodes++] = node;
+		}
 	}
 
-	/*
-	 * Note that the size() method is O(n) for a ConcurrentLinkedQueue as used
-	 * for the nodesQueue. However, this method is only called once every simulated
-	 * hour for the log message. Therefore, it should be okay.
-	 * cdobler, sep'14
-	 */
 	@Override
 	public int getNumberOfSimulatedNodes() {
-		return this.nodesQueue.size();
+		synchronized (this.activatedNodesLock) {
+			return this.numActiveNodes + this.numActivatedNodes;
+		}
+	}
+
+	/**
+	 * @return the earliest time at which this runner needs to move nodes or links again, see
+	 * {@link org.matsim.core.mobsim.qsim.interfaces.HasNextActionTime}.
+	 */
+	/*package*/ double getNextActionTime(double now) {
+		if (this.numActiveLinks > 0 || getNumberOfSimulatedNodes() > 0) {
+			return now;
+		}
+		return this.linkTimingWheel == null ? Double.POSITIVE_INFINITY : this.linkTimingWheel.getNextWakeUpTime();
+	}
+
+	/*package*/ void setLinkTimingWheel(LinkTimingWheel linkTimingWheel) {
+		this.linkTimingWheel = linkTimingWheel;
+	}
+
+	/*package*/ void setLoadCounters(int[] loadCounters) {
+		this.loadCounters = loadCounters;
 	}
 
 	public void setMovingNodes(boolean movingNodes) {
@@ -0,0 +1,326 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineWorkStealingRunner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.matsim.core.mobsim.qsim.InternalInterface;
+
+/**
+ * Alternative to the {@link QNetsimEngineRunner}s, which have a fixed assignment of nodes (and their outgoing links) 
+ * and thus all have to wait for the slowest of them in every time step.  Here, all active nodes respectively links are 
+ * kept in one list, which is split into chunks that are processed by a work-stealing {@link ForkJoinPool}.  Threads 
+ * that are done with their chunks take over chunks of the other threads, so that there is hardly any idle time.
+ * <br>
+ * The lists of active elements are kept in a canonical order that does not depend on the number of threads or the
+ * scheduling of the chunks: elements stay at their position as long as they are active, and newly activated elements 
+ * are appended ordered by the index of their ids.
+ * <br>
+ * If an {@link InternalInterface} is given, the runner is deterministic: the events and agent state changes of
+ * every chunk are collected in a {@link NetsimActionBuffer} and passed on by the calling thread after each phase, 
+ * in the order of the chunks.  As this is the canonical order of the elements, the results do not depend on
+ * the number of threads.
+ * 
+ * @see org.matsim.core.config.groups.QSimConfigGroup#isUsingWorkStealing()
+ */
+final class QNetsimEngineWorkStealingRunner extends NetElementActivationRegistry {
+
+	private static final int MIN_CHUNK_SIZE = 16;
+	private static final int CHUNKS_PER_THREAD = 8;
+
+	private static final Comparator<QNode> NODE_COMPARATOR = new Comparator<QNode>() {
+		@Override
+		public int compare(QNode o1, QNode o2) {
+			return Integer.compare(o1.getNode().getId().index(), o2.getNode().getId().index());
+		}
+	};
+
+	private static final Comparator<QLinkI> LINK_COMPARATOR = new Comparator<QLinkI>() {
+		@Override
+		public int compare(QLinkI o1, QLinkI o2) {
+			return Integer.compare(o1.getLink().getId().index(), o2.getLink().getId().index());
+		}
+	};
+
+	private final ForkJoinPool pool;
+	private final int numOfThreads;
+	/* null if not deterministic */
+	private final InternalInterface internalInterface;
+
+	private double time = 0.0;
+
+	private QNode[] activeNodes = new QNode[1024];
+	private boolean[] nodeRemainsActive = new boolean[1024];
+	private int numActiveNodes = 0;
+	/* indexed by the first element of each chunk, only used if deterministic */
+	private NetsimActionBuffer[] nodeChunkBuffers = new NetsimActionBuffer[1024];
+
+	private QLinkI[] activeLinks = new QLinkI[1024];
+	private boolean[] linkRemainsActive = new boolean[1024];
+	private int numActiveLinks = 0;
+	private NetsimActionBuffer[] linkChunkBuffers = new NetsimActionBuffer[1024];
+	/* only used with a timing wheel */
+	private double[] linkWakeUpTimes = new double[1024];
+
+	/*
+	 * Links that do not need to be simulated for a while, see QSimConfigGroup.isUsingIdleLinkSkipping().
+	 * Only accessed by the calling thread. null if not used.
+	 */
+	private LinkTimingWheel linkTimingWheel = null;
+
+	/*
+	 * Nodes are activated concurrently while the links are moved, links while the nodes are moved (and
+	 * from the main thread between the time steps).  They are collected here and merged into the lists 
+	 * of active elements before the next phase.
+	 */
+	private final Queue<QNode> activatedNodes = new ConcurrentLinkedQueue<>();
+	private final Queue<QLinkI> activatedLinks = new ConcurrentLinkedQueue<>();
+
+	/*package*/ QNetsimEngineWorkStealingRunner(int numOfThreads, InternalInterface internalInterface) {
+		this.numOfThreads = numOfThreads;
+		this.internalInterface = internalInterface;
+		this.pool = new ForkJoinPool(numOfThreads);
+	}
+
+	/*package*/ void doSimStep(final double time) {
+		this.time = time;
+
+		mergeActivatedNodes();
+		if (this.numActiveNodes > 0) {
+			this.pool.invoke(new MoveNodesTask(0, this.numActiveNodes, getChunkSize(this.numActiveNodes)));
+			flushChunkBuffers(this.nodeChunkBuffers, this.numActiveNodes);
+			removeInactiveNodes();
+		}
+
+		if (this.linkTimingWheel != null) {
+			this.linkTimingWheel.wakeUpDueLinks(time, this);
+		}
+		mergeActivatedLinks();
+		if (this.numActiveLinks > 0) {
+			this.pool.invoke(new MoveLinksTask(0, this.numActiveLinks, getChunkSize(this.numActiveLinks)));
+			flushChunkBuffers(this.linkChunkBuffers, this.numActiveLinks);
+			removeInactiveLinks();
+		}
+	}
+
+	/*package*/ void setLinkTimingWheel(LinkTimingWheel linkTimingWheel) {
+		this.linkTimingWheel = linkTimingWheel;
+	}
+
+	/*package*/ void afterSim() {
+		this.pool.shutdown();
+	}
+
+	private int getChunkSize(int numElements) {
+		return Math.max(MIN_CHUNK_SIZE, numElements / (this.numOfThreads * CHUNKS_PER_THREAD));
+	}
+
+	private void flushChunkBuffers(NetsimActionBuffer[] chunkBuffers, int numElements) {
+		if (this.internalInterface == null) {
+			return;
+		}
+		for (int i = 0; i < numElements; i++) {
+			if (chunkBuffers[i] != null) {
+				chunkBuffers[i].flush(this.internalInterface);
+				chunkBuffers[i] = null;
+			}
+		}
+	}
+
+	private void mergeActivatedNodes() {
+		if (this.activatedNodes.isEmpty()) {
+			return;
+		}
+		QNode[] nodes = this.activatedNodes.toArray(new QNode[0]);
+		this.activatedNodes.clear();
+		Arrays.sort(nodes, NODE_COMPARATOR);
+		int required = this.numActiveNodes + nodes.length;
+		if (required > this.activeNodes.length) {
+			int capacity = Math.max(required, this.activeNodes.length * 2);
+			this.activeNodes = Arrays.copyOf(this.activeNodes, capacity);
+			this.nodeRemainsActive = new boolean[capacity];
+			this.nodeChunkBuffers = new NetsimActionBuffer[capacity];
+		}
+		System.arraycopy(nodes, 0, this.activeNodes, this.numActiveNodes, nodes.length);
+		this.numActiveNodes = required;
+	}
+
+	private void mergeActivatedLinks() {
+		if (this.activatedLinks.isEmpty()) {
+			return;
+		}
+		QLinkI[] links = this.activatedLinks.toArray(new QLinkI[0]);
+		this.activatedLinks.clear();
+		Arrays.sort(links, LINK_COMPARATOR);
+		int required = this.numActiveLinks + links.length;
+		if (required > this.activeLinks.length) {
+			int capacity = Math.max(required, this.activeLinks.length * 2);
+			this.activeLinks = Arrays.copyOf(this.activeLinks, capacity);
+			this.linkRemainsActive = new boolean[capacity];
+			this.linkChunkBuffers = new NetsimActionBuffer[capacity];
+			this.linkWakeUpTimes = new double[capacity];
+		}
+		System.arraycopy(links, 0, this.activeLinks, this.numActiveLinks, links.length);
+		this.numActiveLinks = required;
+	}
+
+	private void removeInactiveNodes() {
+		int j = 0;
+		for (int i = 0; i < this.numActiveNodes; i++) {
+			if (this.nodeRemainsActive[i]) {
+				this.activeNodes[j++] = this.activeNodes[i];
+			}
+		}
+		Arrays.fill(this.activeNodes, j, this.numActiveNodes, null);
+		this.numActiveNodes = j;
+	}
+
+	private void removeInactiveLinks() {
+		int j = 0;
+		for (int i = 0; i < this.numActiveLinks; i++) {
+			if (this.linkRemainsActive[i]) {
+				if (this.linkTimingWheel != null && this.linkWakeUpTimes[i] > this.time + 1.) {
+					this.linkTimingWheel.putToSleep(this.activeLinks[i], this.linkWakeUpTimes[i]);
+				} else {
+					this.activeLinks[j++] = this.activeLinks[i];
+				}
+			}
+		}
+		Arrays.fill(this.activeLinks, j, this.numActiveLinks, null);
+		this.numActiveLinks = j;
+	}
+
+	@Override
+	void registerNodeAsActive(QNode node) {
+		this.activatedNodes.add(node);
+	}
+
+	@Override
+	int getNumberOfSimulatedNodes() {
+		return this.numActiveNodes + this.activatedNodes.size();
+	}
+
+	@Override
+	void registerLinkAsActive(QLinkI link) {
+		this.activatedLinks.add(link);
+	}
+
+	@Override
+	int getNumberOfSimulatedLinks() {
+		return this.numActiveLinks + this.activatedLinks.size();
+	}
+
+	/**
+	 * @return the earliest time at which this runner needs to move nodes or links again, see
+	 * {@link org.matsim.core.mobsim.qsim.interfaces.HasNextActionTime}.
+	 */
+	double getNextActionTime(double now) {
+		if (this.numActiveNodes > 0 || this.numActiveLinks > 0 || !this.activatedNodes.isEmpty() || !this.activatedLinks.isEmpty()) {
+			return now;
+		}
+		return this.linkTimingWheel == null ? Double.POSITIVE_INFINITY : this.linkTimingWheel.getNextWakeUpTime();
+	}
+
+	private NetsimActionBuffer startChunk(NetsimActionBuffer[] chunkBuffers, int from) {
+		if (this.internalInterface == null) {
+			return null;
+		}
+		NetsimActionBuffer buffer = new NetsimActionBuffer();
+		chunkBuffers[from] = buffer;
+		NetsimActionBuffer.setCurrent(buffer);
+		return buffer;
+	}
+
+	private static void endChunk(NetsimActionBuffer buffer) {
+		if (buffer != null) {
+			NetsimActionBuffer.setCurrent(null);
+		}
+	}
+
+	private final class MoveNodesTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+		private final int chunkSize;
+
+		MoveNodesTask(int from, int to, int chunkSize) {
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= this.chunkSize) {
+				NetsimActionBuffer buffer = startChunk(nodeChunkBuffers, this.from);
+				try {
+					for (int i = this.from; i < this.to; i++) {
+						nodeRemainsActive[i] = activeNodes[i].doSimStep(time);
+					}
+				} finally {
+					endChunk(buffer);
+				}
+			} else {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new MoveNodesTask(this.from, middle, this.chunkSize), new MoveNodesTask(middle, this.to, this.chunkSize));
+			}
+		}
+	}
+
+	private final class MoveLinksTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+		private final int chunkSize;
+
+		MoveLinksTask(int from, int to, int chunkSize) {
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= this.chunkSize) {
+				NetsimActionBuffer buffer = startChunk(linkChunkBuffers, this.from);
+				try {
+					for (int i = this.from; i < this.to; i++) {
+						linkRemainsActive[i] = activeLinks[i].doSimStep();
+						if (linkTimingWheel != null && linkRemainsActive[i]) {
+							linkWakeUpTimes[i] = activeLinks[i].getEarliestTimeOfNextSimStep();
+						}
+					}
+				} finally {
+					endChunk(buffer);
+				}
+			} else {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new MoveLinksTask(this.from, middle, this.chunkSize), new MoveLinksTask(middle, this.to, this.chunkSize));
+			}
+		}
+	}
+
+}
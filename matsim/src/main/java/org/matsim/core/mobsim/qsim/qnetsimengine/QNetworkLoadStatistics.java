@@ -0,0 +1,56 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetworkLoadStatistics.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Keeps the number of simulation steps every node and its outgoing links performed during the last mobsim, indexed by 
+ * the index of the node ids.  These counts are used as the load of the nodes when the network is partitioned among the
+ * {@link QNetsimEngineRunner}s in the next iteration, so that the partitioning adapts to where the traffic actually is.
+ * <br>
+ * As a new {@link QNetsimEngine} is created in every iteration, the statistics are stored as scenario element.
+ */
+final class QNetworkLoadStatistics {
+
+	/*package*/ static final String ELEMENT_NAME = "qNetworkLoadStatistics";
+
+	private int[] loads = null;
+
+	/*package*/ int[] createCounters() {
+		return new int[Id.getNumberOfIds(Node.class)];
+	}
+
+	/*package*/ void setMeasuredLoads(int[] counters) {
+		this.loads = counters;
+	}
+
+	/*package*/ boolean hasMeasuredLoads() {
+		return this.loads != null;
+	}
+
+	/*package*/ int getMeasuredLoad(Id<Node> nodeId) {
+		int index = nodeId.index();
+		return index < this.loads.length ? this.loads[index] : 0;
+	}
+
+}
@@ -29,10 +29,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.ReusableLinkEnterEvent;
+import org.matsim.core.events.ReusableLinkLeaveEvent;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.gbl.MatsimRandom;
 import org.matsim.core.mobsim.framework.MobsimAgent;
@@ -40,6 +44,7 @@ import org.matsim.core.mobsim.framework.PassengerAgent;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimLink;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNode;
 import org.matsim.core.mobsim.qsim.qnetsimengine.QNetsimEngine.NetsimInternalInterface;
+import org.matsim.vehicles.Vehicle;
 
 /**
  * Represents a node in the QSimulation.
@@ -81,6 +86,11 @@ public class QNode implements NetsimNode {
 	private final NetsimEngineContext context;
 	private final NetsimInternalInterface netsimEngine;
 
+	// only used with usingReusableLinkEvents; a node is moved by one thread at a time
+	private final boolean reusingLinkEvents;
+	private ReusableLinkEnterEvent linkEnterEvent = null;
+	private ReusableLinkLeaveEvent linkLeaveEvent = null;
+
 	private QNode(final Node n, NetsimEngineContext context, NetsimInternalInterface netsimEngine2) {
 		this.node = n;
 		this.netsimEngine = netsimEngine2 ;
@@ -88,10 +98,13 @@ public class QNode implements NetsimNode {
 		int nofInLinks = this.node.getInLinks().size();
 		this.inLinksArrayCache = new QLinkI[nofInLinks];
 		this.tempLinks = new QLinkI[nofInLinks];
-		if (this.context.qsimConfig.getNumberOfThreads() > 1) { 
+		this.reusingLinkEvents = this.context.qsimConfig.isUsingReusableLinkEvents();
+		if (this.context.qsimConfig.getNumberOfThreads() > 1 || this.context.qsimConfig.isUsingDeterministicParallelSimulation()) { 
 			// This could just as well be the "normal" case. The second alternative
 			// is just there so some scenarios / test cases stay
 			// "event-file-compatible". Consider removing the second alternative.
+			// With usingDeterministicParallelSimulation, the nodes always get their own random number generators,
+			// as the draws from the global one would otherwise depend on the order in which the threads move the nodes.
 			this.random = MatsimRandom.getLocalInstance();
 		} else {
 			this.random = MatsimRandom.getRandom();
@@ -311,7 +324,10 @@ public class QNode implements NetsimNode {
 	private void moveVehicleFromInlinkToAbort(final QVehicle veh, final QLaneI fromLane, final double now, Id<Link> currentLinkId) {
 		fromLane.popFirstVehicle();
 		// -->
-		this.context.getEventsManager().processEvent(new LinkLeaveEvent(now, veh.getId(), currentLinkId));
+		EventsManager eventsManager = this.context.getEventsManager();
+		if (eventsManager.hasHandlers(LinkLeaveEvent.class)) {
+			eventsManager.processEvent(createLinkLeaveEvent(now, veh.getId(), currentLinkId));
+		}
 		// <--
 		
 		// first treat the passengers:
@@ -338,17 +354,42 @@ public class QNode implements NetsimNode {
 		fromLane.popFirstVehicle();
 		// -->
 //		network.simEngine.getMobsim().getEventsManager().processEvent(new LaneLeaveEvent(now, veh.getId(), currentLinkId, fromLane.getId()));
-		this.context.getEventsManager().processEvent(new LinkLeaveEvent(now, veh.getId(), currentLinkId));
+		EventsManager eventsManager = this.context.getEventsManager();
+		if (eventsManager.hasHandlers(LinkLeaveEvent.class)) {
+			eventsManager.processEvent(createLinkLeaveEvent(now, veh.getId(), currentLinkId));
+		}
 		// <--
 
 		veh.getDriver().notifyMoveOverNode( nextLinkId );
 
 		nextQueueLane.addFromUpstream(veh);
 		// -->
-		this.context.getEventsManager().processEvent(new LinkEnterEvent(now, veh.getId(), nextLinkId ));
+		if (eventsManager.hasHandlers(LinkEnterEvent.class)) {
+			eventsManager.processEvent(createLinkEnterEvent(now, veh.getId(), nextLinkId ));
+		}
 		// <--
 	}
 
+	private Event createLinkLeaveEvent(final double now, final Id<Vehicle> vehicleId, final Id<Link> linkId) {
+		if (!this.reusingLinkEvents) {
+			return new LinkLeaveEvent(now, vehicleId, linkId);
+		} else if (this.linkLeaveEvent == null) {
+			this.linkLeaveEvent = new ReusableLinkLeaveEvent(now, vehicleId, linkId);
+			return this.linkLeaveEvent;
+		}
+		return this.linkLeaveEvent.update(now, vehicleId, linkId);
+	}
+
+	private Event createLinkEnterEvent(final double now, final Id<Vehicle> vehicleId, final Id<Link> linkId) {
+		if (!this.reusingLinkEvents) {
+			return new LinkEnterEvent(now, vehicleId, linkId);
+		} else if (this.linkEnterEvent == null) {
+			this.linkEnterEvent = new ReusableLinkEnterEvent(now, vehicleId, linkId);
+			return this.linkEnterEvent;
+		}
+		return this.linkEnterEvent.update(now, vehicleId, linkId);
+	}
+
 	private boolean vehicleIsStuck(final QLaneI fromLaneBuffer, final double now) {
 //		final double stuckTime = network.simEngine.getStuckTime();
 		final double stuckTime = this.context.qsimConfig.getStuckTime() ;
@@ -68,6 +68,8 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 			this.context = context ;
 			if (context.qsimConfig.getLinkDynamics() == QSimConfigGroup.LinkDynamics.PassingQ || context.qsimConfig.getLinkDynamics() == QSimConfigGroup.LinkDynamics.SeepageQ) {
 				this.vehicleQueue = new PassingVehicleQ() ;
+			} else if (context.qsimConfig.isUsingArrayVehicleQueue()) {
+				this.vehicleQueue = new ArrayVehicleQ() ;
 			}
 		}
 		@Override public QueueWithBuffer createLane( AbstractQLink qLink ) {
@@ -139,6 +141,10 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 	 * according to the free travel speed of the link
 	 */
 	private final VehicleQ<QVehicle> vehQueue;
+	/**
+	 * The same as vehQueue if that keeps the earliest link exit times and sizes of the vehicles itself, otherwise null.
+	 */
+	private final ArrayVehicleQ arrayVehQueue;
 
 	private double storageCapacity;
 	private double usedStorageCapacity;
@@ -178,6 +184,7 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 		this.context = context ;
 		this.linkSpeedCalculator = linkSpeedCalculator;
 		this.vehQueue = vehicleQueue ;
+		this.arrayVehQueue = vehicleQueue instanceof ArrayVehicleQ ? (ArrayVehicleQ) vehicleQueue : null ;
 		this.length = length;
 		this.unscaledFlowCapacity_s = flowCapacity_s ;
 		this.effectiveNumberOfLanes = effectiveNumberOfLanes;
@@ -419,7 +426,7 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 		QVehicle veh;
 		while((veh = peekFromVehQueue()) !=null){
 			//we have an original QueueLink behaviour
-			if (veh.getEarliestLinkExitTime() > now){
+			if (getEarliestLinkExitTime(veh) > now){
 				return;
 			}
 
@@ -432,6 +439,10 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 					removeVehicleFromQueue(veh) ;
 					continue;
 				} else if (handleTransitStop == HandleTransitStopResult.rehandle) {
+					if (this.arrayVehQueue != null) {
+						// the earliest link exit time of the (first) vehicle was increased
+						this.arrayVehQueue.updateEarliestLinkExitTimeOfFirst();
+					}
 					continue; // yy why "continue", and not "break" or "return"?  Seems to me that this
 					// is currently only working because qLink.handleTransitStop(...) also increases the
 					// earliestLinkExitTime for the present vehicle.  kai, oct'13
@@ -469,6 +480,8 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 		//		QVehicle veh = vehQueue.poll();
 		//		usedStorageCapacity -= veh.getSizeInEquivalents();
 
+		double sizeInEquivalents = this.arrayVehQueue != null && this.arrayVehQueue.peek() == veh2Remove ?
+				this.arrayVehQueue.peekSizeInEquivalents() : veh2Remove.getSizeInEquivalents() ;
 		QVehicle veh = pollFromVehQueue(veh2Remove); 
 
 		if(context.qsimConfig.getLinkDynamics()==LinkDynamics.SeepageQ 
@@ -476,7 +489,7 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 				&& context.qsimConfig.getSeepModes().contains(veh.getVehicle().getType().getId().toString()) ){
 			// do nothing
 		} else {
-			usedStorageCapacity -= veh.getSizeInEquivalents();
+			usedStorageCapacity -= sizeInEquivalents;
 		}
 
 		switch (context.qsimConfig.getTrafficDynamics()) {
@@ -502,7 +515,7 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 				//			double ttimeOfHoles = 0.1 * this.storageCapacity/this.flowCapacityPerTimeStep/nLanes ;
 
 				hole.setEarliestLinkExitTime( now + 1.0*ttimeOfHoles + 0.0*MatsimRandom.getRandom().nextDouble()*ttimeOfHoles ) ;
-				hole.setSizeInEquivalents(veh2Remove.getSizeInEquivalents());
+				hole.setSizeInEquivalents(sizeInEquivalents);
 				holes.add( hole ) ;
 				break;
 			default: throw new RuntimeException("The traffic dynmics "+context.qsimConfig.getTrafficDynamics()+" is not implemented yet.");
@@ -519,6 +532,26 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 		removeVehicleFromQueue( veh ) ;
 	}
 
+	/**
+	 * With a FIFO queue, nothing can happen on the lane before the first vehicle can leave it, 
+	 * as vehicles entering from upstream queue up behind it.  This requires that the flow capacity 
+	 * is not accumulated in every time step, and that there are no holes that need to be moved.
+	 */
+	@Override
+	final double getEarliestTimeOfNextSimStep() {
+		if (!context.qsimConfig.isUsingFastCapacityUpdate() 
+				|| context.qsimConfig.getTrafficDynamics() != TrafficDynamics.queue
+				|| context.qsimConfig.getLinkDynamics() != LinkDynamics.FIFO
+				|| context.qsimConfig.isUseLanes()) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		QVehicle veh = this.vehQueue.peek();
+		if (veh == null) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return getEarliestLinkExitTime(veh);
+	}
+
 	@Override
 	final boolean isActive() {
 		if( context.qsimConfig.isUsingFastCapacityUpdate() ){
@@ -905,6 +938,16 @@ final class QueueWithBuffer extends QLaneI implements SignalizeableItem {
 		return returnVeh;
 	}
 
+	/**
+	 * @param veh the vehicle returned by peekFromVehQueue(), which is the first vehicle if the vehicle queue is an ArrayVehicleQ
+	 */
+	private double getEarliestLinkExitTime(QVehicle veh) {
+		if (this.arrayVehQueue != null) {
+			return this.arrayVehQueue.peekEarliestLinkExitTime() ;
+		}
+		return veh.getEarliestLinkExitTime() ;
+	}
+
 	private QVehicle pollFromVehQueue(QVehicle veh2Remove){
 		if(vehQueue.remove(veh2Remove)){
 			return veh2Remove;
@@ -0,0 +1,130 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * SpaceFillingCurveNetworkPartitioner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Orders the nodes along a Hilbert curve through the bounding box of the network and cuts this order into
+ * contiguous pieces of (nearly) equal load.  As the Hilbert curve preserves locality, every partition covers 
+ * a compact area of the network, which reduces the number of links connecting nodes handled by different runners.
+ */
+final class SpaceFillingCurveNetworkPartitioner implements NetworkPartitioner {
+
+	private static final int ORDER = 16;
+
+	@Override
+	public int[] partition(List<Node> nodes, double[] loads, int numberOfPartitions) {
+		final long[] curveIndices = new long[nodes.size()];
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (Node node : nodes) {
+			Coord c = getCoord(node);
+			minX = Math.min(minX, c.getX());
+			minY = Math.min(minY, c.getY());
+			maxX = Math.max(maxX, c.getX());
+			maxY = Math.max(maxY, c.getY());
+		}
+		double cells = (1 << ORDER) - 1;
+		double scale = cells / Math.max(Math.max(maxX - minX, maxY - minY), 1e-9);
+		for (int i = 0; i < curveIndices.length; i++) {
+			Coord c = getCoord(nodes.get(i));
+			int x = (int) Math.min(cells, (c.getX() - minX) * scale);
+			int y = (int) Math.min(cells, (c.getY() - minY) * scale);
+			curveIndices[i] = hilbertIndex(x, y);
+		}
+
+		Integer[] order = new Integer[nodes.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Long.compare(curveIndices[o1], curveIndices[o2]);
+			}
+		});
+
+		int[] partitions = new int[nodes.size()];
+		assignContiguously(order, 0, order.length, loads, 0, numberOfPartitions, partitions);
+		return partitions;
+	}
+
+	/**
+	 * Cuts <code>order[from...to-1]</code> into <code>numberOfPartitions</code> contiguous pieces of similar load and assigns
+	 * them to the partitions <code>firstPartition</code> to <code>firstPartition + numberOfPartitions - 1</code>.
+	 */
+	/*package*/ static void assignContiguously(Integer[] order, int from, int to, double[] loads, int firstPartition, int numberOfPartitions, int[] partitions) {
+		double total = 0;
+		for (int i = from; i < to; i++) {
+			total += loads[order[i]];
+		}
+		double cumulative = 0;
+		int partition = 0;
+		for (int i = from; i < to; i++) {
+			int node = order[i];
+			// move on to the next partition as soon as the center of this node's load lies beyond the share of the current partition
+			while (partition < numberOfPartitions - 1 && cumulative + loads[node] / 2 > total * (partition + 1) / numberOfPartitions) {
+				partition++;
+			}
+			partitions[node] = firstPartition + partition;
+			cumulative += loads[node];
+		}
+	}
+
+	/*package*/ static Coord getCoord(Node node) {
+		Coord c = node.getCoord();
+		return c == null ? new Coord(0, 0) : c;
+	}
+
+	/**
+	 * @return the position of the cell (x, y) along a Hilbert curve through a grid of 2^ORDER x 2^ORDER cells
+	 */
+	/*package*/ static long hilbertIndex(int x, int y) {
+		int n = 1 << ORDER;
+		long d = 0;
+		for (int s = n / 2; s > 0; s /= 2) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			// rotate the quadrant so that the curve continues correctly
+			if (ry == 0) {
+				if (rx == 1) {
+					x = n - 1 - x;
+					y = n - 1 - y;
+				}
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return d;
+	}
+
+}
@@ -0,0 +1,236 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayVehicleQ.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine.vehicleq;
+
+import java.util.AbstractQueue;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.matsim.core.mobsim.qsim.qnetsimengine.QVehicle;
+
+/**
+ * A FIFO vehicle queue like {@link FIFOVehicleQ}, but stored in a ring buffer of plain arrays.  Next to the
+ * vehicles, the queue keeps their earliest link exit times and their sizes in equivalents in primitive arrays, so
+ * that the lane can look at the first vehicle without touching the vehicle object, and adding a vehicle does not
+ * allocate anything (unless the arrays need to grow).
+ * <p></p>
+ * The earliest link exit time and the size are read from the vehicle when it is added to the queue.  If the earliest
+ * link exit time of a queued vehicle is changed afterwards (as for transit vehicles blocking the lane at a stop),
+ * {@link #updateEarliestLinkExitTimeOfFirst()} has to be called.
+ */
+public final class ArrayVehicleQ extends AbstractQueue<QVehicle> implements VehicleQ<QVehicle> {
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	private QVehicle[] vehicles = new QVehicle[INITIAL_CAPACITY];
+	private double[] earliestLinkExitTimes = new double[INITIAL_CAPACITY];
+	private double[] sizesInEquivalents = new double[INITIAL_CAPACITY];
+	private int head = 0;
+	private int size = 0;
+	private int modCount = 0;
+
+	@Override
+	public boolean offer(QVehicle veh) {
+		ensureCapacity();
+		int index = (this.head + this.size) & (this.vehicles.length - 1);
+		set(index, veh);
+		this.size++;
+		this.modCount++;
+		return true;
+	}
+
+	@Override
+	public void addFirst(QVehicle veh) {
+		ensureCapacity();
+		this.head = (this.head - 1) & (this.vehicles.length - 1);
+		set(this.head, veh);
+		this.size++;
+		this.modCount++;
+	}
+
+	@Override
+	public QVehicle peek() {
+		return this.size == 0 ? null : this.vehicles[this.head];
+	}
+
+	@Override
+	public QVehicle poll() {
+		if (this.size == 0) {
+			return null;
+		}
+		QVehicle veh = this.vehicles[this.head];
+		this.vehicles[this.head] = null;
+		this.head = (this.head + 1) & (this.vehicles.length - 1);
+		this.size--;
+		this.modCount++;
+		return veh;
+	}
+
+	/**
+	 * @return the earliest link exit time of the first vehicle at the time it was added, or
+	 * <code>Double.POSITIVE_INFINITY</code> if the queue is empty.
+	 */
+	public double peekEarliestLinkExitTime() {
+		return this.size == 0 ? Double.POSITIVE_INFINITY : this.earliestLinkExitTimes[this.head];
+	}
+
+	/**
+	 * @return the size in equivalents of the first vehicle, or <code>0</code> if the queue is empty.
+	 */
+	public double peekSizeInEquivalents() {
+		return this.size == 0 ? 0. : this.sizesInEquivalents[this.head];
+	}
+
+	/**
+	 * Reads the earliest link exit time of the first vehicle again, after it was changed while the vehicle was queued.
+	 */
+	public void updateEarliestLinkExitTimeOfFirst() {
+		if (this.size > 0) {
+			this.earliestLinkExitTimes[this.head] = this.vehicles[this.head].getEarliestLinkExitTime();
+		}
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (this.size > 0 && this.vehicles[this.head] == o) {
+			// the usual case: the first vehicle leaves the link
+			poll();
+			return true;
+		}
+		for (int i = 1; i < this.size; i++) {
+			if (o.equals(this.vehicles[(this.head + i) & (this.vehicles.length - 1)])) {
+				removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.vehicles[(this.head + i) & (this.vehicles.length - 1)] = null;
+		}
+		this.head = 0;
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Iterator<QVehicle> iterator() {
+		return new ArrayVehicleQIterator();
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	private void set(int index, QVehicle veh) {
+		this.vehicles[index] = veh;
+		this.earliestLinkExitTimes[index] = veh.getEarliestLinkExitTime();
+		this.sizesInEquivalents[index] = veh.getSizeInEquivalents();
+	}
+
+	/**
+	 * Removes the vehicle at the given position (counted from the head) by moving all vehicles behind it one position forward.
+	 */
+	private void removeAt(int position) {
+		int mask = this.vehicles.length - 1;
+		for (int i = position; i < this.size - 1; i++) {
+			int to = (this.head + i) & mask;
+			int from = (to + 1) & mask;
+			this.vehicles[to] = this.vehicles[from];
+			this.earliestLinkExitTimes[to] = this.earliestLinkExitTimes[from];
+			this.sizesInEquivalents[to] = this.sizesInEquivalents[from];
+		}
+		this.vehicles[(this.head + this.size - 1) & mask] = null;
+		this.size--;
+		this.modCount++;
+	}
+
+	private void ensureCapacity() {
+		if (this.size < this.vehicles.length) {
+			return;
+		}
+		// the capacity always is a power of two, so that positions can be wrapped around by masking
+		int newCapacity = this.vehicles.length * 2;
+		QVehicle[] newVehicles = new QVehicle[newCapacity];
+		double[] newEarliestLinkExitTimes = new double[newCapacity];
+		double[] newSizesInEquivalents = new double[newCapacity];
+		int firstPart = this.vehicles.length - this.head;
+		System.arraycopy(this.vehicles, this.head, newVehicles, 0, firstPart);
+		System.arraycopy(this.vehicles, 0, newVehicles, firstPart, this.head);
+		System.arraycopy(this.earliestLinkExitTimes, this.head, newEarliestLinkExitTimes, 0, firstPart);
+		System.arraycopy(this.earliestLinkExitTimes, 0, newEarliestLinkExitTimes, firstPart, this.head);
+		System.arraycopy(this.sizesInEquivalents, this.head, newSizesInEquivalents, 0, firstPart);
+		System.arraycopy(this.sizesInEquivalents, 0, newSizesInEquivalents, firstPart, this.head);
+		this.vehicles = newVehicles;
+		this.earliestLinkExitTimes = newEarliestLinkExitTimes;
+		this.sizesInEquivalents = newSizesInEquivalents;
+		this.head = 0;
+	}
+
+	private final class ArrayVehicleQIterator implements Iterator<QVehicle> {
+
+		private int position = 0;
+		private int lastPosition = -1;
+		private int expectedModCount = ArrayVehicleQ.this.modCount;
+
+		@Override
+		public boolean hasNext() {
+			return this.position < ArrayVehicleQ.this.size;
+		}
+
+		@Override
+		public QVehicle next() {
+			if (this.expectedModCount != ArrayVehicleQ.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.lastPosition = this.position;
+			this.position++;
+			return ArrayVehicleQ.this.vehicles[(ArrayVehicleQ.this.head + this.lastPosition) & (ArrayVehicleQ.this.vehicles.length - 1)];
+		}
+
+		@Override
+		public void remove() {
+			if (this.lastPosition < 0) {
+				throw new IllegalStateException();
+			}
+			if (this.expectedModCount != ArrayVehicleQ.this.modCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (this.lastPosition == 0) {
+				poll();
+			} else {
+				removeAt(this.lastPosition);
+			}
+			this.position = this.lastPosition;
+			this.lastPosition = -1;
+			this.expectedModCount = ArrayVehicleQ.this.modCount;
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BatchRoutingModule.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.List;
+
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.facilities.Facility;
+
+/**
+ * A {@link RoutingModule} which can compute the routes from one departure location to many arrival locations at once,
+ * faster than with one call of {@link #calcRoute(Facility, Facility, double, Person)} per arrival location.
+ *
+ * @see TripRouter#calcRoutes(String, Facility, List, double, Person)
+ */
+public interface BatchRoutingModule extends RoutingModule {
+	/**
+	 * Computes the routes from one departure location to many arrival locations, as with
+	 * {@link #calcRoute(Facility, Facility, double, Person)}.
+	 *
+	 * @param fromFacility a {@link Facility} representing the departure location
+	 * @param toFacilities the {@link Facility}s representing the arrival locations
+	 * @param departureTime the departure time
+	 * @param person the {@link Person} to route
+	 * @return the trips to the arrival locations, in the order of the arrival locations.
+	 */
+	public List<List<? extends PlanElement>> calcRoutes(
+			Facility<?> fromFacility,
+			List<? extends Facility<?>> toFacilities,
+			double departureTime,
+			Person person);
+}
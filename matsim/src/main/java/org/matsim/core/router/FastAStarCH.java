@@ -0,0 +1,182 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastAStarCH.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.priorityqueue.BinaryMinHeap;
+import org.matsim.core.router.util.AStarNodeData;
+import org.matsim.core.router.util.AStarNodeDataFactory;
+import org.matsim.core.router.util.ArrayRoutingNetwork;
+import org.matsim.core.router.util.ArrayRoutingNetworkNode;
+import org.matsim.core.router.util.ContractionHierarchy;
+import org.matsim.core.router.util.PreProcessContractionHierarchy;
+import org.matsim.core.router.util.PreProcessDijkstra;
+import org.matsim.core.router.util.PreProcessEuclidean;
+import org.matsim.core.router.util.RoutingNetworkNode;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.utils.collections.RouterPriorityQueue;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * <p>
+ * A* least cost path router which uses a {@link ContractionHierarchy} over the minimal travel disutilities of the
+ * links to estimate the remaining travel cost.  The estimate is the exact least cost to the target node if every
+ * link had its minimal travel disutility, so it is never too high, and much better than the estimates of
+ * {@link AStarLandmarks}.  The search itself runs on an {@link ArrayRoutingNetwork} with the time-dependent travel
+ * times and disutilities like {@link FastDijkstra}, so the routes are the same as the ones of Dijkstra.
+ * </p>
+ * <p>
+ * Setting the target node searches the small upward part of the hierarchy above the target; the estimate of every
+ * node the router visits then only needs the estimates of the nodes above it.  Nodes from which the target cannot be
+ * reached at all are never visited.
+ * </p>
+ *
+ * @see org.matsim.core.router.util.PreProcessContractionHierarchy
+ * @see org.matsim.core.router.FastAStarLandmarks
+ */
+public class FastAStarCH extends AStarEuclidean {
+
+	private final ArrayRoutingNetwork routingNetwork;
+	private final FastRouterDelegate fastRouter;
+	private final ContractionHierarchy.Potentials potentials;
+	private final int[] hierarchyIndices;
+	private BinaryMinHeap<ArrayRoutingNetworkNode> heap = null;
+
+	public FastAStarCH(final ArrayRoutingNetwork routingNetwork, final PreProcessContractionHierarchy preProcessData,
+			final TravelDisutility costFunction, final TravelTime timeFunction, final double overdoFactor,
+			final FastRouterDelegateFactory fastRouterFactory) {
+		this(routingNetwork, preProcessData, preProcessData.getContractionHierarchy(), costFunction, timeFunction,
+				overdoFactor, fastRouterFactory);
+	}
+
+	/**
+	 * @param hierarchy the costs of the hierarchy must not be higher than the travel disutilities of the links at any
+	 * time, e.g. a {@link org.matsim.core.router.util.CustomizableContractionHierarchy customized} one
+	 */
+	public FastAStarCH(final ArrayRoutingNetwork routingNetwork, final PreProcessEuclidean preProcessData,
+			final ContractionHierarchy hierarchy, final TravelDisutility costFunction, final TravelTime timeFunction,
+			final double overdoFactor, final FastRouterDelegateFactory fastRouterFactory) {
+		super(routingNetwork, preProcessData, costFunction, timeFunction, overdoFactor);
+
+		this.routingNetwork = routingNetwork;
+		this.fastRouter = fastRouterFactory.createFastRouterDelegate(this, new AStarNodeDataFactory(), routingNetwork);
+
+		this.nodeData.clear();
+
+		/*
+		 * The routing network may be a sub-network of the contracted one, e.g. for other modes than car. The estimates
+		 * are then still lower bounds, as a sub-network only has more expensive paths.
+		 */
+		this.potentials = hierarchy.createPotentials();
+		this.hierarchyIndices = new int[routingNetwork.getNodes().size()];
+		for (RoutingNetworkNode node : routingNetwork.getNodes().values()) {
+			this.hierarchyIndices[((ArrayRoutingNetworkNode) node).getArrayIndex()] = hierarchy.getNodeIndex(node.getId());
+		}
+	}
+
+	/*
+	 * Replace the references to the from and to nodes with their corresponding
+	 * nodes in the routing network.
+	 */
+	@Override
+	public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double startTime, final Person person, final Vehicle vehicle) {
+
+		this.fastRouter.initialize();
+		this.routingNetwork.initialize();
+
+		RoutingNetworkNode routingNetworkFromNode = this.routingNetwork.getNodes().get(fromNode.getId());
+		RoutingNetworkNode routingNetworkToNode = this.routingNetwork.getNodes().get(toNode.getId());
+
+		this.potentials.setTarget(routingNetworkToNode == null ? -1 : getHierarchyIndex(routingNetworkToNode));
+
+		return super.calcLeastCostPath(routingNetworkFromNode, routingNetworkToNode, startTime, person, vehicle);
+	}
+
+	@Override
+	/*package*/ RouterPriorityQueue<? extends Node> createRouterPriorityQueue() {
+		// re-use the heap, see FastDijkstra
+		if (this.heap == null) {
+			this.heap = new BinaryMinHeap<>(this.routingNetwork.getNodes().size());
+		} else {
+			this.heap.reset();
+		}
+		return this.heap;
+	}
+
+	/*
+	 * Nodes from which the to-node cannot be reached have an infinite estimate
+	 * and are not added to the pending nodes at all.
+	 */
+	@Override
+	protected boolean addToPendingNodes(final Link l, final Node n, final RouterPriorityQueue<Node> pendingNodes,
+			final double currTime, final double currCost, final Node toNode) {
+		if (this.potentials.getPotential(getHierarchyIndex(n)) == Double.POSITIVE_INFINITY) {
+			return false;
+		}
+		return super.addToPendingNodes(l, n, pendingNodes, currTime, currCost, toNode);
+	}
+
+	@Override
+	protected double estimateRemainingTravelCost(final Node fromNode, final Node toNode) {
+		return this.potentials.getPotential(getHierarchyIndex(fromNode)) * this.overdoFactor;
+	}
+
+	private int getHierarchyIndex(final Node node) {
+		return this.hierarchyIndices[((ArrayRoutingNetworkNode) node).getArrayIndex()];
+	}
+
+	/*
+	 * Constructs the path and replaces the nodes and links from the routing network
+	 * with their corresponding nodes and links from the network.
+	 */
+	@Override
+	protected Path constructPath(Node fromNode, Node toNode, double startTime, double arrivalTime) {
+		return this.fastRouter.constructPath(fromNode, toNode, startTime, arrivalTime);
+	}
+
+	/*
+	 * For performance reasons the outgoing links of a node are stored in
+	 * the routing network in an array instead of a map.
+	 */
+	@Override
+	protected void relaxNode(final Node outNode, final Node toNode, final RouterPriorityQueue<Node> pendingNodes) {
+		this.fastRouter.relaxNode(outNode, toNode, pendingNodes);
+	}
+
+	/*
+	 * The AStarNodeData is taken from the RoutingNetworkNode and not from a map.
+	 */
+	@Override
+	protected AStarNodeData getData(final Node n) {
+		return (AStarNodeData) this.fastRouter.getData(n);
+	}
+
+	/*
+	 * The DeadEndData is taken from the RoutingNetworkNode and not from a map.
+	 */
+	@Override
+	protected PreProcessDijkstra.DeadEndData getPreProcessData(final Node n) {
+		return this.fastRouter.getPreProcessData(n);
+	}
+}
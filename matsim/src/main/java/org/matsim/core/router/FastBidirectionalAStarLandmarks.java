@@ -0,0 +1,323 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastBidirectionalAStarLandmarks.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.priorityqueue.BinaryMinHeap;
+import org.matsim.core.router.util.AStarNodeData;
+import org.matsim.core.router.util.ArrayRoutingNetwork;
+import org.matsim.core.router.util.ArrayRoutingNetworkNode;
+import org.matsim.core.router.util.PreProcessLandmarks;
+import org.matsim.core.router.util.RoutingNetworkLink;
+import org.matsim.core.router.util.RoutingNetworkNode;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.utils.collections.RouterPriorityQueue;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * <p>
+ * Bidirectional version of {@link FastAStarLandmarks}.  Together with the time-dependent forward search from the
+ * from-node, a backward search from the to-node runs on the minimal travel disutilities of the links, as A* with the
+ * landmark estimates of the costs from the from-node.  Whenever the searches meet at a node, the path of the forward
+ * search to the node and the path of the backward search from the node are evaluated with the time-dependent
+ * disutilities, which gives an upper bound of the least cost.
+ * </p>
+ * <p>
+ * The backward search stops as soon as its least estimate of the cost of a path through the next node is above the
+ * upper bound.  Every node of the least-cost path has then been settled by the backward search, so the forward search
+ * from then on only adds settled nodes to its pending nodes.  The forward search stops as soon as the least estimate
+ * of its pending nodes reaches the upper bound, and returns the path of the upper bound.  The paths are least-cost
+ * paths as long as the travel disutilities are never below the minimal ones and arriving later at a link never makes
+ * it cheaper to leave it.
+ * </p>
+ * <p>
+ * On grid networks, this router is still two to three times slower than {@link FastAStarLandmarks} with near free speed
+ * travel times, and four to five times slower with congestion.  The forward search has to settle about the same nodes
+ * as the one of {@link FastAStarLandmarks} before its estimates reach the upper bound, and the backward search comes
+ * on top.  It can therefore not be selected as {@link org.matsim.core.config.groups.ControlerConfigGroup.RoutingAlgorithmType}.
+ * </p>
+ *
+ * @see org.matsim.core.router.FastAStarLandmarks
+ */
+public class FastBidirectionalAStarLandmarks extends FastAStarLandmarks {
+
+	/*
+	 * The steps of the backward search are much cheaper than the ones of the forward search, which evaluates the
+	 * time-dependent disutilities, and the earlier the backward search stops, the earlier the forward search is
+	 * restricted.
+	 */
+	private static final int BACKWARD_STEPS = 4;
+
+	private final ArrayRoutingNetwork routingNetwork;
+	private final InLinks inLinks;
+	private final Node[] landmarks;
+
+	private final BinaryMinHeap<ArrayRoutingNetworkNode> backwardHeap;
+	private final double[] backwardCost;
+	private final double[] backwardEstimate;
+	private final RoutingNetworkLink[] backwardLink;
+	private final int[] reachedIteration;
+	private final int[] settledIteration;
+	private int iteration = 0;
+
+	private PreProcessLandmarks.LandmarksData fromData;
+	private boolean backwardSearching;
+	private double upperBound;
+	private double upperBoundArrivalTime;
+	private final List<Link> upperBoundLinks = new ArrayList<>();
+	private boolean stoppedAtUpperBound;
+
+	public FastBidirectionalAStarLandmarks(final ArrayRoutingNetwork routingNetwork, final PreProcessLandmarks preProcessData,
+			final TravelDisutility costFunction, final TravelTime timeFunction, final double overdoFactor,
+			final FastRouterDelegateFactory fastRouterFactory) {
+		super(routingNetwork, preProcessData, costFunction, timeFunction, overdoFactor, fastRouterFactory);
+
+		this.routingNetwork = routingNetwork;
+		this.inLinks = new InLinks(routingNetwork, preProcessData.getCostFunction());
+		this.landmarks = preProcessData.getLandmarks();
+
+		int size = routingNetwork.getNodes().size();
+		this.backwardHeap = new BinaryMinHeap<>(size);
+		this.backwardCost = new double[size];
+		this.backwardEstimate = new double[size];
+		this.backwardLink = new RoutingNetworkLink[size];
+		this.reachedIteration = new int[size];
+		this.settledIteration = new int[size];
+	}
+
+	@Override
+	public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double startTime, final Person person, final Vehicle vehicle) {
+		RoutingNetworkNode routingNetworkFromNode = this.routingNetwork.getNodes().get(fromNode.getId());
+		ArrayRoutingNetworkNode routingNetworkToNode = (ArrayRoutingNetworkNode) this.routingNetwork.getNodes().get(toNode.getId());
+
+		this.iteration++;
+		this.backwardHeap.reset();
+		this.fromData = getPreProcessData(routingNetworkFromNode);
+		this.upperBound = Double.POSITIVE_INFINITY;
+		this.upperBoundLinks.clear();
+		this.stoppedAtUpperBound = false;
+		this.backwardSearching = true;
+		int index = routingNetworkToNode.getArrayIndex();
+		this.backwardCost[index] = 0;
+		this.backwardEstimate[index] = estimateCostFromFromNode(routingNetworkToNode);
+		this.backwardLink[index] = null;
+		this.reachedIteration[index] = this.iteration;
+		this.backwardHeap.add(routingNetworkToNode, 0);
+
+		return super.calcLeastCostPath(fromNode, toNode, startTime, person, vehicle);
+	}
+
+	/*
+	 * The forward search stops as soon as no pending node can lead to a path which is cheaper than the upper bound.
+	 * The estimates of the forward search are never above the actual costs, so the path of the upper bound is then
+	 * the least-cost path.
+	 */
+	@Override
+	/*package*/ Node searchLogic(final Node fromNode, final Node toNode, final RouterPriorityQueue<Node> pendingNodes) {
+		Node outNode = pendingNodes.peek();
+		while (outNode != null && outNode != toNode) {
+			if (getPriority(getData(outNode)) >= this.upperBound) {
+				this.stoppedAtUpperBound = true;
+				return toNode;
+			}
+			relaxNode(pendingNodes.poll(), toNode, pendingNodes);
+			outNode = pendingNodes.peek();
+		}
+		if (outNode == null && this.upperBound < Double.POSITIVE_INFINITY) {
+			this.stoppedAtUpperBound = true;
+			return toNode;
+		}
+		return super.searchLogic(fromNode, toNode, pendingNodes);
+	}
+
+	@Override
+	protected Path constructPath(final Node fromNode, final Node toNode, final double startTime, final double arrivalTime) {
+		if (!this.stoppedAtUpperBound) {
+			return super.constructPath(fromNode, toNode, startTime, arrivalTime);
+		}
+		List<Node> nodes = new ArrayList<>(this.upperBoundLinks.size() + 1);
+		List<Link> links = new ArrayList<>(this.upperBoundLinks.size());
+		nodes.add(((RoutingNetworkNode) fromNode).getNode());
+		for (Link link : this.upperBoundLinks) {
+			Link networkLink = ((RoutingNetworkLink) link).getLink();
+			links.add(networkLink);
+			nodes.add(networkLink.getToNode());
+		}
+		return new Path(nodes, links, this.upperBoundArrivalTime - startTime, this.upperBound);
+	}
+
+	/*
+	 * Every node settled by the forward search is a chance to improve the upper bound.  As long as the backward search
+	 * has not stopped, it is followed by some steps of the backward search.
+	 */
+	@Override
+	protected void relaxNode(final Node outNode, final Node toNode, final RouterPriorityQueue<Node> pendingNodes) {
+		updateUpperBound((ArrayRoutingNetworkNode) outNode, toNode);
+		for (int i = 0; i < BACKWARD_STEPS && this.backwardSearching; i++) {
+			relaxBackward(toNode);
+		}
+		super.relaxNode(outNode, toNode, pendingNodes);
+	}
+
+	/*
+	 * Once the backward search has stopped, nodes it has not settled cannot be part of the least-cost path.
+	 */
+	@Override
+	protected boolean addToPendingNodes(final Link l, final Node n, final RouterPriorityQueue<Node> pendingNodes,
+			final double currTime, final double currCost, final Node toNode) {
+		if (!this.backwardSearching && this.settledIteration[((ArrayRoutingNetworkNode) n).getArrayIndex()] != this.iteration) {
+			return false;
+		}
+		return super.addToPendingNodes(l, n, pendingNodes, currTime, currCost, toNode);
+	}
+
+	private void updateUpperBound(final ArrayRoutingNetworkNode node, final Node toNode) {
+		int index = node.getArrayIndex();
+		if (this.reachedIteration[index] != this.iteration) {
+			return;
+		}
+		AStarNodeData data = getData(node);
+		double cost = data.getCost();
+		if (cost + this.backwardCost[index] >= this.upperBound) {
+			// the path of the backward search is not cheaper, even with its minimal disutilities
+			return;
+		}
+		double time = data.getTime();
+		Node current = node;
+		while (current != toNode) {
+			RoutingNetworkLink link = this.backwardLink[((ArrayRoutingNetworkNode) current).getArrayIndex()];
+			if (!canPassLink(link)) {
+				return;
+			}
+			cost += this.costFunction.getLinkTravelDisutility(link, time, getPerson(), getVehicle());
+			time += this.timeFunction.getLinkTravelTime(link, time, getPerson(), getVehicle());
+			current = link.getToNode();
+		}
+		if (cost < this.upperBound) {
+			this.upperBound = cost;
+			this.upperBoundArrivalTime = time;
+			// both searches may still change the paths to the node later on, so the path is kept as it is now
+			this.upperBoundLinks.clear();
+			for (Link link = data.getPrevLink(); link != null; link = getData(link.getFromNode()).getPrevLink()) {
+				this.upperBoundLinks.add(link);
+			}
+			Collections.reverse(this.upperBoundLinks);
+			current = node;
+			while (current != toNode) {
+				RoutingNetworkLink link = this.backwardLink[((ArrayRoutingNetworkNode) current).getArrayIndex()];
+				this.upperBoundLinks.add(link);
+				current = link.getToNode();
+			}
+		}
+	}
+
+	private void relaxBackward(final Node toNode) {
+		ArrayRoutingNetworkNode node = this.backwardHeap.poll();
+		if (node == null) {
+			this.backwardSearching = false;
+			return;
+		}
+		int index = node.getArrayIndex();
+		// with some tolerance, as the upper bound sums up the same costs in another order
+		double estimate = this.backwardCost[index] + this.backwardEstimate[index];
+		if (estimate - this.upperBound > 1e-9 * Math.max(1.0, Math.abs(this.upperBound))) {
+			this.backwardSearching = false;
+			return;
+		}
+		this.settledIteration[index] = this.iteration;
+		double cost = this.backwardCost[index];
+		for (int l = this.inLinks.first[index]; l < this.inLinks.first[index + 1]; l++) {
+			RoutingNetworkLink link = this.inLinks.links[l];
+			ArrayRoutingNetworkNode fromNode = (ArrayRoutingNetworkNode) link.getFromNode();
+			int fromIndex = fromNode.getArrayIndex();
+			double fromCost = cost + this.inLinks.costs[l];
+			if (this.reachedIteration[fromIndex] != this.iteration) {
+				this.reachedIteration[fromIndex] = this.iteration;
+				this.backwardEstimate[fromIndex] = estimateCostFromFromNode(fromNode);
+			} else if (fromCost >= this.backwardCost[fromIndex]) {
+				continue;
+			}
+			this.backwardCost[fromIndex] = fromCost;
+			this.backwardLink[fromIndex] = link;
+			// the forward search may have reached the node already, too
+			if (getData(fromNode).isVisited(getIterationId())) {
+				updateUpperBound(fromNode, toNode);
+			}
+			// adds the node again if it was settled before, so the estimates do not need to be consistent
+			this.backwardHeap.decreaseKey(fromNode, fromCost + this.backwardEstimate[fromIndex]);
+		}
+	}
+
+	private double estimateCostFromFromNode(final Node node) {
+		PreProcessLandmarks.LandmarksData data = getPreProcessData(node);
+		double estimate = 0;
+		for (int i = 0; i < this.landmarks.length; i++) {
+			double landmarkEstimate = estimateRemainingTravelCost(this.fromData, data, i);
+			if (landmarkEstimate > estimate) {
+				estimate = landmarkEstimate;
+			}
+		}
+		return estimate;
+	}
+
+	/**
+	 * The in-links of the nodes of a routing network with their minimal travel disutilities, for the backward search.
+	 */
+	private static final class InLinks {
+
+		private final int[] first;
+		private final RoutingNetworkLink[] links;
+		private final double[] costs;
+
+		private InLinks(final ArrayRoutingNetwork routingNetwork, final TravelDisutility costFunction) {
+			int size = routingNetwork.getNodes().size();
+			this.first = new int[size + 1];
+			int count = 0;
+			for (RoutingNetworkNode node : routingNetwork.getNodes().values()) {
+				for (RoutingNetworkLink link : node.getOutLinksArray()) {
+					this.first[((ArrayRoutingNetworkNode) link.getToNode()).getArrayIndex() + 1]++;
+					count++;
+				}
+			}
+			for (int i = 0; i < size; i++) {
+				this.first[i + 1] += this.first[i];
+			}
+			this.links = new RoutingNetworkLink[count];
+			this.costs = new double[count];
+			int[] fill = new int[size];
+			System.arraycopy(this.first, 0, fill, 0, size);
+			for (RoutingNetworkNode node : routingNetwork.getNodes().values()) {
+				for (RoutingNetworkLink link : node.getOutLinksArray()) {
+					int l = fill[((ArrayRoutingNetworkNode) link.getToNode()).getArrayIndex()]++;
+					this.links[l] = link;
+					this.costs[l] = costFunction.getLinkMinimumTravelDisutility(link);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastManyToManyDijkstra.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.ManyToManyPathCalculator;
+import org.matsim.core.router.util.RoutingNetwork;
+import org.matsim.core.router.util.RoutingNetworkNode;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.utils.collections.RouterPriorityQueue;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * <p>
+ * Version of {@link FastDijkstra} which also computes the least-cost paths from one node to many nodes with a single
+ * search.  The to-nodes which have not been settled yet are kept in a bucket, and the search stops as soon as the
+ * bucket is empty.  The paths to all to-nodes are then constructed from the same search tree.  Many-to-many queries
+ * run one such search per from-node.
+ * </p>
+ * <p>
+ * As with the MultiNodeDijkstra searching all end nodes, select the to-nodes with care: if one of them cannot be
+ * reached, the search processes the entire reachable part of the network before it stops.
+ * </p>
+ *
+ * @see org.matsim.core.router.FastDijkstra
+ * @see org.matsim.core.router.MultiNodeDijkstra
+ */
+public class FastManyToManyDijkstra extends FastDijkstra implements ManyToManyPathCalculator {
+
+	private final RoutingNetwork routingNetwork;
+
+	// the to-nodes not settled yet, or null for a search to a single node
+	private Set<Node> pendingToNodes = null;
+
+	public FastManyToManyDijkstra(final RoutingNetwork routingNetwork, final TravelDisutility costFunction,
+			final TravelTime timeFunction, final FastRouterDelegateFactory fastRouterFactory) {
+		// no dead end pruning, which depends on a single to-node
+		super(routingNetwork, costFunction, timeFunction, null, fastRouterFactory);
+		this.routingNetwork = routingNetwork;
+	}
+
+	@Override
+	public Map<Node, Path> calcLeastCostPaths(final Node fromNode, final Collection<? extends Node> toNodes,
+			final double startTime, final Person person, final Vehicle vehicle) {
+		Map<Node, Path> paths = new LinkedHashMap<>();
+		Map<Node, RoutingNetworkNode> routingNetworkToNodes = new LinkedHashMap<>();
+		this.pendingToNodes = new HashSet<>();
+		for (Node toNode : toNodes) {
+			RoutingNetworkNode routingNetworkToNode = this.routingNetwork.getNodes().get(toNode.getId());
+			if (routingNetworkToNode == null) {
+				throw new IllegalArgumentException("The to-node " + toNode.getId() + " is not part of the network stored by "
+						+ getClass().getSimpleName() + ". Aborting!");
+			}
+			routingNetworkToNodes.put(toNode, routingNetworkToNode);
+			this.pendingToNodes.add(routingNetworkToNode);
+		}
+
+		try {
+			// the search settles the to-nodes, but constructs no path by itself
+			calcLeastCostPath(fromNode, fromNode, startTime, person, vehicle);
+
+			RoutingNetworkNode routingNetworkFromNode = this.routingNetwork.getNodes().get(fromNode.getId());
+			for (Map.Entry<Node, RoutingNetworkNode> entry : routingNetworkToNodes.entrySet()) {
+				RoutingNetworkNode routingNetworkToNode = entry.getValue();
+				if (this.pendingToNodes.contains(routingNetworkToNode)) {
+					paths.put(entry.getKey(), null);
+				} else {
+					double arrivalTime = getData(routingNetworkToNode).getTime();
+					paths.put(entry.getKey(), constructPath(routingNetworkFromNode, routingNetworkToNode, startTime, arrivalTime));
+				}
+			}
+		} finally {
+			this.pendingToNodes = null;
+		}
+		return paths;
+	}
+
+	@Override
+	public Map<Node, Map<Node, Path>> calcLeastCostPaths(final Collection<? extends Node> fromNodes,
+			final Collection<? extends Node> toNodes, final double startTime, final Person person, final Vehicle vehicle) {
+		Map<Node, Map<Node, Path>> paths = new LinkedHashMap<>();
+		for (Node fromNode : fromNodes) {
+			paths.put(fromNode, calcLeastCostPaths(fromNode, toNodes, startTime, person, vehicle));
+		}
+		return paths;
+	}
+
+	@Override
+	/*package*/ Node searchLogic(final Node fromNode, final Node toNode, final RouterPriorityQueue<Node> pendingNodes) {
+		if (this.pendingToNodes == null) {
+			return super.searchLogic(fromNode, toNode, pendingNodes);
+		}
+
+		while (!this.pendingToNodes.isEmpty()) {
+			Node outNode = pendingNodes.poll();
+			if (outNode == null) {
+				// the remaining to-nodes cannot be reached
+				return null;
+			}
+			if (this.pendingToNodes.remove(outNode) && this.pendingToNodes.isEmpty()) {
+				break;
+			}
+			relaxNode(outNode, null, pendingNodes);
+		}
+		return null;
+	}
+}
@@ -44,6 +44,13 @@ public class LeastCostPathCalculatorModule extends AbstractModule {
             bind(LeastCostPathCalculatorFactory.class).to(FastDijkstraFactory.class);
         } else if (config.controler().getRoutingAlgorithmType().equals(ControlerConfigGroup.RoutingAlgorithmType.FastAStarLandmarks)) {
             bind(LeastCostPathCalculatorFactory.class).to(FastAStarLandmarksFactory.class);
+        } else if (config.controler().getRoutingAlgorithmType().equals(ControlerConfigGroup.RoutingAlgorithmType.FastAStarCH)) {
+            bind(LeastCostPathCalculatorFactory.class).to(FastAStarCHFactory.class);
+        } else if (config.controler().getRoutingAlgorithmType().equals(ControlerConfigGroup.RoutingAlgorithmType.FastAStarCCH)) {
+            bind(LeastCostPathCalculatorFactory.class).to(FastAStarCCHFactory.class);
+            addControlerListenerBinding().to(FastAStarCCHFactory.class);
+        } else if (config.controler().getRoutingAlgorithmType().equals(ControlerConfigGroup.RoutingAlgorithmType.FastManyToManyDijkstra)) {
+            bind(LeastCostPathCalculatorFactory.class).to(FastManyToManyDijkstraFactory.class);
         }
     }
 
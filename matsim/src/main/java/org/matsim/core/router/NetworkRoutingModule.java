@@ -18,8 +18,12 @@
  * *********************************************************************** */
 package org.matsim.core.router;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.network.Link;
@@ -35,15 +39,19 @@ import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.population.routes.RouteUtils;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.ManyToManyPathCalculator;
 import org.matsim.facilities.Facility;
 
 /**
  * This wraps a "computer science" {@link LeastCostPathCalculator}, which routes from a node to another node, into something that
  * routes from a {@link Facility} to another {@link Facility}, as we need in MATSim.
+ * <p></p>
+ * If the {@link LeastCostPathCalculator} is a {@link ManyToManyPathCalculator}, the routes from one {@link Facility} to
+ * many {@link Facility}s are computed with a single search.
  * 
  * @author thibautd
  */
-public final class NetworkRoutingModule implements RoutingModule {
+public final class NetworkRoutingModule implements BatchRoutingModule {
 	// I think it makes sense to NOT add the bushwhacking mode directly into here ...
 	// ... since it makes sense be able to to route from facility.getLinkId() to facility.getLinkId(). kai, dec'15
 
@@ -92,7 +100,8 @@ public final class NetworkRoutingModule implements RoutingModule {
 				newLeg,
 				fromLink,
 				toLink,
-				departureTime);
+				departureTime,
+				null);
 
 		// otherwise, information may be lost
 		newLeg.setTravelTime( travTime );
@@ -100,6 +109,50 @@ public final class NetworkRoutingModule implements RoutingModule {
 		return Arrays.asList( newLeg );
 	}
 
+	@Override
+	public List<List<? extends PlanElement>> calcRoutes(
+			final Facility<?> fromFacility,
+			final List<? extends Facility<?>> toFacilities,
+			final double departureTime,
+			final Person person) {
+		if (!(this.routeAlgo instanceof ManyToManyPathCalculator)) {
+			List<List<? extends PlanElement>> trips = new ArrayList<>(toFacilities.size());
+			for (Facility<?> toFacility : toFacilities) {
+				trips.add(calcRoute(fromFacility, toFacility, departureTime, person));
+			}
+			return trips;
+		}
+
+		Gbl.assertNotNull(fromFacility);
+
+		Link fromLink = this.network.getLinks().get(fromFacility.getLinkId());
+		if (fromLink == null) throw new RuntimeException("fromLink "+fromFacility.getLinkId()+" missing.");
+
+		List<Link> toLinks = new ArrayList<>(toFacilities.size());
+		Set<Node> endNodes = new LinkedHashSet<>();
+		for (Facility<?> toFacility : toFacilities) {
+			Gbl.assertNotNull(toFacility);
+			Link toLink = this.network.getLinks().get(toFacility.getLinkId());
+			if (toLink == null) throw new RuntimeException("toLink "+toFacility.getLinkId()+" missing.");
+			toLinks.add(toLink);
+			if (toLink != fromLink) endNodes.add(toLink.getFromNode());
+		}
+
+		// one search from the end of the "current" link to the starts of all target links
+		Map<Node, Path> paths = ((ManyToManyPathCalculator) this.routeAlgo).calcLeastCostPaths(
+				fromLink.getToNode(), endNodes, departureTime, person, null);
+
+		List<List<? extends PlanElement>> trips = new ArrayList<>(toLinks.size());
+		for (Link toLink : toLinks) {
+			Leg newLeg = this.populationFactory.createLeg( this.mode );
+			newLeg.setDepartureTime( departureTime );
+			double travTime = routeLeg(person, newLeg, fromLink, toLink, departureTime, paths);
+			newLeg.setTravelTime( travTime );
+			trips.add(Arrays.asList( newLeg ));
+		}
+		return trips;
+	}
+
 	@Override
 	public StageActivityTypes getStageActivityTypes() {
 		return EmptyStageActivityTypes.INSTANCE;
@@ -110,7 +163,10 @@ public final class NetworkRoutingModule implements RoutingModule {
 		return "[NetworkRoutingModule: mode="+this.mode+"]";
 	}
 
-	private double routeLeg(Person person, Leg leg, Link fromLink, Link toLink, double depTime) {
+	/**
+	 * @param paths the paths from the end of the fromLink, or <code>null</code> to compute the path here
+	 */
+	private double routeLeg(Person person, Leg leg, Link fromLink, Link toLink, double depTime, Map<Node, Path> paths) {
 		double travTime = 0;
 
 //		CarRoute route = null;
@@ -119,7 +175,7 @@ public final class NetworkRoutingModule implements RoutingModule {
             // (a "true" route)
 	        Node startNode = fromLink.getToNode();  // start at the end of the "current" link
 	        Node endNode = toLink.getFromNode(); // the target is the start of the link
-			Path path = this.routeAlgo.calcLeastCostPath(startNode, endNode, depTime, person, null);
+			Path path = paths == null ? this.routeAlgo.calcLeastCostPath(startNode, endNode, depTime, person, null) : paths.get(endNode);
 			if (path == null) throw new RuntimeException("No route found from node " + startNode.getId() + " to node " + endNode.getId() + ".");
 			NetworkRoute route = this.populationFactory.getRouteFactories().createRoute(NetworkRoute.class, fromLink.getId(), toLink.getId());
 			route.setLinkIds(fromLink.getId(), NetworkUtils.getLinkIds(path.links), toLink.getId());
@@ -196,6 +196,61 @@ public final class TripRouter implements MatsimExtensionPoint {
 		throw new UnknownModeException( "unregistered main mode |"+mainMode+"|: does not pertain to "+routingModules.keySet() );
 	}
 
+	/**
+	 * Routes the trips from one departure location to many arrival locations, with the given main mode.
+	 * If the {@link RoutingModule} of the mode is a {@link BatchRoutingModule}, all trips are routed at once,
+	 * which is usually much faster than routing them one by one with
+	 * {@link #calcRoute(String, Facility, Facility, double, Person)}.
+	 *
+	 * @param mainMode the main mode for the trips
+	 * @param fromFacility a {@link Facility} representing the departure location
+	 * @param toFacilities the {@link Facility}s representing the arrival locations
+	 * @param departureTime the departure time
+	 * @param person the {@link Person} to route
+	 * @return the trips to the arrival locations, in the order of the arrival locations.
+	 *
+	 * @throws UnknownModeException if no RoutingModule is registered for the
+	 * given mode.
+	 */
+	public List<List<? extends PlanElement>> calcRoutes(
+			final String mainMode,
+			final Facility<?> fromFacility,
+			final List<? extends Facility<?>> toFacilities,
+			final double departureTime,
+			final Person person) {
+		
+		Gbl.assertNotNull( fromFacility );
+		
+		RoutingModule module = routingModules.get( mainMode );
+		
+		if (module == null) {
+			throw new UnknownModeException( "unregistered main mode |"+mainMode+"|: does not pertain to "+routingModules.keySet() );
+		}
+		
+		if (module instanceof BatchRoutingModule) {
+			final List<List<? extends PlanElement>> trips =
+					((BatchRoutingModule) module).calcRoutes(
+						fromFacility,
+						toFacilities,
+						departureTime,
+						person);
+
+			for ( List<? extends PlanElement> trip : trips ) {
+				if ( trip == null ) {
+					throw new NullPointerException( "Routing module "+module+" returned a null Trip for main mode "+mainMode );
+				}
+			}
+
+			return trips;
+		}
+
+		final List<List<? extends PlanElement>> trips = new ArrayList<>( toFacilities.size() );
+		for ( Facility<?> toFacility : toFacilities ) {
+			trips.add( calcRoute( mainMode, fromFacility, toFacility, departureTime, person ) );
+		}
+		return trips;
+	}
+
 	public static class UnknownModeException extends RuntimeException {
 		private UnknownModeException(
 				final String msg) {
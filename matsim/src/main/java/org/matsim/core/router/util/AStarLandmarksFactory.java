@@ -23,6 +23,7 @@ package org.matsim.core.router.util;
 import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.config.Config;
+import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
 import org.matsim.core.router.AStarLandmarks;
@@ -41,9 +42,10 @@ public class AStarLandmarksFactory implements LeastCostPathCalculatorFactory {
 	private PreProcessLandmarks preProcessData;
 
 	@Inject
-	AStarLandmarksFactory(PlanCalcScoreConfigGroup planCalcScoreConfigGroup, GlobalConfigGroup globalConfigGroup, Network network, Map<String, TravelTime> travelTime, Map<String, TravelDisutilityFactory> travelDisutilityFactory) {
+	AStarLandmarksFactory(PlanCalcScoreConfigGroup planCalcScoreConfigGroup, GlobalConfigGroup globalConfigGroup, ControlerConfigGroup controlerConfigGroup, Network network, Map<String, TravelTime> travelTime, Map<String, TravelDisutilityFactory> travelDisutilityFactory) {
 		//TODO: No guarantee that these are the same travel times for which the router is later requested.
-		this(network, travelDisutilityFactory.get(TransportMode.car).createTravelDisutility(travelTime.get(TransportMode.car)), globalConfigGroup.getNumberOfThreads());
+		processNetwork(network, travelDisutilityFactory.get(TransportMode.car).createTravelDisutility(travelTime.get(TransportMode.car)), globalConfigGroup.getNumberOfThreads(),
+				controlerConfigGroup.getRoutingCacheDirectory() == null ? null : new PreProcessCache(controlerConfigGroup.getRoutingCacheDirectory()));
 	}
 
 	public AStarLandmarksFactory(Network network, final TravelDisutility fsttc) {
@@ -58,9 +60,14 @@ public class AStarLandmarksFactory implements LeastCostPathCalculatorFactory {
 	 * @deprecated this should be a private method
 	 */
 	public void processNetwork(Network network, final TravelDisutility fsttc, final int numberOfThreads) {
+		processNetwork(network, fsttc, numberOfThreads, null);
+	}
+
+	private void processNetwork(Network network, final TravelDisutility fsttc, final int numberOfThreads, final PreProcessCache cache) {
 		synchronized (this) {
 				this.preProcessData = new PreProcessLandmarks(fsttc);
 				this.preProcessData.setNumberOfThreads(numberOfThreads);
+				this.preProcessData.setCache(cache);
 				this.preProcessData.run(network);
 		}
 	}
@@ -0,0 +1,200 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchy.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * The result of contracting a network: every node has a rank, and the network together with the shortcuts added
+ * during the contraction is split into an upward graph, with the edges from every node to nodes of higher rank, and a
+ * downward graph, with the edges from nodes of higher rank to every node.  Every least-cost path of the network has a
+ * counterpart which first only goes up and then only goes down the hierarchy, so a search only has to look at very
+ * few nodes.
+ * <p></p>
+ * The hierarchy is used to compute the exact remaining cost to a target node for the A* search of
+ * {@link org.matsim.core.router.FastAStarCH}.  The search itself still runs on the network with the time-dependent
+ * travel disutilities, while the costs of the hierarchy must be lower bounds of them.
+ *
+ * @see PreProcessContractionHierarchy
+ */
+public final class ContractionHierarchy {
+
+	private final Map<Id<Node>, Integer> nodeIndices;
+	private final int[] upFirst;
+	private final int[] upHead;
+	private final double[] upCost;
+	private final int[] downFirst;
+	private final int[] downTail;
+	private final double[] downCost;
+
+	/**
+	 * @param upFirst the edges from node i to higher nodes are the ones from upFirst[i] to upFirst[i+1]-1
+	 * @param downFirst the edges from higher nodes to node i are the ones from downFirst[i] to downFirst[i+1]-1
+	 */
+	/*package*/ ContractionHierarchy(final Map<Id<Node>, Integer> nodeIndices,
+			final int[] upFirst, final int[] upHead, final double[] upCost,
+			final int[] downFirst, final int[] downTail, final double[] downCost) {
+		this.nodeIndices = nodeIndices;
+		this.upFirst = upFirst;
+		this.upHead = upHead;
+		this.upCost = upCost;
+		this.downFirst = downFirst;
+		this.downTail = downTail;
+		this.downCost = downCost;
+	}
+
+	public int getNumberOfNodes() {
+		return this.upFirst.length - 1;
+	}
+
+	/**
+	 * @return the index of the node in the hierarchy, or -1 if the node was not part of the contracted network
+	 */
+	public int getNodeIndex(final Id<Node> nodeId) {
+		Integer index = this.nodeIndices.get(nodeId);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @return the number of edges of the upward and downward graph, i.e. links and shortcuts
+	 */
+	public int getNumberOfEdges() {
+		return this.upHead.length + this.downTail.length;
+	}
+
+	/**
+	 * @return a new, not thread-safe object to compute remaining costs with this hierarchy
+	 */
+	public Potentials createPotentials() {
+		return new Potentials();
+	}
+
+	/**
+	 * Computes the least cost from nodes to one target node in the hierarchy.  After setting the target, a search on
+	 * the downward graph backwards from the target finds the cost from all nodes above the target.  The cost from
+	 * any other node is then the minimum over its upward edges of the edge cost plus the cost from the higher node,
+	 * which is computed lazily and only for the nodes the router actually asks for.
+	 */
+	public final class Potentials {
+
+		private final double[] backwardCost;
+		private final int[] backwardIteration;
+		private final double[] potential;
+		private final int[] potentialIteration;
+		private final IntMinHeap heap;
+		private int[] stack = new int[64];
+		private int iteration = 0;
+		private boolean active = false;
+
+		private Potentials() {
+			int n = getNumberOfNodes();
+			this.backwardCost = new double[n];
+			this.backwardIteration = new int[n];
+			this.potential = new double[n];
+			this.potentialIteration = new int[n];
+			this.heap = new IntMinHeap(n);
+		}
+
+		/**
+		 * @param target the index of the target node; with -1 all potentials are 0
+		 */
+		public void setTarget(final int target) {
+			this.iteration++;
+			this.active = target >= 0;
+			if (!this.active) {
+				return;
+			}
+			this.heap.clear();
+			this.backwardCost[target] = 0;
+			this.backwardIteration[target] = this.iteration;
+			this.heap.put(target, 0);
+			while (!this.heap.isEmpty()) {
+				int node = this.heap.poll();
+				double cost = this.backwardCost[node];
+				for (int e = downFirst[node]; e < downFirst[node + 1]; e++) {
+					if (downCost[e] == Double.POSITIVE_INFINITY) {
+						continue;
+					}
+					int tail = downTail[e];
+					double tailCost = cost + downCost[e];
+					if (this.backwardIteration[tail] != this.iteration || tailCost < this.backwardCost[tail]) {
+						this.backwardCost[tail] = tailCost;
+						this.backwardIteration[tail] = this.iteration;
+						this.heap.put(tail, tailCost);
+					}
+				}
+			}
+		}
+
+		/**
+		 * @return the least cost from the node to the target, or {@link Double#POSITIVE_INFINITY} if the target cannot
+		 * be reached from the node
+		 */
+		public double getPotential(final int node) {
+			if (!this.active || node < 0) {
+				return 0;
+			}
+			if (this.potentialIteration[node] == this.iteration) {
+				return this.potential[node];
+			}
+			// the upward graph is acyclic, so the higher nodes are computed first without recursion
+			int size = 0;
+			this.stack[size++] = node;
+			while (size > 0) {
+				int current = this.stack[size - 1];
+				if (this.potentialIteration[current] == this.iteration) {
+					size--;
+					continue;
+				}
+				boolean ready = true;
+				for (int e = upFirst[current]; e < upFirst[current + 1]; e++) {
+					int head = upHead[e];
+					if (this.potentialIteration[head] != this.iteration) {
+						if (size == this.stack.length) {
+							this.stack = Arrays.copyOf(this.stack, 2 * size);
+						}
+						this.stack[size++] = head;
+						ready = false;
+					}
+				}
+				if (ready) {
+					double cost = this.backwardIteration[current] == this.iteration ?
+							this.backwardCost[current] : Double.POSITIVE_INFINITY;
+					for (int e = upFirst[current]; e < upFirst[current + 1]; e++) {
+						double viaHead = upCost[e] + this.potential[upHead[e]];
+						if (viaHead < cost) {
+							cost = viaHead;
+						}
+					}
+					this.potential[current] = cost;
+					this.potentialIteration[current] = this.iteration;
+					size--;
+				}
+			}
+			return this.potential[node];
+		}
+	}
+
+}
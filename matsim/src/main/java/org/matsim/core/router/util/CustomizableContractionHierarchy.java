@@ -0,0 +1,523 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CustomizableContractionHierarchy.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+
+/**
+ * A contraction hierarchy whose structure does not depend on the link costs, so that the costs can be changed quickly
+ * by {@link #customize(double[])}, e.g. in every iteration.
+ * <p></p>
+ * The nodes are contracted in an order which only depends on the network, always the node with the fewest remaining
+ * neighbours, ignoring the directions of the links.  Contracting a node connects all of its remaining neighbours with
+ * each other, without looking for other paths between them.  The order can be stored in a {@link PreProcessCache}.
+ * <p></p>
+ * The customization first sets the cost of every edge of the hierarchy to the least cost of the links between its
+ * nodes.  Then the cost of every edge is lowered to the cost of the cheapest path via a common neighbour of lower rank
+ * of both of its nodes.  The edges of a node only depend on the edges of its neighbours of lower rank, so the nodes are
+ * grouped in levels, and the nodes of one level are customized in parallel.
+ *
+ * @see ContractionHierarchy
+ */
+public final class CustomizableContractionHierarchy {
+
+	private static final Logger log = Logger.getLogger(CustomizableContractionHierarchy.class);
+
+	/*package*/ static final String CACHE_NAME = "cch-order";
+
+	// smaller levels are not worth the overhead of the threads
+	private static final int MIN_PARALLEL_SIZE = 1000;
+
+	private final Network network;
+	private final Map<Id<Node>, Integer> nodeIndices;
+	private final int[] rank;
+
+	// edges from every node to its neighbours of higher rank, ordered by the rank of the neighbour
+	private final int[] upFirst;
+	private final int[] upHead;
+
+	// edges from every node to its neighbours of lower rank, as index of the edge in the upward edges
+	private final int[] downFirst;
+	private final int[] downEdge;
+
+	// the edge of every link, negative (-edge-1) if the link goes from the higher to the lower node
+	private final int[] linkEdges;
+
+	// the nodes of every level
+	private final int[] levelFirst;
+	private final int[] levelNodes;
+
+	private final int numberOfThreads;
+
+	public CustomizableContractionHierarchy(final Network network, final int numberOfThreads) {
+		this(network, numberOfThreads, null);
+	}
+
+	/**
+	 * @param cache reads the order of the nodes from or stores it in this cache, if not <code>null</code>
+	 */
+	public CustomizableContractionHierarchy(final Network network, final int numberOfThreads, final PreProcessCache cache) {
+		this.network = network;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+		this.nodeIndices = new HashMap<>();
+		for (Node node : network.getNodes().values()) {
+			this.nodeIndices.put(node.getId(), this.nodeIndices.size());
+		}
+		int n = this.nodeIndices.size();
+
+		int[] order = cache == null ? null : cache.readInts(CACHE_NAME, network);
+		if (order != null && order.length != n) {
+			order = null;
+		}
+		long now = System.currentTimeMillis();
+		if (order == null) {
+			log.info("Computing contraction order of " + n + " nodes...");
+			order = new Elimination(network, this.nodeIndices).computeOrder();
+			log.info("done in " + (System.currentTimeMillis() - now) + " ms");
+			if (cache != null) {
+				cache.writeInts(CACHE_NAME, network, order);
+			}
+		}
+		this.rank = new int[n];
+		for (int r = 0; r < n; r++) {
+			this.rank[order[r]] = r;
+		}
+
+		log.info("Building customizable contraction hierarchy...");
+		now = System.currentTimeMillis();
+		Elimination elimination = new Elimination(network, this.nodeIndices);
+		int[][] upNeighbours = elimination.eliminate(order);
+
+		this.upFirst = new int[n + 1];
+		for (int node = 0; node < n; node++) {
+			this.upFirst[node + 1] = this.upFirst[node] + upNeighbours[node].length;
+		}
+		this.upHead = new int[this.upFirst[n]];
+		for (int node = 0; node < n; node++) {
+			int[] neighbours = sortByRank(upNeighbours[node]);
+			System.arraycopy(neighbours, 0, this.upHead, this.upFirst[node], neighbours.length);
+		}
+
+		this.downFirst = new int[n + 1];
+		for (int e = 0; e < this.upHead.length; e++) {
+			this.downFirst[this.upHead[e] + 1]++;
+		}
+		for (int node = 0; node < n; node++) {
+			this.downFirst[node + 1] += this.downFirst[node];
+		}
+		this.downEdge = new int[this.upHead.length];
+		int[] fill = Arrays.copyOf(this.downFirst, n);
+		for (int node = 0; node < n; node++) {
+			for (int e = this.upFirst[node]; e < this.upFirst[node + 1]; e++) {
+				this.downEdge[fill[this.upHead[e]]++] = e;
+			}
+		}
+
+		this.linkEdges = new int[network.getLinks().size()];
+		int l = 0;
+		for (Link link : network.getLinks().values()) {
+			int from = this.nodeIndices.get(link.getFromNode().getId());
+			int to = this.nodeIndices.get(link.getToNode().getId());
+			if (from == to) {
+				this.linkEdges[l] = Integer.MIN_VALUE;
+			} else if (this.rank[from] < this.rank[to]) {
+				this.linkEdges[l] = findEdge(from, to);
+			} else {
+				this.linkEdges[l] = -findEdge(to, from) - 1;
+			}
+			l++;
+		}
+
+		// the level of a node is one more than the highest level of its lower neighbours
+		int[] level = new int[n];
+		int levels = 0;
+		for (int r = 0; r < n; r++) {
+			int node = order[r];
+			for (int e = this.upFirst[node]; e < this.upFirst[node + 1]; e++) {
+				int head = this.upHead[e];
+				level[head] = Math.max(level[head], level[node] + 1);
+			}
+			levels = Math.max(levels, level[node] + 1);
+		}
+		this.levelFirst = new int[levels + 1];
+		for (int node = 0; node < n; node++) {
+			this.levelFirst[level[node] + 1]++;
+		}
+		for (int i = 0; i < levels; i++) {
+			this.levelFirst[i + 1] += this.levelFirst[i];
+		}
+		this.levelNodes = new int[n];
+		fill = Arrays.copyOf(this.levelFirst, levels);
+		for (int node = 0; node < n; node++) {
+			this.levelNodes[fill[level[node]]++] = node;
+		}
+
+		log.info("done in " + (System.currentTimeMillis() - now) + " ms, the hierarchy has " + this.upHead.length
+				+ " edges in " + levels + " levels for " + network.getLinks().size() + " links.");
+	}
+
+	public Network getNetwork() {
+		return this.network;
+	}
+
+	/**
+	 * @return the minimal travel disutilities of the links of the network, in the order of the network
+	 */
+	public double[] getMinimumLinkCosts(final TravelDisutility travelDisutility) {
+		double[] costs = new double[this.linkEdges.length];
+		int l = 0;
+		for (Link link : this.network.getLinks().values()) {
+			costs[l++] = travelDisutility.getLinkMinimumTravelDisutility(link);
+		}
+		return costs;
+	}
+
+	/**
+	 * Computes the costs of the links as the least travel disutility at the start or in the middle of any time bin,
+	 * for several links in parallel, with a travel disutility of its own for every thread.  If the travel disutility
+	 * cannot be computed without a person, e.g. because it is randomized, the minimal travel disutility is used
+	 * instead.
+	 *
+	 * @return the costs of the links of the network, in the order of the network
+	 */
+	public double[] getLinkCosts(final TravelDisutilityFactory travelDisutilityFactory, final TravelTime travelTime,
+			final int timeBinSize, final int maxTime) {
+		final Link[] links = this.network.getLinks().values().toArray(new Link[this.linkEdges.length]);
+		final double[] costs = new double[links.length];
+		if (links.length == 0) {
+			return costs;
+		}
+		TravelDisutility travelDisutility = travelDisutilityFactory.createTravelDisutility(travelTime);
+		try {
+			travelDisutility.getLinkTravelDisutility(links[0], 0, null, null);
+		} catch (RuntimeException e) {
+			log.warn("The travel disutility cannot be computed without a person, the minimal travel disutility is used instead: " + e.getMessage());
+			for (int l = 0; l < links.length; l++) {
+				costs[l] = travelDisutility.getLinkMinimumTravelDisutility(links[l]);
+			}
+			return costs;
+		}
+		final double halfBin = timeBinSize / 2.0;
+		runInParallel(new int[] {0, links.length}, new RangeTask() {
+			@Override
+			public void run(final int start, final int end) {
+				TravelDisutility travelDisutility = travelDisutilityFactory.createTravelDisutility(travelTime);
+				for (int l = start; l < end; l++) {
+					double cost = Double.POSITIVE_INFINITY;
+					for (double time = 0; time <= maxTime; time += timeBinSize) {
+						cost = Math.min(cost, travelDisutility.getLinkTravelDisutility(links[l], time, null, null));
+						cost = Math.min(cost, travelDisutility.getLinkTravelDisutility(links[l], time + halfBin, null, null));
+					}
+					costs[l] = cost;
+				}
+			}
+		});
+		return costs;
+	}
+
+	/**
+	 * @param linkCosts the costs of the links of the network, in the order of the network
+	 * @return a new hierarchy with the costs
+	 */
+	public ContractionHierarchy customize(final double[] linkCosts) {
+		long now = System.currentTimeMillis();
+		final double[] upCost = new double[this.upHead.length];
+		final double[] downCost = new double[this.upHead.length];
+		Arrays.fill(upCost, Double.POSITIVE_INFINITY);
+		Arrays.fill(downCost, Double.POSITIVE_INFINITY);
+		for (int l = 0; l < this.linkEdges.length; l++) {
+			int edge = this.linkEdges[l];
+			if (edge == Integer.MIN_VALUE) {
+				continue;
+			} else if (edge >= 0) {
+				upCost[edge] = Math.min(upCost[edge], linkCosts[l]);
+			} else {
+				downCost[-edge - 1] = Math.min(downCost[-edge - 1], linkCosts[l]);
+			}
+		}
+		runInParallel(this.levelFirst, new RangeTask() {
+			@Override
+			public void run(final int start, final int end) {
+				customizeNodes(start, end, upCost, downCost);
+			}
+		});
+		log.info("customized contraction hierarchy in " + (System.currentTimeMillis() - now) + " ms");
+		return new ContractionHierarchy(this.nodeIndices, this.upFirst, this.upHead, upCost, this.upFirst, this.upHead, downCost);
+	}
+
+	private interface RangeTask {
+		void run(int start, int end);
+	}
+
+	/**
+	 * Runs the task for the ranges one after the other, each range split into parts for the threads.
+	 *
+	 * @param first range i is from first[i] to first[i+1]-1
+	 */
+	private void runInParallel(final int[] first, final RangeTask task) {
+		ExecutorService executor = this.numberOfThreads > 1 ? Executors.newFixedThreadPool(this.numberOfThreads) : null;
+		try {
+			for (int i = 0; i < first.length - 1; i++) {
+				int start = first[i];
+				int end = first[i + 1];
+				if (executor == null || end - start < MIN_PARALLEL_SIZE) {
+					task.run(start, end);
+					continue;
+				}
+				List<Future<?>> futures = new ArrayList<>();
+				int chunk = (end - start + this.numberOfThreads - 1) / this.numberOfThreads;
+				for (int from = start; from < end; from += chunk) {
+					final int chunkStart = from;
+					final int chunkEnd = Math.min(end, from + chunk);
+					futures.add(executor.submit(new Callable<Void>() {
+						@Override
+						public Void call() {
+							task.run(chunkStart, chunkEnd);
+							return null;
+						}
+					}));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Lowers the costs of the edges to the higher neighbours of the nodes to the costs of the paths via a lower
+	 * neighbour, whose edges are already customized.
+	 */
+	private void customizeNodes(final int start, final int end, final double[] upCost, final double[] downCost) {
+		for (int i = start; i < end; i++) {
+			int node = this.levelNodes[i];
+			int nodeRank = this.rank[node];
+			for (int d = this.downFirst[node]; d < this.downFirst[node + 1]; d++) {
+				int lowerEdge = this.downEdge[d];
+				double toLower = downCost[lowerEdge];
+				double fromLower = upCost[lowerEdge];
+				if (toLower == Double.POSITIVE_INFINITY && fromLower == Double.POSITIVE_INFINITY) {
+					continue;
+				}
+				int lower = findTail(lowerEdge);
+				// the neighbours of the lower node with a higher rank than this node are neighbours of this node, too
+				int f = this.upFirst[node];
+				for (int e = this.upFirst[lower]; e < this.upFirst[lower + 1]; e++) {
+					int head = this.upHead[e];
+					if (this.rank[head] <= nodeRank) {
+						continue;
+					}
+					while (this.upHead[f] != head) {
+						f++;
+					}
+					double up = toLower + upCost[e];
+					if (up < upCost[f]) {
+						upCost[f] = up;
+					}
+					double down = downCost[e] + fromLower;
+					if (down < downCost[f]) {
+						downCost[f] = down;
+					}
+				}
+			}
+		}
+	}
+
+	private int findTail(final int edge) {
+		// binary search for the node whose upward edges contain the edge
+		int low = 0;
+		int high = this.upFirst.length - 2;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.upFirst[mid] <= edge) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private int findEdge(final int lower, final int higher) {
+		for (int e = this.upFirst[lower]; e < this.upFirst[lower + 1]; e++) {
+			if (this.upHead[e] == higher) {
+				return e;
+			}
+		}
+		throw new IllegalStateException("no edge between nodes " + lower + " and " + higher);
+	}
+
+	private int[] sortByRank(final int[] nodes) {
+		long[] keys = new long[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			keys[i] = ((long) this.rank[nodes[i]] << 32) | nodes[i];
+		}
+		Arrays.sort(keys);
+		int[] sorted = new int[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			sorted[i] = (int) keys[i];
+		}
+		return sorted;
+	}
+
+	/**
+	 * Eliminates the nodes of the undirected network one after the other, connecting the remaining neighbours of
+	 * every eliminated node with each other.
+	 */
+	private static final class Elimination {
+		private final int[][] neighbours;
+		private final int[] size;
+		private final boolean[] eliminated;
+		private final int[] marks;
+		private int mark = 0;
+
+		Elimination(final Network network, final Map<Id<Node>, Integer> nodeIndices) {
+			int n = nodeIndices.size();
+			this.neighbours = new int[n][];
+			this.size = new int[n];
+			this.eliminated = new boolean[n];
+			this.marks = new int[n];
+			for (int node = 0; node < n; node++) {
+				this.neighbours[node] = new int[4];
+			}
+			for (Link link : network.getLinks().values()) {
+				int from = nodeIndices.get(link.getFromNode().getId());
+				int to = nodeIndices.get(link.getToNode().getId());
+				if (from != to) {
+					addNeighbour(from, to);
+					addNeighbour(to, from);
+				}
+			}
+			for (int node = 0; node < n; node++) {
+				removeDuplicates(node);
+			}
+		}
+
+		/**
+		 * @return the nodes, always the one with the fewest remaining neighbours first
+		 */
+		int[] computeOrder() {
+			int n = this.neighbours.length;
+			IntMinHeap heap = new IntMinHeap(n);
+			for (int node = 0; node < n; node++) {
+				heap.put(node, this.size[node]);
+			}
+			int[] order = new int[n];
+			int r = 0;
+			while (!heap.isEmpty()) {
+				int node = heap.poll();
+				order[r++] = node;
+				eliminate(node);
+				for (int i = 0; i < this.size[node]; i++) {
+					int neighbour = this.neighbours[node][i];
+					heap.put(neighbour, this.size[neighbour]);
+				}
+			}
+			return order;
+		}
+
+		/**
+		 * @return the remaining neighbours of every node when it is eliminated
+		 */
+		int[][] eliminate(final int[] order) {
+			int[][] upNeighbours = new int[order.length][];
+			for (int node : order) {
+				eliminate(node);
+				upNeighbours[node] = Arrays.copyOf(this.neighbours[node], this.size[node]);
+				this.neighbours[node] = null;
+			}
+			return upNeighbours;
+		}
+
+		private void eliminate(final int node) {
+			this.eliminated[node] = true;
+			int[] nodeNeighbours = this.neighbours[node];
+			int nodeSize = this.size[node];
+			for (int i = 0; i < nodeSize; i++) {
+				int neighbour = nodeNeighbours[i];
+				// remove the node and add the missing other neighbours
+				this.mark++;
+				int k = 0;
+				for (int j = 0; j < this.size[neighbour]; j++) {
+					int other = this.neighbours[neighbour][j];
+					if (other != node) {
+						this.neighbours[neighbour][k++] = other;
+						this.marks[other] = this.mark;
+					}
+				}
+				this.size[neighbour] = k;
+				this.marks[neighbour] = this.mark;
+				for (int j = 0; j < nodeSize; j++) {
+					int other = nodeNeighbours[j];
+					if (this.marks[other] != this.mark) {
+						addNeighbour(neighbour, other);
+					}
+				}
+			}
+		}
+
+		private void addNeighbour(final int node, final int neighbour) {
+			if (this.size[node] == this.neighbours[node].length) {
+				this.neighbours[node] = Arrays.copyOf(this.neighbours[node], 2 * this.size[node]);
+			}
+			this.neighbours[node][this.size[node]++] = neighbour;
+		}
+
+		private void removeDuplicates(final int node) {
+			this.mark++;
+			this.marks[node] = this.mark;
+			int k = 0;
+			for (int j = 0; j < this.size[node]; j++) {
+				int other = this.neighbours[node][j];
+				if (this.marks[other] != this.mark) {
+					this.marks[other] = this.mark;
+					this.neighbours[node][k++] = other;
+				}
+			}
+			this.size[node] = k;
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastAStarCCHFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.Config;
+import org.matsim.core.controler.events.BeforeMobsimEvent;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.router.ArrayFastRouterDelegateFactory;
+import org.matsim.core.router.FastAStarCH;
+import org.matsim.core.router.FastRouterDelegateFactory;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+
+/**
+ * Creates {@link FastAStarCH} routers with a {@link CustomizableContractionHierarchy}.  The order of the nodes is
+ * computed only once, or read from the routing cache directory.  The hierarchy customized with the minimal travel
+ * disutilities is valid for every router.
+ * <p></p>
+ * At the start of every iteration after the first one, the hierarchy is also customized with the least car travel
+ * disutilities of the links in any time bin of the travel times of the last iteration, sampled without a person or
+ * vehicle.  With it, the routers visit fewer nodes, but it is only a lower bound of the travel disutilities the
+ * hierarchy was customized with, and only as long as the travel times do not change.  It is therefore only handed to
+ * routers with the same travel time object and a travel disutility of the same class, and only until the mobsim
+ * starts, as the travel times are reset then.  Routers which got it must not be used during the mobsim, e.g. for
+ * within-day replanning, and the car travel disutility must not be lower for any person or vehicle than without one.
+ * All other routers get the hierarchy with the minimal travel disutilities.
+ */
+@Singleton
+public class FastAStarCCHFactory implements LeastCostPathCalculatorFactory, IterationStartsListener, BeforeMobsimListener {
+
+	private final CustomizableContractionHierarchy cch;
+	private final PreProcessEuclidean preProcessData;
+	private final RoutingNetworkFactory routingNetworkFactory;
+	private final Map<Network, ArrayRoutingNetwork> routingNetworks = new HashMap<>();
+	private final ContractionHierarchy minimumHierarchy;
+	private ContractionHierarchy customizedHierarchy = null;
+	private TravelTime customizedTravelTime = null;
+	private Class<? extends TravelDisutility> customizedTravelDisutilityClass = null;
+
+	private TravelDisutilityFactory travelDisutilityFactory = null;
+	private TravelTime travelTime = null;
+	private int timeBinSize;
+	private int maxTime;
+
+	@Inject
+	FastAStarCCHFactory(Network network, Config config, Map<String, TravelTime> travelTime,
+			Map<String, TravelDisutilityFactory> travelDisutilityFactories) {
+		// as for the landmarks, the disutilities of car are used for all modes
+		this(network, travelDisutilityFactories.get(TransportMode.car).createTravelDisutility(travelTime.get(TransportMode.car)),
+				config.global().getNumberOfThreads(),
+				config.controler().getRoutingCacheDirectory() == null ? null : new PreProcessCache(config.controler().getRoutingCacheDirectory()));
+		this.travelDisutilityFactory = travelDisutilityFactories.get(TransportMode.car);
+		this.travelTime = travelTime.get(TransportMode.car);
+		this.timeBinSize = config.travelTimeCalculator().getTraveltimeBinSize();
+		this.maxTime = config.travelTimeCalculator().getMaxTime();
+	}
+
+	/**
+	 * Creates a factory whose hierarchy is customized with the minimal travel disutilities and only changes with
+	 * {@link #customize(TravelDisutilityFactory, TravelTime, int, int)}.
+	 *
+	 * @param cache may be <code>null</code>
+	 */
+	public FastAStarCCHFactory(Network network, final TravelDisutility travelDisutility, int numberOfThreads, PreProcessCache cache) {
+		this.preProcessData = new PreProcessEuclidean(travelDisutility);
+		this.preProcessData.run(network);
+		this.routingNetworkFactory = new ArrayRoutingNetworkFactory(this.preProcessData);
+		this.cch = new CustomizableContractionHierarchy(network, numberOfThreads, cache);
+		this.minimumHierarchy = this.cch.customize(this.cch.getMinimumLinkCosts(travelDisutility));
+	}
+
+	@Override
+	public void notifyIterationStarts(IterationStartsEvent event) {
+		// in the first iteration there are no travel times yet
+		if (this.travelDisutilityFactory != null && event.getIteration() > event.getServices().getConfig().controler().getFirstIteration()) {
+			customize(this.travelDisutilityFactory, this.travelTime, this.timeBinSize, this.maxTime);
+		}
+	}
+
+	@Override
+	public synchronized void notifyBeforeMobsim(BeforeMobsimEvent event) {
+		// the travel times are reset for the mobsim, so they may become lower than the customized costs
+		this.customizedHierarchy = null;
+	}
+
+	/**
+	 * Customizes the hierarchy with the least travel disutilities of the links at the start or in the middle of any
+	 * time bin, for the routers created afterwards with the given travel time and a travel disutility of the factory's
+	 * class, until {@link #notifyBeforeMobsim(BeforeMobsimEvent)}.
+	 */
+	public void customize(TravelDisutilityFactory travelDisutilityFactory, TravelTime travelTime, int timeBinSize, int maxTime) {
+		ContractionHierarchy customized = this.cch.customize(this.cch.getLinkCosts(travelDisutilityFactory, travelTime, timeBinSize, maxTime));
+		Class<? extends TravelDisutility> travelDisutilityClass = travelDisutilityFactory.createTravelDisutility(travelTime).getClass();
+		synchronized (this) {
+			this.customizedHierarchy = customized;
+			this.customizedTravelTime = travelTime;
+			this.customizedTravelDisutilityClass = travelDisutilityClass;
+		}
+	}
+
+	@Override
+	public synchronized LeastCostPathCalculator createPathCalculator(Network network,
+			TravelDisutility travelCosts, TravelTime travelTimes) {
+		ArrayRoutingNetwork routingNetwork = this.routingNetworks.get(network);
+		if (routingNetwork == null) {
+			routingNetwork = (ArrayRoutingNetwork) this.routingNetworkFactory.createRoutingNetwork(network);
+			this.routingNetworks.put(network, routingNetwork);
+		}
+		FastRouterDelegateFactory fastRouterFactory = new ArrayFastRouterDelegateFactory();
+
+		ContractionHierarchy hierarchy = this.minimumHierarchy;
+		if (this.customizedHierarchy != null && travelTimes == this.customizedTravelTime
+				&& travelCosts.getClass() == this.customizedTravelDisutilityClass) {
+			hierarchy = this.customizedHierarchy;
+		}
+		return new FastAStarCH(routingNetwork, this.preProcessData, hierarchy, travelCosts, travelTimes, 1, fastRouterFactory);
+	}
+}
@@ -0,0 +1,72 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastAStarCHFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.router.ArrayFastRouterDelegateFactory;
+import org.matsim.core.router.FastAStarCH;
+import org.matsim.core.router.FastRouterDelegateFactory;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+
+/**
+ * Builds the contraction hierarchy once, over the minimal travel disutilities of the given cost function, and creates
+ * {@link FastAStarCH} routers which all share it.  The hierarchy stays valid as long as the travel disutilities of
+ * later iterations are not below these minimal ones, so it does not have to be rebuilt when the travel times change.
+ */
+@Singleton
+public class FastAStarCHFactory implements LeastCostPathCalculatorFactory {
+
+	private final PreProcessContractionHierarchy preProcessData;
+	private final RoutingNetworkFactory routingNetworkFactory;
+	private final Map<Network, ArrayRoutingNetwork> routingNetworks = new HashMap<>();
+
+	@Inject
+	FastAStarCHFactory(Network network, Map<String, TravelTime> travelTime, Map<String, TravelDisutilityFactory> travelDisutilityFactories) {
+		// as for the landmarks, the minimal disutilities of car are used for all modes
+		this(network, travelDisutilityFactories.get(TransportMode.car).createTravelDisutility(travelTime.get(TransportMode.car)));
+	}
+
+	public FastAStarCHFactory(Network network, final TravelDisutility travelDisutility) {
+		this.preProcessData = new PreProcessContractionHierarchy(travelDisutility);
+		this.preProcessData.run(network);
+		this.routingNetworkFactory = new ArrayRoutingNetworkFactory(this.preProcessData);
+	}
+
+	@Override
+	public synchronized LeastCostPathCalculator createPathCalculator(Network network,
+			TravelDisutility travelCosts, TravelTime travelTimes) {
+		ArrayRoutingNetwork routingNetwork = this.routingNetworks.get(network);
+		if (routingNetwork == null) {
+			routingNetwork = (ArrayRoutingNetwork) this.routingNetworkFactory.createRoutingNetwork(network);
+			this.routingNetworks.put(network, routingNetwork);
+		}
+		FastRouterDelegateFactory fastRouterFactory = new ArrayFastRouterDelegateFactory();
+
+		return new FastAStarCH(routingNetwork, this.preProcessData, travelCosts, travelTimes, 1, fastRouterFactory);
+	}
+}
@@ -47,16 +47,20 @@ public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory
 	@Inject
 	FastAStarLandmarksFactory(Network network, Config config, Map<String,TravelTime> travelTime, Map<String,TravelDisutilityFactory> fsttc) {
 		//TODO: No guarantee that these are the same travel times for which the router is later requested.
-		this(network, fsttc.get(TransportMode.car).createTravelDisutility(travelTime.get(TransportMode.car)), FastRouterType.ARRAY);
+		this(network, fsttc.get(TransportMode.car).createTravelDisutility(travelTime.get(TransportMode.car)), FastRouterType.ARRAY,
+				config.global().getNumberOfThreads(),
+				config.controler().getRoutingCacheDirectory() == null ? null : new PreProcessCache(config.controler().getRoutingCacheDirectory()));
 	}
 
 	public FastAStarLandmarksFactory(Network network, final TravelDisutility fsttc) {
-		this(network, fsttc, FastRouterType.ARRAY);
+		this(network, fsttc, FastRouterType.ARRAY, 8, null);
 	}
 
 	private FastAStarLandmarksFactory(Network network, final TravelDisutility fsttc,
-			FastRouterType fastRouterType) {
+			FastRouterType fastRouterType, int numberOfThreads, PreProcessCache cache) {
 		this.preProcessData = new PreProcessLandmarks(fsttc);
+		this.preProcessData.setNumberOfThreads(numberOfThreads);
+		this.preProcessData.setCache(cache);
 		this.preProcessData.run(network);
 		
 		this.routingNetworks = new HashMap<>();
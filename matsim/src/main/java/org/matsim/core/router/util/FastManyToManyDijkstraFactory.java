@@ -0,0 +1,60 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastManyToManyDijkstraFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.router.ArrayFastRouterDelegateFactory;
+import org.matsim.core.router.FastManyToManyDijkstra;
+import org.matsim.core.router.FastRouterDelegateFactory;
+
+/**
+ * Creates {@link FastManyToManyDijkstra} routers, which implement {@link ManyToManyPathCalculator}.
+ */
+@Singleton
+public class FastManyToManyDijkstraFactory implements LeastCostPathCalculatorFactory {
+
+	private final RoutingNetworkFactory routingNetworkFactory;
+	private final Map<Network, RoutingNetwork> routingNetworks;
+
+	@Inject
+	public FastManyToManyDijkstraFactory() {
+		this.routingNetworks = new HashMap<Network, RoutingNetwork>();
+		this.routingNetworkFactory = new ArrayRoutingNetworkFactory(null);
+	}
+
+	@Override
+	public synchronized LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts, final TravelTime travelTimes) {
+		RoutingNetwork routingNetwork = this.routingNetworks.get(network);
+		if (routingNetwork == null) {
+			routingNetwork = this.routingNetworkFactory.createRoutingNetwork(network);
+			this.routingNetworks.put(network, routingNetwork);
+		}
+		FastRouterDelegateFactory fastRouterFactory = new ArrayFastRouterDelegateFactory();
+
+		return new FastManyToManyDijkstra(routingNetwork, travelCosts, travelTimes, fastRouterFactory);
+	}
+}
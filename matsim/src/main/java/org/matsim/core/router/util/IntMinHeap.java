@@ -0,0 +1,142 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IntMinHeap.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.util.Arrays;
+
+/**
+ * A binary min heap of the int indices 0..maxSize-1 of nodes, with a decrease (or increase) of the key of nodes
+ * already in the heap.  Used by the searches on the contraction hierarchies, which work on node indices instead of
+ * node objects.
+ */
+/*package*/ final class IntMinHeap {
+
+	private final int[] heap;
+	private final double[] keys;
+	private final int[] positions;
+	private int size = 0;
+
+	IntMinHeap(final int maxSize) {
+		this.heap = new int[maxSize];
+		this.keys = new double[maxSize];
+		this.positions = new int[maxSize];
+		Arrays.fill(this.positions, -1);
+	}
+
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	int peek() {
+		return this.heap[0];
+	}
+
+	double peekKey() {
+		return this.keys[this.heap[0]];
+	}
+
+	boolean contains(final int node) {
+		return this.positions[node] >= 0;
+	}
+
+	/**
+	 * Adds the node or, if it is already contained, changes its key.
+	 */
+	void put(final int node, final double key) {
+		int pos = this.positions[node];
+		if (pos < 0) {
+			pos = this.size++;
+			this.heap[pos] = node;
+			this.positions[node] = pos;
+			this.keys[node] = key;
+			siftUp(pos);
+		} else {
+			double oldKey = this.keys[node];
+			this.keys[node] = key;
+			if (key < oldKey) {
+				siftUp(pos);
+			} else {
+				siftDown(pos);
+			}
+		}
+	}
+
+	int poll() {
+		int node = this.heap[0];
+		this.positions[node] = -1;
+		this.size--;
+		if (this.size > 0) {
+			int last = this.heap[this.size];
+			this.heap[0] = last;
+			this.positions[last] = 0;
+			siftDown(0);
+		}
+		return node;
+	}
+
+	void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.positions[this.heap[i]] = -1;
+		}
+		this.size = 0;
+	}
+
+	private void siftUp(int pos) {
+		int node = this.heap[pos];
+		double key = this.keys[node];
+		while (pos > 0) {
+			int parentPos = (pos - 1) >>> 1;
+			int parent = this.heap[parentPos];
+			if (this.keys[parent] <= key) {
+				break;
+			}
+			this.heap[pos] = parent;
+			this.positions[parent] = pos;
+			pos = parentPos;
+		}
+		this.heap[pos] = node;
+		this.positions[node] = pos;
+	}
+
+	private void siftDown(int pos) {
+		int node = this.heap[pos];
+		double key = this.keys[node];
+		while (true) {
+			int childPos = 2 * pos + 1;
+			if (childPos >= this.size) {
+				break;
+			}
+			if (childPos + 1 < this.size && this.keys[this.heap[childPos + 1]] < this.keys[this.heap[childPos]]) {
+				childPos++;
+			}
+			int child = this.heap[childPos];
+			if (this.keys[child] >= key) {
+				break;
+			}
+			this.heap[pos] = child;
+			this.positions[child] = pos;
+			pos = childPos;
+		}
+		this.heap[pos] = node;
+		this.positions[node] = pos;
+	}
+
+}
@@ -0,0 +1,45 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ManyToManyPathCalculator.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * A {@link LeastCostPathCalculator} that can also compute the least-cost paths from one node to many nodes, or from many
+ * nodes to many nodes, with one search per from-node instead of one search per pair of nodes.
+ * <p></p>
+ * The returned maps contain an entry for every given to-node; its value is <code>null</code> if the to-node cannot be
+ * reached.
+ */
+public interface ManyToManyPathCalculator extends LeastCostPathCalculator {
+
+	public Map<Node, Path> calcLeastCostPaths(Node fromNode, Collection<? extends Node> toNodes, double starttime,
+			final Person person, final Vehicle vehicle);
+
+	public Map<Node, Map<Node, Path>> calcLeastCostPaths(Collection<? extends Node> fromNodes,
+			Collection<? extends Node> toNodes, double starttime, final Person person, final Vehicle vehicle);
+
+}
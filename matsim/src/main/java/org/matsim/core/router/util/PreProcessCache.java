@@ -0,0 +1,154 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PreProcessCache.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Stores preprocessing data of routers in the files of a directory, so that later runs on the same network can read
+ * the data instead of computing it again.  The name of every file contains a checksum of the ids of the nodes and
+ * links of the network, in the order of the network, so the data of another network or of a network with the nodes in
+ * a different order is never read.  The data must not depend on anything else than the network, or the name of the
+ * data must contain a key of everything else it depends on.
+ * <p></p>
+ * Problems with the files are only logged, as the data can always be computed again.
+ */
+public final class PreProcessCache {
+
+	private static final Logger log = Logger.getLogger(PreProcessCache.class);
+
+	private static final int VERSION = 1;
+
+	private final File directory;
+
+	public PreProcessCache(final String directory) {
+		this.directory = new File(directory);
+	}
+
+	/**
+	 * @return the data with this name stored for the network, or <code>null</code> if there is none
+	 */
+	public int[] readInts(final String name, final Network network) {
+		File file = getFile(name, network);
+		if (!file.exists()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != VERSION) {
+				return null;
+			}
+			int[] data = new int[in.readInt()];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = in.readInt();
+			}
+			log.info("read " + name + " from " + file);
+			return data;
+		} catch (IOException e) {
+			log.warn("could not read " + file + ", the data is computed again.", e);
+			return null;
+		}
+	}
+
+	public void writeInts(final String name, final Network network, final int[] data) {
+		File file = getFile(name, network);
+		// write to another file first, so that other runs never see half of the data
+		File tmpFile = new File(file.getPath() + ".tmp" + System.nanoTime());
+		try {
+			this.directory.mkdirs();
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+				out.writeInt(VERSION);
+				out.writeInt(data.length);
+				for (int value : data) {
+					out.writeInt(value);
+				}
+			}
+			if (!tmpFile.renameTo(file)) {
+				throw new IOException("could not rename " + tmpFile + " to " + file);
+			}
+			log.info("wrote " + name + " to " + file);
+		} catch (IOException e) {
+			log.warn("could not write " + file + ", the data will be computed again in the next run.", e);
+			tmpFile.delete();
+		}
+	}
+
+	/**
+	 * @return the data with this name stored for the network, or <code>null</code> if there is none
+	 */
+	public float[] readFloats(final String name, final Network network) {
+		int[] bits = readInts(name, network);
+		if (bits == null) {
+			return null;
+		}
+		float[] data = new float[bits.length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = Float.intBitsToFloat(bits[i]);
+		}
+		return data;
+	}
+
+	public void writeFloats(final String name, final Network network, final float[] data) {
+		int[] bits = new int[data.length];
+		for (int i = 0; i < data.length; i++) {
+			bits[i] = Float.floatToRawIntBits(data[i]);
+		}
+		writeInts(name, network, bits);
+	}
+
+	private File getFile(final String name, final Network network) {
+		return new File(this.directory, name + "-" + Long.toHexString(getChecksum(network)) + ".bin");
+	}
+
+	/**
+	 * @return a checksum of the ids of the nodes and of the ids, from and to nodes of the links of the network
+	 */
+	public static long getChecksum(final Network network) {
+		CRC32 crc = new CRC32();
+		for (Node node : network.getNodes().values()) {
+			crc.update(node.getId().toString().getBytes(StandardCharsets.UTF_8));
+			crc.update(0);
+		}
+		for (Link link : network.getLinks().values()) {
+			crc.update(link.getId().toString().getBytes(StandardCharsets.UTF_8));
+			crc.update(0);
+			crc.update(link.getFromNode().getId().toString().getBytes(StandardCharsets.UTF_8));
+			crc.update(0);
+			crc.update(link.getToNode().getId().toString().getBytes(StandardCharsets.UTF_8));
+			crc.update(0);
+		}
+		return (crc.getValue() << 32) | (network.getNodes().size() ^ ((long) network.getLinks().size() << 16)) & 0xffffffffL;
+	}
+
+}
@@ -0,0 +1,360 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PreProcessContractionHierarchy.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Pre-processes a given network for {@link org.matsim.core.router.FastAStarCH} by building a
+ * {@link ContractionHierarchy} over the minimal travel disutilities of the links.
+ * <p></p>
+ * The nodes are contracted one after the other, always the node which adds the fewest shortcuts compared to the
+ * number of its links, with some preference for nodes whose neighbours were not contracted yet, which keeps the
+ * hierarchy flat.  Contracting a node adds a shortcut between two of its neighbours if a search around the first
+ * neighbour does not find a path to the second one which is at most as expensive as the one via the contracted node.
+ * The search is limited to {@link #WITNESS_SEARCH_LIMIT} nodes, so some shortcuts may be superfluous, which costs
+ * some speed but does not change the results.
+ * <p></p>
+ * As the minimal travel disutilities usually do not change during a run, the hierarchy only has to be built once.
+ *
+ * @see ContractionHierarchy
+ */
+public class PreProcessContractionHierarchy extends PreProcessEuclidean {
+
+	private static final Logger log = Logger.getLogger(PreProcessContractionHierarchy.class);
+
+	/*package*/ static final int WITNESS_SEARCH_LIMIT = 500;
+
+	private ContractionHierarchy hierarchy = null;
+
+	public PreProcessContractionHierarchy(final TravelDisutility costFunction) {
+		super(costFunction);
+	}
+
+	@Override
+	public void run(final Network network) {
+		super.run(network);
+
+		log.info("Contracting " + network.getNodes().size() + " nodes...");
+		long now = System.currentTimeMillis();
+
+		Map<Id<Node>, Integer> nodeIndices = new HashMap<>();
+		for (Node node : network.getNodes().values()) {
+			nodeIndices.put(node.getId(), nodeIndices.size());
+		}
+		Contraction contraction = new Contraction(nodeIndices.size());
+		for (Link link : network.getLinks().values()) {
+			int from = nodeIndices.get(link.getFromNode().getId());
+			int to = nodeIndices.get(link.getToNode().getId());
+			contraction.addEdge(from, to, this.costFunction.getLinkMinimumTravelDisutility(link));
+		}
+		this.hierarchy = contraction.run(nodeIndices);
+
+		log.info("done in " + (System.currentTimeMillis() - now) + " ms, the hierarchy has "
+				+ this.hierarchy.getNumberOfEdges() + " edges for " + network.getLinks().size() + " links.");
+	}
+
+	public ContractionHierarchy getContractionHierarchy() {
+		return this.hierarchy;
+	}
+
+	/**
+	 * The graph during the contraction.  The edges of every node only lead to nodes which are not contracted yet; the
+	 * edges to the nodes of higher rank are copied into the hierarchy when contracting a node.
+	 */
+	private static final class Contraction {
+		private final int n;
+		private final EdgeList[] outEdges;
+		private final EdgeList[] inEdges;
+		private final int[] contractedNeighbours;
+		private final int[] depth;
+
+		private final EdgeList upEdges = new EdgeList();
+		private final int[] upEdgesStart;
+		private final int[] upEdgesEnd;
+		private final EdgeList downEdges = new EdgeList();
+		private final int[] downEdgesStart;
+		private final int[] downEdgesEnd;
+
+		// state of the witness searches
+		private final IntMinHeap heap;
+		private final double[] witnessCost;
+		private final int[] witnessIteration;
+		private final int[] targetIteration;
+		private int iteration = 0;
+
+		Contraction(final int n) {
+			this.n = n;
+			this.outEdges = new EdgeList[n];
+			this.inEdges = new EdgeList[n];
+			for (int i = 0; i < n; i++) {
+				this.outEdges[i] = new EdgeList();
+				this.inEdges[i] = new EdgeList();
+			}
+			this.contractedNeighbours = new int[n];
+			this.depth = new int[n];
+			this.upEdgesStart = new int[n];
+			this.upEdgesEnd = new int[n];
+			this.downEdgesStart = new int[n];
+			this.downEdgesEnd = new int[n];
+			this.heap = new IntMinHeap(n);
+			this.witnessCost = new double[n];
+			this.witnessIteration = new int[n];
+			this.targetIteration = new int[n];
+		}
+
+		/**
+		 * Adds an edge or lowers the cost of an existing one.
+		 */
+		void addEdge(final int from, final int to, final double cost) {
+			if (from == to) {
+				return;
+			}
+			EdgeList out = this.outEdges[from];
+			int i = out.indexOf(to);
+			if (i < 0) {
+				out.add(to, cost);
+				this.inEdges[to].add(from, cost);
+			} else if (cost < out.cost[i]) {
+				out.cost[i] = cost;
+				EdgeList in = this.inEdges[to];
+				in.cost[in.indexOf(from)] = cost;
+			}
+		}
+
+		ContractionHierarchy run(final Map<Id<Node>, Integer> nodeIndices) {
+			IntMinHeap queue = new IntMinHeap(this.n);
+			for (int node = 0; node < this.n; node++) {
+				queue.put(node, priority(node));
+			}
+			int count = 0;
+			while (!queue.isEmpty()) {
+				int node = queue.poll();
+				// the priorities are only updated for the neighbours, so check again before contracting
+				double priority = priority(node);
+				if (!queue.isEmpty() && priority > queue.peekKey()) {
+					queue.put(node, priority);
+					continue;
+				}
+				contract(node);
+				EdgeList out = this.outEdges[node];
+				EdgeList in = this.inEdges[node];
+				for (int i = 0; i < out.size; i++) {
+					updateNeighbour(out.node[i], node, queue);
+				}
+				for (int i = 0; i < in.size; i++) {
+					updateNeighbour(in.node[i], node, queue);
+				}
+				this.outEdges[node] = null;
+				this.inEdges[node] = null;
+				count++;
+				if (count % 100000 == 0) {
+					log.info("  " + count + " nodes contracted, " + (this.upEdges.size + this.downEdges.size) + " edges in hierarchy");
+				}
+			}
+			return buildHierarchy(nodeIndices);
+		}
+
+		private void updateNeighbour(final int neighbour, final int contractedNode, final IntMinHeap queue) {
+			if (queue.contains(neighbour)) {
+				this.contractedNeighbours[neighbour]++;
+				this.depth[neighbour] = Math.max(this.depth[neighbour], this.depth[contractedNode] + 1);
+				queue.put(neighbour, priority(neighbour));
+			}
+		}
+
+		private double priority(final int node) {
+			int degree = this.outEdges[node].size + this.inEdges[node].size;
+			int shortcuts = addShortcuts(node, false);
+			return 2 * (shortcuts - degree) + this.contractedNeighbours[node] + this.depth[node];
+		}
+
+		private void contract(final int node) {
+			addShortcuts(node, true);
+
+			EdgeList out = this.outEdges[node];
+			this.upEdgesStart[node] = this.upEdges.size;
+			for (int i = 0; i < out.size; i++) {
+				this.upEdges.add(out.node[i], out.cost[i]);
+				this.inEdges[out.node[i]].remove(node);
+			}
+			this.upEdgesEnd[node] = this.upEdges.size;
+			EdgeList in = this.inEdges[node];
+			this.downEdgesStart[node] = this.downEdges.size;
+			for (int i = 0; i < in.size; i++) {
+				this.downEdges.add(in.node[i], in.cost[i]);
+				this.outEdges[in.node[i]].remove(node);
+			}
+			this.downEdgesEnd[node] = this.downEdges.size;
+		}
+
+		/**
+		 * @return the number of shortcuts needed when contracting the node
+		 */
+		private int addShortcuts(final int node, final boolean add) {
+			EdgeList in = this.inEdges[node];
+			EdgeList out = this.outEdges[node];
+			if (in.size == 0 || out.size == 0) {
+				return 0;
+			}
+			double maxOutCost = 0;
+			for (int j = 0; j < out.size; j++) {
+				maxOutCost = Math.max(maxOutCost, out.cost[j]);
+			}
+			int shortcuts = 0;
+			for (int i = 0; i < in.size; i++) {
+				int from = in.node[i];
+				double inCost = in.cost[i];
+				witnessSearch(from, node, inCost + maxOutCost, out);
+				for (int j = 0; j < out.size; j++) {
+					int to = out.node[j];
+					if (to == from) {
+						continue;
+					}
+					double viaCost = inCost + out.cost[j];
+					if (this.witnessIteration[to] != this.iteration || this.witnessCost[to] > viaCost) {
+						shortcuts++;
+						if (add) {
+							addEdge(from, to, viaCost);
+						}
+					}
+				}
+			}
+			return shortcuts;
+		}
+
+		/**
+		 * Searches the least-cost paths from the start node which do not use the ignored node, until all targets are
+		 * settled, or up to the maximal cost or the limit of settled nodes.
+		 */
+		private void witnessSearch(final int start, final int ignoredNode, final double maxCost, final EdgeList targets) {
+			this.iteration++;
+			int remainingTargets = 0;
+			for (int j = 0; j < targets.size; j++) {
+				if (targets.node[j] != start) {
+					this.targetIteration[targets.node[j]] = this.iteration;
+					remainingTargets++;
+				}
+			}
+			this.heap.clear();
+			this.witnessCost[start] = 0;
+			this.witnessIteration[start] = this.iteration;
+			this.heap.put(start, 0);
+			int settled = 0;
+			while (remainingTargets > 0 && !this.heap.isEmpty() && this.heap.peekKey() <= maxCost && settled < WITNESS_SEARCH_LIMIT) {
+				int node = this.heap.poll();
+				settled++;
+				if (this.targetIteration[node] == this.iteration) {
+					remainingTargets--;
+				}
+				double cost = this.witnessCost[node];
+				EdgeList out = this.outEdges[node];
+				for (int i = 0; i < out.size; i++) {
+					int to = out.node[i];
+					if (to == ignoredNode) {
+						continue;
+					}
+					double toCost = cost + out.cost[i];
+					if (this.witnessIteration[to] != this.iteration || toCost < this.witnessCost[to]) {
+						this.witnessCost[to] = toCost;
+						this.witnessIteration[to] = this.iteration;
+						this.heap.put(to, toCost);
+					}
+				}
+			}
+		}
+
+		private ContractionHierarchy buildHierarchy(final Map<Id<Node>, Integer> nodeIndices) {
+			int[] upFirst = new int[this.n + 1];
+			int[] upHead = new int[this.upEdges.size];
+			double[] upCost = new double[this.upEdges.size];
+			int[] downFirst = new int[this.n + 1];
+			int[] downTail = new int[this.downEdges.size];
+			double[] downCost = new double[this.downEdges.size];
+			int up = 0;
+			int down = 0;
+			for (int node = 0; node < this.n; node++) {
+				upFirst[node] = up;
+				for (int e = this.upEdgesStart[node]; e < this.upEdgesEnd[node]; e++) {
+					upHead[up] = this.upEdges.node[e];
+					upCost[up] = this.upEdges.cost[e];
+					up++;
+				}
+				downFirst[node] = down;
+				for (int e = this.downEdgesStart[node]; e < this.downEdgesEnd[node]; e++) {
+					downTail[down] = this.downEdges.node[e];
+					downCost[down] = this.downEdges.cost[e];
+					down++;
+				}
+			}
+			upFirst[this.n] = up;
+			downFirst[this.n] = down;
+			return new ContractionHierarchy(nodeIndices, upFirst, upHead, upCost, downFirst, downTail, downCost);
+		}
+
+	}
+
+	/**
+	 * A growable list of edges to (or from) other nodes.
+	 */
+	private static final class EdgeList {
+		int[] node = new int[4];
+		double[] cost = new double[4];
+		int size = 0;
+
+		void add(final int otherNode, final double edgeCost) {
+			if (this.size == this.node.length) {
+				this.node = Arrays.copyOf(this.node, 2 * this.size);
+				this.cost = Arrays.copyOf(this.cost, 2 * this.size);
+			}
+			this.node[this.size] = otherNode;
+			this.cost[this.size] = edgeCost;
+			this.size++;
+		}
+
+		int indexOf(final int otherNode) {
+			for (int i = 0; i < this.size; i++) {
+				if (this.node[i] == otherNode) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		void remove(final int otherNode) {
+			int i = indexOf(otherNode);
+			if (i >= 0) {
+				this.size--;
+				this.node[i] = this.node[this.size];
+				this.cost[i] = this.cost[this.size];
+			}
+		}
+	}
+
+}
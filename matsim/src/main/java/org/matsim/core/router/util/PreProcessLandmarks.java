@@ -24,15 +24,16 @@ import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
-import org.matsim.core.api.internal.MatsimComparator;
 
 import java.awt.geom.Rectangle2D;
-import java.util.Comparator;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
 
 /**
  * Pre-processes a given network, gathering information which can be used by
@@ -53,6 +54,8 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 	
 	private int numberOfThreads = 8;
 
+	private PreProcessCache cache = null;
+
 	private static final Logger log = Logger.getLogger(PreProcessLandmarks.class);
 
 	public PreProcessLandmarks(final TravelDisutility costFunction) {
@@ -105,6 +108,14 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		this.landmarker = landmarker;
 	}
 
+	/**
+	 * Sets a cache for the travel costs to and from the landmarks, which are then only computed if the cache has no
+	 * costs for the same network, landmarks and minimal travel disutilities of the links.
+	 */
+	public void setCache(final PreProcessCache cache) {
+		this.cache = cache;
+	}
+
 	@Override
 	public void run(final Network network) {
 		super.run(network);
@@ -115,24 +126,54 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		log.info("done in " + (System.currentTimeMillis() - now) + " ms");
 
 		log.info("Initializing landmarks data");
-		for (Node node : network.getNodes().values()) {
+		final Node[] nodes = network.getNodes().values().toArray(new Node[network.getNodes().size()]);
+		Map<Node, Integer> nodeIndices = new HashMap<>();
+		for (Node node : nodes) {
+			nodeIndices.put(node, nodeIndices.size());
 			this.nodeData.put(node, new LandmarksData(this.landmarkCount));
 		}
-		
+		final Links links = new Links(network, nodeIndices, this.costFunction);
+
+		String cacheName = null;
+		if (this.cache != null) {
+			cacheName = "landmarks-" + Long.toHexString(getChecksum(nodeIndices, links));
+			float[] travelTimes = this.cache.readFloats(cacheName, network);
+			if (travelTimes != null && travelTimes.length == 2 * this.landmarks.length * nodes.length) {
+				for (int i = 0; i < this.landmarks.length; i++) {
+					for (int node = 0; node < nodes.length; node++) {
+						getNodeData(nodes[node]).setLandmarkTravelTimes(i,
+								travelTimes[(2 * i) * nodes.length + node], travelTimes[(2 * i + 1) * nodes.length + node]);
+					}
+				}
+				return;
+			}
+		}
+
 		int nOfThreads = this.numberOfThreads;
 		if (nOfThreads > this.landmarks.length) {
 			nOfThreads = this.landmarks.length;
 		}
-		if (nOfThreads < 2) {
-			nOfThreads = 2; // always use at least two threads
+		if (nOfThreads < 1) {
+			nOfThreads = 1;
 		}
  		log.info("Calculating distance from each node to each of the " + this.landmarkCount + " landmarks using " + nOfThreads + " threads...");
 		now = System.currentTimeMillis();
 
-		
 		ExecutorService executor = Executors.newFixedThreadPool(nOfThreads);
 		for (int i = 0; i < this.landmarks.length; i++) {
-			executor.execute(new Calculator(i, this.landmarks[i], this.nodeData, this.costFunction));
+			final int landmarkIdx = i;
+			final int landmark = nodeIndices.get(this.landmarks[i]);
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					double[] fromLandmark = links.calcLeastCosts(landmark, true);
+					double[] toLandmark = links.calcLeastCosts(landmark, false);
+					// every landmark only writes its own index of the data, so no synchronization is needed
+					for (int node = 0; node < nodes.length; node++) {
+						getNodeData(nodes[node]).setLandmarkTravelTimes(landmarkIdx, toLandmark[node], fromLandmark[node]);
+					}
+				}
+			});
 		}
 		executor.shutdown();
 		while (!executor.isTerminated()) {
@@ -144,92 +185,107 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 			}
 		}
 
-		for (Node node : network.getNodes().values()) {
-			LandmarksData r = getNodeData(node);
-			r.updateMinMaxTravelTimes();
-		}
+		log.info("done in " + (System.currentTimeMillis() - now) + " ms");
 
-		for (Node node : network.getNodes().values()) {
-			LandmarksData r = getNodeData(node);
+		if (this.cache != null) {
+			float[] travelTimes = new float[2 * this.landmarks.length * nodes.length];
 			for (int i = 0; i < this.landmarks.length; i++) {
-				if (r.getMinLandmarkTravelTime(i) > r.getMaxLandmarkTravelTime(i)) {
-					log.info("Min > max for node " + node.getId() + " and landmark " + i);
+				for (int node = 0; node < nodes.length; node++) {
+					LandmarksData data = getNodeData(nodes[node]);
+					travelTimes[(2 * i) * nodes.length + node] = data.minLandmarkTravelTime[i];
+					travelTimes[(2 * i + 1) * nodes.length + node] = data.maxLandmarkTravelTime[i];
 				}
 			}
+			this.cache.writeFloats(cacheName, network, travelTimes);
 		}
-
-		log.info("done in " + (System.currentTimeMillis() - now) + " ms");
 	}
 
-	private static class Calculator implements Runnable {
-		
-		private final int landmarkIdx;
-		private final Node landmark;
-		private final Map<Node, DeadEndData> nodeData;
-		private final TravelDisutility costFunction;
-		
-		public Calculator(final int landmarkIdx, final Node landmark, final Map<Node, DeadEndData> nodeData, final TravelDisutility costFunction) {
-			this.landmarkIdx = landmarkIdx;
-			this.landmark = landmark;
-			this.nodeData = nodeData;
-			this.costFunction = costFunction;
+	/**
+	 * @return a checksum of the landmarks and of the minimal travel disutilities of the links
+	 */
+	private long getChecksum(final Map<Node, Integer> nodeIndices, final Links links) {
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(8);
+		for (Node landmark : this.landmarks) {
+			buffer.clear();
+			buffer.putInt(nodeIndices.get(landmark));
+			crc.update(buffer.array(), 0, 4);
 		}
-		
-		@Override
-		public void run() {
-			expandLandmarkFrom();
-			expandLandmarkTo();
+		for (double cost : links.outCost) {
+			buffer.clear();
+			buffer.putLong(Double.doubleToLongBits(cost));
+			crc.update(buffer.array(), 0, 8);
 		}
-	
-		private void expandLandmarkFrom() {
-			LandmarksFromTravelTimeComparator comparator = new LandmarksFromTravelTimeComparator(this.nodeData, this.landmarkIdx);
-			PriorityQueue<Node> pendingNodes = new PriorityQueue<>(100, comparator);
-			LandmarksData role = (LandmarksData) this.nodeData.get(this.landmark);
-			role.setToLandmarkTravelTime(this.landmarkIdx, 0.0);
-			role.setFromLandmarkTravelTime(this.landmarkIdx, 0.0);
-			pendingNodes.add(this.landmark);
-			while (!pendingNodes.isEmpty()) {
-				Node node = pendingNodes.poll();
-				double fromTravTime = ((LandmarksData) this.nodeData.get(node)).getFromLandmarkTravelTime(this.landmarkIdx);
-				LandmarksData role2;
-				for (Link l : node.getOutLinks().values()) {
-					Node n;
-					n = l.getToNode();
-					double linkTravTime = this.costFunction.getLinkMinimumTravelDisutility(l);
-					role2 = (LandmarksData) this.nodeData.get(n);
-					double totalTravelTime = fromTravTime + linkTravTime;
-					if (role2.getFromLandmarkTravelTime(this.landmarkIdx) > totalTravelTime) {
-						role2.setFromLandmarkTravelTime(this.landmarkIdx, totalTravelTime);
-						pendingNodes.add(n);
-					}
-				}
+		return (crc.getValue() << 8) | this.landmarks.length;
+	}
+
+	/**
+	 * The links of the network with their minimal travel disutilities, in arrays for fast least cost searches from
+	 * every landmark.
+	 */
+	private static final class Links {
+		private final int[] outFirst;
+		private final int[] outHead;
+		private final double[] outCost;
+		private final int[] inFirst;
+		private final int[] inTail;
+		private final double[] inCost;
+
+		Links(final Network network, final Map<Node, Integer> nodeIndices, final TravelDisutility costFunction) {
+			int n = nodeIndices.size();
+			int m = network.getLinks().size();
+			this.outFirst = new int[n + 1];
+			this.outHead = new int[m];
+			this.outCost = new double[m];
+			this.inFirst = new int[n + 1];
+			this.inTail = new int[m];
+			this.inCost = new double[m];
+			for (Link link : network.getLinks().values()) {
+				this.outFirst[nodeIndices.get(link.getFromNode()) + 1]++;
+				this.inFirst[nodeIndices.get(link.getToNode()) + 1]++;
+			}
+			for (int node = 0; node < n; node++) {
+				this.outFirst[node + 1] += this.outFirst[node];
+				this.inFirst[node + 1] += this.inFirst[node];
+			}
+			int[] outFill = Arrays.copyOf(this.outFirst, n);
+			int[] inFill = Arrays.copyOf(this.inFirst, n);
+			for (Link link : network.getLinks().values()) {
+				int from = nodeIndices.get(link.getFromNode());
+				int to = nodeIndices.get(link.getToNode());
+				double cost = costFunction.getLinkMinimumTravelDisutility(link);
+				this.outHead[outFill[from]] = to;
+				this.outCost[outFill[from]++] = cost;
+				this.inTail[inFill[to]] = from;
+				this.inCost[inFill[to]++] = cost;
 			}
 		}
 
-		private void expandLandmarkTo() {
-			LandmarksToTravelTimeComparator comparator = new LandmarksToTravelTimeComparator(this.nodeData, this.landmarkIdx);
-			PriorityQueue<Node> pendingNodes = new PriorityQueue<>(100, comparator);
-			LandmarksData role = (LandmarksData) this.nodeData.get(this.landmark);
-			role.setToLandmarkTravelTime(this.landmarkIdx, 0.0);
-			role.setFromLandmarkTravelTime(this.landmarkIdx, 0.0);
-			pendingNodes.add(this.landmark);
-			while (!pendingNodes.isEmpty()) {
-				Node node = pendingNodes.poll();
-				double toTravTime = ((LandmarksData) this.nodeData.get(node)).getToLandmarkTravelTime(this.landmarkIdx);
-				LandmarksData role2;
-				for (Link l : node.getInLinks().values()) {
-					Node n = l.getFromNode();
-					double linkTravTime = this.costFunction.getLinkMinimumTravelDisutility(l);
-					role2 = (LandmarksData) this.nodeData.get(n);
-					double totalTravelTime = toTravTime + linkTravTime;
-					if (role2.getToLandmarkTravelTime(this.landmarkIdx) > totalTravelTime) {
-						role2.setToLandmarkTravelTime(this.landmarkIdx, totalTravelTime);
-						pendingNodes.add(n);
+		/**
+		 * @return the least costs from the node to every node, or from every node to the node if not forward
+		 */
+		double[] calcLeastCosts(final int source, final boolean forward) {
+			int[] first = forward ? this.outFirst : this.inFirst;
+			int[] other = forward ? this.outHead : this.inTail;
+			double[] costs = forward ? this.outCost : this.inCost;
+			double[] leastCosts = new double[first.length - 1];
+			Arrays.fill(leastCosts, Double.POSITIVE_INFINITY);
+			IntMinHeap heap = new IntMinHeap(leastCosts.length);
+			leastCosts[source] = 0;
+			heap.put(source, 0);
+			while (!heap.isEmpty()) {
+				int node = heap.poll();
+				double cost = leastCosts[node];
+				for (int l = first[node]; l < first[node + 1]; l++) {
+					double otherCost = cost + costs[l];
+					if (otherCost < leastCosts[other[l]]) {
+						leastCosts[other[l]] = otherCost;
+						heap.put(other[l], otherCost);
 					}
 				}
 			}
+			return leastCosts;
 		}
-	
 	}
 
 	public Node[] getLandmarks() {
@@ -253,120 +309,40 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 
 	public static class LandmarksData extends DeadEndData {
 
-		private final double[] landmarkTravelTime1;
-		private final double[] landmarkTravelTime2;
+		// the smaller and the larger one of the costs to and from every landmark, as float to save memory
+		private final float[] minLandmarkTravelTime;
+		private final float[] maxLandmarkTravelTime;
 
 		LandmarksData(final int landmarkCount) {
-			this.landmarkTravelTime2 = new double[landmarkCount];
-			this.landmarkTravelTime1 = new double[landmarkCount];
-			for (int i = 0; i < this.landmarkTravelTime2.length; i++) {
-				this.landmarkTravelTime2[i] = Double.POSITIVE_INFINITY;
-				this.landmarkTravelTime1[i] = Double.POSITIVE_INFINITY;
-			}
-		}
-
-		void setToLandmarkTravelTime(final int landmarkIndex, final double travelTime) {
-			this.landmarkTravelTime2[landmarkIndex] = travelTime;
-		}
-
-		void setFromLandmarkTravelTime(final int landmarkIndex, final double travelTime) {
-			this.landmarkTravelTime1[landmarkIndex] = travelTime;
-		}
-
-		double getToLandmarkTravelTime(final int landmarkIndex) {
-			return this.landmarkTravelTime2[landmarkIndex];
-		}
-
-		double getFromLandmarkTravelTime(final int landmarkIndex) {
-			return this.landmarkTravelTime1[landmarkIndex];
+			this.minLandmarkTravelTime = new float[landmarkCount];
+			this.maxLandmarkTravelTime = new float[landmarkCount];
+			Arrays.fill(this.minLandmarkTravelTime, Float.POSITIVE_INFINITY);
+			Arrays.fill(this.maxLandmarkTravelTime, Float.POSITIVE_INFINITY);
 		}
 
-		void updateMinMaxTravelTimes() {
-			for (int i = 0; i < this.landmarkTravelTime1.length; i++) {
-				setTravelTimes(i, this.landmarkTravelTime2[i], this.landmarkTravelTime1[i]);
+		void setLandmarkTravelTimes(final int landmarkIndex, final double toLandmark, final double fromLandmark) {
+			double min = Math.min(toLandmark, fromLandmark);
+			double max = Math.max(toLandmark, fromLandmark);
+			// round the min down and the max up, so the estimates of the router are still never too high
+			float floatMin = (float) min;
+			if (floatMin > min) {
+				floatMin = Math.nextAfter(floatMin, Double.NEGATIVE_INFINITY);
 			}
-		}
-
-		private void setTravelTimes(final int landmarkIndex, final double travelTime1,
-				final double travelTime2) {
-			if (travelTime1 > travelTime2) {
-				this.landmarkTravelTime2[landmarkIndex] = travelTime1;
-				this.landmarkTravelTime1[landmarkIndex] = travelTime2;
-			} else {
-				this.landmarkTravelTime1[landmarkIndex] = travelTime1;
-				this.landmarkTravelTime2[landmarkIndex] = travelTime2;
+			float floatMax = (float) max;
+			if (floatMax < max) {
+				floatMax = Math.nextUp(floatMax);
 			}
+			this.minLandmarkTravelTime[landmarkIndex] = floatMin;
+			this.maxLandmarkTravelTime[landmarkIndex] = floatMax;
 		}
 
 		public double getMinLandmarkTravelTime(final int landmarkIndex) {
-			return this.landmarkTravelTime1[landmarkIndex];
+			return this.minLandmarkTravelTime[landmarkIndex];
 		}
 
 		public double getMaxLandmarkTravelTime(final int landmarkIndex) {
-			return this.landmarkTravelTime2[landmarkIndex];
-		}
-	}
-
-    /**
-	 * Sorts the Nodes ascending according to their ToLandmarkTravelTime.
-	 *
-	 * @author lnicolas
-	 * @author mrieser
-	 */
-	private static class LandmarksToTravelTimeComparator implements Comparator<Node>, MatsimComparator {
-		private final Map<Node, DeadEndData> roleData;
-		private final int landmarkIndex;
-
-		protected LandmarksToTravelTimeComparator(final Map<Node, DeadEndData> roleData, final int landmarkIndex) {
-			this.roleData = roleData;
-			this.landmarkIndex = landmarkIndex;
-		}
-
-		@Override
-		public int compare(final Node n1, final Node n2) {
-
-			double c1 = ((LandmarksData) this.roleData.get(n1)).getToLandmarkTravelTime(this.landmarkIndex);
-			double c2 = ((LandmarksData) this.roleData.get(n2)).getToLandmarkTravelTime(this.landmarkIndex);
-
-			if (c1 < c2) {
-				return -1;
-			}
-			if (c1 > c2) {
-				return +1;
-			}
-			return n1.getId().compareTo(n2.getId());
+			return this.maxLandmarkTravelTime[landmarkIndex];
 		}
 	}
 
-	/**
-	 * Sorts the Nodes ascending according to their FromLandmarkTravelTime.
-	 *
-	 * @author lnicolas
-	 * @author mrieser
-	 */
-	private static class LandmarksFromTravelTimeComparator implements Comparator<Node>, MatsimComparator {
-		private final Map<Node, DeadEndData> roleData;
-		private final int landmarkIndex;
-		
-		protected LandmarksFromTravelTimeComparator(final Map<Node, DeadEndData> roleData, final int landmarkIndex) {
-			this.roleData = roleData;
-			this.landmarkIndex = landmarkIndex;
-		}
-		
-		@Override
-		public int compare(final Node n1, final Node n2) {
-			
-			double c1 = ((LandmarksData) this.roleData.get(n1)).getFromLandmarkTravelTime(this.landmarkIndex);
-			double c2 = ((LandmarksData) this.roleData.get(n2)).getFromLandmarkTravelTime(this.landmarkIndex);
-			
-			if (c1 < c2) {
-				return -1;
-			}
-			if (c1 > c2) {
-				return +1;
-			}
-			return n1.getId().compareTo(n2.getId());
-		}
-	}
-	
 }
@@ -22,7 +22,6 @@ package org.matsim.core.scoring;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -30,6 +29,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.PersonMoneyEvent;
@@ -43,8 +43,10 @@ import org.matsim.core.api.internal.HasPersonId;
 import org.matsim.core.controler.ControlerListenerManager;
 import org.matsim.core.controler.events.IterationStartsEvent;
 import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.algorithms.Vehicle2DriverEventHandler;
 import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.events.handler.NonRetainingEventHandler;
 import org.matsim.core.utils.io.IOUtils;
 import org.matsim.vehicles.Vehicle;
 
@@ -62,7 +64,7 @@ import gnu.trove.list.array.TDoubleArrayList;
  * @author michaz
  *
  */
-class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.LegHandler, EventsToActivities.ActivityHandler {
+class ScoringFunctionsForPopulation implements BasicEventHandler, NonRetainingEventHandler, EventsToLegs.LegHandler, EventsToActivities.ActivityHandler {
 
 	@SuppressWarnings("unused")
 	private final static Logger log = Logger.getLogger(ScoringFunctionsForPopulation.class);
@@ -78,8 +80,11 @@ class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.L
 	 * should be faster and reduce the memory overhead.
 	 *
 	 * cdobler, nov'15
+	 *
+	 * Replaced the HashMap for 'agentScorers' with an IdMap, which stores the scoring functions in an array
+	 * indexed by the persons' ids, avoiding the hash lookup for every event.
 	 */
-	private final Map<Id<Person>, ScoringFunction> agentScorers = new HashMap<>();
+	private final Map<Id<Person>, ScoringFunction> agentScorers = new IdMap<>(Person.class);
 	private final Map<Id<Person>, TDoubleCollection> partialScores = new LinkedHashMap<>();
 	private final AtomicReference<Throwable> exception = new AtomicReference<>();
 	
@@ -136,7 +141,7 @@ class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.L
 					// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
 				} 
 //				else {
-					scoringFunction.handleEvent(o);
+					scoringFunction.handleEvent(toRetainableEvent(scoringFunction, o));
 					// passing this on in any case, see comment above.  kai, mar'17
 //				}
 			}
@@ -148,7 +153,7 @@ class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.L
 				ScoringFunction scoringFunction = getScoringFunctionForAgent( driverId );
 				// (this will NOT do the scoring function lookup twice since LinkEnterEvent is not an instance of HasPersonId.  kai, mar'17)
 				if (scoringFunction != null) {
-					scoringFunction.handleEvent(o) ;
+					scoringFunction.handleEvent(toRetainableEvent(scoringFunction, o)) ;
 				}
 			}
 			/*
@@ -161,6 +166,14 @@ class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.L
 		}
 	}
 
+	/**
+	 * Reusable events, such as the link events of the nodes, are only passed as they are to scoring functions which
+	 * promise not to keep them by implementing {@link NonRetainingEventHandler}.
+	 */
+	private static Event toRetainableEvent(ScoringFunction scoringFunction, Event event) {
+		return scoringFunction instanceof NonRetainingEventHandler ? event : EventsUtils.toRetainableEvent(event);
+	}
+
 	@Override
 	synchronized public void handleLeg(PersonExperiencedLeg o) {
 		Id<Person> agentId = o.getAgentId();
@@ -21,63 +21,81 @@
 package org.matsim.core.trafficmonitoring;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
-import org.matsim.core.router.priorityqueue.HasIndex;
 import org.matsim.core.trafficmonitoring.TravelTimeCalculator.DataContainer;
 
 /**
  *  Uses an array to store DataContainer object for the TravelTimeCalculator.
- *  It is tried to get a DataContainer's position in the array is taken from the
- *  the Link, which is possible if routing networks are used (there, link implement
- *  the HasIndex interface).
+ *  A DataContainer's position in the array is taken from the index of the
+ *  link's id (see {@link Id#index()}), which is available for links given
+ *  as objects as well as for link ids taken from events.
  *  
- *  If regular network are used, calls are forwarded to a MapBasedDataContainerProvider,
- *  which represents the lookup approach used so far.
+ *  Links whose ids were created after this provider (and thus do not fit into
+ *  the array) are forwarded to a MapBasedDataContainerProvider, which represents
+ *  the lookup approach used so far.
  *  
  * @author cdobler
  */
 public class ArrayBasedDataContainerProvider implements DataContainerProvider {
 
-	private final DataContainer[] arrayLinkData;
+	/*
+	 * The link id is stored together with its DataContainer, so that a thread which finds
+	 * the id of the link it is looking for also sees the DataContainer. Routers look up
+	 * travel times from several threads at once.
+	 */
+	private final AtomicReferenceArray<Entry> arrayLinkData;
 	private final DataContainerProvider delegate;
 	
 	public ArrayBasedDataContainerProvider(Map<Id<Link>, DataContainer> linkData, TravelTimeDataFactory ttDataFactory,
 			Network network) {
-		this.arrayLinkData = new DataContainer[network.getLinks().size()];
+		this.arrayLinkData = new AtomicReferenceArray<>(Id.getNumberOfIds(Link.class));
 		this.delegate = new MapBasedDataContainerProvider(linkData, ttDataFactory);
 	}
 	
 	/*
 	 * This method is called from the EventHandler part of the TravelTimeCalculator.
-	 * There, only link ids are available. We cannot optimize this. 
+	 * There, only link ids are available, but their index can be used for the array lookup
+	 * as well.
 	 */
 	@Override
 	public DataContainer getTravelTimeData(final Id<Link> linkId, final boolean createIfMissing) {
-		return this.delegate.getTravelTimeData(linkId, createIfMissing);
+		int index = linkId.index();
+		if (index < this.arrayLinkData.length()) {
+			Entry entry = this.arrayLinkData.get(index);
+			if (entry != null && entry.linkId == linkId) {
+				return entry.data;
+			}
+			DataContainer data = this.delegate.getTravelTimeData(linkId, createIfMissing);
+			if (data != null && entry == null) {
+				this.arrayLinkData.compareAndSet(index, null, new Entry(linkId, data));
+			}
+			return data;
+		} else {
+			return this.delegate.getTravelTimeData(linkId, createIfMissing);
+		}
 	}
 	
 	/*
 	 * This method is called from the TravelTime part of the TravelTimeCalculator.
 	 * There, links are available. we can optimize this by using an array instead of a map.
-	 * 
-	 *  Probably pre-initialize all DataContainers to avoid the null-check?
 	 */
 	@Override
 	public DataContainer getTravelTimeData(Link link, boolean createIfMissing) {
-		if (link instanceof HasIndex) {
-			int index = ((HasIndex) link).getArrayIndex();
-			DataContainer data = this.arrayLinkData[index];
-			if (data == null) {
-				data = this.delegate.getTravelTimeData(link, createIfMissing);
-				this.arrayLinkData[index] = data;
-			}
-			return data;
-		} else {
-			return this.delegate.getTravelTimeData(link, createIfMissing);
+		return this.getTravelTimeData(link.getId(), createIfMissing);
+	}
+	
+	private static final class Entry {
+		private final Id<Link> linkId;
+		private final DataContainer data;
+
+		private Entry(Id<Link> linkId, DataContainer data) {
+			this.linkId = linkId;
+			this.data = data;
 		}
 	}
 	
-}
\ No newline at end of file
+}
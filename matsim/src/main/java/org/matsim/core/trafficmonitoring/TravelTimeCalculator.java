@@ -19,6 +19,8 @@
  * *********************************************************************** */
 package org.matsim.core.trafficmonitoring;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -27,6 +29,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import com.google.inject.Inject;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
@@ -45,6 +48,7 @@ import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.events.handler.PartitionableEventHandler;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.collections.CollectionUtils;
@@ -62,13 +66,17 @@ import org.matsim.vehicles.Vehicle;
  * use {@link TravelTimeDataHashMap} (see {@link #setTravelTimeDataFactory(TravelTimeDataFactory)}
  * as that one does not use any memory to time bins where no traffic occurred. By default,
  * {@link TravelTimeDataArray} is used.
+ * <br>
+ * With parallel events handling, the link travel times are collected by several threads, each of which gets the
+ * link enter and leave events of a part of the links (see {@link PartitionableEventHandler}).  This is not possible
+ * for link-to-link travel times, as these need the events of two links.
  * 
  * @author dgrether
  * @author mrieser
  */
 public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEventHandler, 
 	VehicleEntersTrafficEventHandler, VehicleLeavesTrafficEventHandler, VehicleArrivesAtFacilityEventHandler, 
-	VehicleAbortsEventHandler {
+	VehicleAbortsEventHandler, PartitionableEventHandler<TravelTimeCalculator> {
 
 	private static final String ERROR_STUCK_AND_LINKTOLINK = "Using the stuck feature with turning move travel times is not available. As the next link of a stucked" +
 			"agent is not known the turning move travel time cannot be calculated!";
@@ -97,6 +105,19 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 	private final boolean calculateLinkToLinkTravelTimes;
 
 	private TravelTimeDataFactory ttDataFactory = null;
+
+	private boolean handedStateToPartitions = false;
+
+	private final TravelTime linkTravelTimes = new TravelTime() {
+
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			return TravelTimeCalculator.this.getLinkTravelTime(link.getId(), time);
+		}
+
+	};
+
+	private Map<Id<Vehicle>, LinkEnterEvent> linkEnterEventsBeforePartitioning = Collections.emptyMap();
 	
 	@Inject private QSimConfigGroup qsimConfig ;
 
@@ -185,6 +206,9 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 			 * Using a ArrayBasedDataContainerProvider instead of a MapBasedDataContainerProvider
 			 * increases the routing performance by 20-30%.
 			 * cdobler, oct'13
+			 *
+			 * The ArrayBasedDataContainerProvider now uses the index of the link ids instead,
+			 * so that also the lookups from the event handling part avoid the hash map.
 			 */
 			//		this.dataContainerProvider = new MapBasedDataContainerProvider(linkData, ttDataFactory);
 			this.dataContainerProvider = new ArrayBasedDataContainerProvider(linkData, ttDataFactory, network);
@@ -204,6 +228,84 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 
 	}
 
+	/**
+	 * Creates a partition, which writes to the same link data as the original calculator.
+	 */
+	private TravelTimeCalculator(final TravelTimeCalculator original) {
+		this.calculateLinkTravelTimes = original.calculateLinkTravelTimes;
+		this.calculateLinkToLinkTravelTimes = original.calculateLinkToLinkTravelTimes;
+		this.filterAnalyzedModes = original.filterAnalyzedModes;
+		this.analyzedModes = original.analyzedModes;
+		this.timeSlice = original.timeSlice;
+		this.numSlots = original.numSlots;
+		this.aggregator = original.aggregator;
+		this.ttDataFactory = original.ttDataFactory;
+		this.linkData = original.linkData;
+		this.dataContainerProvider = original.dataContainerProvider;
+		this.qsimConfig = original.qsimConfig;
+		this.linkEnterEvents = new ConcurrentHashMap<>();
+		this.linkEnterEvents.putAll(original.linkEnterEvents);
+		this.vehiclesToIgnore = new HashSet<>(original.vehiclesToIgnore);
+	}
+
+	@Override
+	public TravelTimeCalculator createPartition() {
+		if (this.calculateLinkToLinkTravelTimes) {
+			return null;
+		}
+		if (!this.handedStateToPartitions) {
+			this.linkEnterEventsBeforePartitioning = new HashMap<>(this.linkEnterEvents);
+			this.handedStateToPartitions = true;
+		}
+		return new TravelTimeCalculator(this);
+	}
+
+	/**
+	 * Link enter and leave events go to the partition of their link, and so do aborts, which end the travel on the
+	 * link the vehicle entered last.  All other events are needed by every partition, since they change the state of
+	 * the vehicle.
+	 */
+	@Override
+	public Object getPartitionKey(final Event event) {
+		if (event instanceof LinkEnterEvent) {
+			return ((LinkEnterEvent) event).getLinkId();
+		} else if (event instanceof LinkLeaveEvent) {
+			return ((LinkLeaveEvent) event).getLinkId();
+		} else if (event instanceof VehicleAbortsEvent) {
+			return ((VehicleAbortsEvent) event).getLinkId();
+		}
+		return null;
+	}
+
+	/**
+	 * Every partition started with a copy of the link enter events known before, but only the partition of the link
+	 * sees the vehicle leave or abort there, so such an event is only still valid if no partition has dropped it.
+	 * Newer link enter events are only known to the partition of the link.  Vehicles to ignore are known to every
+	 * partition, except that only the partition of the link removes an aborting vehicle.
+	 */
+	@Override
+	public void mergePartition(final TravelTimeCalculator partition) {
+		boolean firstPartition = this.handedStateToPartitions;
+		this.handedStateToPartitions = false;
+		for (Map.Entry<Id<Vehicle>, LinkEnterEvent> entry : this.linkEnterEventsBeforePartitioning.entrySet()) {
+			if (partition.linkEnterEvents.get(entry.getKey()) != entry.getValue()
+					&& this.linkEnterEvents.get(entry.getKey()) == entry.getValue()) {
+				this.linkEnterEvents.remove(entry.getKey());
+			}
+		}
+		for (LinkEnterEvent event : partition.linkEnterEvents.values()) {
+			if (this.linkEnterEventsBeforePartitioning.get(event.getVehicleId()) != event) {
+				this.linkEnterEvents.put(event.getVehicleId(), event);
+			}
+		}
+		if (firstPartition) {
+			this.vehiclesToIgnore.clear();
+			this.vehiclesToIgnore.addAll(partition.vehiclesToIgnore);
+		} else {
+			this.vehiclesToIgnore.retainAll(partition.vehiclesToIgnore);
+		}
+	}
+
 	@Override
 	public void handleEvent(final LinkEnterEvent e) {
 		/* if only some modes are analyzed, we check whether the vehicles
@@ -223,7 +325,10 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 	@Override
 	public void handleEvent(final LinkLeaveEvent e) {
 		if (this.calculateLinkTravelTimes) {
-			LinkEnterEvent oldEvent = this.linkEnterEvents.get(e.getVehicleId());
+			/* the link-to-link travel times still need the event when the vehicle enters the next link.  Otherwise
+			 * it is removed, so that a partition does not keep it when the vehicle moves on to another partition. */
+			LinkEnterEvent oldEvent = this.calculateLinkToLinkTravelTimes ? this.linkEnterEvents.get(e.getVehicleId())
+					: this.linkEnterEvents.remove(e.getVehicleId());
 			if (oldEvent != null) {
 				DataContainer data = this.dataContainerProvider.getTravelTimeData(e.getLinkId(), true);
 				this.aggregator.addTravelTime(data.ttData, oldEvent.getTime(), e.getTime());
@@ -412,16 +517,11 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		}
 	}
 
+	/**
+	 * @return always the same object, so that routers can recognize these travel times
+	 */
 	public TravelTime getLinkTravelTimes() {
-		return new TravelTime() {
-
-			@Override
-			public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
-				return TravelTimeCalculator.this.getLinkTravelTime(link.getId(), time);
-			}
-
-		};
-
+		return this.linkTravelTimes;
 	}
 
 	public LinkToLinkTravelTime getLinkToLinkTravelTimes() {
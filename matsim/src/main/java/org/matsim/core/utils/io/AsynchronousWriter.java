@@ -0,0 +1,198 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AsynchronousWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes everything written to it on to another writer in a thread of its own, so that encoding, compressing and
+ * writing the data does not slow down the writing thread.  The characters are collected in buffers which are handed
+ * to the thread when they are full.  If the thread falls behind by more than a fixed number of buffers, the writing
+ * thread waits until a buffer is free again.
+ * <p></p>
+ * {@link #flush()} only hands the current buffer to the thread, which then flushes the other writer, while
+ * {@link #close()} waits until all data is written and the other writer is closed.  Errors of the thread are thrown
+ * by the next call which hands over a buffer, and so is the end of the thread, e.g. by an {@link Error}, which would
+ * otherwise leave the writing thread waiting for a free place in the queue forever.
+ */
+public final class AsynchronousWriter extends Writer {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_QUEUED_BUFFERS = 16;
+
+	private final Writer delegate;
+	private final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(MAX_QUEUED_BUFFERS);
+	private final BlockingQueue<char[]> freeBuffers = new ArrayBlockingQueue<>(MAX_QUEUED_BUFFERS + 1);
+	private final Thread thread;
+	private volatile IOException error = null;
+
+	private char[] buffer = new char[BUFFER_SIZE];
+	private int length = 0;
+	private boolean closed = false;
+
+	public AsynchronousWriter(final Writer delegate, final String threadName) {
+		this.delegate = delegate;
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeChunks();
+			}
+		}, threadName);
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	@Override
+	public void write(final int c) throws IOException {
+		if (this.length == this.buffer.length) {
+			handOver(false, false);
+		}
+		this.buffer[this.length++] = (char) c;
+	}
+
+	@Override
+	public void write(final char[] cbuf, int off, int len) throws IOException {
+		while (len > 0) {
+			if (this.length == this.buffer.length) {
+				handOver(false, false);
+			}
+			int n = Math.min(len, this.buffer.length - this.length);
+			System.arraycopy(cbuf, off, this.buffer, this.length, n);
+			this.length += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public void write(final String str, int off, int len) throws IOException {
+		while (len > 0) {
+			if (this.length == this.buffer.length) {
+				handOver(false, false);
+			}
+			int n = Math.min(len, this.buffer.length - this.length);
+			str.getChars(off, off + n, this.buffer, this.length);
+			this.length += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		handOver(true, false);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		handOver(false, true);
+		try {
+			this.thread.join();
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		}
+		if (this.error != null) {
+			throw this.error;
+		}
+	}
+
+	private void handOver(final boolean flush, final boolean last) throws IOException {
+		if (this.error != null && !last) {
+			throw this.error;
+		}
+		Chunk chunk = new Chunk(this.buffer, this.length, flush, last);
+		try {
+			while (!this.queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+				if (!this.thread.isAlive()) {
+					throw this.error != null ? this.error : new IOException("Thread " + this.thread.getName() + " ended unexpectedly.");
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		}
+		if (!last) {
+			char[] free = this.freeBuffers.poll();
+			this.buffer = free != null ? free : new char[BUFFER_SIZE];
+			this.length = 0;
+		}
+	}
+
+	private void writeChunks() {
+		while (true) {
+			Chunk chunk;
+			try {
+				chunk = this.queue.take();
+			} catch (InterruptedException e) {
+				this.error = new IOException(e);
+				return;
+			}
+			if (this.error == null) {
+				try {
+					this.delegate.write(chunk.chars, 0, chunk.length);
+					if (chunk.last) {
+						this.delegate.close();
+					} else if (chunk.flush) {
+						this.delegate.flush();
+					}
+				} catch (IOException e) {
+					// keep taking the buffers, so that the writing thread does not wait forever
+					this.error = e;
+				} catch (RuntimeException e) {
+					this.error = new IOException(e);
+				}
+			}
+			if (chunk.last) {
+				if (this.error != null) {
+					try {
+						this.delegate.close();
+					} catch (IOException e) {
+						// the first error is reported
+					}
+				}
+				return;
+			}
+			this.freeBuffers.offer(chunk.chars);
+		}
+	}
+
+	private static final class Chunk {
+		final char[] chars;
+		final int length;
+		final boolean flush;
+		final boolean last;
+
+		Chunk(final char[] chars, final int length, final boolean flush, final boolean last) {
+			this.chars = chars;
+			this.length = length;
+			this.flush = flush;
+			this.last = last;
+		}
+	}
+
+}
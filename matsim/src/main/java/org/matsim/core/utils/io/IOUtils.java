@@ -57,6 +57,16 @@ public class IOUtils {
 
 	private final static Logger log = Logger.getLogger(IOUtils.class);
 
+	private static int numberOfCompressionThreads = 1;
+
+	/**
+	 * Sets the number of threads which compress the gzip-compressed files opened for writing from now on.  With more
+	 * than one thread, the files are written by a {@link ParallelGZIPOutputStream}, they are still standard gzip files.
+	 */
+	public static void setNumberOfCompressionThreads(final int numberOfThreads) {
+		numberOfCompressionThreads = Math.max(1, numberOfThreads);
+	}
+
 	public static URL getUrlFromFileOrResource(String filename) {
 		if (filename.startsWith("~" + File.separator)) {
 		    filename = System.getProperty("user.home") + filename.substring(1);
@@ -259,7 +269,7 @@ public class IOUtils {
 				if (append && f.exists() && (f.length() > 0)) {
 					throw new IllegalArgumentException("Appending to an existing gzip-compressed file is not supported.");
 				}
-				return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(filename, append)), charset));
+				return new BufferedWriter(new OutputStreamWriter(getCompressingOutputStream(new FileOutputStream(filename, append)), charset));
 			}
 			return new BufferedWriter(new OutputStreamWriter(new FileOutputStream (filename, append), charset));
 		} catch (IOException e) {
@@ -613,7 +623,7 @@ public class IOUtils {
 		}
 		try {
 			if (filename.toLowerCase(Locale.ROOT).endsWith(GZ)) {
-				return new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(filename)));
+				return new BufferedOutputStream(getCompressingOutputStream(new FileOutputStream(filename)));
 			} else {
 				return new BufferedOutputStream(new FileOutputStream (filename));
 			}
@@ -622,6 +632,13 @@ public class IOUtils {
 		}
 	}
 
+	private static OutputStream getCompressingOutputStream(final OutputStream stream) throws IOException {
+		if (numberOfCompressionThreads > 1) {
+			return new ParallelGZIPOutputStream(stream, numberOfCompressionThreads);
+		}
+		return new GZIPOutputStream(stream);
+	}
+
 	// Compares two InputStreams.
 	// Interestingly, StackOverflow claims that this naive way would be slow,
 	// but for me, it is OK and the fast alternative which is proposed there is 
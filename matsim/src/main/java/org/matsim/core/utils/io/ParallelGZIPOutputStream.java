@@ -0,0 +1,210 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelGZIPOutputStream.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a standard gzip stream, but compresses the data with several threads.  The data is split into blocks which
+ * are deflated independently of each other, every block using the end of the previous block as dictionary so that the
+ * compression ratio stays close to that of {@link java.util.zip.GZIPOutputStream}.  All blocks but the last one end
+ * with a sync flush, so their output can simply be concatenated into one deflate stream.
+ * <p></p>
+ * The calling thread only copies the data into the blocks and computes the checksum.  At most two blocks per thread
+ * are compressed or wait to be written at the same time.
+ */
+public final class ParallelGZIPOutputStream extends FilterOutputStream {
+
+	private static final int BLOCK_SIZE = 128 * 1024;
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+
+	private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	private final ExecutorService pool;
+	private final int maxPendingBlocks;
+	private final int level;
+	private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+	private final CRC32 crc = new CRC32();
+	private long size = 0;
+
+	private byte[] block = new byte[BLOCK_SIZE];
+	private int blockLength = 0;
+	private byte[] dictionary = null;
+	private boolean closed = false;
+
+	public ParallelGZIPOutputStream(final OutputStream out, final int numberOfThreads) throws IOException {
+		this(out, numberOfThreads, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	public ParallelGZIPOutputStream(final OutputStream out, final int numberOfThreads, final int level) throws IOException {
+		super(out);
+		this.level = level;
+		this.maxPendingBlocks = 2 * numberOfThreads;
+		this.pool = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+			private int count = 0;
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "ParallelGZIP" + count++);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.out.write(HEADER);
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(final byte[] b, int off, int len) throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream closed");
+		}
+		this.crc.update(b, off, len);
+		this.size += len;
+		while (len > 0) {
+			int n = Math.min(len, BLOCK_SIZE - this.blockLength);
+			System.arraycopy(b, off, this.block, this.blockLength, n);
+			this.blockLength += n;
+			off += n;
+			len -= n;
+			if (this.blockLength == BLOCK_SIZE) {
+				submitBlock(false);
+			}
+		}
+	}
+
+	/**
+	 * Only writes the blocks that are already compressed; the data of the current block stays in memory until the block
+	 * is full, as every block ending early makes the compression a bit worse.
+	 */
+	@Override
+	public void flush() throws IOException {
+		while (!this.pending.isEmpty() && this.pending.peek().isDone()) {
+			writeOldestBlock();
+		}
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		try {
+			submitBlock(true);
+			while (!this.pending.isEmpty()) {
+				writeOldestBlock();
+			}
+			writeIntLE((int) this.crc.getValue());
+			writeIntLE((int) this.size);
+			this.out.flush();
+		} finally {
+			this.pool.shutdownNow();
+			this.out.close();
+		}
+	}
+
+	private void submitBlock(final boolean last) throws IOException {
+		final byte[] data = this.block;
+		final int length = this.blockLength;
+		final byte[] dict = this.dictionary;
+		if (length >= DICTIONARY_SIZE) {
+			this.dictionary = Arrays.copyOfRange(data, length - DICTIONARY_SIZE, length);
+		}
+		this.pending.add(this.pool.submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				return deflate(data, length, dict, last);
+			}
+		}));
+		if (!last) {
+			this.block = new byte[BLOCK_SIZE];
+			this.blockLength = 0;
+		}
+		while (this.pending.size() >= this.maxPendingBlocks) {
+			writeOldestBlock();
+		}
+	}
+
+	private byte[] deflate(final byte[] data, final int length, final byte[] dict, final boolean last) {
+		Deflater deflater = new Deflater(this.level, true);
+		try {
+			if (dict != null) {
+				deflater.setDictionary(dict);
+			}
+			deflater.setInput(data, 0, length);
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+			byte[] buffer = new byte[16 * 1024];
+			if (last) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					int n = deflater.deflate(buffer);
+					compressed.write(buffer, 0, n);
+				}
+			} else {
+				int n;
+				do {
+					n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+					compressed.write(buffer, 0, n);
+				} while (n == buffer.length);
+			}
+			return compressed.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private void writeOldestBlock() throws IOException {
+		try {
+			this.out.write(this.pending.poll().get());
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private void writeIntLE(final int value) throws IOException {
+		this.out.write(value & 0xff);
+		this.out.write((value >>> 8) & 0xff);
+		this.out.write((value >>> 16) & 0xff);
+		this.out.write((value >>> 24) & 0xff);
+	}
+
+}
@@ -0,0 +1,121 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IdMapTest {
+
+	@Test
+	public void testPutGetRemove() {
+		Map<Id<TItem>, String> map = new IdMap<>(TItem.class, 2);
+		Id<TItem> id1 = Id.create("1", TItem.class);
+		Id<TItem> id2 = Id.create("2", TItem.class);
+		Id<TItem> id3 = Id.create("3", TItem.class);
+
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.put(id1, "one"));
+		Assert.assertNull(map.put(id3, "three"));
+		Assert.assertEquals(2, map.size());
+
+		Assert.assertEquals("one", map.get(id1));
+		Assert.assertNull(map.get(id2));
+		Assert.assertEquals("three", map.get(id3));
+		Assert.assertTrue(map.containsKey(id3));
+		Assert.assertFalse(map.containsKey(id2));
+		Assert.assertTrue(map.containsValue("three"));
+		Assert.assertFalse(map.containsValue("two"));
+
+		Assert.assertEquals("one", map.put(id1, "uno"));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("uno", map.get(id1));
+
+		Assert.assertEquals("uno", map.remove(id1));
+		Assert.assertNull(map.remove(id1));
+		Assert.assertEquals(1, map.size());
+		Assert.assertNull(map.get(id1));
+
+		map.clear();
+		Assert.assertEquals(0, map.size());
+		Assert.assertNull(map.get(id3));
+	}
+
+	@Test
+	public void testNullValues() {
+		Map<Id<TItem>, String> map = new IdMap<>(TItem.class);
+		Id<TItem> id1 = Id.create("1", TItem.class);
+
+		Assert.assertNull(map.put(id1, null));
+		Assert.assertEquals(1, map.size());
+		Assert.assertTrue(map.containsKey(id1));
+		Assert.assertTrue(map.containsValue(null));
+	}
+
+	@Test
+	public void testIdsOfOtherType() {
+		Map<Id<TItem>, String> map = new IdMap<>(TItem.class);
+		Id<TOther> otherIdB = Id.create("b", TOther.class); // make sure the indices differ
+		Id<TOther> otherIdA = Id.create("a", TOther.class);
+		Id<TItem> idA = Id.create("a", TItem.class);
+
+		map.put(idA, "a");
+		Assert.assertEquals("a", map.get(otherIdA));
+		Assert.assertNull(map.get(otherIdB));
+		Assert.assertEquals("a", map.remove(otherIdA));
+		Assert.assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void testIteration() {
+		Map<Id<TItem>, String> map = new IdMap<>(TItem.class);
+		Id<TItem> id1 = Id.create("1", TItem.class);
+		Id<TItem> id2 = Id.create("2", TItem.class);
+		Id<TItem> id3 = Id.create("3", TItem.class);
+
+		map.put(id3, "three");
+		map.put(id1, "one");
+		map.put(id2, "two");
+
+		Iterator<Map.Entry<Id<TItem>, String>> iter = map.entrySet().iterator();
+		Map.Entry<Id<TItem>, String> e = iter.next();
+		Assert.assertEquals(id1, e.getKey());
+		Assert.assertEquals("one", e.getValue());
+		e = iter.next();
+		Assert.assertEquals(id2, e.getKey());
+		e.setValue("deux");
+		iter.remove();
+		e = iter.next();
+		Assert.assertEquals(id3, e.getKey());
+		Assert.assertFalse(iter.hasNext());
+
+		Assert.assertEquals(2, map.size());
+		Assert.assertFalse(map.containsKey(id2));
+		Assert.assertEquals(2, map.keySet().size());
+		Assert.assertTrue(map.values().contains("three"));
+	}
+
+	private static class TItem {}
+	private static class TOther {}
+
+}
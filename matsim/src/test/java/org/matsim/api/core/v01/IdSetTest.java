@@ -0,0 +1,60 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IdSetTest {
+
+	@Test
+	public void testAddContainsRemove() {
+		Set<Id<TItem>> set = new IdSet<>(TItem.class, 1);
+		Id<TItem> id1 = Id.create("1", TItem.class);
+		Id<TItem> id2 = Id.create("2", TItem.class);
+		Id<TItem> id3 = Id.create("3", TItem.class);
+
+		Assert.assertTrue(set.add(id3));
+		Assert.assertTrue(set.add(id1));
+		Assert.assertFalse(set.add(id1));
+		Assert.assertEquals(2, set.size());
+		Assert.assertTrue(set.contains(id1));
+		Assert.assertFalse(set.contains(id2));
+		Assert.assertTrue(set.contains(Id.create("3", TOther.class)));
+
+		Iterator<Id<TItem>> iter = set.iterator();
+		Assert.assertEquals(id1, iter.next());
+		iter.remove();
+		Assert.assertEquals(id3, iter.next());
+		Assert.assertFalse(iter.hasNext());
+
+		Assert.assertEquals(1, set.size());
+		Assert.assertTrue(set.remove(id3));
+		Assert.assertFalse(set.remove(id3));
+		Assert.assertTrue(set.isEmpty());
+	}
+
+	private static class TItem {}
+	private static class TOther {}
+
+}
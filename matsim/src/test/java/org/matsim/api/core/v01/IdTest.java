@@ -67,7 +67,33 @@ public class IdTest {
 //		} // FIXME temporarily deactivated
 	}
 	
+	@Test
+	public void testIndex() {
+		Id<TFacility> facId1 = Id.create("1", TFacility.class);
+		Id<TFacility> facId2 = Id.create("2", TFacility.class);
+		Id<TFacility> facId1again = Id.create("1", TFacility.class);
+		
+		Assert.assertEquals(0, facId1.index());
+		Assert.assertEquals(1, facId2.index());
+		Assert.assertEquals(0, facId1again.index());
+		Assert.assertEquals(2, Id.getNumberOfIds(TFacility.class));
+		
+		Assert.assertTrue(facId1 == Id.get(0, TFacility.class));
+		Assert.assertTrue(facId2 == Id.get(1, TFacility.class));
+		Assert.assertTrue(facId2 == Id.get("2", TFacility.class));
+		Assert.assertNull(Id.get("3", TFacility.class));
+		Assert.assertEquals(2, Id.getNumberOfIds(TFacility.class));
+		
+		try {
+			Id.get(2, TFacility.class);
+			Assert.fail("expected exception, got none");
+		} catch (IndexOutOfBoundsException e) {
+			// expected exception
+		}
+	}
+	
 	private static class TLink {}
+	private static class TFacility {}
 	private static class TNode {}
 	
 }
@@ -19,12 +19,21 @@
 
 package org.matsim.core.events;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.events.handler.NonRetainingEventHandler;
 
 /**
  * @author mrieser
@@ -63,6 +72,104 @@ public class EventsManagerImplTest {
 		}
 	}
 
+	@Test
+	public void testProcessEvent_HandlerAddedToSeveralManagers() throws InterruptedException {
+		final EventsManager manager1 = EventsUtils.createEventsManager();
+		final EventsManager manager2 = EventsUtils.createEventsManager();
+		final CountingMyEventHandler handler = new CountingMyEventHandler();
+		manager1.addHandler(handler);
+		manager2.addHandler(handler);
+		Thread[] threads = new Thread[2];
+		for (int i = 0; i < threads.length; i++) {
+			final EventsManager manager = i == 0 ? manager1 : manager2;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 100000; j++) {
+						manager.processEvent(new MyEvent(j));
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		// the handler itself is not thread-safe, so it is only called correctly if the calls are synchronized
+		Assert.assertEquals(200000, handler.counter);
+
+		manager2.removeHandler(handler);
+		manager1.processEvent(new MyEvent(123.45));
+		Assert.assertEquals(200001, handler.counter);
+	}
+
+	@Test
+	public void testProcessEvent_ReusableEvent() {
+		EventsManager manager = EventsUtils.createEventsManager();
+		LinkEnterCollector retaining = new LinkEnterCollector();
+		NonRetainingLinkEnterCollector nonRetaining = new NonRetainingLinkEnterCollector();
+		manager.addHandler(retaining);
+		manager.addHandler(nonRetaining);
+
+		ReusableLinkEnterEvent event = new ReusableLinkEnterEvent(1.0, Id.createVehicleId(1), Id.createLinkId(1));
+		manager.processEvent(event);
+		manager.processEvent(event.update(2.0, Id.createVehicleId(2), Id.createLinkId(2)));
+
+		Assert.assertSame(event, nonRetaining.events.get(0));
+		Assert.assertSame(event, nonRetaining.events.get(1));
+		Assert.assertEquals(2, retaining.events.size());
+		for (int i = 0; i < 2; i++) {
+			LinkEnterEvent copy = retaining.events.get(i);
+			Assert.assertEquals(LinkEnterEvent.class, copy.getClass());
+			Assert.assertEquals(i + 1.0, copy.getTime(), 0.0);
+			Assert.assertEquals(Id.createVehicleId(i + 1), copy.getVehicleId());
+			Assert.assertEquals(Id.createLinkId(i + 1), copy.getLinkId());
+		}
+		Assert.assertEquals(retaining.events.get(1), event);
+	}
+
+	@Test
+	public void testHasHandlers() {
+		EventsManager manager = EventsUtils.createEventsManager();
+		Assert.assertFalse(manager.hasHandlers(LinkEnterEvent.class));
+
+		LinkEnterCollector collector = new LinkEnterCollector();
+		manager.addHandler(collector);
+		Assert.assertTrue(manager.hasHandlers(LinkEnterEvent.class));
+		Assert.assertTrue(manager.hasHandlers(ReusableLinkEnterEvent.class));
+		Assert.assertFalse(manager.hasHandlers(LinkLeaveEvent.class));
+
+		manager.removeHandler(collector);
+		Assert.assertFalse(manager.hasHandlers(LinkEnterEvent.class));
+
+		manager.addHandler(new BasicEventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+			}
+			@Override
+			public void reset(int iteration) {
+			}
+		});
+		Assert.assertTrue(manager.hasHandlers(LinkLeaveEvent.class));
+		Assert.assertTrue(manager.hasHandlers(MyEvent.class));
+	}
+
+	private static class LinkEnterCollector implements LinkEnterEventHandler {
+		final List<LinkEnterEvent> events = new ArrayList<>();
+
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			this.events.add(event);
+		}
+
+		@Override
+		public void reset(int iteration) {
+		}
+	}
+
+	private static class NonRetainingLinkEnterCollector extends LinkEnterCollector implements NonRetainingEventHandler {
+	}
+
 	/*package*/ static class MyEvent extends Event {
 		public MyEvent(final double time) {
 			super(time);
@@ -0,0 +1,125 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsRingBufferTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+
+public class EventsRingBufferTest {
+
+	@Test
+	public void testCapacityIsPowerOfTwo() {
+		Assert.assertEquals(4, new EventsRingBuffer(3, 1).getCapacity());
+		Assert.assertEquals(1024, new EventsRingBuffer(1024, 1).getCapacity());
+		Assert.assertEquals(2048, new EventsRingBuffer(1025, 1).getCapacity());
+	}
+
+	/**
+	 * Several producers publish many more events than fit into the buffer; every consumer must see all of them, and the
+	 * events of every producer in the order they were published.
+	 */
+	@Test
+	public void testSeveralProducersAndConsumers() throws InterruptedException {
+		final int numberOfProducers = 3;
+		final int numberOfConsumers = 4;
+		final int eventsPerProducer = 100000;
+		final EventsRingBuffer ringBuffer = new EventsRingBuffer(64, numberOfConsumers);
+		final AtomicReference<String> error = new AtomicReference<>();
+
+		Thread[] consumers = new Thread[numberOfConsumers];
+		for (int c = 0; c < numberOfConsumers; c++) {
+			final int consumer = c;
+			consumers[c] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					int[] nextExpected = new int[numberOfProducers];
+					long sequence = 0;
+					while (sequence < (long) numberOfProducers * eventsPerProducer) {
+						long available = ringBuffer.waitFor(sequence, 16);
+						for (; sequence <= available; sequence++) {
+							Event event = ringBuffer.get(sequence);
+							int producer = Integer.parseInt(event.getAttributes().get("producer"));
+							int number = (int) event.getTime();
+							if (number != nextExpected[producer]) {
+								error.compareAndSet(null, "consumer " + consumer + " got event " + number + " of producer " + producer
+										+ " instead of " + nextExpected[producer]);
+							}
+							nextExpected[producer] = number + 1;
+						}
+						ringBuffer.setConsumerSequence(consumer, sequence);
+					}
+				}
+			});
+			consumers[c].start();
+		}
+
+		Thread[] producers = new Thread[numberOfProducers];
+		for (int p = 0; p < numberOfProducers; p++) {
+			final int producer = p;
+			producers[p] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < eventsPerProducer; i++) {
+						GenericEvent event = new GenericEvent("test", i);
+						event.getAttributes().put("producer", Integer.toString(producer));
+						ringBuffer.publish(event);
+					}
+				}
+			});
+			producers[p].start();
+		}
+
+		for (Thread thread : producers) {
+			thread.join();
+		}
+		for (Thread thread : consumers) {
+			thread.join(60000);
+			Assert.assertFalse("consumer did not finish", thread.isAlive());
+		}
+		Assert.assertNull(error.get(), error.get());
+		Assert.assertEquals(0, ringBuffer.getNumberOfPendingEvents());
+	}
+
+	@Test
+	public void testHaltReleasesWaitingThreads() throws InterruptedException {
+		final EventsRingBuffer ringBuffer = new EventsRingBuffer(4, 1);
+		Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 10; i++) {
+					ringBuffer.publish(new GenericEvent("test", i));
+				}
+			}
+		});
+		producer.start();
+		Thread.sleep(50);
+		Assert.assertTrue("the producer should wait for the consumer", producer.isAlive());
+		ringBuffer.halt();
+		producer.join(10000);
+		Assert.assertFalse(producer.isAlive());
+		Assert.assertEquals(-1, ringBuffer.waitFor(100, 1));
+	}
+
+}
@@ -0,0 +1,105 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelEventsReaderXMLTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+import org.matsim.vehicles.Vehicle;
+
+public class ParallelEventsReaderXMLTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testChunksInOriginalOrder() {
+		for (String filename : new String[] { "events.xml", "events.xml.gz" }) {
+			String path = this.utils.getOutputDirectory() + filename;
+			writeEvents(new EventWriterXML(path));
+			List<Event> expected = readEvents(path, 1);
+
+			EventsCollector collector = new EventsCollector();
+			EventsManager events = EventsUtils.createEventsManager();
+			events.addHandler(collector);
+			new ParallelEventsReaderXML(events, 3, 100).readFile(path);
+			Assert.assertEquals(5000, collector.getEvents().size());
+			Assert.assertEquals(expected, collector.getEvents());
+		}
+	}
+
+	@Test
+	public void testTimeBinsOfIndex() {
+		String path = this.utils.getOutputDirectory() + "events.xml.gz";
+		writeEvents(new EventWriterXML(path, 60.0));
+		List<Event> expected = readEvents(path, 1);
+		Assert.assertEquals(5000, expected.size());
+		Assert.assertEquals(expected, readEvents(path, 4));
+
+		EventsCollector collector = new EventsCollector();
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(collector);
+		MatsimEventsReader reader = new MatsimEventsReader(events);
+		reader.setNumberOfThreads(4);
+		reader.readFile(path, 300.0, 700.0);
+		Assert.assertEquals(expected.subList(1500, 3500), collector.getEvents());
+	}
+
+	private static void writeEvents(EventWriterXML writer) {
+		for (int i = 0; i < 1000; i++) {
+			double time = i;
+			Id<Person> person = Id.create(i % 37, Person.class);
+			Id<Vehicle> vehicle = Id.create(i % 37, Vehicle.class);
+			writer.handleEvent(new PersonDepartureEvent(time, person, Id.create(i, Link.class), "car"));
+			writer.handleEvent(new LinkLeaveEvent(time, vehicle, Id.create(i, Link.class)));
+			writer.handleEvent(new LinkEnterEvent(time, vehicle, Id.create("<" + (i + 1) + ">", Link.class)));
+			GenericEvent generic = new GenericEvent("custom", time);
+			generic.getAttributes().put("value", "a&b " + i);
+			writer.handleEvent(generic);
+			writer.handleEvent(new LinkLeaveEvent(time + 0.5, vehicle, Id.create(i + 1, Link.class)));
+		}
+		writer.closeFile();
+	}
+
+	private static List<Event> readEvents(String filename, int numberOfThreads) {
+		EventsCollector collector = new EventsCollector();
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(collector);
+		MatsimEventsReader reader = new MatsimEventsReader(events);
+		reader.setNumberOfThreads(numberOfThreads);
+		reader.readFile(filename);
+		return collector.getEvents();
+	}
+
+}
@@ -1,12 +1,22 @@
 package org.matsim.core.events;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
 import org.junit.Test;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
 import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonStuckEventHandler;
+import org.matsim.core.events.handler.PartitionableEventHandler;
 import org.matsim.testcases.utils.EventsCollector;
+import org.matsim.vehicles.Vehicle;
 
 import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
 import static org.junit.Assert.assertThat;
@@ -51,4 +61,79 @@ public class SimStepParallelEventsManagerImplTest {
 					new PersonStuckEvent(1.0, Id.createPersonId(0), Id.createLinkId(0), "car")));
 	}
 
+	@Test
+	public void testPartitionableEventHandler() {
+		final SimStepParallelEventsManagerImpl events = new SimStepParallelEventsManagerImpl(3);
+		VehiclesOnLinks handler = new VehiclesOnLinks();
+		events.addHandler(handler);
+
+		events.initProcessing();
+		for (int time = 0; time < 10; time++) {
+			for (int vehicle = 0; vehicle < 50; vehicle++) {
+				events.processEvent(new LinkEnterEvent(time, Id.createVehicleId(vehicle), Id.createLinkId(time)));
+			}
+			events.processEvent(new PersonStuckEvent(time, Id.createPersonId(0), Id.createLinkId(0), "car"));
+			events.afterSimStep(time);
+		}
+		events.finishProcessing();
+
+		Assert.assertEquals(3, handler.partitions.size());
+		Set<Id<Vehicle>> vehicles = new HashSet<>();
+		for (VehiclesOnLinks partition : handler.partitions) {
+			Assert.assertFalse("every partition should get some vehicles", partition.vehicles.isEmpty());
+			Assert.assertEquals("every partition needs all events without key", 10, partition.stuckEvents);
+			for (Id<Vehicle> vehicle : partition.vehicles) {
+				Assert.assertTrue("vehicle " + vehicle + " in several partitions", vehicles.add(vehicle));
+			}
+		}
+		Assert.assertEquals(50, vehicles.size());
+		Assert.assertEquals(500, handler.linkEnterEvents);
+		Assert.assertEquals(30, handler.stuckEvents);
+
+		// after the mobsim, the handler itself gets the events again
+		events.processEvent(new LinkEnterEvent(10, Id.createVehicleId(0), Id.createLinkId(0)));
+		Assert.assertEquals(501, handler.linkEnterEvents);
+	}
+
+	private static class VehiclesOnLinks implements LinkEnterEventHandler, PersonStuckEventHandler,
+			PartitionableEventHandler<VehiclesOnLinks> {
+
+		final List<VehiclesOnLinks> partitions = new ArrayList<>();
+		final Set<Id<Vehicle>> vehicles = new HashSet<>();
+		int linkEnterEvents = 0;
+		int stuckEvents = 0;
+
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			this.vehicles.add(event.getVehicleId());
+			this.linkEnterEvents++;
+		}
+
+		@Override
+		public void handleEvent(PersonStuckEvent event) {
+			this.stuckEvents++;
+		}
+
+		@Override
+		public void reset(int iteration) {}
+
+		@Override
+		public VehiclesOnLinks createPartition() {
+			VehiclesOnLinks partition = new VehiclesOnLinks();
+			this.partitions.add(partition);
+			return partition;
+		}
+
+		@Override
+		public Object getPartitionKey(Event event) {
+			return event instanceof LinkEnterEvent ? ((LinkEnterEvent) event).getVehicleId() : null;
+		}
+
+		@Override
+		public void mergePartition(VehiclesOnLinks partition) {
+			this.linkEnterEvents += partition.linkEnterEvents;
+			this.stuckEvents += partition.stuckEvents;
+		}
+	}
+
 }
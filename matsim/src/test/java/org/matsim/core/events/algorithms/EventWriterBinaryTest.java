@@ -0,0 +1,162 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinaryTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
+import org.matsim.core.events.BinaryEventsFormat;
+import org.matsim.core.events.EventsReaderBinary;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+import org.matsim.vehicles.Vehicle;
+
+public class EventWriterBinaryTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testWriteAndRead() {
+		List<Event> expected = new ArrayList<>();
+		expected.add(new ActivityEndEvent(21600.0, Id.create("1", Person.class), Id.create("l1", Link.class), null, "home"));
+		expected.add(new PersonDepartureEvent(21600.0, Id.create("1", Person.class), Id.create("l1", Link.class), "car"));
+		expected.add(new VehicleEntersTrafficEvent(21601.0, Id.create("1", Person.class), Id.create("l1", Link.class), Id.create("v1", Vehicle.class), "car", 1.0));
+		expected.add(new LinkLeaveEvent(21625.5, Id.create("v1", Vehicle.class), Id.create("l1", Link.class)));
+		expected.add(new LinkEnterEvent(21625.5, Id.create("v1", Vehicle.class), Id.create("l2 ä", Link.class)));
+		expected.add(new PersonStuckEvent(21700.0, Id.create("1", Person.class), null, null));
+		expected.add(new PersonMoneyEvent(-3.25, Id.create("1", Person.class), -12.5));
+		expected.add(new VehicleArrivesAtFacilityEvent(21800.0, Id.create("bus", Vehicle.class), Id.create("stop", TransitStopFacility.class), 0.5));
+		expected.add(new TransitDriverStartsEvent(21700.0, Id.create("driver", Person.class), Id.create("bus", Vehicle.class),
+				Id.create("line", TransitLine.class), Id.create("route", TransitRoute.class), Id.create("dep", Departure.class)));
+		GenericEvent generic = new GenericEvent("myEvent", 21900.0);
+		generic.getAttributes().put("name", "value");
+		generic.getAttributes().put("link", "l2 ä");
+		expected.add(generic);
+
+		List<Event> actual = writeAndRead(expected);
+		assertSameEvents(expected, actual);
+		Assert.assertTrue(actual.get(0) instanceof ActivityEndEvent);
+		Assert.assertTrue(actual.get(9) instanceof GenericEvent);
+	}
+
+	@Test
+	public void testSeveralChunks() {
+		List<Event> expected = new ArrayList<>();
+		for (int i = 0; i < 3 * BinaryEventsFormat.EVENTS_PER_CHUNK + 17; i++) {
+			Id<Vehicle> vehicleId = Id.create(i % 1000, Vehicle.class);
+			expected.add(new LinkEnterEvent(i / 10, vehicleId, Id.create(i, Link.class)));
+			expected.add(new LinkLeaveEvent(i / 10 + 0.1, vehicleId, Id.create(i, Link.class)));
+		}
+		assertSameEvents(expected, writeAndRead(expected));
+	}
+
+	@Test
+	public void testTimeWindow() {
+		List<Event> events = new ArrayList<>();
+		for (int i = 0; i < 2 * BinaryEventsFormat.EVENTS_PER_CHUNK + 17; i++) {
+			events.add(new LinkEnterEvent(i, Id.create(i % 1000, Vehicle.class), Id.create(i, Link.class)));
+		}
+		String filename = write(events);
+
+		double fromTime = BinaryEventsFormat.EVENTS_PER_CHUNK + 100;
+		double toTime = BinaryEventsFormat.EVENTS_PER_CHUNK + 200;
+		EventsManager manager = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		manager.addHandler(collector);
+		new MatsimEventsReader(manager).readFile(filename, fromTime, toTime);
+		assertSameEvents(events.subList((int) fromTime, (int) toTime), collector.getEvents());
+	}
+
+	@Test
+	public void testReadTwice() {
+		List<Event> events = new ArrayList<>();
+		for (int i = 0; i < BinaryEventsFormat.EVENTS_PER_CHUNK + 17; i++) {
+			events.add(new LinkEnterEvent(i, Id.create(i % 1000, Vehicle.class), Id.create(i, Link.class)));
+		}
+		String filename = write(events);
+
+		EventsManager manager = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		manager.addHandler(collector);
+		EventsReaderBinary reader = new EventsReaderBinary(manager);
+		reader.readFile(filename);
+		assertSameEvents(events, collector.getEvents());
+		collector.reset(0);
+		reader.readFile(filename);
+		assertSameEvents(events, collector.getEvents());
+	}
+
+	@Test
+	public void testNoEvents() {
+		Assert.assertEquals(0, writeAndRead(new ArrayList<Event>()).size());
+	}
+
+	private List<Event> writeAndRead(List<Event> events) {
+		String filename = write(events);
+		EventsManager manager = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		manager.addHandler(collector);
+		new MatsimEventsReader(manager).readFile(filename);
+		return collector.getEvents();
+	}
+
+	private String write(List<Event> events) {
+		String filename = this.utils.getOutputDirectory() + "events.bin.gz";
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (Event event : events) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+		return filename;
+	}
+
+	private static void assertSameEvents(List<Event> expected, List<Event> actual) {
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals("event #" + i, expected.get(i).getAttributes(), actual.get(i).getAttributes());
+		}
+	}
+
+}
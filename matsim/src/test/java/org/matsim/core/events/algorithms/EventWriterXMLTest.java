@@ -19,18 +19,39 @@
 
 package org.matsim.core.events.algorithms;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsFileIndex;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.ReusableLinkEnterEvent;
+import org.matsim.core.events.ReusableLinkLeaveEvent;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.facilities.ActivityFacility;
 import org.matsim.testcases.MatsimTestUtils;
 import org.matsim.testcases.utils.EventsCollector;
 import org.matsim.vehicles.Vehicle;
@@ -92,4 +113,124 @@ public class EventWriterXMLTest {
 		
 		Assert.assertEquals("there must be 1 event.", 1, collector.getEvents().size());
 	}
+
+	/**
+	 * The most frequent events are written without their attribute map; the result must be the same.
+	 */
+	@Test
+	public void testDirectlyWrittenEvents() throws IOException {
+		Id<Person> person = Id.create("p&1", Person.class);
+		Id<Link> link = Id.create("l1", Link.class);
+		Id<Vehicle> vehicle = Id.create("v1", Vehicle.class);
+		List<Event> events = new ArrayList<>();
+		events.add(new ActivityEndEvent(1.0, person, link, null, "home"));
+		events.add(new ActivityEndEvent(1.0, person, null, Id.create("f1", ActivityFacility.class), "home"));
+		events.add(new PersonDepartureEvent(2.0, person, link, "car"));
+		events.add(new PersonDepartureEvent(2.0, person, null, null));
+		events.add(new PersonEntersVehicleEvent(3.0, person, vehicle));
+		events.add(new VehicleEntersTrafficEvent(4.0, person, link, vehicle, "car", 1.0));
+		events.add(new VehicleEntersTrafficEvent(4.0, person, null, null, null, 0.5));
+		events.add(new LinkLeaveEvent(5.0, vehicle, link));
+		events.add(new LinkEnterEvent(5.0, vehicle, Id.create("l2", Link.class)));
+		events.add(new ReusableLinkLeaveEvent(6.0, vehicle, Id.create("l2", Link.class)));
+		events.add(new ReusableLinkEnterEvent(6.0, vehicle, Id.create("l3", Link.class)));
+		events.add(new VehicleLeavesTrafficEvent(7.0, person, link, vehicle, "car", 1.0));
+		events.add(new PersonLeavesVehicleEvent(8.0, person, vehicle));
+		events.add(new PersonArrivalEvent(9.0, person, link, "car"));
+		events.add(new ActivityStartEvent(10.0, person, link, null, "work"));
+
+		String filename = this.utils.getOutputDirectory() + "testEvents.xml";
+		EventWriterXML writer = new EventWriterXML(filename);
+		for (Event event : events) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		BufferedReader reader = IOUtils.getBufferedReader(filename);
+		Assert.assertEquals("<?xml version=\"1.0\" encoding=\"utf-8\"?>", reader.readLine());
+		Assert.assertEquals("<events version=\"1.0\">", reader.readLine());
+		for (Event event : events) {
+			StringBuilder expected = new StringBuilder("\t<event ");
+			for (Map.Entry<String, String> entry : event.getAttributes().entrySet()) {
+				expected.append(entry.getKey()).append("=\"");
+				expected.append(entry.getValue() == null ? null : entry.getValue().replace("&", "&amp;")).append("\" ");
+			}
+			expected.append(" />");
+			Assert.assertEquals(expected.toString(), reader.readLine());
+		}
+		Assert.assertEquals(EventWriterXML.FOOTER, reader.readLine());
+		reader.close();
+	}
+
+	@Test
+	public void testAsynchronous() throws IOException {
+		String synchronous = this.utils.getOutputDirectory() + "synchronous.xml.gz";
+		String asynchronous = this.utils.getOutputDirectory() + "asynchronous.xml.gz";
+		String asynchronousWithIndex = this.utils.getOutputDirectory() + "asynchronousWithIndex.xml.gz";
+		EventWriterXML[] writers = { new EventWriterXML(synchronous), new EventWriterXML(asynchronous, true),
+				new EventWriterXML(asynchronousWithIndex, 900.0, true) };
+		ReusableLinkEnterEvent event = new ReusableLinkEnterEvent(0.0, Id.create(0, Vehicle.class), Id.create(0, Link.class));
+		for (int i = 0; i < 50000; i++) {
+			// the reused event must be written before it changes
+			event.update(i * 0.5, Id.create(i % 100, Vehicle.class), Id.create("link&" + i, Link.class));
+			for (EventWriterXML writer : writers) {
+				writer.handleEvent(event);
+			}
+		}
+		for (EventWriterXML writer : writers) {
+			writer.closeFile();
+		}
+		List<Event> expected = readEvents(synchronous, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+		Assert.assertEquals(50000, expected.size());
+		Assert.assertEquals(expected, readEvents(asynchronous, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+		Assert.assertEquals(expected, readEvents(asynchronousWithIndex, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+		Assert.assertEquals(expected.subList(3600, 5400), readEvents(asynchronousWithIndex, 1800.0, 2700.0));
+	}
+
+	@Test
+	public void testTimeWindowWithIndex() {
+		assertTimeWindows(this.utils.getOutputDirectory() + "testEvents.xml");
+		assertTimeWindows(this.utils.getOutputDirectory() + "testEvents.xml.gz");
+	}
+
+	private static void assertTimeWindows(String filename) {
+		EventWriterXML writer = new EventWriterXML(filename, 900.0);
+		for (int i = 0; i < 1000; i++) {
+			writer.handleEvent(new LinkEnterEvent(i * 17.0, Id.create(i, Vehicle.class), Id.create("link&" + i, Link.class)));
+		}
+		writer.closeFile();
+		Assert.assertTrue(new File(EventsFileIndex.getIndexFilename(filename)).exists());
+
+		// the file must still be readable as a whole
+		Assert.assertEquals(1000, readEvents(filename, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY).size());
+		EventsCollector all = new EventsCollector();
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(all);
+		new MatsimEventsReader(events).readFile(filename);
+		Assert.assertEquals(1000, all.getEvents().size());
+
+		List<Event> window = readEvents(filename, 7 * 900.0 + 10, 9 * 900.0);
+		for (Event event : window) {
+			Assert.assertTrue(event.getTime() >= 7 * 900.0 + 10 && event.getTime() < 9 * 900.0);
+		}
+		int expected = 0;
+		for (int i = 0; i < 1000; i++) {
+			if (i * 17.0 >= 7 * 900.0 + 10 && i * 17.0 < 9 * 900.0) {
+				expected++;
+			}
+		}
+		Assert.assertEquals(expected, window.size());
+		Assert.assertEquals("link&" + (int) (window.get(0).getTime() / 17), ((LinkEnterEvent) window.get(0)).getLinkId().toString());
+
+		Assert.assertEquals(0, readEvents(filename, 20000.0, 30000.0).size());
+		Assert.assertEquals(1, readEvents(filename, 0.0, 1.0).size());
+	}
+
+	private static List<Event> readEvents(String filename, double fromTime, double toTime) {
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new MatsimEventsReader(events).readFile(filename, fromTime, toTime);
+		return collector.getEvents();
+	}
 }
@@ -0,0 +1,160 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentCalendarTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.mobsim.qsim.AgentCalendar.Entry;
+
+public class AgentCalendarTest {
+
+	@Test
+	public void testPollDueEntries() {
+		AgentCalendar calendar = new AgentCalendar();
+		calendar.add(new Entry(createAgent("3"), 7 * 3600.));
+		calendar.add(new Entry(createAgent("1"), 6 * 3600.));
+		calendar.add(new Entry(createAgent("2"), 6 * 3600.));
+		calendar.add(new Entry(createAgent("4"), 6 * 3600. + 0.5));
+
+		Assert.assertEquals(6 * 3600., calendar.getEarliestTime(), 0.);
+		Assert.assertEquals(0, calendar.pollDueEntries(5 * 3600.).size());
+		Assert.assertEquals(6 * 3600., calendar.getEarliestTime(), 0.);
+
+		List<Entry> due = calendar.pollDueEntries(6 * 3600.);
+		Assert.assertEquals(2, due.size());
+		// same time: the larger id comes first
+		Assert.assertEquals("2", due.get(0).agent.getId().toString());
+		Assert.assertEquals("1", due.get(1).agent.getId().toString());
+		Assert.assertEquals(6 * 3600. + 0.5, calendar.getEarliestTime(), 0.);
+
+		due = calendar.pollDueEntries(6 * 3600. + 1);
+		Assert.assertEquals(1, due.size());
+		Assert.assertEquals("4", due.get(0).agent.getId().toString());
+
+		due = calendar.pollDueEntries(8 * 3600.);
+		Assert.assertEquals(1, due.size());
+		Assert.assertEquals("3", due.get(0).agent.getId().toString());
+		Assert.assertEquals(Double.POSITIVE_INFINITY, calendar.getEarliestTime(), 0.);
+	}
+
+	@Test
+	public void testShortTimeSteps() {
+		AgentCalendar calendar = new AgentCalendar();
+		calendar.pollDueEntries(100.);
+		calendar.add(new Entry(createAgent("1"), 100.3));
+		calendar.add(new Entry(createAgent("2"), 100.7));
+		Assert.assertEquals(1, calendar.pollDueEntries(100.5).size());
+		Assert.assertEquals(1, calendar.pollDueEntries(101.).size());
+	}
+
+	@Test
+	public void testEntriesInThePast() {
+		AgentCalendar calendar = new AgentCalendar();
+		calendar.pollDueEntries(100.);
+		calendar.add(new Entry(createAgent("1"), 50.));
+		Assert.assertEquals(50., calendar.getEarliestTime(), 0.);
+		Assert.assertEquals(1, calendar.pollDueEntries(101.).size());
+	}
+
+	@Test
+	public void testEntriesDueInTheSameTimeStep() {
+		AgentCalendar calendar = new AgentCalendar();
+		calendar.add(new Entry(createAgent("1"), 100.));
+		Assert.assertEquals(1, calendar.pollDueEntries(100.).size());
+		calendar.add(new Entry(createAgent("2"), 100.));
+		Assert.assertEquals(100., calendar.getEarliestTime(), 0.);
+		Assert.assertEquals(1, calendar.pollDueEntries(100.).size());
+		Assert.assertEquals(0, calendar.pollDueEntries(100.).size());
+	}
+
+	@Test
+	public void testEntriesOfLaterRounds() {
+		AgentCalendar calendar = new AgentCalendar();
+		calendar.pollDueEntries(0.);
+		double muchLater = 10 * 24 * 3600.;
+		calendar.add(new Entry(createAgent("1"), muchLater));
+		calendar.add(new Entry(createAgent("2"), 1.));
+		Assert.assertEquals(1., calendar.getEarliestTime(), 0.);
+		for (double time = 1.; time < 3 * 24 * 3600.; time += 1.) {
+			List<Entry> due = calendar.pollDueEntries(time);
+			Assert.assertEquals(time == 1. ? 1 : 0, due.size());
+		}
+		Assert.assertEquals(muchLater, calendar.getEarliestTime(), 0.);
+		Assert.assertEquals(1, calendar.pollDueEntries(muchLater).size());
+	}
+
+	@Test
+	public void testRemove() {
+		AgentCalendar calendar = new AgentCalendar();
+		MobsimAgent agent = createAgent("1");
+		calendar.add(new Entry(createAgent("2"), 200.));
+		calendar.add(new Entry(agent, 100.));
+		Assert.assertEquals(100., calendar.remove(agent).time, 0.);
+		Assert.assertNull(calendar.remove(agent));
+		Assert.assertEquals(200., calendar.getEarliestTime(), 0.);
+		Assert.assertEquals(1, calendar.pollAllEntries().size());
+		Assert.assertEquals(Double.POSITIVE_INFINITY, calendar.getEarliestTime(), 0.);
+	}
+
+	@Test
+	public void testRemoveAfterTimeSteps() {
+		AgentCalendar calendar = new AgentCalendar();
+		MobsimAgent due = createAgent("1");
+		MobsimAgent overdue = createAgent("2");
+		MobsimAgent nextRound = createAgent("3");
+		MobsimAgent later = createAgent("4");
+		calendar.add(new Entry(due, 50.));
+		calendar.pollDueEntries(100.);
+		calendar.add(new Entry(overdue, 60.));
+		calendar.add(new Entry(nextRound, 10 * 24 * 3600. + 150.));
+		calendar.add(new Entry(later, 150.));
+		Assert.assertNull(calendar.remove(due));
+		Assert.assertEquals(60., calendar.remove(overdue).time, 0.);
+		Assert.assertEquals(10 * 24 * 3600. + 150., calendar.remove(nextRound).time, 0.);
+		Assert.assertEquals(150., calendar.getEarliestTime(), 0.);
+		Assert.assertEquals(1, calendar.pollDueEntries(150.).size());
+		Assert.assertNull(calendar.remove(later));
+		Assert.assertEquals(Double.POSITIVE_INFINITY, calendar.getEarliestTime(), 0.);
+	}
+
+	private static MobsimAgent createAgent(String id) {
+		final Id<Person> personId = Id.create(id, Person.class);
+		return (MobsimAgent) Proxy.newProxyInstance(MobsimAgent.class.getClassLoader(), new Class<?>[] { MobsimAgent.class },
+				new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (method.getName().equals("getId")) {
+							return personId;
+						}
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+}
@@ -69,6 +69,7 @@ import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.ReusableEvent;
 import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.mobsim.qsim.agents.AgentFactory;
 import org.matsim.core.mobsim.qsim.agents.DefaultAgentFactory;
@@ -547,7 +548,26 @@ public class QSimTest {
 	@Test
 	public void testFlowCapacityDriving() {
 		Fixture f = new Fixture(isUsingFastCapacityUpdate);
+		runFlowCapacityDriving(f, EventsUtils.createEventsManager());
+	}
 
+	/**
+	 * Tests that the work-stealing execution of the netsim engine gives the same
+	 * flows as the default execution, see {@link #testFlowCapacityDriving()}.
+	 */
+	@Test
+	public void testFlowCapacityDriving_WorkStealing() {
+		Fixture f = new Fixture(isUsingFastCapacityUpdate);
+		f.config.qsim().setNumberOfThreads(2);
+		f.config.qsim().setUsingWorkStealing(true);
+		runFlowCapacityDriving(f, EventsUtils.createEventsManager());
+	}
+
+	/**
+	 * Runs the scenario of {@link #testFlowCapacityDriving()} with the given fixture, whose config may be changed by the
+	 * caller, and checks the flow on link 2.  The caller may add further handlers to the events manager.
+	 */
+	private void runFlowCapacityDriving(Fixture f, EventsManager events) {
 		// add a lot of persons with legs from link1 to link3, starting at 6:30
 		for (int i = 1; i <= 10000; i++) {
 			Person person = PopulationUtils.getFactory().createPerson(Id.create(i, Person.class));
@@ -573,7 +593,6 @@ public class QSimTest {
 		}
 
 		/* build events */
-		EventsManager events = EventsUtils.createEventsManager();
 		VolumesAnalyzer vAnalyzer = new VolumesAnalyzer(3600, 9*3600, f.network);
 		events.addHandler(vAnalyzer);
 
@@ -597,7 +616,29 @@ public class QSimTest {
 //			Assert.assertEquals(1000, volume[8]); // all the rest
 //		}
 	}
+	
+	/**
+	 * Tests that reusing the link events in the nodes gives the same flows as the default, see
+	 * {@link #testFlowCapacityDriving()}, and that handlers which keep the events get copies.
+	 */
+	@Test
+	public void testFlowCapacityDriving_ReusableLinkEvents() {
+		Fixture f = new Fixture(isUsingFastCapacityUpdate);
+		f.config.qsim().setUsingReusableLinkEvents(true);
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		runFlowCapacityDriving(f, events);
 
+		int link2LeaveEvents = 0;
+		for (Event event : collector.getEvents()) {
+			Assert.assertFalse("handlers keeping events must get copies", event instanceof ReusableEvent);
+			if (event instanceof LinkLeaveEvent && ((LinkLeaveEvent) event).getLinkId().equals(f.link2.getId())) {
+				link2LeaveEvents++;
+			}
+		}
+		Assert.assertEquals(10000, link2LeaveEvents);
+	}
 	
 	/**
 	 * Tests that on a link with a flow capacity of 0.25 vehicles per time step, after the first vehicle
@@ -0,0 +1,48 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayVehicleQueueTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+
+/**
+ * Tests that keeping the vehicles of the links in array based queues (see QSimConfigGroup.isUsingArrayVehicleQueue())
+ * does not change the events of the qsim, not even their order.
+ */
+public class ArrayVehicleQueueTest {
+
+	@Test
+	public void testSameEventsAsWithLinkedList() {
+		List<String> expected = runQSim(false);
+		List<String> actual = runQSim(true);
+		GridScenarioFixture.assertSameEvents(expected, actual);
+	}
+
+	private static List<String> runQSim(boolean usingArrayVehicleQueue) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setUsingArrayVehicleQueue(usingArrayVehicleQueue);
+		return GridScenarioFixture.runQSim(GridScenarioFixture.createScenario(config));
+	}
+
+}
@@ -0,0 +1,91 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * DeterministicParallelSimulationTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+
+/**
+ * Tests that the qsim produces exactly the same events with any number of threads
+ * if usingDeterministicParallelSimulation is set.
+ */
+public class DeterministicParallelSimulationTest {
+
+	@Test
+	public void testSameEventsWithDifferentNumberOfThreads() {
+		List<String> events1 = runQSim(createConfig(1), false);
+		List<String> events2 = runQSim(createConfig(2), false);
+		List<String> events4 = runQSim(createConfig(4), false);
+
+		GridScenarioFixture.assertSameEvents(events1, events2);
+		GridScenarioFixture.assertSameEvents(events1, events4);
+	}
+
+	/**
+	 * Ending activities or teleported legs in parallel must not change the results either, see 
+	 * QSimConfigGroup.isUsingParallelActivityEnds() and isUsingParallelTeleportationArrivals().
+	 */
+	@Test
+	public void testSameEventsWithParallelActivityEndsAndTeleportationArrivals() {
+		List<String> expected = runQSim(createConfig(1), true);
+		Config config = createConfig(4);
+		config.qsim().setUsingParallelActivityEnds(true);
+		config.qsim().setUsingParallelTeleportationArrivals(true);
+		List<String> actual = runQSim(config, true);
+		GridScenarioFixture.assertSameEvents(expected, actual);
+	}
+
+	private static Config createConfig(int numberOfThreads) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setNumberOfThreads(numberOfThreads);
+		config.qsim().setUsingDeterministicParallelSimulation(true);
+		return config;
+	}
+
+	private static List<String> runQSim(Config config, boolean manyAgentsAtOnce) {
+		Scenario scenario = GridScenarioFixture.createScenario(config);
+		if (manyAgentsAtOnce) {
+			// so that hundreds of activities and teleported legs end in the same time step
+			int i = 0;
+			for (Person person : scenario.getPopulation().getPersons().values()) {
+				List<PlanElement> planElements = person.getSelectedPlan().getPlanElements();
+				Activity home = (Activity) planElements.get(0);
+				home.setEndTime(Math.floor(home.getEndTime() / 300) * 300);
+				if (i++ % 2 == 1) {
+					Leg leg = (Leg) planElements.get(1);
+					leg.setMode(TransportMode.walk);
+					leg.setTravelTime(600);
+				}
+			}
+		}
+		return GridScenarioFixture.runQSim(scenario);
+	}
+
+}
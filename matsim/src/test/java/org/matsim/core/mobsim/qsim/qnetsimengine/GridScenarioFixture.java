@@ -0,0 +1,200 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * GridScenarioFixture.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.mobsim.framework.listeners.MobsimListener;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.QSimUtils;
+import org.matsim.core.population.routes.LinkNetworkRouteImpl;
+import org.matsim.core.scenario.ScenarioUtils;
+
+/**
+ * A congested grid scenario for comparing the results of different configurations of the qsim.
+ */
+final class GridScenarioFixture {
+
+	private static final int GRID_SIZE = 8;
+
+	private GridScenarioFixture() {
+	}
+
+	static Scenario createScenario(Config config) {
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		createGrid(scenario.getNetwork());
+		createPopulation(scenario);
+		return scenario;
+	}
+
+	/**
+	 * Runs the default qsim on the scenario.
+	 *
+	 * @return the attributes of the events as strings, in the order of the events
+	 */
+	static List<String> runQSim(Scenario scenario, MobsimListener... listeners) {
+		MatsimRandom.reset();
+		final List<String> eventStrings = new ArrayList<>();
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(new BasicEventHandler() {
+			@Override
+			public void handleEvent(Event event) {
+				eventStrings.add(event.getAttributes().toString());
+			}
+			@Override
+			public void reset(int iteration) {
+			}
+		});
+		QSim qsim = QSimUtils.createDefaultQSim(scenario, events);
+		for (MobsimListener listener : listeners) {
+			qsim.addQueueSimulationListeners(listener);
+		}
+		qsim.run();
+		return eventStrings;
+	}
+
+	/**
+	 * Compares the events one by one, and checks that the scenario is not too small to be compared.
+	 */
+	static void assertSameEvents(List<String> expected, List<String> actual) {
+		Assert.assertTrue(expected.size() > 10000);
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertEquals("event #" + i, expected.get(i), actual.get(i));
+		}
+	}
+
+	/*
+	 * A grid with links of low capacity in both directions, so that vehicles compete at the nodes.
+	 */
+	private static void createGrid(Network network) {
+		NetworkFactory factory = network.getFactory();
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				network.addNode(factory.createNode(getNodeId(x, y), new Coord(x * 500, y * 500)));
+			}
+		}
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (x + 1 < GRID_SIZE) {
+					addLink(network, x, y, x + 1, y);
+					addLink(network, x + 1, y, x, y);
+				}
+				if (y + 1 < GRID_SIZE) {
+					addLink(network, x, y, x, y + 1);
+					addLink(network, x, y + 1, x, y);
+				}
+			}
+		}
+	}
+
+	private static void addLink(Network network, int fromX, int fromY, int toX, int toY) {
+		Link link = network.getFactory().createLink(getLinkId(fromX, fromY, toX, toY),
+				network.getNodes().get(getNodeId(fromX, fromY)), network.getNodes().get(getNodeId(toX, toY)));
+		link.setLength(500);
+		link.setFreespeed(10);
+		link.setCapacity(600);
+		link.setNumberOfLanes(1);
+		network.addLink(link);
+	}
+
+	/*
+	 * Every agent drives from a random link first along the x axis, then along the y axis, and back the same way.
+	 */
+	private static void createPopulation(Scenario scenario) {
+		Random random = new Random(4711);
+		PopulationFactory factory = scenario.getPopulation().getFactory();
+		for (int i = 0; i < 2000; i++) {
+			int fromX = random.nextInt(GRID_SIZE - 1);
+			int fromY = random.nextInt(GRID_SIZE);
+			int toX = fromX + 1 + random.nextInt(GRID_SIZE - fromX - 1);
+			int toY = random.nextInt(GRID_SIZE);
+			if (toY == fromY) {
+				continue;
+			}
+			List<Id<Link>> linkIds = new ArrayList<>();
+			for (int x = fromX; x < toX; x++) {
+				linkIds.add(getLinkId(x, fromY, x + 1, fromY));
+			}
+			int stepY = toY > fromY ? 1 : -1;
+			for (int y = fromY; y != toY; y += stepY) {
+				linkIds.add(getLinkId(toX, y, toX, y + stepY));
+			}
+			List<Id<Link>> backLinkIds = new ArrayList<>();
+			backLinkIds.add(linkIds.get(linkIds.size() - 1));
+			for (int n = linkIds.size() - 1; n >= 0; n--) {
+				String[] nodes = linkIds.get(n).toString().split(">");
+				backLinkIds.add(Id.create(nodes[1] + ">" + nodes[0], Link.class));
+			}
+
+			Person person = factory.createPerson(Id.create(i, Person.class));
+			Plan plan = factory.createPlan();
+			person.addPlan(plan);
+			Activity home = factory.createActivityFromLinkId("h", linkIds.get(0));
+			home.setEndTime(6 * 3600 + random.nextInt(1800));
+			plan.addActivity(home);
+			plan.addLeg(createLeg(factory, linkIds));
+			Activity work = factory.createActivityFromLinkId("w", linkIds.get(linkIds.size() - 1));
+			work.setMaximumDuration(random.nextInt(600));
+			plan.addActivity(work);
+			plan.addLeg(createLeg(factory, backLinkIds));
+			plan.addActivity(factory.createActivityFromLinkId("h", backLinkIds.get(backLinkIds.size() - 1)));
+			scenario.getPopulation().addPerson(person);
+		}
+	}
+
+	private static Leg createLeg(PopulationFactory factory, List<Id<Link>> linkIds) {
+		Leg leg = factory.createLeg(TransportMode.car);
+		leg.setRoute(new LinkNetworkRouteImpl(linkIds.get(0), linkIds.subList(1, linkIds.size() - 1), linkIds.get(linkIds.size() - 1)));
+		return leg;
+	}
+
+	private static Id<Node> getNodeId(int x, int y) {
+		return Id.create(x + "_" + y, Node.class);
+	}
+
+	private static Id<Link> getLinkId(int fromX, int fromY, int toX, int toY) {
+		return Id.create(getNodeId(fromX, fromY) + ">" + getNodeId(toX, toY), Link.class);
+	}
+
+}
@@ -0,0 +1,88 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IdleLinkSkippingTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+
+/**
+ * Tests that skipping idle links (see QSimConfigGroup.isUsingIdleLinkSkipping()) does not change the
+ * results of the qsim.  As the links are simulated in a different order, the order of the events within
+ * a time step may differ.  With the default runners, this also changes the order of the random draws
+ * of the nodes, so only the events without their times can be compared.
+ */
+public class IdleLinkSkippingTest {
+
+	@Test
+	public void testSameEventsAsWithoutSkipping() {
+		List<String> expected = sortWithoutTimes(runQSim(false, false));
+		List<String> actual = sortWithoutTimes(runQSim(true, false));
+		GridScenarioFixture.assertSameEvents(expected, actual);
+	}
+
+	@Test
+	public void testSameEventsAsWithoutSkipping_WorkStealing() {
+		List<String> expected = runQSim(false, true);
+		List<String> actual = runQSim(true, true);
+		GridScenarioFixture.assertSameEvents(expected, actual);
+	}
+
+	private static List<String> sortWithoutTimes(List<String> eventStrings) {
+		List<String> sorted = new ArrayList<>();
+		for (String eventString : eventStrings) {
+			sorted.add(eventString.replaceFirst("time=[^,]*, ", ""));
+		}
+		Collections.sort(sorted);
+		return sorted;
+	}
+
+	/*
+	 * Sorts the events of every time step.  The strings of the events start with their time.
+	 */
+	private static List<String> runQSim(boolean usingIdleLinkSkipping, boolean usingWorkStealing) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setUsingIdleLinkSkipping(usingIdleLinkSkipping);
+		config.qsim().setUsingDeterministicParallelSimulation(usingWorkStealing);
+		List<String> eventStrings = GridScenarioFixture.runQSim(GridScenarioFixture.createScenario(config));
+
+		List<String> sorted = new ArrayList<>();
+		int start = 0;
+		for (int i = 1; i <= eventStrings.size(); i++) {
+			if (i == eventStrings.size() || !getTime(eventStrings.get(i)).equals(getTime(eventStrings.get(start)))) {
+				List<String> timeStep = new ArrayList<>(eventStrings.subList(start, i));
+				Collections.sort(timeStep);
+				sorted.addAll(timeStep);
+				start = i;
+			}
+		}
+		return sorted;
+	}
+
+	private static String getTime(String eventString) {
+		return eventString.substring(0, eventString.indexOf(", "));
+	}
+
+}
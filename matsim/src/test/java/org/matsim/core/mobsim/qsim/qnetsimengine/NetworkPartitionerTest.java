@@ -0,0 +1,121 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NetworkPartitionerTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+public class NetworkPartitionerTest {
+
+	/**
+	 * Creates a 10x10 grid of nodes, with nodes in the lower left quarter having a load of 10, all others a load of 1.
+	 */
+	private static List<Node> createGrid(double[] loads) {
+		List<Node> nodes = new ArrayList<>();
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				int i = nodes.size();
+				nodes.add(NetworkUtils.createNode(Id.create(x + "_" + y, Node.class), new Coord(x * 100.0, y * 100.0)));
+				loads[i] = (x < 5 && y < 5) ? 10 : 1;
+			}
+		}
+		return nodes;
+	}
+
+	@Test
+	public void testRoundRobin() {
+		double[] loads = new double[100];
+		List<Node> nodes = createGrid(loads);
+		int[] partitions = new RoundRobinNetworkPartitioner().partition(nodes, loads, 3);
+		Assert.assertEquals(0, partitions[0]);
+		Assert.assertEquals(1, partitions[1]);
+		Assert.assertEquals(2, partitions[2]);
+		Assert.assertEquals(0, partitions[3]);
+	}
+
+	@Test
+	public void testSpaceFillingCurve_balanced() {
+		double[] loads = new double[100];
+		List<Node> nodes = createGrid(loads);
+		int[] partitions = new SpaceFillingCurveNetworkPartitioner().partition(nodes, loads, 4);
+		assertBalanced(partitions, loads, 4, 0.1);
+	}
+
+	@Test
+	public void testBisection_balanced() {
+		double[] loads = new double[100];
+		List<Node> nodes = createGrid(loads);
+		int[] partitions = new BisectionNetworkPartitioner().partition(nodes, loads, 4);
+		assertBalanced(partitions, loads, 4, 0.1);
+
+		partitions = new BisectionNetworkPartitioner().partition(nodes, loads, 3);
+		assertBalanced(partitions, loads, 3, 0.1);
+	}
+
+	@Test
+	public void testBisection_morePartitionsThanNodes() {
+		double[] loads = new double[] { 1, 1 };
+		List<Node> nodes = new ArrayList<>();
+		nodes.add(NetworkUtils.createNode(Id.create("a", Node.class), new Coord(0, 0)));
+		nodes.add(NetworkUtils.createNode(Id.create("b", Node.class), new Coord(100, 0)));
+		int[] partitions = new BisectionNetworkPartitioner().partition(nodes, loads, 4);
+		Assert.assertTrue(partitions[0] != partitions[1]);
+		for (int p : partitions) {
+			Assert.assertTrue(p >= 0 && p < 4);
+		}
+	}
+
+	@Test
+	public void testHilbertIndex_neighbors() {
+		// consecutive indices along the curve must be adjacent cells
+		long[] indices = new long[] {
+				SpaceFillingCurveNetworkPartitioner.hilbertIndex(0, 0),
+				SpaceFillingCurveNetworkPartitioner.hilbertIndex(0, 1),
+				SpaceFillingCurveNetworkPartitioner.hilbertIndex(1, 1),
+				SpaceFillingCurveNetworkPartitioner.hilbertIndex(1, 0) };
+		long[] sorted = indices.clone();
+		Arrays.sort(sorted);
+		Assert.assertEquals(0, sorted[0]);
+		Assert.assertEquals(3, sorted[3] - sorted[0]);
+	}
+
+	private static void assertBalanced(int[] partitions, double[] loads, int numberOfPartitions, double tolerance) {
+		double[] partitionLoads = new double[numberOfPartitions];
+		double total = 0;
+		for (int i = 0; i < partitions.length; i++) {
+			Assert.assertTrue(partitions[i] >= 0 && partitions[i] < numberOfPartitions);
+			partitionLoads[partitions[i]] += loads[i];
+			total += loads[i];
+		}
+		for (double load : partitionLoads) {
+			Assert.assertEquals(total / numberOfPartitions, load, total / numberOfPartitions * tolerance);
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TimeStepSkippingTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.mobsim.framework.events.MobsimAfterSimStepEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimAfterSimStepListener;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextActionTime;
+
+/**
+ * Tests that skipping time steps without any action (see QSimConfigGroup.isUsingTimeStepSkipping()) does not
+ * change the results of the qsim.  Half of the agents leave home three hours later than in the grid scenario,
+ * so that there is a long period without any traffic in between.
+ */
+public class TimeStepSkippingTest {
+
+	@Test
+	public void testSameEventsAsWithoutSkipping() {
+		StepCounter withoutSkipping = new StepCounter();
+		List<String> expected = runQSim(false, false, withoutSkipping);
+		StepCounter withSkipping = new StepCounter();
+		List<String> actual = runQSim(true, false, withSkipping);
+		GridScenarioFixture.assertSameEvents(expected, actual);
+		Assert.assertTrue(withSkipping.steps < withoutSkipping.steps - 3600);
+	}
+
+	@Test
+	public void testSameEventsAsWithoutSkipping_IdleLinkSkipping() {
+		StepCounter withoutSkipping = new StepCounter();
+		List<String> expected = runQSim(false, true, withoutSkipping);
+		StepCounter withSkipping = new StepCounter();
+		List<String> actual = runQSim(true, true, withSkipping);
+		GridScenarioFixture.assertSameEvents(expected, actual);
+		Assert.assertTrue(withSkipping.steps < withoutSkipping.steps - 3600);
+	}
+
+	@Test
+	public void testNoSkippingWithOtherListeners() {
+		StepCounter withoutSkipping = new StepCounter();
+		runQSim(false, false, withoutSkipping);
+		final StepCounter withSkipping = new StepCounter();
+		runQSim(true, false, new MobsimAfterSimStepListener() {
+			@Override
+			public void notifyMobsimAfterSimStep(@SuppressWarnings("rawtypes") MobsimAfterSimStepEvent e) {
+				withSkipping.steps++;
+			}
+		});
+		Assert.assertEquals(withoutSkipping.steps, withSkipping.steps);
+	}
+
+	private static List<String> runQSim(boolean usingTimeStepSkipping, boolean usingIdleLinkSkipping, MobsimAfterSimStepListener listener) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setUsingTimeStepSkipping(usingTimeStepSkipping);
+		config.qsim().setUsingIdleLinkSkipping(usingIdleLinkSkipping);
+		Scenario scenario = GridScenarioFixture.createScenario(config);
+		int i = 0;
+		for (Person person : scenario.getPopulation().getPersons().values()) {
+			if (i++ % 2 == 1) {
+				Activity home = (Activity) person.getSelectedPlan().getPlanElements().get(0);
+				home.setEndTime(home.getEndTime() + 3 * 3600);
+			}
+		}
+		return GridScenarioFixture.runQSim(scenario, listener);
+	}
+
+	private static class StepCounter implements MobsimAfterSimStepListener, HasNextActionTime {
+		int steps = 0;
+
+		@Override
+		public void notifyMobsimAfterSimStep(@SuppressWarnings("rawtypes") MobsimAfterSimStepEvent e) {
+			this.steps++;
+		}
+
+		@Override
+		public double getNextActionTime(double now) {
+			return Double.POSITIVE_INFINITY;
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ArrayVehicleQTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine.vehicleq;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.core.mobsim.qsim.qnetsimengine.QVehicle;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleUtils;
+
+public class ArrayVehicleQTest {
+
+	@Test
+	public void testSameOrderAsLinkedList() {
+		ArrayVehicleQ queue = new ArrayVehicleQ();
+		LinkedList<QVehicle> expected = new LinkedList<>();
+		Random random = new Random(4711);
+		for (int i = 0; i < 10000; i++) {
+			int action = random.nextInt(10);
+			if (action < 5) {
+				QVehicle veh = createVehicle(i, random.nextInt(1000));
+				queue.add(veh);
+				expected.add(veh);
+			} else if (action < 6) {
+				QVehicle veh = createVehicle(i, random.nextInt(1000));
+				queue.addFirst(veh);
+				expected.addFirst(veh);
+			} else if (action < 9) {
+				Assert.assertSame(expected.peek(), queue.peek());
+				Assert.assertSame(expected.poll(), queue.poll());
+			} else if (!expected.isEmpty()) {
+				QVehicle veh = expected.get(random.nextInt(expected.size()));
+				Assert.assertTrue(queue.remove(veh));
+				expected.remove(veh);
+			}
+			Assert.assertEquals(expected.size(), queue.size());
+			if (!expected.isEmpty()) {
+				Assert.assertEquals(expected.peek().getEarliestLinkExitTime(), queue.peekEarliestLinkExitTime(), 0.);
+			}
+		}
+		Assert.assertEquals(expected, new ArrayList<>(queue));
+	}
+
+	@Test
+	public void testEmptyQueue() {
+		ArrayVehicleQ queue = new ArrayVehicleQ();
+		Assert.assertNull(queue.peek());
+		Assert.assertNull(queue.poll());
+		Assert.assertEquals(Double.POSITIVE_INFINITY, queue.peekEarliestLinkExitTime(), 0.);
+		Assert.assertFalse(queue.iterator().hasNext());
+	}
+
+	@Test
+	public void testEarliestLinkExitTimeIsReadWhenAdded() {
+		ArrayVehicleQ queue = new ArrayVehicleQ();
+		QVehicle veh1 = createVehicle(1, 100.);
+		QVehicle veh2 = createVehicle(2, 120.);
+		queue.add(veh1);
+		queue.add(veh2);
+		Assert.assertEquals(100., queue.peekEarliestLinkExitTime(), 0.);
+		Assert.assertEquals(veh1.getSizeInEquivalents(), queue.peekSizeInEquivalents(), 0.);
+
+		veh1.setEarliestLinkExitTime(160.);
+		Assert.assertEquals(100., queue.peekEarliestLinkExitTime(), 0.);
+		queue.updateEarliestLinkExitTimeOfFirst();
+		Assert.assertEquals(160., queue.peekEarliestLinkExitTime(), 0.);
+
+		queue.poll();
+		Assert.assertEquals(120., queue.peekEarliestLinkExitTime(), 0.);
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		ArrayVehicleQ queue = new ArrayVehicleQ();
+		List<QVehicle> expected = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			QVehicle veh = createVehicle(i, i);
+			queue.add(veh);
+			if (i % 3 != 0) {
+				expected.add(veh);
+			}
+		}
+		int i = 0;
+		for (Iterator<QVehicle> iter = queue.iterator(); iter.hasNext(); i++) {
+			iter.next();
+			if (i % 3 == 0) {
+				iter.remove();
+			}
+		}
+		Assert.assertEquals(expected, new ArrayList<>(queue));
+		Assert.assertEquals(1., queue.peekEarliestLinkExitTime(), 0.);
+	}
+
+	private static QVehicle createVehicle(int id, double earliestLinkExitTime) {
+		QVehicle veh = new QVehicle(VehicleUtils.getFactory().createVehicle(Id.create(id, Vehicle.class), VehicleUtils.getDefaultVehicleType()));
+		veh.setEarliestLinkExitTime(earliestLinkExitTime);
+		return veh;
+	}
+
+}
@@ -20,10 +20,15 @@
 
 package org.matsim.core.router;
 
+import java.io.File;
+
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.router.RouterTestUtils.TimeDependentCosts;
 import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
 import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.PreProcessCache;
 import org.matsim.core.router.util.PreProcessLandmarks;
 
 public class AStarLandmarksTest extends AbstractLeastCostPathCalculatorTest {
@@ -36,4 +41,40 @@ public class AStarLandmarksTest extends AbstractLeastCostPathCalculatorTest {
 		return new AStarLandmarks(network, preProcessData, travelTimeCostCalculator);
 	}
 
+	public void testSameCostsAsDijkstraWithTimeDependentCosts() {
+		Network network = RouterTestUtils.createGridNetwork(15, 4711);
+		TimeDependentCosts costs = new TimeDependentCosts();
+		PreProcessLandmarks preProcessData = new PreProcessLandmarks(costs);
+		preProcessData.setNumberOfThreads(4);
+		preProcessData.run(network);
+		LeastCostPathCalculator router = new AStarLandmarks(network, preProcessData, costs, costs);
+		RouterTestUtils.assertSameCostsAsDijkstra(network, costs, router);
+	}
+
+	public void testCachedLandmarks() {
+		Network network = RouterTestUtils.createGridNetwork(10, 4711);
+		TimeDependentCosts costs = new TimeDependentCosts();
+		PreProcessCache cache = new PreProcessCache(getOutputDirectory() + "cache");
+		PreProcessLandmarks computed = new PreProcessLandmarks(costs, 4);
+		computed.setCache(cache);
+		computed.run(network);
+		assertEquals(1, new File(getOutputDirectory() + "cache").listFiles().length);
+
+		PreProcessLandmarks read = new PreProcessLandmarks(costs, 4);
+		read.setCache(cache);
+		read.run(network);
+		for (Node node : network.getNodes().values()) {
+			for (int i = 0; i < 4; i++) {
+				assertEquals(computed.getNodeData(node).getMinLandmarkTravelTime(i), read.getNodeData(node).getMinLandmarkTravelTime(i), 0);
+				assertEquals(computed.getNodeData(node).getMaxLandmarkTravelTime(i), read.getNodeData(node).getMaxLandmarkTravelTime(i), 0);
+			}
+		}
+
+		// other costs must not use the cached data
+		PreProcessLandmarks other = new PreProcessLandmarks(new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup()), 4);
+		other.setCache(cache);
+		other.run(network);
+		assertEquals(2, new File(getOutputDirectory() + "cache").listFiles().length);
+	}
+
 }
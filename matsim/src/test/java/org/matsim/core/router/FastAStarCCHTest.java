@@ -0,0 +1,150 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastAStarCCHTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.router.RouterTestUtils.TimeDependentCosts;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
+import org.matsim.core.router.util.ContractionHierarchy;
+import org.matsim.core.router.util.CustomizableContractionHierarchy;
+import org.matsim.core.router.util.FastAStarCCHFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.PreProcessCache;
+import org.matsim.core.router.util.PreProcessContractionHierarchy;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+public class FastAStarCCHTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		return new FastAStarCCHFactory(network, travelTimeCostCalculator, 1, null).createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	public void testSameCostsAsDijkstraWithMinimalCosts() {
+		Network network = RouterTestUtils.createGridNetwork(15, 4711);
+		TimeDependentCosts costs = new TimeDependentCosts();
+		FastAStarCCHFactory factory = new FastAStarCCHFactory(network, costs, 2, null);
+		RouterTestUtils.assertSameCostsAsDijkstra(network, costs, factory.createPathCalculator(network, costs, costs));
+	}
+
+	public void testSameCostsAsDijkstraAfterCustomization() {
+		Network network = RouterTestUtils.createGridNetwork(15, 4711);
+		final TimeDependentCosts costs = new TimeDependentCosts();
+		FastAStarCCHFactory factory = new FastAStarCCHFactory(network, costs, 2, null);
+		factory.customize(new TravelDisutilityFactory() {
+			@Override
+			public TravelDisutility createTravelDisutility(TravelTime timeCalculator) {
+				return costs;
+			}
+		}, costs, 900, 30 * 3600);
+		RouterTestUtils.assertSameCostsAsDijkstra(network, costs, factory.createPathCalculator(network, costs, costs));
+	}
+
+	/**
+	 * The customized hierarchy is only a lower bound as long as the travel times it was customized with do not change,
+	 * so other travel times and the travel times after the start of the mobsim must use the minimal one.
+	 */
+	public void testSameCostsAsDijkstraAfterTravelTimesDrop() {
+		Network network = RouterTestUtils.createGridNetwork(15, 4711);
+		final ScaledCosts costs = new ScaledCosts(3);
+		FastAStarCCHFactory factory = new FastAStarCCHFactory(network, costs, 2, null);
+		factory.customize(new TravelDisutilityFactory() {
+			@Override
+			public TravelDisutility createTravelDisutility(TravelTime timeCalculator) {
+				return costs;
+			}
+		}, costs, 900, 30 * 3600);
+
+		ScaledCosts otherCosts = new ScaledCosts(1);
+		RouterTestUtils.assertSameCostsAsDijkstra(network, otherCosts, factory.createPathCalculator(network, otherCosts, otherCosts));
+
+		factory.notifyBeforeMobsim(null);
+		costs.factor = 1;
+		RouterTestUtils.assertSameCostsAsDijkstra(network, costs, factory.createPathCalculator(network, costs, costs));
+	}
+
+	public void testSamePotentialsAsContractionHierarchy() {
+		Network network = RouterTestUtils.createGridNetwork(15, 4711);
+		TimeDependentCosts costs = new TimeDependentCosts();
+		PreProcessContractionHierarchy preProcessData = new PreProcessContractionHierarchy(costs);
+		preProcessData.run(network);
+		ContractionHierarchy.Potentials expected = preProcessData.getContractionHierarchy().createPotentials();
+		CustomizableContractionHierarchy cch = new CustomizableContractionHierarchy(network, 2);
+		ContractionHierarchy hierarchy = cch.customize(cch.getMinimumLinkCosts(costs));
+		ContractionHierarchy.Potentials potentials = hierarchy.createPotentials();
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		for (int t = 0; t < nodes.size(); t += 7) {
+			Node target = nodes.get(t);
+			expected.setTarget(preProcessData.getContractionHierarchy().getNodeIndex(target.getId()));
+			potentials.setTarget(hierarchy.getNodeIndex(target.getId()));
+			for (Node node : nodes) {
+				assertEquals(expected.getPotential(preProcessData.getContractionHierarchy().getNodeIndex(node.getId())),
+						potentials.getPotential(hierarchy.getNodeIndex(node.getId())), 1e-6);
+			}
+		}
+	}
+
+	public void testOrderIsCached() {
+		Network network = RouterTestUtils.createGridNetwork(10, 4711);
+		PreProcessCache cache = new PreProcessCache(getOutputDirectory() + "cache");
+		assertNull(cache.readInts("cch-order", network));
+
+		new CustomizableContractionHierarchy(network, 1, cache);
+		File[] files = new File(getOutputDirectory() + "cache").listFiles();
+		assertEquals(1, files.length);
+		int[] order = cache.readInts("cch-order", network);
+		assertEquals(network.getNodes().size(), order.length);
+
+		// a network with other links must not use the order
+		assertNull(cache.readInts("cch-order", RouterTestUtils.createGridNetwork(10, 4712)));
+
+		TimeDependentCosts costs = new TimeDependentCosts();
+		FastAStarCCHFactory factory = new FastAStarCCHFactory(network, costs, 1, cache);
+		RouterTestUtils.assertSameCostsAsDijkstra(network, costs, factory.createPathCalculator(network, costs, costs));
+	}
+
+	private static class ScaledCosts extends TimeDependentCosts {
+		double factor;
+
+		ScaledCosts(double factor) {
+			this.factor = factor;
+		}
+
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			return this.factor * super.getLinkTravelTime(link, time, person, vehicle);
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastAStarCHTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.router.RouterTestUtils.TimeDependentCosts;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.FastAStarCHFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+
+public class FastAStarCHTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		return new FastAStarCHFactory(network, travelTimeCostCalculator).createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	public void testSameCostsAsDijkstraWithTimeDependentCosts() {
+		Network network = RouterTestUtils.createGridNetwork(15, 4711);
+		TimeDependentCosts costs = new TimeDependentCosts();
+		LeastCostPathCalculator router = new FastAStarCHFactory(network, costs).createPathCalculator(network, costs, costs);
+		int unreachable = RouterTestUtils.assertSameCostsAsDijkstra(network, costs, router);
+		assertTrue("some nodes should not be reachable", unreachable > 0);
+		assertTrue("most nodes should be reachable", unreachable < 250);
+	}
+
+}
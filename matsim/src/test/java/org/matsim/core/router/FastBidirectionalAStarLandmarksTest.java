@@ -0,0 +1,72 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastBidirectionalAStarLandmarksTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.router.RouterTestUtils.TimeDependentCosts;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.ArrayRoutingNetwork;
+import org.matsim.core.router.util.ArrayRoutingNetworkFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.PreProcessLandmarks;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+public class FastBidirectionalAStarLandmarksTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		return createRouter(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	public void testSameCostsAsDijkstraWithTimeDependentCosts() {
+		Network network = RouterTestUtils.createGridNetwork(15, 4711);
+		TimeDependentCosts costs = new FifoCosts();
+		RouterTestUtils.assertSameCostsAsDijkstra(network, costs, createRouter(network, costs, costs));
+	}
+
+	private static LeastCostPathCalculator createRouter(Network network, TravelDisutility travelCosts, TravelTime travelTimes) {
+		PreProcessLandmarks preProcessData = new PreProcessLandmarks(travelCosts);
+		preProcessData.run(network);
+		ArrayRoutingNetwork routingNetwork = new ArrayRoutingNetworkFactory(preProcessData).createRoutingNetwork(network);
+		return new FastBidirectionalAStarLandmarks(routingNetwork, preProcessData, travelCosts, travelTimes, 1,
+				new ArrayFastRouterDelegateFactory());
+	}
+
+	/**
+	 * Congestion which changes slowly over the day, so that leaving a link never gets cheaper by arriving later.  With the
+	 * steps of {@link TimeDependentCosts}, Dijkstra does not always find the least-cost path, which this router may find.
+	 */
+	private static class FifoCosts extends TimeDependentCosts {
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			double freespeedTravelTime = link.getLength() / link.getFreespeed();
+			int congestion = (link.getId().hashCode() & Integer.MAX_VALUE) % 4;
+			return freespeedTravelTime * (1 + congestion * (0.5 + 0.5 * Math.sin(2 * Math.PI * time / (24 * 3600))));
+		}
+	}
+
+}
@@ -0,0 +1,123 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastManyToManyDijkstraTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.RouterTestUtils.TimeDependentCosts;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.FastDijkstraFactory;
+import org.matsim.core.router.util.FastManyToManyDijkstraFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.ManyToManyPathCalculator;
+
+public class FastManyToManyDijkstraTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		return new FastManyToManyDijkstraFactory().createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	public void testSamePathsAsDijkstraFromOneToMany() {
+		Network network = RouterTestUtils.createGridNetwork(15, 4711);
+		TimeDependentCosts costs = new TimeDependentCosts();
+		LeastCostPathCalculator dijkstra = new FastDijkstraFactory().createPathCalculator(network, costs, costs);
+		ManyToManyPathCalculator router = (ManyToManyPathCalculator) new FastManyToManyDijkstraFactory().createPathCalculator(network, costs, costs);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random random = new Random(42);
+		for (int i = 0; i < 50; i++) {
+			Node from = nodes.get(random.nextInt(nodes.size()));
+			List<Node> toNodes = new ArrayList<>();
+			toNodes.add(from);
+			for (int j = 0; j < 20; j++) {
+				toNodes.add(nodes.get(random.nextInt(nodes.size())));
+			}
+			double time = random.nextInt(24 * 3600);
+			Map<Node, Path> paths = router.calcLeastCostPaths(from, toNodes, time, null, null);
+			for (Node to : toNodes) {
+				assertTrue(paths.containsKey(to));
+				assertSamePath(dijkstra.calcLeastCostPath(from, to, time, null, null), paths.get(to));
+			}
+			// single queries still work in between
+			Node to = toNodes.get(toNodes.size() - 1);
+			assertSamePath(dijkstra.calcLeastCostPath(from, to, time, null, null), router.calcLeastCostPath(from, to, time, null, null));
+		}
+	}
+
+	public void testSamePathsAsDijkstraFromManyToMany() {
+		Network network = RouterTestUtils.createGridNetwork(10, 4711);
+		TimeDependentCosts costs = new TimeDependentCosts();
+		LeastCostPathCalculator dijkstra = new FastDijkstraFactory().createPathCalculator(network, costs, costs);
+		ManyToManyPathCalculator router = (ManyToManyPathCalculator) new FastManyToManyDijkstraFactory().createPathCalculator(network, costs, costs);
+
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		List<Node> fromNodes = nodes.subList(0, 10);
+		List<Node> toNodes = nodes.subList(nodes.size() - 30, nodes.size());
+		Map<Node, Map<Node, Path>> paths = router.calcLeastCostPaths(fromNodes, toNodes, 8 * 3600, null, null);
+		assertEquals(fromNodes.size(), paths.size());
+		for (Node from : fromNodes) {
+			assertEquals(toNodes.size(), paths.get(from).size());
+			for (Node to : toNodes) {
+				assertSamePath(dijkstra.calcLeastCostPath(from, to, 8 * 3600, null, null), paths.get(from).get(to));
+			}
+		}
+	}
+
+	public void testUnreachableToNode() {
+		Network network = RouterTestUtils.createGridNetwork(5, 4711);
+		Node isolated = NetworkUtils.createAndAddNode(network, Id.create("isolated", Node.class), new Coord(-1000.0, -1000.0));
+		TimeDependentCosts costs = new TimeDependentCosts();
+		LeastCostPathCalculator dijkstra = new FastDijkstraFactory().createPathCalculator(network, costs, costs);
+		ManyToManyPathCalculator router = (ManyToManyPathCalculator) new FastManyToManyDijkstraFactory().createPathCalculator(network, costs, costs);
+
+		Node from = network.getNodes().get(Id.create("0_0", Node.class));
+		Node to = network.getNodes().get(Id.create("4_4", Node.class));
+		Map<Node, Path> paths = router.calcLeastCostPaths(from, Arrays.asList(isolated, to), 0, null, null);
+		assertEquals(2, paths.size());
+		assertNull(paths.get(isolated));
+		assertSamePath(dijkstra.calcLeastCostPath(from, to, 0, null, null), paths.get(to));
+	}
+
+	private static void assertSamePath(Path expected, Path path) {
+		if (expected == null) {
+			assertNull(path);
+		} else {
+			assertEquals(expected.travelCost, path.travelCost, 1e-6);
+			assertEquals(expected.travelTime, path.travelTime, 1e-6);
+			assertEquals(expected.nodes, path.nodes);
+			assertEquals(expected.links, path.links);
+		}
+	}
+
+}
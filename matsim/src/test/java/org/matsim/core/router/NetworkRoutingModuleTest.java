@@ -19,6 +19,7 @@
 
 package org.matsim.core.router;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Assert;
@@ -40,6 +41,7 @@ import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
 import org.matsim.core.router.costcalculators.RandomizingTimeDistanceTravelDisutilityFactory;
+import org.matsim.core.router.util.FastManyToManyDijkstraFactory;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
@@ -139,6 +141,51 @@ public class NetworkRoutingModuleTest {
 		}
 	}
 
+	@Test
+	public void testCalcRoutes() {
+		Fixture f = new Fixture();
+		FreespeedTravelTimeAndDisutility freespeed = new FreespeedTravelTimeAndDisutility(-6.0/3600, +6.0/3600, 0.0);
+		LeastCostPathCalculator routeAlgo = new FastManyToManyDijkstraFactory().createPathCalculator(f.s.getNetwork(), freespeed, freespeed);
+
+		Person person = PopulationUtils.getFactory().createPerson(Id.create(1, Person.class));
+		Activity fromAct = PopulationUtils.createActivityFromCoord("h", new Coord(0, 0));
+		fromAct.setLinkId(Id.create("1", Link.class));
+		List<Facility<?>> toFacilities = Arrays.<Facility<?>>asList(
+				createFacility("3"), createFacility("1"), createFacility("2"), createFacility("3"));
+
+		final NetworkRoutingModule routingModule = new NetworkRoutingModule(
+		            TransportMode.car,
+		            f.s.getPopulation().getFactory(),
+		            f.s.getNetwork(),
+		            routeAlgo);
+		TripRouter tripRouter = new TripRouter();
+		tripRouter.setRoutingModule(TransportMode.car, routingModule);
+		Facility fromFacility = new ActivityWrapperFacility( fromAct ) ;
+		List<List<? extends PlanElement>> results = tripRouter.calcRoutes(TransportMode.car, fromFacility, toFacilities, 7.0*3600, person) ;
+		Assert.assertEquals(toFacilities.size(), results.size());
+
+		double[] expectedTravelTimes = {100.0, 0.0, 0.0, 100.0};
+		for (int i = 0; i < toFacilities.size(); i++) {
+			Assert.assertEquals(1, results.get(i).size() );
+			Leg leg = (Leg) results.get(i).get(0) ;
+			Leg expected = (Leg) routingModule.calcRoute(fromFacility, toFacilities.get(i), 7.0*3600, person).get(0);
+			Assert.assertEquals(expectedTravelTimes[i], leg.getTravelTime(), 1e-8);
+			Assert.assertEquals(7.0*3600, leg.getDepartureTime(), 1e-8);
+			NetworkRoute route = (NetworkRoute) leg.getRoute();
+			NetworkRoute expectedRoute = (NetworkRoute) expected.getRoute();
+			Assert.assertEquals(expectedRoute.getStartLinkId(), route.getStartLinkId());
+			Assert.assertEquals(expectedRoute.getLinkIds(), route.getLinkIds());
+			Assert.assertEquals(expectedRoute.getEndLinkId(), route.getEndLinkId());
+			Assert.assertEquals(expectedRoute.getTravelCost(), route.getTravelCost(), 1e-8);
+			Assert.assertEquals(expectedRoute.getDistance(), route.getDistance(), 1e-8);
+		}
+	}
+
+	private static Facility<?> createFacility(String linkId) {
+		Activity act = PopulationUtils.createActivityFromLinkId("w", Id.create(linkId, Link.class));
+		return new ActivityWrapperFacility( act ) ;
+	}
+
 	private static class Fixture {
 		public final Scenario s = ScenarioUtils.createScenario(ConfigUtils.createConfig());
 
@@ -0,0 +1,148 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * RouterTestUtils.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.util.FastDijkstraFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * A random grid network with time-dependent costs, on which the routers which speed up the search with preprocessed
+ * data are compared to Dijkstra.
+ */
+/*package*/ final class RouterTestUtils {
+
+	private RouterTestUtils() {
+	}
+
+	/**
+	 * A grid with links of random length and speed in both directions, except for some one-way links, and one node
+	 * which can only be left.
+	 */
+	/*package*/ static Network createGridNetwork(final int size, final long seed) {
+		Random random = new Random(seed);
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.create(x + "_" + y, Node.class), new Coord(x * 1000.0, y * 1000.0));
+			}
+		}
+		int linkCount = 0;
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				for (int dir = 0; dir < 2; dir++) {
+					int toX = dir == 0 ? x + 1 : x;
+					int toY = dir == 0 ? y : y + 1;
+					if (toX >= size || toY >= size) {
+						continue;
+					}
+					Node a = nodes[x][y];
+					Node b = nodes[toX][toY];
+					double length = 1000.0 + random.nextInt(1000);
+					double freespeed = 5.0 + random.nextInt(30);
+					boolean oneWay = random.nextInt(5) == 0;
+					if (x == 0 && y == 0) {
+						NetworkUtils.createAndAddLink(network, Id.create(linkCount++, Link.class), a, b, length, freespeed, 2000.0, 1.0);
+						continue;
+					}
+					if (!oneWay || random.nextBoolean()) {
+						NetworkUtils.createAndAddLink(network, Id.create(linkCount++, Link.class), a, b, length, freespeed, 2000.0, 1.0);
+					}
+					if (!oneWay || random.nextBoolean()) {
+						NetworkUtils.createAndAddLink(network, Id.create(linkCount++, Link.class), b, a, length, freespeed, 2000.0, 1.0);
+					}
+				}
+			}
+		}
+		return network;
+	}
+
+	/**
+	 * Compares the paths of the router between 500 random pairs of nodes at random times to those of Dijkstra.
+	 *
+	 * @return the number of pairs without a path
+	 */
+	/*package*/ static int assertSameCostsAsDijkstra(final Network network, final TimeDependentCosts costs,
+			final LeastCostPathCalculator router) {
+		LeastCostPathCalculator dijkstra = new FastDijkstraFactory().createPathCalculator(network, costs, costs);
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		Random random = new Random(42);
+		int unreachable = 0;
+		for (int i = 0; i < 500; i++) {
+			Node from = nodes.get(random.nextInt(nodes.size()));
+			Node to = nodes.get(random.nextInt(nodes.size()));
+			double time = random.nextInt(24 * 3600);
+			Path expected = dijkstra.calcLeastCostPath(from, to, time, null, null);
+			Path path = router.calcLeastCostPath(from, to, time, null, null);
+			if (expected == null) {
+				Assert.assertNull(path);
+				unreachable++;
+			} else {
+				Assert.assertEquals(expected.travelCost, path.travelCost, 1e-6);
+				Assert.assertEquals(expected.travelTime, path.travelTime, 1e-6);
+				Assert.assertEquals(from, path.nodes.get(0));
+				Assert.assertEquals(to, path.nodes.get(path.nodes.size() - 1));
+			}
+		}
+		return unreachable;
+	}
+
+	/**
+	 * Free speed travel times, with congestion depending on the link and the time of day, so that the costs are never
+	 * below the minimal ones.
+	 */
+	/*package*/ static class TimeDependentCosts implements TravelTime, TravelDisutility {
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			double freespeedTravelTime = link.getLength() / link.getFreespeed();
+			int hour = (int) (time / 3600) % 24;
+			int congestion = ((link.getId().hashCode() & Integer.MAX_VALUE) + hour) % 4;
+			return freespeedTravelTime * (1 + congestion);
+		}
+
+		@Override
+		public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+			return getLinkTravelTime(link, time, person, vehicle);
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(Link link) {
+			return link.getLength() / link.getFreespeed();
+		}
+	}
+
+}
@@ -43,9 +43,12 @@ import org.matsim.core.router.costcalculators.TravelDisutilityFactory;
 import org.matsim.core.router.util.AStarEuclideanFactory;
 import org.matsim.core.router.util.AStarLandmarksFactory;
 import org.matsim.core.router.util.DijkstraFactory;
+import org.matsim.core.router.util.FastAStarCCHFactory;
+import org.matsim.core.router.util.FastAStarCHFactory;
 import org.matsim.core.router.util.FastAStarEuclideanFactory;
 import org.matsim.core.router.util.FastAStarLandmarksFactory;
 import org.matsim.core.router.util.FastDijkstraFactory;
+import org.matsim.core.router.util.FastManyToManyDijkstraFactory;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.PreProcessDijkstra;
 import org.matsim.core.router.util.TravelDisutility;
@@ -172,6 +175,48 @@ public class RoutingTest  {
 		});
 	}
 
+	@Test
+	public void testFastAStarCH() {
+		doTest(new RouterProvider() {
+			@Override
+			public String getName() {
+				return "FastAStarCH";
+			}
+			@Override
+			public LeastCostPathCalculatorFactory getFactory(final Network network, final TravelDisutility costCalc, final TravelTime timeCalc) {
+				return new FastAStarCHFactory(network, costCalc);
+			}
+		});
+	}
+
+	@Test
+	public void testFastAStarCCH() {
+		doTest(new RouterProvider() {
+			@Override
+			public String getName() {
+				return "FastAStarCCH";
+			}
+			@Override
+			public LeastCostPathCalculatorFactory getFactory(final Network network, final TravelDisutility costCalc, final TravelTime timeCalc) {
+				return new FastAStarCCHFactory(network, costCalc, 1, null);
+			}
+		});
+	}
+
+	@Test
+	public void testFastManyToManyDijkstra() {
+		doTest(new RouterProvider() {
+			@Override
+			public String getName() {
+				return "FastManyToManyDijkstra";
+			}
+			@Override
+			public LeastCostPathCalculatorFactory getFactory(final Network network, final TravelDisutility costCalc, final TravelTime timeCalc) {
+				return new FastManyToManyDijkstraFactory();
+			}
+		});
+	}
+
 	private void doTest(final RouterProvider provider) {
 //		final Config config = loadConfig("test/input/" + this.getClass().getCanonicalName().replace('.', '/') + "/config.xml");
 		final Config config = ConfigUtils.loadConfig( utils.getClassInputDirectory() + "/config.xml" );
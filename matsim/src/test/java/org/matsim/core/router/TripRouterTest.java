@@ -23,6 +23,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Test;
@@ -35,6 +36,7 @@ import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.Facility;
 import org.matsim.utils.objectattributes.attributable.Attributes;
 
 /**
@@ -163,6 +165,13 @@ public class TripRouterTest {
 				TripRouter.insertTrip( plan , o , trip , d ) );
 	}
 
+	@Test( expected = TripRouter.UnknownModeException.class )
+	public void testCalcRoutesWithUnknownModeAndNoDestinations() {
+		Activity o = PopulationUtils.createActivityFromLinkId( "h", Id.create( "l", Link.class ) );
+		List<Facility<?>> toFacilities = Collections.emptyList();
+		new TripRouter().calcRoutes( "unknown mode", new ActivityWrapperFacility( o ), toFacilities, 0, null );
+	}
+
 	private static class EqualsActivity implements Activity {
 		Activity delegate ;
 		@Override
@@ -24,6 +24,10 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -37,7 +41,9 @@ import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleAbortsEvent;
 import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
@@ -50,6 +56,7 @@ import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
 import org.matsim.core.events.EventsManagerImpl;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.ParallelEventsManagerImpl;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.network.io.MatsimNetworkReader;
 import org.matsim.core.scenario.MutableScenario;
@@ -323,6 +330,92 @@ public class TravelTimeCalculatorTest extends MatsimTestCase {
 		assertEquals("wrong link travel time at 06:15.", 359.9712023038157, ttCalc.getLinkTravelTimes().getLinkTravelTime(link10, 6.25 * 3600, null, null), EPSILON);
 	}
 
+	/**
+	 * With parallel events handling, the calculator is split into partitions for several threads, which must together
+	 * calculate the same travel times as the calculator on its own.
+	 */
+	public void testPartitionedByParallelEventsHandling() {
+		assertPartitionedTravelTimes(false);
+	}
+
+	/**
+	 * A vehicle aborting on a link must only count as stuck on that link, although the partitions of the links it
+	 * drove on before have seen it, too.
+	 */
+	public void testPartitionedByParallelEventsHandling_abortMidRoute() {
+		assertPartitionedTravelTimes(true);
+	}
+
+	private static void assertPartitionedTravelTimes(final boolean abortSomeVehicles) {
+		Network network = NetworkUtils.createNetwork();
+		Node previousNode = network.getFactory().createNode(Id.create(0, Node.class), new Coord(0, 0));
+		network.addNode(previousNode);
+		List<Id<Link>> linkIds = new ArrayList<>();
+		for (int i = 1; i <= 20; i++) {
+			Node node = network.getFactory().createNode(Id.create(i, Node.class), new Coord(i * 1000, 0));
+			network.addNode(node);
+			Link link = network.getFactory().createLink(Id.create("p" + i, Link.class), previousNode, node);
+			network.addLink(link);
+			linkIds.add(link.getId());
+			previousNode = node;
+		}
+
+		// every vehicle drives along a part of the links, twice a day
+		List<Event> events = new ArrayList<>();
+		for (int v = 0; v < 100; v++) {
+			Id<Vehicle> vehicleId = Id.create("p" + v, Vehicle.class);
+			for (int trip = 0; trip < 2; trip++) {
+				double time = 6 * 3600 + trip * 10 * 3600 + v * 60;
+				int first = v % 10;
+				boolean abort = abortSomeVehicles && trip == 1 && v % 7 == 0;
+				int last = abort ? first + 5 : first + 10;
+				events.add(new VehicleEntersTrafficEvent(time, Id.create(v, Person.class), linkIds.get(first), vehicleId, TransportMode.car, 1.0));
+				for (int l = first; l < last; l++) {
+					time += 30 + (v * l) % 50;
+					events.add(new LinkLeaveEvent(time, vehicleId, linkIds.get(l)));
+					events.add(new LinkEnterEvent(time, vehicleId, linkIds.get(l + 1)));
+				}
+				if (abort) {
+					events.add(new VehicleAbortsEvent(time + 20, vehicleId, linkIds.get(last)));
+				} else {
+					events.add(new VehicleLeavesTrafficEvent(time + 20, Id.create(v, Person.class), linkIds.get(last), vehicleId, TransportMode.car, 1.0));
+				}
+			}
+		}
+		Collections.sort(events, new Comparator<Event>() {
+			@Override
+			public int compare(Event e1, Event e2) {
+				return Double.compare(e1.getTime(), e2.getTime());
+			}
+		});
+
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		TravelTimeCalculator serialCalc = new TravelTimeCalculator(network, config);
+		EventsManager serialEvents = EventsUtils.createEventsManager();
+		serialEvents.addHandler(serialCalc);
+		TravelTimeCalculator partitionedCalc = new TravelTimeCalculator(network, config);
+		if (abortSomeVehicles) {
+			// counts stuck vehicles as infinite travel times, so a stuck vehicle on a wrong link is noticed
+			serialCalc.setTravelTimeAggregator(new PessimisticTravelTimeAggregator(serialCalc.numSlots, serialCalc.timeSlice));
+			partitionedCalc.setTravelTimeAggregator(new PessimisticTravelTimeAggregator(partitionedCalc.numSlots, partitionedCalc.timeSlice));
+		}
+		ParallelEventsManagerImpl parallelEvents = new ParallelEventsManagerImpl(3);
+		parallelEvents.addHandler(partitionedCalc);
+		parallelEvents.initProcessing();
+		for (Event event : events) {
+			serialEvents.processEvent(event);
+			parallelEvents.processEvent(event);
+		}
+		parallelEvents.finishProcessing();
+
+		for (Id<Link> linkId : linkIds) {
+			for (int time = 0; time < 30 * 3600; time += 300) {
+				assertEquals("wrong travel time on link " + linkId + " at " + time,
+						serialCalc.getLinkTravelTime(linkId, time), partitionedCalc.getLinkTravelTime(linkId, time), EPSILON);
+			}
+		}
+	}
+
 	/**
 	 * @author mrieser / senozon
 	 */
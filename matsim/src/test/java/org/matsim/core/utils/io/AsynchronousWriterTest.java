@@ -0,0 +1,116 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AsynchronousWriterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsynchronousWriterTest {
+
+	@Test
+	public void testWritesEverythingInOrder() throws IOException {
+		StringWriter target = new StringWriter();
+		StringBuilder expected = new StringBuilder();
+		Writer writer = new AsynchronousWriter(target, "test");
+		for (int i = 0; i < 100000; i++) {
+			String line = "line " + i + "\n";
+			expected.append(line);
+			if (i % 3 == 0) {
+				writer.write(line.toCharArray());
+			} else {
+				writer.write(line);
+			}
+			if (i % 10000 == 0) {
+				writer.flush();
+			}
+		}
+		writer.write('!');
+		expected.append('!');
+		writer.close();
+		Assert.assertEquals(expected.toString(), target.toString());
+	}
+
+	@Test
+	public void testErrorOfThreadIsThrown() throws IOException {
+		Writer failing = new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) throws IOException {
+				throw new IOException("disk full");
+			}
+			@Override
+			public void flush() {
+			}
+			@Override
+			public void close() {
+			}
+		};
+		Writer writer = new AsynchronousWriter(failing, "test");
+		try {
+			for (int i = 0; i < 10000000; i++) {
+				writer.write("some more data\n");
+			}
+			writer.close();
+			Assert.fail("the error of the thread should be thrown");
+		} catch (IOException e) {
+			Assert.assertEquals("disk full", e.getMessage());
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void testEndOfThreadIsThrown() throws IOException {
+		Writer dying = new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) {
+				throw new Error("thread dies");
+			}
+			@Override
+			public void flush() {
+			}
+			@Override
+			public void close() {
+			}
+		};
+		// the dying thread must not reach a handler which other tests may have left behind
+		Thread.UncaughtExceptionHandler previousHandler = Thread.getDefaultUncaughtExceptionHandler();
+		Thread.setDefaultUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+			@Override
+			public void uncaughtException(Thread t, Throwable e) {
+			}
+		});
+		try {
+			Writer writer = new AsynchronousWriter(dying, "test");
+			for (int i = 0; i < 10000000; i++) {
+				writer.write("some more data\n");
+			}
+			writer.close();
+			Assert.fail("the end of the thread should be thrown");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("ended unexpectedly"));
+		} finally {
+			Thread.setDefaultUncaughtExceptionHandler(previousHandler);
+		}
+	}
+
+}
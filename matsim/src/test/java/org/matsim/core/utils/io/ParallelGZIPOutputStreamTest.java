@@ -0,0 +1,121 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelGZIPOutputStreamTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2017 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ParallelGZIPOutputStreamTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testReadableByGZIPInputStream() throws IOException {
+		byte[] data = createData(1000000);
+
+		ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+		OutputStream stream = new ParallelGZIPOutputStream(parallel, 3);
+		// write in pieces of different sizes, including single bytes
+		Random random = new Random(4711);
+		int pos = 0;
+		while (pos < data.length) {
+			if (random.nextInt(10) == 0) {
+				stream.write(data[pos++]);
+			} else {
+				int len = Math.min(data.length - pos, random.nextInt(300000));
+				stream.write(data, pos, len);
+				pos += len;
+			}
+			stream.flush();
+		}
+		stream.close();
+		Assert.assertArrayEquals(data, decompress(parallel.toByteArray()));
+
+		ByteArrayOutputStream serial = new ByteArrayOutputStream();
+		GZIPOutputStream gzip = new GZIPOutputStream(serial);
+		gzip.write(data);
+		gzip.close();
+		Assert.assertTrue("the compression ratio should be close to the one of GZIPOutputStream",
+				parallel.size() < serial.size() * 1.05);
+	}
+
+	@Test
+	public void testEmptyStream() throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		new ParallelGZIPOutputStream(compressed, 2).close();
+		Assert.assertEquals(0, decompress(compressed.toByteArray()).length);
+	}
+
+	@Test
+	public void testBufferedWriterOfIOUtils() throws IOException {
+		String filename = this.utils.getOutputDirectory() + "test.txt.gz";
+		IOUtils.setNumberOfCompressionThreads(4);
+		try {
+			BufferedWriter writer = IOUtils.getBufferedWriter(filename);
+			for (int i = 0; i < 100000; i++) {
+				writer.write("line " + i + "\n");
+			}
+			writer.close();
+		} finally {
+			IOUtils.setNumberOfCompressionThreads(1);
+		}
+		BufferedReader reader = IOUtils.getBufferedReader(filename);
+		for (int i = 0; i < 100000; i++) {
+			Assert.assertEquals("line " + i, reader.readLine());
+		}
+		Assert.assertNull(reader.readLine());
+		reader.close();
+	}
+
+	private static byte[] createData(int size) {
+		Random random = new Random(42);
+		String[] words = { "<event ", "time=\"", "type=\"entered link\" ", "vehicle=\"", "link=\"", " />\n" };
+		ByteArrayOutputStream data = new ByteArrayOutputStream(size);
+		while (data.size() < size) {
+			byte[] word = words[random.nextInt(words.length)].getBytes();
+			data.write(word, 0, word.length);
+			byte[] number = Integer.toString(random.nextInt(100000)).getBytes();
+			data.write(number, 0, number.length);
+		}
+		return data.toByteArray();
+	}
+
+	private static byte[] decompress(byte[] compressed) throws IOException {
+		GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		IOUtils.copyStream(in, out);
+		in.close();
+		return out.toByteArray();
+	}
+
+}